@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# Mide el tiempo hasta el primer pedido servido por una instancia recién lanzada, en cada modo de arranque
+# (jar, extraído, CDS, AOT+CDS y AOT+CDS con inicialización perezosa). Requiere PostgreSQL (perfil dev).
+# Uso: scripts/benchmark-arranque.sh [repeticiones] [modos separados por comas]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+REPETICIONES="${1:-5}"
+MODOS="${2:-jar,extraido,cds,aot-cds,aot-cds-perezoso}"
+PERFILES="${PERFILES:-dev}"
+
+# El procesado AOT fija los beans condicionados por perfil: se construye con los mismos perfiles que se miden
+./mvnw -B -q -Paot -DskipTests -Daot.perfiles="$PERFILES" package
+
+./mvnw -B -q -Pcarga test-compile exec:java \
+  -Dcarga.principal=com.example.ecommerce.carga.BenchmarkArranque \
+  -Dcarga.perfiles="$PERFILES" \
+  -Dcarga.repeticiones="$REPETICIONES" \
+  -Dcarga.modos="$MODOS"
+
+echo "Resultados en target/carga/arranque.json"
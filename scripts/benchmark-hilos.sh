@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Compara el modo de hilos de plataforma con el de hilos virtuales.
+# Arranca la aplicación (perfil dev, requiere PostgreSQL), lanza BenchmarkHilos y la detiene, una vez por modo.
+# Requiere JDK 21+. Uso: scripts/benchmark-hilos.sh [concurrencia] [duracion ISO-8601]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+CONCURRENCIA="${1:-200}"
+DURACION="${2:-PT30S}"
+PUERTO="${PUERTO:-8080}"
+
+./mvnw -B -q -Pjava21 -DskipTests package
+JAR="$(ls target/*.jar | grep -v plain | head -n 1)"
+
+medir() {
+  local etiqueta="$1" perfiles="$2"
+  java -jar "$JAR" --spring.profiles.active="$perfiles" --server.port="$PUERTO" > "target/app-$etiqueta.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+  until curl -sf "http://localhost:$PUERTO/actuator/health" > /dev/null; do sleep 1; done
+
+  ./mvnw -B -q -Pcarga,java21 test-compile exec:java \
+    -Dcarga.principal=com.example.ecommerce.carga.BenchmarkHilos \
+    -Dcarga.url="http://localhost:$PUERTO" \
+    -Dcarga.concurrencia="$CONCURRENCIA" \
+    -Dcarga.duracion="$DURACION" \
+    -Dcarga.etiqueta="$etiqueta"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+medir plataforma dev
+medir virtual dev,virtual
+
+echo "Resultados en target/carga/hilos-plataforma.json y target/carga/hilos-virtual.json"
@@ -0,0 +1,228 @@
+package com.example.ecommerce.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el tiempo que tarda una instancia nueva en servir su primer pedido, tal como lo vería el autoescalado:
+ * desde que se lanza el proceso hasta el primer {@code 201} de {@code POST /api/pedidos}
+ * (login, consulta de un producto y creación del pedido), además del momento en que {@code /actuator/health}
+ * responde {@code UP}.
+ * <p>
+ * Cada modo se arranca {@code carga.repeticiones} veces como proceso independiente y se informa la mediana:
+ * <ul>
+ *   <li>{@code jar}: el jar ejecutable tal cual (línea base)</li>
+ *   <li>{@code extraido}: el jar descomprimido por el perfil Maven 'aot', sin archivo CDS</li>
+ *   <li>{@code cds}: extraído y con el archivo CDS</li>
+ *   <li>{@code aot-cds}: además, con el código generado por el procesado AOT de Spring</li>
+ *   <li>{@code aot-cds-perezoso}: además, con el perfil 'arranque-rapido' (inicialización perezosa)</li>
+ * </ul>
+ * Parámetros (propiedades del sistema):
+ * <ul>
+ *   <li>{@code carga.modos} separados por comas (todos)</li>
+ *   <li>{@code carga.perfiles} perfiles de Spring; deben coincidir con los del procesado AOT (dev)</li>
+ *   <li>{@code carga.repeticiones} arranques por modo (5)</li>
+ *   <li>{@code carga.puerto} puerto de la instancia medida (18080)</li>
+ *   <li>{@code carga.usuario} / {@code carga.contrasena} (admin / adminpass)</li>
+ *   <li>{@code carga.limite} tiempo máximo por arranque, formato ISO-8601 (PT2M)</li>
+ * </ul>
+ */
+public final class BenchmarkArranque {
+
+    private static final String ARTEFACTO = "ecommerce-0.0.1-SNAPSHOT.jar";
+    private static final Path JAR = Path.of("target", ARTEFACTO);
+    private static final Path DIRECTORIO_AOT = Path.of("target", "aplicacion");
+    private static final Path ARCHIVO_CDS = DIRECTORIO_AOT.resolve("aplicacion.jsa");
+    private static final List<String> MODOS = List.of("jar", "extraido", "cds", "aot-cds", "aot-cds-perezoso");
+    private static final long ESPERA_ENTRE_INTENTOS_MS = 20;
+
+    private final String perfiles;
+    private final int puerto;
+    private final String usuario;
+    private final String contrasena;
+    private final Duration limite;
+
+    private BenchmarkArranque(String perfiles, int puerto, String usuario, String contrasena, Duration limite) {
+        this.perfiles = perfiles;
+        this.puerto = puerto;
+        this.usuario = usuario;
+        this.contrasena = contrasena;
+        this.limite = limite;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> modos = Arrays.asList(System.getProperty("carga.modos", String.join(",", MODOS)).split(","));
+        int repeticiones = Integer.getInteger("carga.repeticiones", 5);
+        BenchmarkArranque benchmark = new BenchmarkArranque(
+                System.getProperty("carga.perfiles", "dev"),
+                Integer.getInteger("carga.puerto", 18080),
+                System.getProperty("carga.usuario", "admin"),
+                System.getProperty("carga.contrasena", "adminpass"),
+                Duration.parse(System.getProperty("carga.limite", "PT2M")));
+
+        List<Map<String, Object>> resultados = new ArrayList<>();
+        for (String modo : modos) {
+            if (!MODOS.contains(modo)) {
+                throw new IllegalArgumentException("Modo desconocido: " + modo + " (válidos: " + MODOS + ")");
+            }
+            long[] listo = new long[repeticiones];
+            long[] primerPedido = new long[repeticiones];
+            for (int i = 0; i < repeticiones; i++) {
+                Medicion medicion = benchmark.medir(modo, i);
+                listo[i] = medicion.listoMs();
+                primerPedido[i] = medicion.primerPedidoMs();
+                System.out.printf("%-17s #%d  listo=%5d ms  primer pedido=%5d ms%n",
+                        modo, i + 1, medicion.listoMs(), medicion.primerPedidoMs());
+            }
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            resultado.put("modo", modo);
+            resultado.put("listoMedianaMs", mediana(listo));
+            resultado.put("primerPedidoMedianaMs", mediana(primerPedido));
+            resultado.put("primerPedidoMinimoMs", Arrays.stream(primerPedido).min().orElse(0));
+            resultado.put("primerPedidoMs", primerPedido);
+            resultados.add(resultado);
+        }
+
+        System.out.println("== Tiempo hasta el primer pedido (mediana de " + repeticiones + " arranques) ==");
+        resultados.forEach(r -> System.out.printf("%-17s listo=%5d ms  primer pedido=%5d ms%n",
+                r.get("modo"), (Long) r.get("listoMedianaMs"), (Long) r.get("primerPedidoMedianaMs")));
+        escribirInforme(benchmark, repeticiones, resultados);
+    }
+
+    /**
+     * Arranca una instancia en el modo indicado, espera a su primer pedido servido y la detiene.
+     */
+    private Medicion medir(String modo, int repeticion) throws Exception {
+        Path registro = Path.of("target", "carga", "arranque-" + modo + "-" + (repeticion + 1) + ".log");
+        Files.createDirectories(registro.getParent());
+        ProcessBuilder builder = new ProcessBuilder(comando(modo))
+                .redirectErrorStream(true)
+                .redirectOutput(registro.toFile());
+
+        long inicio = System.nanoTime();
+        Process proceso = builder.start();
+        try {
+            long fin = inicio + limite.toNanos();
+            ClienteApi cliente = new ClienteApi("http://localhost:" + puerto);
+
+            esperar(proceso, fin, () -> cliente.get("/actuator/health") == 200);
+            long listo = System.nanoTime();
+
+            cliente.autenticar(usuario, contrasena);
+            JsonNode pagina = cliente.getJson("/api/productos?page=0&size=1");
+            if (pagina.path("content").isEmpty()) {
+                throw new IllegalStateException("No hay productos: el perfil '" + perfiles + "' no carga datos de ejemplo");
+            }
+            Map<String, Object> pedido = Map.of(
+                    "usuarioId", cliente.getUsuarioId(),
+                    "detalles", List.of(Map.of("productoId", pagina.path("content").get(0).path("id").asLong(),
+                            "cantidad", 1)));
+            int codigo = cliente.post("/api/pedidos", pedido);
+            if (codigo != 201) {
+                throw new IllegalStateException("El primer pedido devolvió " + codigo + " (ver " + registro + ")");
+            }
+            long primerPedido = System.nanoTime();
+            return new Medicion(TimeUnit.NANOSECONDS.toMillis(listo - inicio),
+                    TimeUnit.NANOSECONDS.toMillis(primerPedido - inicio));
+        } finally {
+            proceso.destroy();
+            if (!proceso.waitFor(30, TimeUnit.SECONDS)) {
+                proceso.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private List<String> comando(String modo) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> comando = new ArrayList<>(List.of(java));
+        String perfilesModo = perfiles;
+        if (!modo.equals("jar") && !Files.exists(DIRECTORIO_AOT.resolve(ARTEFACTO))) {
+            throw new IllegalStateException("Falta " + DIRECTORIO_AOT + ": construir antes con 'mvn -Paot package'");
+        }
+        if (modo.startsWith("cds") || modo.startsWith("aot-cds")) {
+            comando.add("-XX:SharedArchiveFile=" + ARCHIVO_CDS);
+            comando.add("-Xlog:cds=off");
+        }
+        if (modo.startsWith("aot")) {
+            comando.add("-Dspring.aot.enabled=true");
+        }
+        if (modo.endsWith("perezoso")) {
+            perfilesModo += ",arranque-rapido";
+        }
+        comando.add("-jar");
+        comando.add((modo.equals("jar") ? JAR : DIRECTORIO_AOT.resolve(ARTEFACTO)).toString());
+        comando.add("--spring.profiles.active=" + perfilesModo);
+        comando.add("--server.port=" + puerto);
+        // El SQL por consola distorsiona los tiempos del perfil dev
+        comando.add("--spring.jpa.show-sql=false");
+        return comando;
+    }
+
+    /**
+     * Reintenta la comprobación hasta que se cumple; los rechazos de conexión son normales mientras arranca.
+     */
+    private void esperar(Process proceso, long fin, Comprobacion comprobacion) throws Exception {
+        while (true) {
+            if (!proceso.isAlive()) {
+                throw new IllegalStateException("La instancia terminó durante el arranque (código " + proceso.exitValue() + ")");
+            }
+            try {
+                if (comprobacion.cumplida()) {
+                    return;
+                }
+            } catch (ConnectException | HttpTimeoutException ex) {
+                // todavía no escucha
+            } catch (IOException ex) {
+                // conexión cerrada mientras se inicializa el servidor web
+            }
+            if (System.nanoTime() > fin) {
+                throw new IllegalStateException("La instancia no estuvo lista en " + limite);
+            }
+            Thread.sleep(ESPERA_ENTRE_INTENTOS_MS);
+        }
+    }
+
+    private static long mediana(long[] valores) {
+        long[] ordenados = valores.clone();
+        Arrays.sort(ordenados);
+        return ordenados[ordenados.length / 2];
+    }
+
+    private static void escribirInforme(BenchmarkArranque benchmark, int repeticiones,
+                                        List<Map<String, Object>> resultados) throws Exception {
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("fecha", Instant.now().toString());
+        informe.put("java", System.getProperty("java.version"));
+        informe.put("perfiles", benchmark.perfiles);
+        informe.put("repeticiones", repeticiones);
+        informe.put("modos", resultados);
+
+        Path destino = Path.of("target", "carga", "arranque.json");
+        Files.createDirectories(destino.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(destino.toFile(), informe);
+        System.out.println("Informe escrito en " + destino);
+    }
+
+    private record Medicion(long listoMs, long primerPedidoMs) {
+    }
+
+    @FunctionalInterface
+    private interface Comprobacion {
+        boolean cumplida() throws Exception;
+    }
+}
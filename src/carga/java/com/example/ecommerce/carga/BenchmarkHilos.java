@@ -0,0 +1,196 @@
+package com.example.ecommerce.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark comparativo de throughput y latencia para {@code GET /api/productos} y {@code POST /api/pedidos}.
+ * Se ejecuta contra una instancia ya arrancada, una vez por modo de hilos (plataforma / virtual),
+ * y los resultados se comparan con los JSON generados en {@code target/carga/}.
+ * <p>
+ * Con {@code carga.autenticacion=basic,bearer} repite las mismas fases autenticando cada petición con HTTP Basic
+ * y con el token de acceso. El informe da también las peticiones por segundo y núcleo del servidor de cada fase.
+ * <p>
+ * Parámetros (propiedades del sistema):
+ * <ul>
+ *   <li>{@code carga.url} (http://localhost:8080)</li>
+ *   <li>{@code carga.usuario} / {@code carga.contrasena} (admin / adminpass)</li>
+ *   <li>{@code carga.duracion} por fase, formato ISO-8601 (PT30S)</li>
+ *   <li>{@code carga.calentamiento} previo a cada fase, no medido (PT10S)</li>
+ *   <li>{@code carga.concurrencia} clientes simultáneos (200)</li>
+ *   <li>{@code carga.etiqueta} nombre del modo medido (plataforma)</li>
+ *   <li>{@code carga.autenticacion} mecanismos a medir, separados por comas: {@code bearer} y/o {@code basic}
+ *       (bearer)</li>
+ *   <li>{@code carga.nucleos} núcleos del servidor (por defecto, la métrica {@code system.cpu.count} de su
+ *       actuator)</li>
+ * </ul>
+ */
+public final class BenchmarkHilos {
+
+    private static final int STOCK_REPOSICION = 1_000_000;
+
+    private final ClienteApi cliente;
+    private final Duration duracion;
+    private final Duration calentamiento;
+    private final int concurrencia;
+    private List<Long> productos = new ArrayList<>();
+
+    private BenchmarkHilos(ClienteApi cliente, Duration duracion, Duration calentamiento, int concurrencia) {
+        this.cliente = cliente;
+        this.duracion = duracion;
+        this.calentamiento = calentamiento;
+        this.concurrencia = concurrencia;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String etiqueta = System.getProperty("carga.etiqueta", "plataforma");
+        String usuario = System.getProperty("carga.usuario", "admin");
+        String contrasena = System.getProperty("carga.contrasena", "adminpass");
+        ClienteApi cliente = new ClienteApi(System.getProperty("carga.url", "http://localhost:8080"));
+        cliente.autenticar(usuario, contrasena);
+
+        BenchmarkHilos benchmark = new BenchmarkHilos(cliente,
+                Duration.parse(System.getProperty("carga.duracion", "PT30S")),
+                Duration.parse(System.getProperty("carga.calentamiento", "PT10S")),
+                Integer.getInteger("carga.concurrencia", 200));
+        benchmark.prepararProductos();
+
+        List<String> mecanismos = List.of(System.getProperty("carga.autenticacion", "bearer").split(","));
+        List<RegistroLatencias.Resumen> resumenes = new ArrayList<>();
+        for (String mecanismo : mecanismos) {
+            ClienteApi sesion = switch (mecanismo.trim()) {
+                case "bearer" -> cliente;
+                case "basic" -> cliente.conHttpBasic(usuario, contrasena);
+                default -> throw new IllegalArgumentException("carga.autenticacion desconocida: " + mecanismo);
+            };
+            // Con un solo mecanismo las fases conservan su nombre, como en los informes anteriores
+            String sufijo = mecanismos.size() > 1 ? " [" + mecanismo.trim() + "]" : "";
+            resumenes.add(benchmark.fase("GET /api/productos" + sufijo,
+                    () -> sesion.get("/api/productos?page=0&size=20")));
+            resumenes.add(benchmark.fase("POST /api/pedidos" + sufijo,
+                    () -> sesion.post("/api/pedidos", benchmark.pedidoAleatorio())));
+        }
+
+        int nucleos = nucleosServidor(cliente);
+        System.out.println("== Modo: " + etiqueta + " (concurrencia " + benchmark.concurrencia
+                + ", " + nucleos + " núcleos en el servidor) ==");
+        resumenes.forEach(resumen -> System.out.printf("%s  rps/núcleo=%.1f%n", resumen,
+                resumen.peticionesPorSegundo() / nucleos));
+        escribirInforme(etiqueta, benchmark, nucleos, resumenes);
+    }
+
+    /**
+     * Núcleos del servidor medido, para normalizar el throughput: {@code carga.nucleos} o, si no se indica,
+     * los que informa su actuator.
+     */
+    private static int nucleosServidor(ClienteApi cliente) throws Exception {
+        Integer indicados = Integer.getInteger("carga.nucleos");
+        if (indicados != null) {
+            return indicados;
+        }
+        return cliente.getJson("/actuator/metrics/system.cpu.count").path("measurements").path(0).path("value")
+                .asInt();
+    }
+
+    /**
+     * Toma los productos existentes y les repone stock para que la fase de pedidos no se quede sin existencias.
+     */
+    private void prepararProductos() throws Exception {
+        JsonNode pagina = cliente.getJson("/api/productos?page=0&size=50");
+        pagina.path("content").forEach(p -> productos.add(p.path("id").asLong()));
+        if (productos.isEmpty()) {
+            throw new IllegalStateException("No hay productos: arranca la aplicación con datos de ejemplo (perfil dev)");
+        }
+        List<Map<String, Object>> ajustes = productos.stream()
+                .map(id -> Map.<String, Object>of("productoId", id, "delta", STOCK_REPOSICION))
+                .toList();
+        int codigo = cliente.post("/api/productos/stock/ajustes", Map.of("ajustes", ajustes));
+        if (codigo != 200) {
+            throw new IllegalStateException("No se pudo reponer stock (" + codigo + "). ¿El usuario es ADMIN?");
+        }
+    }
+
+    private Map<String, Object> pedidoAleatorio() {
+        Long productoId = productos.get(ThreadLocalRandom.current().nextInt(productos.size()));
+        return Map.of(
+                "usuarioId", cliente.getUsuarioId(),
+                "detalles", List.of(Map.of("productoId", productoId, "cantidad", 1)));
+    }
+
+    private RegistroLatencias.Resumen fase(String nombre, Operacion operacion) throws InterruptedException {
+        ejecutar(new RegistroLatencias(nombre), operacion, calentamiento);
+        RegistroLatencias registro = new RegistroLatencias(nombre);
+        long duracionReal = ejecutar(registro, operacion, duracion);
+        return registro.resumir(duracionReal);
+    }
+
+    /**
+     * Lanza {@code concurrencia} clientes en bucle cerrado durante el tiempo indicado.
+     * @return la duración real de la fase, en nanosegundos.
+     */
+    private long ejecutar(RegistroLatencias registro, Operacion operacion, Duration tiempo) throws InterruptedException {
+        ExecutorService clientes = Executors.newFixedThreadPool(concurrencia);
+        long inicio = System.nanoTime();
+        long fin = inicio + tiempo.toNanos();
+        for (int i = 0; i < concurrencia; i++) {
+            RegistroLatencias.Muestras muestras = registro.nuevasMuestras();
+            clientes.execute(() -> {
+                while (System.nanoTime() < fin) {
+                    long t0 = System.nanoTime();
+                    int codigo;
+                    try {
+                        codigo = operacion.ejecutar();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception ex) {
+                        codigo = -1; // error de red o timeout
+                    }
+                    muestras.registrar(System.nanoTime() - t0);
+                    registro.registrarCodigo(codigo);
+                }
+            });
+        }
+        clientes.shutdown();
+        clientes.awaitTermination(tiempo.toSeconds() + 60, TimeUnit.SECONDS);
+        return System.nanoTime() - inicio;
+    }
+
+    private static void escribirInforme(String etiqueta, BenchmarkHilos benchmark, int nucleos,
+                                        List<RegistroLatencias.Resumen> resumenes) throws Exception {
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("modo", etiqueta);
+        informe.put("fecha", Instant.now().toString());
+        informe.put("concurrencia", benchmark.concurrencia);
+        informe.put("duracionFaseSegundos", benchmark.duracion.toSeconds());
+        informe.put("nucleosServidor", nucleos);
+        informe.put("fases", resumenes);
+        Map<String, Double> porNucleo = new LinkedHashMap<>();
+        resumenes.forEach(resumen -> porNucleo.put(resumen.fase(), resumen.peticionesPorSegundo() / nucleos));
+        informe.put("peticionesPorSegundoYNucleo", porNucleo);
+
+        Path destino = Path.of("target", "carga", "hilos-" + etiqueta + ".json");
+        Files.createDirectories(destino.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(destino.toFile(), informe);
+        System.out.println("Informe escrito en " + destino);
+    }
+
+    @FunctionalInterface
+    private interface Operacion {
+        int ejecutar() throws Exception;
+    }
+}
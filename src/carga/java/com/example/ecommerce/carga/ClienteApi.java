@@ -0,0 +1,133 @@
+package com.example.ecommerce.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Cliente HTTP mínimo para las pruebas de carga.
+ * Se autentica una sola vez (el login pasa por BCrypt y por el limitador de intentos)
+ * y reutiliza el token de acceso en todas las peticiones; conHttpBasic() crea una sesión que envía en su lugar
+ * las credenciales por HTTP Basic, para comparar los dos mecanismos.
+ * Cada instancia es una sesión de un usuario; varias sesiones pueden compartir el mismo HttpClient.
+ */
+public class ClienteApi {
+
+    private final String urlBase;
+    private final HttpClient http;
+    private final ObjectMapper json = new ObjectMapper();
+    // Valor de la cabecera Authorization de las peticiones autenticadas
+    private String autorizacion;
+    private long usuarioId;
+
+    public ClienteApi(String urlBase) {
+        this(urlBase, HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build());
+    }
+
+    private ClienteApi(String urlBase, HttpClient http) {
+        this.urlBase = urlBase.endsWith("/") ? urlBase.substring(0, urlBase.length() - 1) : urlBase;
+        this.http = http;
+    }
+
+    /**
+     * Crea una sesión sin autenticar que comparte el HttpClient (y su pool de conexiones) con esta.
+     */
+    public ClienteApi nuevaSesion() {
+        return new ClienteApi(urlBase, http);
+    }
+
+    public void autenticar(String nombreUsuario, String contrasena) throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = enviar(peticion("/api/autenticacion/login", false)
+                .POST(cuerpo(Map.of("nombreUsuario", nombreUsuario, "contrasena", contrasena)))
+                .build());
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException("Login fallido (" + respuesta.statusCode() + "): " + respuesta.body());
+        }
+        String token = json.readTree(respuesta.body()).path("token").asText();
+        this.autorizacion = "Bearer " + token;
+        // El ID del usuario viaja en el claim 'uid' del token
+        String carga = token.split("\\.")[1];
+        this.usuarioId = json.readTree(Base64.getUrlDecoder().decode(carga)).path("uid").asLong();
+    }
+
+    /**
+     * Crea una sesión del mismo usuario que comparte el HttpClient con esta y se autentica en cada petición con
+     * HTTP Basic en lugar del token.
+     */
+    public ClienteApi conHttpBasic(String nombreUsuario, String contrasena) {
+        ClienteApi sesion = new ClienteApi(urlBase, http);
+        sesion.autorizacion = "Basic " + Base64.getEncoder()
+                .encodeToString((nombreUsuario + ":" + contrasena).getBytes(StandardCharsets.UTF_8));
+        sesion.usuarioId = usuarioId;
+        return sesion;
+    }
+
+    public long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public JsonNode getJson(String ruta) throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = enviar(peticion(ruta, true).GET().build());
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException("GET " + ruta + " devolvió " + respuesta.statusCode() + ": " + respuesta.body());
+        }
+        return json.readTree(respuesta.body());
+    }
+
+    /**
+     * Ejecuta un POST con cuerpo JSON y devuelve la respuesta; falla si el código no es 2xx.
+     */
+    public JsonNode postJson(String ruta, Object cuerpo) throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = enviar(peticion(ruta, true).POST(cuerpo(cuerpo)).build());
+        if (respuesta.statusCode() / 100 != 2) {
+            throw new IllegalStateException("POST " + ruta + " devolvió " + respuesta.statusCode() + ": " + respuesta.body());
+        }
+        return json.readTree(respuesta.body());
+    }
+
+    /**
+     * Ejecuta un GET y devuelve solo el código de estado (el cuerpo se descarta).
+     */
+    public int get(String ruta) throws IOException, InterruptedException {
+        return http.send(peticion(ruta, true).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Ejecuta un POST con cuerpo JSON y devuelve solo el código de estado.
+     */
+    public int post(String ruta, Object cuerpo) throws IOException, InterruptedException {
+        return http.send(peticion(ruta, true).POST(cuerpo(cuerpo)).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    private HttpRequest.Builder peticion(String ruta, boolean autenticada) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(urlBase + ruta))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        if (autenticada && autorizacion != null) {
+            builder.header("Authorization", autorizacion);
+        }
+        return builder;
+    }
+
+    private HttpRequest.BodyPublisher cuerpo(Object valor) throws IOException {
+        return HttpRequest.BodyPublishers.ofString(json.writeValueAsString(valor), StandardCharsets.UTF_8);
+    }
+
+    private HttpResponse<String> enviar(HttpRequest peticion) throws IOException, InterruptedException {
+        return http.send(peticion, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.ecommerce.carga;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Muestreo de índices 0..n-1 con distribución de Zipf: P(k) ∝ 1 / (k + 1)^s.
+ * Modela el sesgo de productos "calientes": con s ≈ 1 unos pocos productos concentran la mayoría de pedidos.
+ * La función de distribución acumulada se precalcula; cada muestra es una búsqueda binaria.
+ */
+public final class DistribucionZipf {
+
+    private final double[] acumulada;
+
+    public DistribucionZipf(int n, double exponente) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n debe ser positivo");
+        }
+        acumulada = new double[n];
+        double suma = 0;
+        for (int k = 0; k < n; k++) {
+            suma += 1.0 / Math.pow(k + 1, exponente);
+            acumulada[k] = suma;
+        }
+        for (int k = 0; k < n; k++) {
+            acumulada[k] /= suma;
+        }
+    }
+
+    public int muestrear(SplittableRandom aleatorio) {
+        int indice = Arrays.binarySearch(acumulada, aleatorio.nextDouble());
+        int resultado = indice >= 0 ? indice : -indice - 1;
+        return Math.min(resultado, acumulada.length - 1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ecommerce.carga;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Acumula latencias y códigos de estado de una fase de carga.
+ * Cada hilo trabajador escribe en su propio {@link Muestras} sin sincronización;
+ * el resumen se calcula al final, uniendo y ordenando todas las muestras.
+ */
+public class RegistroLatencias {
+
+    private final String nombre;
+    private final ConcurrentLinkedQueue<Muestras> porHilo = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, AtomicLong> codigos = new ConcurrentHashMap<>();
+
+    public RegistroLatencias(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public Muestras nuevasMuestras() {
+        Muestras muestras = new Muestras();
+        porHilo.add(muestras);
+        return muestras;
+    }
+
+    public void registrarCodigo(int codigo) {
+        codigos.computeIfAbsent(codigo, c -> new AtomicLong()).incrementAndGet();
+    }
+
+    public Resumen resumir(long duracionNanos) {
+        long[] todas = porHilo.stream().flatMapToLong(m -> Arrays.stream(m.valores, 0, m.tamano)).sorted().toArray();
+        Map<Integer, Long> porCodigo = new TreeMap<>();
+        codigos.forEach((codigo, total) -> porCodigo.put(codigo, total.get()));
+        long exitosas = porCodigo.entrySet().stream()
+                .filter(e -> e.getKey() >= 200 && e.getKey() < 300)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        return new Resumen(nombre, todas.length, exitosas, exitosas * 1e9 / duracionNanos,
+                percentilMs(todas, 0.50), percentilMs(todas, 0.99), percentilMs(todas, 1.0), porCodigo);
+    }
+
+    private static double percentilMs(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(indice, 0)] / 1_000_000.0;
+    }
+
+    /**
+     * Buffer de latencias (en nanosegundos) propiedad de un único hilo.
+     */
+    public static final class Muestras {
+        private long[] valores = new long[4096];
+        private int tamano;
+
+        public void registrar(long nanos) {
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, tamano * 2);
+            }
+            valores[tamano++] = nanos;
+        }
+    }
+
+    public record Resumen(String fase, long peticiones, long exitosas, double peticionesPorSegundo,
+                          double p50Ms, double p99Ms, double maxMs, Map<Integer, Long> codigos) {
+
+        @Override
+        public String toString() {
+            return String.format("%-18s peticiones=%-8d ok=%-8d rps=%-9.1f p50=%7.2f ms  p99=%7.2f ms  max=%7.2f ms  codigos=%s",
+                    fase, peticiones, exitosas, peticionesPorSegundo, p50Ms, p99Ms, maxMs, codigos);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.ecommerce.carga;
+
+import com.example.ecommerce.ECommerceApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Suite de carga de extremo a extremo.
+ * <ol>
+ *   <li>Arranca la aplicación en este mismo proceso (perfiles 'dev,carga') contra la base de datos configurada,
+ *       o usa una instancia ya arrancada si se indica {@code carga.url}.</li>
+ *   <li>Siembra productos y usuarios propios de la ejecución, con stock limitado.</li>
+ *   <li>Lanza una mezcla de navegación del catálogo, pedidos y consulta de historial, con los productos
+ *       elegidos según una distribución de Zipf (unos pocos productos concentran la demanda).</li>
+ *   <li>Comprueba la consistencia: ningún stock negativo, stock final = inicial - vendido y
+ *       tantos pedidos en el servidor como confirmó el cliente.</li>
+ *   <li>Escribe un informe JSON en {@code target/carga/suite-<etiqueta>.json}; la ejecución falla si
+ *       alguna comprobación no se cumple.</li>
+ * </ol>
+ * Parámetros (propiedades del sistema, con sus valores por defecto): carga.url, carga.perfiles (dev,carga),
+ * carga.productos (200), carga.usuarios (50), carga.stock-inicial (300), carga.zipf (1.1),
+ * carga.mezcla (60,25,15: navegar, pedir, historial), carga.concurrencia (100), carga.duracion (PT60S),
+ * carga.calentamiento (PT10S), carga.semilla (42), carga.etiqueta (local), carga.usuario / carga.contrasena
+ * (admin / adminpass). Las propiedades spring.* se pasan tal cual a la aplicación arrancada.
+ */
+public final class SuiteCarga {
+
+    private static final int TAMANO_PAGINA = 20;
+    private static final int LINEAS_MAXIMAS = 5;
+    private static final int CANTIDAD_MAXIMA = 3;
+    private static final String CONTRASENA_USUARIOS = "carga-contrasena";
+
+    private enum Operacion { NAVEGAR, PEDIR, HISTORIAL }
+
+    private final ClienteApi admin;
+    private final int numeroProductos;
+    private final int numeroUsuarios;
+    private final int stockInicial;
+    private final int concurrencia;
+    private final int[] mezcla;
+    private final Duration duracion;
+    private final Duration calentamiento;
+    private final DistribucionZipf zipfProductos;
+    private final DistribucionZipf zipfPaginas;
+    private final SplittableRandom semilla;
+    private final String idEjecucion = Long.toString(System.currentTimeMillis(), 36);
+
+    private final List<Long> productos = new ArrayList<>();
+    private final List<ClienteApi> sesiones = new ArrayList<>();
+    private AtomicLongArray vendidos;
+    private final AtomicLong pedidosCreados = new AtomicLong();
+    private final AtomicLong pedidosInciertos = new AtomicLong();
+    private final AtomicLong errores5xx = new AtomicLong();
+
+    private SuiteCarga(ClienteApi admin) {
+        this.admin = admin;
+        this.numeroProductos = Integer.getInteger("carga.productos", 200);
+        this.numeroUsuarios = Integer.getInteger("carga.usuarios", 50);
+        this.stockInicial = Integer.getInteger("carga.stock-inicial", 300);
+        this.concurrencia = Integer.getInteger("carga.concurrencia", 100);
+        this.duracion = Duration.parse(System.getProperty("carga.duracion", "PT60S"));
+        this.calentamiento = Duration.parse(System.getProperty("carga.calentamiento", "PT10S"));
+        this.semilla = new SplittableRandom(Long.getLong("carga.semilla", 42L));
+        double exponente = Double.parseDouble(System.getProperty("carga.zipf", "1.1"));
+        this.zipfProductos = new DistribucionZipf(numeroProductos, exponente);
+        this.zipfPaginas = new DistribucionZipf(Math.max(1, numeroProductos / TAMANO_PAGINA), exponente);
+
+        String[] partes = System.getProperty("carga.mezcla", "60,25,15").split(",");
+        this.mezcla = new int[partes.length];
+        int acumulado = 0;
+        for (int i = 0; i < partes.length; i++) {
+            acumulado += Integer.parseInt(partes[i].trim());
+            mezcla[i] = acumulado;
+        }
+        if (mezcla.length != Operacion.values().length) {
+            throw new IllegalArgumentException("carga.mezcla debe tener 3 pesos: navegar,pedir,historial");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("carga.url");
+        ConfigurableApplicationContext aplicacion = null;
+        if (url == null) {
+            aplicacion = arrancarAplicacion();
+            url = "http://localhost:" + ((WebServerApplicationContext) aplicacion).getWebServer().getPort();
+        }
+        try {
+            ClienteApi admin = new ClienteApi(url);
+            admin.autenticar(System.getProperty("carga.usuario", "admin"), System.getProperty("carga.contrasena", "adminpass"));
+            new SuiteCarga(admin).ejecutar(System.getProperty("carga.etiqueta", "local"));
+        } finally {
+            if (aplicacion != null) {
+                aplicacion.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext arrancarAplicacion() {
+        String perfiles = System.getProperty("carga.perfiles", "dev,carga");
+        System.out.println("Arrancando la aplicación con perfiles " + perfiles + "...");
+        return SpringApplication.run(ECommerceApplication.class,
+                "--spring.profiles.active=" + perfiles, "--server.port=0");
+    }
+
+    private void ejecutar(String etiqueta) throws Exception {
+        long inicioSiembra = System.nanoTime();
+        sembrarProductos();
+        sembrarUsuarios();
+        Duration siembra = Duration.ofNanos(System.nanoTime() - inicioSiembra);
+        System.out.printf("Siembra: %d productos y %d usuarios en %d ms%n",
+                numeroProductos, numeroUsuarios, siembra.toMillis());
+
+        ejecutarCarga(calentamiento, null);
+        Map<Operacion, RegistroLatencias> registros = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            registros.put(operacion, new RegistroLatencias(operacion.name().toLowerCase()));
+        }
+        long duracionReal = ejecutarCarga(duracion, registros);
+
+        List<RegistroLatencias.Resumen> resumenes = new ArrayList<>();
+        registros.values().forEach(registro -> resumenes.add(registro.resumir(duracionReal)));
+        Map<String, Object> comprobaciones = comprobarConsistencia();
+
+        System.out.println("== Suite de carga: " + etiqueta + " (concurrencia " + concurrencia + ") ==");
+        resumenes.forEach(System.out::println);
+        System.out.println("Comprobaciones: " + comprobaciones);
+
+        Map<String, Object> configuracion = new LinkedHashMap<>();
+        configuracion.put("productos", numeroProductos);
+        configuracion.put("usuarios", numeroUsuarios);
+        configuracion.put("stockInicial", stockInicial);
+        configuracion.put("concurrencia", concurrencia);
+        configuracion.put("mezcla", System.getProperty("carga.mezcla", "60,25,15"));
+        configuracion.put("zipf", System.getProperty("carga.zipf", "1.1"));
+        configuracion.put("duracionSegundos", duracion.toSeconds());
+        configuracion.put("calentamientoSegundos", calentamiento.toSeconds());
+
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("etiqueta", etiqueta);
+        informe.put("fecha", Instant.now().toString());
+        informe.put("configuracion", configuracion);
+        informe.put("siembraMs", siembra.toMillis());
+        informe.put("operaciones", resumenes);
+        informe.put("peticionesPorSegundoTotal",
+                resumenes.stream().mapToDouble(RegistroLatencias.Resumen::peticionesPorSegundo).sum());
+        informe.put("comprobaciones", comprobaciones);
+
+        Path destino = Path.of("target", "carga", "suite-" + etiqueta + ".json");
+        Files.createDirectories(destino.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(destino.toFile(), informe);
+        System.out.println("Informe escrito en " + destino);
+
+        if (!Boolean.TRUE.equals(comprobaciones.get("correcto"))) {
+            throw new IllegalStateException("Las comprobaciones de consistencia han fallado: " + comprobaciones);
+        }
+    }
+
+    private void sembrarProductos() throws Exception {
+        List<Callable<Long>> tareas = new ArrayList<>();
+        SplittableRandom aleatorio = semilla.split();
+        for (int i = 0; i < numeroProductos; i++) {
+            Map<String, Object> producto = Map.of(
+                    "nombre", "carga-" + idEjecucion + "-" + i,
+                    "descripcion", "Producto sembrado por la suite de carga",
+                    "precio", BigDecimal.valueOf(aleatorio.nextLong(100, 50_000), 2),
+                    "cantidadEnStock", stockInicial);
+            tareas.add(() -> admin.postJson("/api/productos", producto).path("id").asLong());
+        }
+        productos.addAll(enParalelo(tareas));
+        vendidos = new AtomicLongArray(numeroProductos);
+    }
+
+    private void sembrarUsuarios() throws Exception {
+        List<Map<String, Object>> usuarios = new ArrayList<>();
+        for (int i = 0; i < numeroUsuarios; i++) {
+            usuarios.add(Map.of("nombreUsuario", nombreUsuario(i), "contrasena", CONTRASENA_USUARIOS, "rol", "USER"));
+        }
+        admin.postJson("/api/usuarios/lote", Map.of("usuarios", usuarios));
+
+        List<Callable<ClienteApi>> logins = new ArrayList<>();
+        for (int i = 0; i < numeroUsuarios; i++) {
+            String nombre = nombreUsuario(i);
+            logins.add(() -> {
+                ClienteApi sesion = admin.nuevaSesion();
+                sesion.autenticar(nombre, CONTRASENA_USUARIOS);
+                return sesion;
+            });
+        }
+        sesiones.addAll(enParalelo(logins));
+    }
+
+    private String nombreUsuario(int indice) {
+        return "carga-" + idEjecucion + "-" + indice;
+    }
+
+    /**
+     * Ejecuta la mezcla de operaciones en bucle cerrado con {@code concurrencia} clientes.
+     * @param registros dónde anotar las latencias, o null durante el calentamiento.
+     * @return la duración real, en nanosegundos.
+     */
+    private long ejecutarCarga(Duration tiempo, Map<Operacion, RegistroLatencias> registros) throws InterruptedException {
+        ExecutorService clientes = Executors.newFixedThreadPool(concurrencia);
+        long inicio = System.nanoTime();
+        long fin = inicio + tiempo.toNanos();
+        for (int i = 0; i < concurrencia; i++) {
+            ClienteApi sesion = sesiones.get(i % sesiones.size());
+            SplittableRandom aleatorio = semilla.split();
+            Map<Operacion, RegistroLatencias.Muestras> muestras = new EnumMap<>(Operacion.class);
+            if (registros != null) {
+                registros.forEach((operacion, registro) -> muestras.put(operacion, registro.nuevasMuestras()));
+            }
+            clientes.execute(() -> {
+                while (System.nanoTime() < fin && !Thread.currentThread().isInterrupted()) {
+                    Operacion operacion = elegirOperacion(aleatorio);
+                    long t0 = System.nanoTime();
+                    int codigo = ejecutarOperacion(operacion, sesion, aleatorio);
+                    if (registros != null) {
+                        muestras.get(operacion).registrar(System.nanoTime() - t0);
+                        registros.get(operacion).registrarCodigo(codigo);
+                    }
+                }
+            });
+        }
+        clientes.shutdown();
+        clientes.awaitTermination(tiempo.toSeconds() + 60, TimeUnit.SECONDS);
+        return System.nanoTime() - inicio;
+    }
+
+    private Operacion elegirOperacion(SplittableRandom aleatorio) {
+        int valor = aleatorio.nextInt(mezcla[mezcla.length - 1]);
+        for (int i = 0; i < mezcla.length; i++) {
+            if (valor < mezcla[i]) {
+                return Operacion.values()[i];
+            }
+        }
+        return Operacion.NAVEGAR;
+    }
+
+    private int ejecutarOperacion(Operacion operacion, ClienteApi sesion, SplittableRandom aleatorio) {
+        try {
+            int codigo = switch (operacion) {
+                case NAVEGAR -> sesion.get("/api/productos?size=" + TAMANO_PAGINA + "&page=" + zipfPaginas.muestrear(aleatorio));
+                case HISTORIAL -> sesion.get("/api/pedidos/usuario/" + sesion.getUsuarioId() + "?size=10");
+                case PEDIR -> pedir(sesion, aleatorio);
+            };
+            if (codigo >= 500) {
+                errores5xx.incrementAndGet();
+            }
+            return codigo;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception ex) {
+            return -1; // error de red o timeout
+        }
+    }
+
+    private int pedir(ClienteApi sesion, SplittableRandom aleatorio) throws Exception {
+        int lineas = 1 + aleatorio.nextInt(Math.min(LINEAS_MAXIMAS, numeroProductos));
+        int[] indices = new int[lineas];
+        int[] cantidades = new int[lineas];
+        List<Map<String, Object>> detalles = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            int indice;
+            do {
+                indice = zipfProductos.muestrear(aleatorio);
+            } while (contiene(indices, i, indice));
+            indices[i] = indice;
+            cantidades[i] = 1 + aleatorio.nextInt(CANTIDAD_MAXIMA);
+            detalles.add(Map.of("productoId", productos.get(indice), "cantidad", cantidades[i]));
+        }
+
+        int codigo;
+        try {
+            codigo = sesion.post("/api/pedidos", Map.of("usuarioId", sesion.getUsuarioId(), "detalles", detalles));
+        } catch (Exception ex) {
+            // Sin respuesta no se sabe si el pedido llegó a confirmarse
+            pedidosInciertos.incrementAndGet();
+            throw ex;
+        }
+        if (codigo == 201) {
+            pedidosCreados.incrementAndGet();
+            for (int i = 0; i < lineas; i++) {
+                vendidos.addAndGet(indices[i], cantidades[i]);
+            }
+        } else if (codigo >= 500) {
+            pedidosInciertos.incrementAndGet();
+        }
+        return codigo;
+    }
+
+    private static boolean contiene(int[] valores, int hasta, int valor) {
+        for (int i = 0; i < hasta; i++) {
+            if (valores[i] == valor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Contrasta lo que el cliente vio confirmado con el estado final del servidor.
+     * Con pedidos inciertos (timeouts, 5xx) solo puede exigirse que el servidor no haya vendido menos
+     * de lo confirmado ni más de lo confirmado más lo incierto.
+     */
+    private Map<String, Object> comprobarConsistencia() throws Exception {
+        long inciertos = pedidosInciertos.get();
+        List<Map<String, Object>> descuadres = new ArrayList<>();
+        int stockNegativo = 0;
+        long unidadesVendidas = 0;
+        for (int i = 0; i < productos.size(); i++) {
+            long real = admin.getJson("/api/productos/" + productos.get(i)).path("cantidadEnStock").asLong();
+            long esperado = stockInicial - vendidos.get(i);
+            unidadesVendidas += vendidos.get(i);
+            if (real < 0) {
+                stockNegativo++;
+            }
+            boolean cuadra = inciertos == 0 ? real == esperado : real <= esperado;
+            if (!cuadra) {
+                descuadres.add(Map.of("productoId", productos.get(i), "esperado", esperado, "real", real));
+            }
+        }
+
+        long pedidosServidor = 0;
+        for (ClienteApi sesion : sesiones) {
+            JsonNode pagina = sesion.getJson("/api/pedidos/usuario/" + sesion.getUsuarioId() + "?size=1");
+            pedidosServidor += pagina.path("totalElements").asLong();
+        }
+        long confirmados = pedidosCreados.get();
+        boolean pedidosCuadran = pedidosServidor >= confirmados && pedidosServidor <= confirmados + inciertos;
+
+        Map<String, Object> comprobaciones = new LinkedHashMap<>();
+        comprobaciones.put("pedidosConfirmados", confirmados);
+        comprobaciones.put("pedidosServidor", pedidosServidor);
+        comprobaciones.put("pedidosInciertos", inciertos);
+        comprobaciones.put("unidadesVendidas", unidadesVendidas);
+        comprobaciones.put("errores5xx", errores5xx.get());
+        comprobaciones.put("productosConStockNegativo", stockNegativo);
+        comprobaciones.put("descuadresDeStock", descuadres);
+        comprobaciones.put("correcto", stockNegativo == 0 && descuadres.isEmpty() && pedidosCuadran);
+        return comprobaciones;
+    }
+
+    private static <T> List<T> enParalelo(List<Callable<T>> tareas) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(16);
+        try {
+            List<T> resultados = new ArrayList<>(tareas.size());
+            for (Future<T> futuro : ejecutor.invokeAll(tareas)) {
+                resultados.add(futuro.get());
+            }
+            return resultados;
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.modelo.entidades.DetallePedido;
+import com.example.ecommerce.modelo.entidades.Pedido;
+import com.example.ecommerce.modelo.entidades.Producto;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.modelo.valores.Dinero;
+import com.example.ecommerce.servicios.PedidoService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Genera datos con la forma de los de producción para los benchmarks: productos con nombres y descripciones
+ * de longitud variable, precios con dos decimales y pedidos de 1 a 1000 líneas.
+ * La semilla es fija para que todas las ejecuciones midan exactamente los mismos datos.
+ */
+final class DatosBenchmark {
+
+    private DatosBenchmark() {
+    }
+
+    static SplittableRandom aleatorio() {
+        return new SplittableRandom(42);
+    }
+
+    static Producto producto(SplittableRandom aleatorio, long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre("Producto " + id + " " + "x".repeat(aleatorio.nextInt(5, 40)));
+        producto.setDescripcion("Descripción del producto " + id + " " + "d".repeat(aleatorio.nextInt(20, 400)));
+        producto.setPrecio(Dinero.deCentimos(aleatorio.nextLong(100, 500_000)));
+        producto.setCantidadEnStock(aleatorio.nextInt(0, 1000));
+        return producto;
+    }
+
+    static List<Producto> productos(SplittableRandom aleatorio, int cantidad) {
+        List<Producto> productos = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            productos.add(producto(aleatorio, i));
+        }
+        return productos;
+    }
+
+    static Pedido pedido(SplittableRandom aleatorio, long id, int lineas, List<Producto> catalogo) {
+        Usuario usuario = new Usuario();
+        usuario.setId(aleatorio.nextLong(1, 10_000));
+        usuario.setNombreUsuario("cliente" + usuario.getId());
+        usuario.setRol(Rol.USER);
+
+        Pedido pedido = new Pedido();
+        pedido.setId(id);
+        pedido.setUsuario(usuario);
+        pedido.setFechaCreacion(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(id));
+        List<DetallePedido> detalles = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            Producto producto = catalogo.get(aleatorio.nextInt(catalogo.size()));
+            DetallePedido detalle = new DetallePedido();
+            detalle.setId(id * 1000 + i);
+            detalle.setPedido(pedido);
+            detalle.setProducto(producto);
+            detalle.setCantidad(aleatorio.nextInt(1, 10));
+            detalle.setPrecioUnitario(producto.getPrecio());
+            detalles.add(detalle);
+        }
+        pedido.setDetalles(detalles);
+        pedido.setTotal(PedidoService.calcularTotal(detalles));
+        return pedido;
+    }
+}
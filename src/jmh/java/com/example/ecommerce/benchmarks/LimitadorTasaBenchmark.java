@@ -0,0 +1,77 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.seguridad.LimitadorTasaPeticiones;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por petición de LimitadorTasaPeticiones (lo que añade FiltroLimiteTasa): resolver la regla del
+ * endpoint, buscar el cubo del usuario y consumir un token.
+ * Los límites son altos para medir el camino de una petición admitida, que es el habitual.
+ * <ul>
+ *   <li>{@code reloj}: solo System.nanoTime(), que también paga cada petición; se resta de los demás</li>
+ *   <li>{@code usuariosDistintos}: cada petición de uno de 10.000 usuarios</li>
+ *   <li>{@code mismoUsuario}: todas sobre el mismo cubo; con varios hilos (-Djmh.opciones="-t 4") mide la
+ *       contención del compare-and-set</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LimitadorTasaBenchmark {
+
+    private static final int USUARIOS = 10_000;
+
+    private LimitadorTasaPeticiones limitador;
+    private Long[] usuarios;
+
+    @State(Scope.Thread)
+    public static class Secuencia {
+        private final SplittableRandom aleatorio = new SplittableRandom();
+    }
+
+    @Setup
+    public void preparar() {
+        double ilimitado = 1e12;
+        limitador = new LimitadorTasaPeticiones(true, 1_000_000, ilimitado, 1_000_000, ilimitado,
+                1_000_000, ilimitado, 1_000_000, ilimitado, 1_000_000, ilimitado, new SimpleMeterRegistry());
+        usuarios = new Long[USUARIOS];
+        for (int i = 0; i < USUARIOS; i++) {
+            usuarios[i] = 1_000L + i;
+            limitador.consumir(LimitadorTasaPeticiones.Regla.CATALOGO, usuarios[i], Rol.USER, System.nanoTime());
+        }
+    }
+
+    @Benchmark
+    public long reloj() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public long usuariosDistintos(Secuencia secuencia) {
+        LimitadorTasaPeticiones.Regla regla = LimitadorTasaPeticiones.Regla.de("GET", "/api/productos/42");
+        return limitador.consumir(regla, usuarios[secuencia.aleatorio.nextInt(USUARIOS)], Rol.USER, System.nanoTime());
+    }
+
+    @Benchmark
+    public long mismoUsuario() {
+        LimitadorTasaPeticiones.Regla regla = LimitadorTasaPeticiones.Regla.de("GET", "/api/productos/42");
+        return limitador.consumir(regla, usuarios[0], Rol.USER, System.nanoTime());
+    }
+}
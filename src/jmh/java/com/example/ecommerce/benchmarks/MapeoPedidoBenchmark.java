@@ -0,0 +1,56 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.dto.PedidoRespuestaDTO;
+import com.example.ecommerce.mapper.PedidoMapper;
+import com.example.ecommerce.modelo.entidades.Pedido;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste del mapeo MapStruct de un pedido, tal como lo hace PedidoService.mapToDto
+ * (toDto + toDetallePedidoDtoList).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeoPedidoBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    private int lineas;
+
+    private final PedidoMapper pedidoMapper = Mappers.getMapper(PedidoMapper.class);
+
+    private Pedido pedido;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom aleatorio = DatosBenchmark.aleatorio();
+        pedido = DatosBenchmark.pedido(aleatorio, 1, lineas, DatosBenchmark.productos(aleatorio, 500));
+    }
+
+    /**
+     * Réplica exacta de PedidoService.mapToDto.
+     */
+    @Benchmark
+    public PedidoRespuestaDTO pedidoADto() {
+        PedidoRespuestaDTO dto = pedidoMapper.toDto(pedido);
+        dto.setDetalles(pedidoMapper.toDetallePedidoDtoList(pedido.getDetalles()));
+        return dto;
+    }
+}
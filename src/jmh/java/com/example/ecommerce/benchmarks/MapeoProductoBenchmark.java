@@ -0,0 +1,51 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.mapper.ProductoMapper;
+import com.example.ecommerce.modelo.entidades.Producto;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste del mapeo MapStruct de una página de productos, como en GET /api/productos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeoProductoBenchmark {
+
+    @Param({"20", "100"})
+    private int tamanoPagina;
+
+    private final ProductoMapper productoMapper = Mappers.getMapper(ProductoMapper.class);
+
+    private List<Producto> pagina;
+
+    @Setup
+    public void preparar() {
+        pagina = DatosBenchmark.productos(DatosBenchmark.aleatorio(), tamanoPagina);
+    }
+
+    @Benchmark
+    public void paginaADto(Blackhole blackhole) {
+        for (Producto producto : pagina) {
+            blackhole.consume(productoMapper.toDto(producto));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.dto.PedidoRespuestaDTO;
+import com.example.ecommerce.mapper.PedidoMapper;
+import com.example.ecommerce.modelo.entidades.Pedido;
+import com.example.ecommerce.modelo.entidades.Producto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de una página de PedidoRespuestaDTO, tal como la devuelven
+ * GET /api/pedidos y GET /api/pedidos/usuario/{id}.
+ * El ObjectMapper se construye con Jackson2ObjectMapperBuilder, igual que el que configura Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    private static final int TAMANO_PAGINA = 20;
+
+    /**
+     * Líneas máximas por pedido; cada pedido de la página tiene entre 1 y este valor.
+     */
+    @Param({"1", "10", "50", "200"})
+    private int lineasMaximas;
+
+    private ObjectMapper objectMapper;
+    private Page<PedidoRespuestaDTO> pagina;
+
+    @Setup
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        PedidoMapper pedidoMapper = Mappers.getMapper(PedidoMapper.class);
+        SplittableRandom aleatorio = DatosBenchmark.aleatorio();
+        List<Producto> catalogo = DatosBenchmark.productos(aleatorio, 500);
+
+        List<PedidoRespuestaDTO> pedidos = new ArrayList<>(TAMANO_PAGINA);
+        for (int i = 1; i <= TAMANO_PAGINA; i++) {
+            Pedido pedido = DatosBenchmark.pedido(aleatorio, i, aleatorio.nextInt(1, lineasMaximas + 1), catalogo);
+            PedidoRespuestaDTO dto = pedidoMapper.toDto(pedido);
+            dto.setDetalles(pedidoMapper.toDetallePedidoDtoList(pedido.getDetalles()));
+            pedidos.add(dto);
+        }
+        pagina = new PageImpl<>(pedidos, PageRequest.of(0, TAMANO_PAGINA), 1_000);
+    }
+
+    @Benchmark
+    public byte[] serializarPagina() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(pagina);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.modelo.entidades.DetallePedido;
+import com.example.ecommerce.modelo.valores.Dinero;
+import com.example.ecommerce.servicios.PedidoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acumulación del total de un pedido (PedidoService.calcularTotal) en céntimos con Dinero, frente a la
+ * acumulación anterior con BigDecimal (un valueOf, un multiply y un add por línea) sobre los mismos importes.
+ * Con '-prof gc' se ve además la memoria asignada por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TotalPedidoBenchmark {
+
+    @Param({"1", "10", "50", "200", "1000"})
+    private int lineas;
+
+    private List<DetallePedido> detalles;
+    private BigDecimal[] precios;
+    private int[] cantidades;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom aleatorio = DatosBenchmark.aleatorio();
+        detalles = DatosBenchmark.pedido(aleatorio, 1, lineas, DatosBenchmark.productos(aleatorio, 500)).getDetalles();
+        precios = detalles.stream().map(detalle -> detalle.getPrecioUnitario().aBigDecimal()).toArray(BigDecimal[]::new);
+        cantidades = detalles.stream().mapToInt(DetallePedido::getCantidad).toArray();
+    }
+
+    @Benchmark
+    public Dinero calcularTotal() {
+        return PedidoService.calcularTotal(detalles);
+    }
+
+    @Benchmark
+    public BigDecimal calcularTotalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < precios.length; i++) {
+            total = total.add(precios[i].multiply(BigDecimal.valueOf(cantidades[i])));
+        }
+        return total;
+    }
+}
@@ -2,8 +2,10 @@ package com.example.ecommerce;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Mantenimiento de particiones y archivo de pedidos (ServicioParticionesPedidos)
 public class ECommerceApplication {
 
     public static void main(String[] args) {
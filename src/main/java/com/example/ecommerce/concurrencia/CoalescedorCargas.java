@@ -0,0 +1,111 @@
+package com.example.ecommerce.concurrencia;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa cargas concurrentes de la misma clave (single flight): la primera petición ejecuta la carga y las que
+ * llegan mientras está en curso esperan su resultado en lugar de repetirla. No es una caché: la entrada se
+ * retira en cuanto termina la carga y la siguiente petición vuelve a cargar.
+ * <p>
+ * Si la carga lanza una excepción, la reciben todas las peticiones agrupadas. olvidar() retira una carga en curso
+ * para que las peticiones posteriores no reciban un resultado leído antes de un cambio ya confirmado.
+ * <p>
+ * Métricas, etiquetadas con el nombre: coalescencia.cargas (cargas ejecutadas), coalescencia.compartidas
+ * (peticiones servidas por la carga de otra), coalescencia.ratio (fracción de peticiones compartidas) y
+ * coalescencia.en.curso.
+ * @param <K> Tipo de la clave; debe implementar equals y hashCode.
+ * @param <V> Tipo del resultado. Se entrega la misma instancia a todas las peticiones: no debe modificarse.
+ */
+public final class CoalescedorCargas<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> enCurso = new ConcurrentHashMap<>();
+    private final Counter cargas;
+    private final Counter compartidas;
+
+    public CoalescedorCargas(String nombre, MeterRegistry meterRegistry) {
+        this.cargas = Counter.builder("coalescencia.cargas")
+                .description("Cargas ejecutadas por el coalescedor")
+                .tag("nombre", nombre)
+                .register(meterRegistry);
+        this.compartidas = Counter.builder("coalescencia.compartidas")
+                .description("Peticiones servidas por una carga en curso de otra petición")
+                .tag("nombre", nombre)
+                .register(meterRegistry);
+        Gauge.builder("coalescencia.ratio", this, CoalescedorCargas::ratio)
+                .description("Fracción de peticiones servidas por una carga compartida")
+                .tag("nombre", nombre)
+                .register(meterRegistry);
+        Gauge.builder("coalescencia.en.curso", enCurso, ConcurrentHashMap::size)
+                .description("Cargas en curso")
+                .tag("nombre", nombre)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el resultado de la carga de la clave, ejecutándola en el hilo actual si no hay otra en curso.
+     * @param clave Clave de la carga.
+     * @param carga Carga que se ejecuta si no hay otra en curso para la clave.
+     * @return El resultado de la carga.
+     */
+    public V obtener(K clave, Supplier<V> carga) {
+        CompletableFuture<V> propia = new CompletableFuture<>();
+        CompletableFuture<V> existente = enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            compartidas.increment();
+            return esperar(existente);
+        }
+        cargas.increment();
+        try {
+            V valor = carga.get();
+            propia.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error ex) {
+            propia.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    /**
+     * Retira la carga en curso de la clave; las peticiones que ya la esperan reciben su resultado igualmente.
+     */
+    public void olvidar(K clave) {
+        enCurso.remove(clave);
+    }
+
+    /**
+     * Retira todas las cargas en curso.
+     */
+    public void olvidarTodas() {
+        enCurso.clear();
+    }
+
+    double ratio() {
+        double compartidasTotal = compartidas.count();
+        double total = cargas.count() + compartidasTotal;
+        return total == 0 ? 0 : compartidasTotal / total;
+    }
+
+    private static <V> V esperar(CompletableFuture<V> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException ex) {
+            // La excepción original de la carga, con la traza del hilo que la ejecutó
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
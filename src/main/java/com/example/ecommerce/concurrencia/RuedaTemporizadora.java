@@ -0,0 +1,159 @@
+package com.example.ecommerce.concurrencia;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Rueda temporizadora con hash (hashed timer wheel) para programar muchos vencimientos con un solo hilo.
+ * <p>
+ * El tiempo avanza en ticks de 'duracionTick'; la rueda tiene 'ranuras' ranuras (potencia de dos) y cada
+ * vencimiento se guarda en la ranura de su tick junto con el número de vueltas que faltan. En cada tick el hilo
+ * de la rueda solo recorre una ranura: programar es O(1) y el coste por tick es proporcional a lo que vence, no
+ * al total programado. Los vencimientos se entregan por lotes, uno por tick, con una precisión de un tick.
+ * <p>
+ * Programar es seguro desde cualquier hilo (las altas pasan por una cola sin bloqueos y las recoge el hilo de la
+ * rueda). No hay cancelación: quien recibe un vencimiento comprueba si sigue vigente. El consumidor se ejecuta en
+ * el hilo de la rueda y debe ser rápido; el trabajo pesado se delega a otro ejecutor.
+ * @param <T> Tipo del valor asociado a cada vencimiento.
+ */
+public final class RuedaTemporizadora<T> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RuedaTemporizadora.class);
+
+    // Altas que se trasladan a las ranuras por tick, para que una ráfaga no retrase el tick
+    private static final int MAX_ALTAS_POR_TICK = 100_000;
+
+    private final long duracionTickNanos;
+    private final int mascara;
+    private final ArrayDeque<Entrada<T>>[] ranuras;
+    private final Queue<Entrada<T>> altas = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendientes = new AtomicLong();
+    private final Consumer<List<T>> alVencer;
+    private final Thread hilo;
+    private final long inicio;
+    private volatile boolean detenida;
+    // Solo lo usa el hilo de la rueda
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public RuedaTemporizadora(String nombre, Duration duracionTick, int ranuras, Consumer<List<T>> alVencer) {
+        if (duracionTick.isNegative() || duracionTick.isZero() || ranuras < 1) {
+            throw new IllegalArgumentException("La duración del tick y el número de ranuras deben ser positivos");
+        }
+        // Potencia de dos para calcular la ranura con una máscara
+        int tamano = ranuras == 1 ? 1 : Integer.highestOneBit(ranuras - 1) << 1;
+        this.duracionTickNanos = duracionTick.toNanos();
+        this.mascara = tamano - 1;
+        this.ranuras = new ArrayDeque[tamano];
+        for (int i = 0; i < tamano; i++) {
+            this.ranuras[i] = new ArrayDeque<>();
+        }
+        this.alVencer = alVencer;
+        this.inicio = System.nanoTime();
+        this.hilo = new Thread(this::ejecutar, nombre);
+        this.hilo.setDaemon(true);
+    }
+
+    public void iniciar() {
+        hilo.start();
+    }
+
+    /**
+     * Programa el vencimiento de un valor. Un retraso negativo o cero vence en el siguiente tick.
+     */
+    public void programar(T valor, Duration retraso) {
+        long plazo = System.nanoTime() - inicio + Math.max(0, retraso.toNanos());
+        pendientes.incrementAndGet();
+        altas.add(new Entrada<>(valor, plazo));
+    }
+
+    /**
+     * Vencimientos programados que todavía no se han entregado.
+     */
+    public long pendientes() {
+        return pendientes.get();
+    }
+
+    @Override
+    public void close() {
+        detenida = true;
+        hilo.interrupt();
+    }
+
+    private void ejecutar() {
+        while (!detenida) {
+            long espera = inicio + (tick + 1) * duracionTickNanos - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(this, espera);
+                continue;
+            }
+            trasladarAltas();
+            List<T> vencidos = vencer(ranuras[(int) (tick & mascara)]);
+            tick++;
+            if (!vencidos.isEmpty()) {
+                pendientes.addAndGet(-vencidos.size());
+                try {
+                    alVencer.accept(vencidos);
+                } catch (RuntimeException ex) {
+                    LOG.error("Error al procesar {} vencimientos de la rueda {}", vencidos.size(), hilo.getName(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Coloca las altas en su ranura. La ranura del tick t cubre los plazos hasta el final de ese tick; un plazo
+     * ya pasado va a la ranura del tick actual.
+     */
+    private void trasladarAltas() {
+        for (int i = 0; i < MAX_ALTAS_POR_TICK; i++) {
+            Entrada<T> entrada = altas.poll();
+            if (entrada == null) {
+                return;
+            }
+            long tickVencimiento = Math.max(tick, (entrada.plazo + duracionTickNanos - 1) / duracionTickNanos - 1);
+            entrada.vueltas = (tickVencimiento - tick) / ranuras.length;
+            ranuras[(int) (tickVencimiento & mascara)].addLast(entrada);
+        }
+    }
+
+    private List<T> vencer(ArrayDeque<Entrada<T>> ranura) {
+        if (ranura.isEmpty()) {
+            return List.of();
+        }
+        List<T> vencidos = new ArrayList<>();
+        for (Iterator<Entrada<T>> it = ranura.iterator(); it.hasNext(); ) {
+            Entrada<T> entrada = it.next();
+            if (entrada.vueltas <= 0) {
+                it.remove();
+                vencidos.add(entrada.valor);
+            } else {
+                entrada.vueltas--;
+            }
+        }
+        return vencidos;
+    }
+
+    private static final class Entrada<T> {
+        private final T valor;
+        // Nanosegundos desde el inicio de la rueda
+        private final long plazo;
+        private long vueltas;
+
+        private Entrada(T valor, long plazo) {
+            this.valor = valor;
+            this.plazo = plazo;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.dto.DetallePedidoCreacionDTO;
+import com.example.ecommerce.dto.PedidoCreacionDTO;
+import com.example.ecommerce.dto.PedidoRespuestaDTO;
+import com.example.ecommerce.dto.ProductoRespuestaDTO;
+import com.example.ecommerce.mapper.PedidoMapper;
+import com.example.ecommerce.mapper.ProductoMapper;
+import com.example.ecommerce.modelo.entidades.DetallePedido;
+import com.example.ecommerce.modelo.entidades.Pedido;
+import com.example.ecommerce.modelo.entidades.Producto;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.valores.Dinero;
+import com.example.ecommerce.repositorios.DetallePedidoRepository;
+import com.example.ecommerce.repositorios.PedidoRepository;
+import com.example.ecommerce.servicios.PedidoService;
+import com.example.ecommerce.servicios.ProductoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Calentamiento de una instancia recién arrancada, antes de que reciba tráfico real:
+ * <ol>
+ *   <li>Abre las conexiones del pool (HikariCP solo abre una al arrancar y el resto en segundo plano).</li>
+ *   <li>Carga los productos más vendidos de los últimos 'app.calentamiento.ventana-ventas' a través de
+ *       ProductoService, de modo que pasan por el mismo camino (y las mismas caches) que una petición.</li>
+ *   <li>Ejecuta pedidos sintéticos en memoria, sin escribir en la base de datos: deserialización y validación
+ *       de la petición, cálculo del total, mapeo a DTO y serialización de la respuesta y de una página de
+ *       productos. Así el JIT compila el camino caliente antes del primer cliente.</li>
+ * </ol>
+ * Se ejecuta al recibir ApplicationReadyEvent, después de los inicializadores de datos: Spring Boot publica el
+ * estado de disponibilidad ACCEPTING_TRAFFIC justo después de este evento, por lo que la instancia no se
+ * anuncia como lista (/actuator/health/readiness) hasta que el calentamiento termina.
+ * Un fallo del calentamiento se registra y no impide arrancar.
+ * <p>
+ * Métricas: calentamiento.duracion{fase} y calentamiento.pedido.sintetico{momento=inicial|final}
+ * (latencia media de las primeras y de las últimas iteraciones, para ver el efecto del JIT).
+ */
+@Component
+@ConditionalOnProperty(name = "app.calentamiento.habilitado", havingValue = "true", matchIfMissing = true)
+public class CalentamientoAplicacion {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CalentamientoAplicacion.class);
+
+    private static final int MAX_LINEAS_SINTETICAS = 5;
+    private static final int TAMANO_PAGINA_SINTETICA = 20;
+    private static final int PETICIONES_DISTINTAS = 16;
+
+    private final DataSource dataSource;
+    private final ProductoService productoService;
+    private final PedidoRepository pedidoRepository;
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final PedidoMapper pedidoMapper;
+    private final ProductoMapper productoMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final MeterRegistry meterRegistry;
+    private final int conexiones;
+    private final int productos;
+    private final Duration ventanaVentas;
+    private final int iteraciones;
+    private final Duration duracionMaxima;
+
+    // Latencia media (ns) de un pedido sintético al principio y al final del calentamiento
+    private volatile double latenciaInicial;
+    private volatile double latenciaFinal;
+
+    public CalentamientoAplicacion(DataSource dataSource, ProductoService productoService,
+                                   PedidoRepository pedidoRepository, DetallePedidoRepository detallePedidoRepository,
+                                   PedidoMapper pedidoMapper, ProductoMapper productoMapper,
+                                   ObjectMapper objectMapper, Validator validator, MeterRegistry meterRegistry,
+                                   @Value("${app.calentamiento.conexiones:10}") int conexiones,
+                                   @Value("${app.calentamiento.productos:50}") int productos,
+                                   @Value("${app.calentamiento.ventana-ventas:30d}") Duration ventanaVentas,
+                                   @Value("${app.calentamiento.iteraciones:10000}") int iteraciones,
+                                   @Value("${app.calentamiento.duracion-maxima:30s}") Duration duracionMaxima) {
+        this.dataSource = dataSource;
+        this.productoService = productoService;
+        this.pedidoRepository = pedidoRepository;
+        this.detallePedidoRepository = detallePedidoRepository;
+        this.pedidoMapper = pedidoMapper;
+        this.productoMapper = productoMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.meterRegistry = meterRegistry;
+        this.conexiones = conexiones;
+        this.productos = productos;
+        this.ventanaVentas = ventanaVentas;
+        this.iteraciones = iteraciones;
+        this.duracionMaxima = duracionMaxima;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void calentar() {
+        LOG.info("Calentamiento: inicio (la instancia no acepta tráfico hasta que termine)");
+        long inicio = System.nanoTime();
+        try {
+            long marca = System.nanoTime();
+            int abiertas = abrirConexiones();
+            marca = registrarFase("conexiones", marca);
+
+            List<Producto> catalogo = precargarProductos();
+            marca = registrarFase("productos", marca);
+
+            int ejecutadas = ejecutarPedidosSinteticos(catalogo);
+            registrarFase("pedidos", marca);
+
+            LOG.info("Calentamiento: {} conexiones abiertas, {} productos precargados, {} pedidos sintéticos; "
+                            + "pedido sintético {} µs -> {} µs",
+                    abiertas, catalogo.size(), ejecutadas,
+                    Math.round(latenciaInicial / 1_000), Math.round(latenciaFinal / 1_000));
+        } catch (Exception ex) {
+            LOG.warn("Calentamiento interrumpido; la instancia arranca en frío", ex);
+        } finally {
+            long duracion = registrarFase("total", inicio) - inicio;
+            LOG.info("Calentamiento: fin en {} ms", TimeUnit.NANOSECONDS.toMillis(duracion));
+        }
+        TimeGauge.builder("calentamiento.pedido.sintetico", this, TimeUnit.NANOSECONDS, c -> c.latenciaInicial)
+                .tag("momento", "inicial")
+                .description("Latencia media de un pedido sintético al inicio del calentamiento")
+                .register(meterRegistry);
+        TimeGauge.builder("calentamiento.pedido.sintetico", this, TimeUnit.NANOSECONDS, c -> c.latenciaFinal)
+                .tag("momento", "final")
+                .description("Latencia media de un pedido sintético al final del calentamiento")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Toma a la vez hasta 'conexiones' conexiones del pool y las devuelve, forzando su apertura ahora.
+     * @return el número de conexiones obtenidas.
+     */
+    private int abrirConexiones() {
+        List<Connection> abiertas = new ArrayList<>(conexiones);
+        try {
+            for (int i = 0; i < conexiones; i++) {
+                Connection conexion = dataSource.getConnection();
+                abiertas.add(conexion);
+                conexion.isValid(1);
+            }
+        } catch (SQLException ex) {
+            LOG.warn("Calentamiento: solo se abrieron {} de {} conexiones: {}", abiertas.size(), conexiones, ex.getMessage());
+        } finally {
+            for (Connection conexion : abiertas) {
+                try {
+                    conexion.close();
+                } catch (SQLException ex) {
+                    LOG.debug("Error al devolver una conexión al pool", ex);
+                }
+            }
+        }
+        return abiertas.size();
+    }
+
+    /**
+     * Carga los productos más vendidos (o, sin ventas recientes, la primera página del catálogo).
+     * @return copias en memoria de los productos, para construir los pedidos sintéticos.
+     */
+    private List<Producto> precargarProductos() {
+        List<ProductoRespuestaDTO> cargados = new ArrayList<>();
+        if (productos > 0) {
+            List<Long> primerPedido = pedidoRepository.findIdsDesde(
+                    LocalDateTime.now().minus(ventanaVentas), PageRequest.of(0, 1));
+            if (!primerPedido.isEmpty()) {
+                List<Long> masVendidos = detallePedidoRepository.findProductosMasVendidos(
+                        primerPedido.get(0), PageRequest.of(0, productos));
+                for (Long id : masVendidos) {
+                    cargados.add(productoService.obtenerProductoPorId(id));
+                }
+            }
+            if (cargados.isEmpty()) {
+                cargados.addAll(productoService.obtenerTodosLosProductos(PageRequest.of(0, productos)).getContent());
+            }
+        }
+        List<Producto> catalogo = cargados.stream().map(CalentamientoAplicacion::aProducto).collect(Collectors.toList());
+        if (catalogo.isEmpty()) {
+            // Base de datos vacía: productos ficticios, solo para ejercitar el código
+            for (long id = 1; id <= MAX_LINEAS_SINTETICAS; id++) {
+                catalogo.add(productoFicticio(id));
+            }
+        }
+        return catalogo;
+    }
+
+    /**
+     * Ejecuta pedidos sintéticos hasta completar 'iteraciones' o agotar 'duracion-maxima'.
+     * @return el número de pedidos ejecutados.
+     */
+    private int ejecutarPedidosSinteticos(List<Producto> catalogo) throws Exception {
+        Map<Long, Producto> porId = catalogo.stream().collect(Collectors.toMap(Producto::getId, Function.identity()));
+        Usuario usuario = new Usuario();
+        usuario.setId(0L);
+        usuario.setNombreUsuario("calentamiento");
+
+        List<byte[]> peticiones = new ArrayList<>(PETICIONES_DISTINTAS);
+        for (int i = 0; i < PETICIONES_DISTINTAS; i++) {
+            peticiones.add(objectMapper.writeValueAsBytes(peticionSintetica(catalogo, i)));
+        }
+        PageImpl<ProductoRespuestaDTO> pagina = new PageImpl<>(
+                catalogo.stream().limit(TAMANO_PAGINA_SINTETICA).map(productoMapper::toDto).collect(Collectors.toList()),
+                PageRequest.of(0, TAMANO_PAGINA_SINTETICA), catalogo.size());
+
+        long[] latencias = new long[Math.max(iteraciones, 0)];
+        long fin = System.nanoTime() + duracionMaxima.toNanos();
+        int ejecutadas = 0;
+        while (ejecutadas < latencias.length && System.nanoTime() < fin) {
+            long t0 = System.nanoTime();
+            pedidoSintetico(peticiones.get(ejecutadas % PETICIONES_DISTINTAS), porId, usuario);
+            objectMapper.writeValueAsBytes(pagina);
+            latencias[ejecutadas++] = System.nanoTime() - t0;
+        }
+
+        int muestra = Math.max(1, Math.min(100, ejecutadas / 10));
+        if (ejecutadas > 0) {
+            latenciaInicial = media(latencias, 0, muestra);
+            latenciaFinal = media(latencias, ejecutadas - muestra, ejecutadas);
+        }
+        return ejecutadas;
+    }
+
+    /**
+     * Recorre en memoria lo que hace una petición POST /api/pedidos, salvo el acceso a la base de datos.
+     */
+    private void pedidoSintetico(byte[] json, Map<Long, Producto> catalogo, Usuario usuario) throws Exception {
+        PedidoCreacionDTO peticion = objectMapper.readValue(json, PedidoCreacionDTO.class);
+        if (!validator.validate(peticion).isEmpty()) {
+            throw new IllegalStateException("Petición sintética no válida");
+        }
+
+        Pedido pedido = new Pedido();
+        pedido.setFechaCreacion(LocalDateTime.now());
+        pedido.setUsuario(usuario);
+        List<DetallePedido> detalles = new ArrayList<>(peticion.getDetalles().size());
+        for (DetallePedidoCreacionDTO linea : peticion.getDetalles()) {
+            Producto producto = catalogo.get(linea.getProductoId());
+            DetallePedido detalle = new DetallePedido();
+            detalle.setPedido(pedido);
+            detalle.setProducto(producto);
+            detalle.setCantidad(linea.getCantidad());
+            detalle.setPrecioUnitario(producto.getPrecio());
+            detalles.add(detalle);
+        }
+        pedido.setDetalles(detalles);
+        pedido.setTotal(PedidoService.calcularTotal(detalles));
+
+        PedidoRespuestaDTO respuesta = pedidoMapper.toDto(pedido);
+        respuesta.setDetalles(pedidoMapper.toDetallePedidoDtoList(detalles));
+        objectMapper.writeValueAsBytes(respuesta);
+    }
+
+    private static PedidoCreacionDTO peticionSintetica(List<Producto> catalogo, int semilla) {
+        int lineas = 1 + semilla % MAX_LINEAS_SINTETICAS;
+        List<DetallePedidoCreacionDTO> detalles = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            DetallePedidoCreacionDTO detalle = new DetallePedidoCreacionDTO();
+            detalle.setProductoId(catalogo.get((semilla + i) % catalogo.size()).getId());
+            detalle.setCantidad(1 + i);
+            detalles.add(detalle);
+        }
+        PedidoCreacionDTO peticion = new PedidoCreacionDTO();
+        peticion.setUsuarioId(0L);
+        peticion.setDetalles(detalles);
+        return peticion;
+    }
+
+    private static Producto aProducto(ProductoRespuestaDTO dto) {
+        Producto producto = new Producto();
+        producto.setId(dto.getId());
+        producto.setNombre(dto.getNombre());
+        producto.setDescripcion(dto.getDescripcion());
+        producto.setPrecio(Dinero.de(dto.getPrecio()));
+        producto.setCantidadEnStock(dto.getCantidadEnStock());
+        return producto;
+    }
+
+    private static Producto productoFicticio(long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre("Producto de calentamiento " + id);
+        producto.setPrecio(Dinero.deCentimos(999 + id));
+        producto.setCantidadEnStock(0);
+        return producto;
+    }
+
+    private static double media(long[] valores, int desde, int hasta) {
+        long suma = 0;
+        for (int i = desde; i < hasta; i++) {
+            suma += valores[i];
+        }
+        return (double) suma / (hasta - desde);
+    }
+
+    /**
+     * Registra la duración de una fase desde la marca anterior y devuelve la nueva marca.
+     */
+    private long registrarFase(String fase, long marcaAnterior) {
+        long ahora = System.nanoTime();
+        Timer.builder("calentamiento.duracion")
+                .tag("fase", fase)
+                .description("Duración de cada fase del calentamiento previo a aceptar tráfico")
+                .register(meterRegistry)
+                .record(ahora - marcaAnterior, TimeUnit.NANOSECONDS);
+        return ahora;
+    }
+}
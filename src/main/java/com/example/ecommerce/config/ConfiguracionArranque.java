@@ -0,0 +1,62 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.invalidacion.TransporteInvalidaciones;
+import com.example.ecommerce.seguridad.InvalidadorCacheUsuarios;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Ajustes del arranque. Con inicialización perezosa (perfil 'arranque-rapido') los beans se crean en su primer uso,
+ * salvo los que aquí se excluyen: el DataSource y el EntityManagerFactory se siguen creando al arrancar, para que
+ * un error de conexión o de esquema impida arrancar la instancia y para que el primer pedido no pague el
+ * arranque de Hibernate.
+ * <p>
+ * Tampoco son perezosos los beans que nadie inyecta pero que deben funcionar desde el arranque. Los que tienen
+ * tareas {@code @Scheduled} (RelayOutbox, el latido de DifusorStock...) ya los excluye Spring Boot
+ * (ScheduledBeanLazyInitializationExcludeFilter). Aquí se excluyen el bus de invalidación, su transporte y los
+ * oyentes que expulsan entradas de caches ajenas (InvalidadorCacheUsuarios, ExpulsionRemota de la cache de segundo
+ * nivel), que se registran al crearse: si se crearan tarde, las invalidaciones de otras instancias recibidas hasta
+ * entonces se perderían. Los métodos {@code @EventListener} no lo necesitan: Spring crea el bean al publicarse el
+ * primer evento.
+ */
+@Configuration
+public class ConfiguracionArranque {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfiguracionArranque.class);
+
+    @Bean
+    public static LazyInitializationExcludeFilter excluirPersistenciaDeInicializacionPerezosa() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, EntityManagerFactory.class);
+    }
+
+    @Bean
+    public static LazyInitializationExcludeFilter excluirInvalidacionDeInicializacionPerezosa() {
+        return LazyInitializationExcludeFilter.forBeanTypes(BusInvalidacion.class, TransporteInvalidaciones.class,
+                InvalidadorCacheUsuarios.class, ConfiguracionCacheSegundoNivel.ExpulsionRemota.class);
+    }
+
+    /**
+     * Las migraciones de Flyway se aplican al arrancar salvo con 'app.flyway.migrar-al-arrancar=false'
+     * (ejecución de entrenamiento del archivo CDS, sin base de datos). Es una propiedad propia porque con el
+     * procesado AOT 'spring.flyway.enabled' queda fijada al compilar.
+     */
+    @Bean
+    public FlywayMigrationStrategy estrategiaMigracion(@Value("${app.flyway.migrar-al-arrancar:true}") boolean migrar) {
+        return flyway -> {
+            if (migrar) {
+                flyway.migrate();
+            } else {
+                LOG.info("Migraciones de Flyway omitidas (app.flyway.migrar-al-arrancar=false)");
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.modelo.entidades.Producto;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Cache de segundo nivel de Hibernate: regiones JCache en proceso (Caffeine), cada una con su tamaño máximo y
+ * su TTL, y con estadísticas por región publicadas como "cache.*" (etiqueta cache=nombre de la región).
+ * <ul>
+ *   <li>"usuario": entidades Usuario (cada login, refresco de token y pedido carga la suya).</li>
+ *   <li>"producto": entidades Producto, que se leen mucho más de lo que cambian salvo el stock. Las lecturas
+ *       que deciden sobre el stock (la creación de pedidos) bloquean la fila y van siempre a la base de datos,
+ *       y los ajustes JDBC de stock bloquean sus entradas en la cache (ver EscriturasJdbcCacheadas).</li>
+ *   <li>"usuario-por-nombre": resultados de UsuarioRepository.findByNombreUsuario (cache de consultas). Hibernate
+ *       los descarta cuando cambia la tabla 'usuarios', con la marca de tiempo de "default-update-timestamps-region",
+ *       que no caduca.</li>
+ * </ul>
+ * Las regiones no se crean bajo demanda (missing_cache_strategy=fail): una entidad o consulta cacheada sin región
+ * aquí hace fallar el arranque. Ambas entidades usan READ_WRITE: una escritura confirmada nunca deja en la cache
+ * el valor anterior.
+ * <p>
+ * Con varias instancias, los cambios confirmados en otra expulsan las entradas de esta (BusInvalidacion, regiones
+ * "producto", "usuario-id" y "usuario-nombre"); el TTL acota lo que pueda quedar si se pierde una invalidación.
+ * Con 'app.cache.segundo-nivel.habilitada=false' no hay cache de segundo nivel.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cache.segundo-nivel.habilitada", havingValue = "true", matchIfMissing = true)
+public class ConfiguracionCacheSegundoNivel {
+
+    public static final String REGION_USUARIO = "usuario";
+    public static final String REGION_PRODUCTO = "producto";
+    public static final String REGION_USUARIO_POR_NOMBRE = "usuario-por-nombre";
+
+    private final long tamanoUsuarios;
+    private final long tamanoProductos;
+    private final long tamanoConsultas;
+    private final Duration ttl;
+
+    public ConfiguracionCacheSegundoNivel(
+            @Value("${app.cache.segundo-nivel.usuario.tamano-maximo:10000}") long tamanoUsuarios,
+            @Value("${app.cache.segundo-nivel.producto.tamano-maximo:10000}") long tamanoProductos,
+            @Value("${app.cache.segundo-nivel.consultas.tamano-maximo:10000}") long tamanoConsultas,
+            @Value("${app.cache.segundo-nivel.ttl:10m}") Duration ttl) {
+        this.tamanoUsuarios = tamanoUsuarios;
+        this.tamanoProductos = tamanoProductos;
+        this.tamanoConsultas = tamanoConsultas;
+        this.ttl = ttl;
+    }
+
+    /**
+     * CacheManager propio (URI única) en lugar del compartido por defecto: cada contexto de Spring de la JVM
+     * (p. ej. en las pruebas) tiene sus regiones.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerSegundoNivel(MeterRegistry meterRegistry) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("segundo-nivel-" + UUID.randomUUID()), getClass().getClassLoader());
+        crearRegion(cacheManager, meterRegistry, REGION_USUARIO, OptionalLong.of(tamanoUsuarios), true);
+        crearRegion(cacheManager, meterRegistry, REGION_PRODUCTO, OptionalLong.of(tamanoProductos), true);
+        crearRegion(cacheManager, meterRegistry, REGION_USUARIO_POR_NOMBRE, OptionalLong.of(tamanoConsultas), true);
+        // Hibernate la crea al activar la cache de consultas aunque ninguna consulta la use
+        crearRegion(cacheManager, meterRegistry, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                OptionalLong.of(tamanoConsultas), true);
+        // Una marca por tabla: perder una haría servir resultados de consultas ya invalidados
+        crearRegion(cacheManager, meterRegistry, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                OptionalLong.empty(), false);
+        return cacheManager;
+    }
+
+    private void crearRegion(CacheManager cacheManager, MeterRegistry meterRegistry, String nombre,
+                             OptionalLong tamanoMaximo, boolean caduca) {
+        CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+        configuracion.setMaximumSize(tamanoMaximo);
+        if (caduca) {
+            configuracion.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        configuracion.setStatisticsEnabled(true);
+        JCacheMetrics.monitor(meterRegistry, cacheManager.createCache(nombre, configuracion));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer propiedadesCacheSegundoNivel(CacheManager cacheManagerSegundoNivel) {
+        return propiedades -> {
+            propiedades.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            propiedades.put(AvailableSettings.USE_QUERY_CACHE, true);
+            propiedades.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+            propiedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * Expulsa de esta instancia lo que cambia en las demás: cada producto o usuario modificado por su ID. Hibernate
+     * no expulsa una sola búsqueda cacheada, así que la región de consultas por nombre se vacía solo cuando otra
+     * instancia crea o elimina un usuario (región "usuario-nombre"), no con cada modificación.
+     * No es perezoso con 'arranque-rapido' (ConfiguracionArranque): registra sus regiones al crearse.
+     */
+    @Bean
+    public ExpulsionRemota expulsionRemotaSegundoNivel(BusInvalidacion busInvalidacion,
+                                                      EntityManagerFactory entityManagerFactory) {
+        return new ExpulsionRemota(busInvalidacion, entityManagerFactory);
+    }
+
+    public static final class ExpulsionRemota {
+
+        private ExpulsionRemota(BusInvalidacion busInvalidacion, EntityManagerFactory entityManagerFactory) {
+            org.hibernate.Cache cache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+            busInvalidacion.registrar("producto", clave -> cache.evict(Producto.class, Long.valueOf(clave)),
+                    () -> cache.evict(Producto.class));
+            busInvalidacion.registrar("usuario-id", clave -> cache.evict(Usuario.class, Long.valueOf(clave)),
+                    () -> cache.evict(Usuario.class));
+            busInvalidacion.registrar("usuario-nombre", clave -> cache.evictQueryRegion(REGION_USUARIO_POR_NOMBRE),
+                    () -> cache.evictQueryRegion(REGION_USUARIO_POR_NOMBRE));
+        }
+    }
+}
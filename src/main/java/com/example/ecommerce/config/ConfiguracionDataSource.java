@@ -0,0 +1,72 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.jdbc.DataSourceConLimite;
+import com.example.ecommerce.metricas.DataSourceInstrumentado;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Configuración del acceso JDBC. Envuelve el DataSource del pool en dos capas opcionales:
+ * <ul>
+ *   <li>'app.jdbc.limite-conexiones.habilitado=true' (activado por el perfil 'virtual'): DataSourceConLimite,
+ *       para que miles de hilos virtuales esperen su turno en un semáforo en lugar de saturar HikariCP.</li>
+ *   <li>'app.metricas.sql.habilitado' (activo por defecto): DataSourceInstrumentado, que alimenta la
+ *       contabilidad de SQL por endpoint. Va por fuera, así la espera de conexión incluye la del semáforo.</li>
+ * </ul>
+ */
+@Configuration
+public class ConfiguracionDataSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfiguracionDataSource.class);
+
+    @Bean
+    public static BeanPostProcessor envoltorioDataSourcePostProcessor(Environment entorno,
+                                                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (!(bean instanceof DataSource dataSource)
+                        || bean instanceof DataSourceConLimite || bean instanceof DataSourceInstrumentado) {
+                    return bean;
+                }
+                if (entorno.getProperty("app.jdbc.limite-conexiones.habilitado", Boolean.class, false)) {
+                    dataSource = limitar(dataSource, nombre, entorno, meterRegistry);
+                }
+                if (entorno.getProperty("app.metricas.sql.habilitado", Boolean.class, true)) {
+                    dataSource = new DataSourceInstrumentado(dataSource);
+                }
+                return dataSource;
+            }
+        };
+    }
+
+    private static DataSource limitar(DataSource dataSource, String nombre, Environment entorno,
+                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        // 0 = tantos permisos como conexiones tiene el pool
+        int permisos = entorno.getProperty("app.jdbc.limite-conexiones.permisos", Integer.class, 0);
+        if (permisos <= 0) {
+            permisos = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+        }
+        Duration esperaMaxima = entorno.getProperty("app.jdbc.limite-conexiones.espera-maxima",
+                Duration.class, Duration.ofSeconds(30));
+
+        DataSourceConLimite conLimite = new DataSourceConLimite(dataSource, permisos, esperaMaxima);
+        meterRegistry.ifAvailable(registro -> Gauge.builder("jdbc.conexiones.en.espera", conLimite,
+                        DataSourceConLimite::getHilosEnEspera)
+                .description("Hilos esperando un permiso de conexión JDBC")
+                .register(registro));
+        LOG.info("DataSource '{}' limitado a {} conexiones concurrentes", nombre, permisos);
+        return conLimite;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.metricas.InterceptorMetricasSql;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registra la contabilidad de tiempo de base de datos por endpoint para todas las rutas de la API.
+ */
+@Configuration
+public class ConfiguracionMetricas implements WebMvcConfigurer {
+
+    private final InterceptorMetricasSql interceptorMetricasSql;
+
+    public ConfiguracionMetricas(InterceptorMetricasSql interceptorMetricasSql) {
+        this.interceptorMetricasSql = interceptorMetricasSql;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptorMetricasSql).addPathPatterns("/api/**");
+    }
+}
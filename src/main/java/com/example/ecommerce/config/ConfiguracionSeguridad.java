@@ -1,6 +1,16 @@
 package com.example.ecommerce.config;
 
+import com.example.ecommerce.seguridad.CacheCredencialesVerificadas;
+import com.example.ecommerce.seguridad.CacheUsuariosAutenticados;
+import com.example.ecommerce.seguridad.CodificadorContrasenaAislado;
+import com.example.ecommerce.seguridad.CodificadorContrasenaConCache;
+import com.example.ecommerce.seguridad.EjecutorHashContrasenas;
+import com.example.ecommerce.seguridad.FiltroAutenticacionJwt;
+import com.example.ecommerce.seguridad.FiltroLimiteTasa;
+import com.example.ecommerce.seguridad.FiltroRespuestaSaturacion;
+import com.example.ecommerce.seguridad.LimitadorTasaPeticiones;
 import com.example.ecommerce.servicios.ServicioDetallesUsuario;
+import com.example.ecommerce.servicios.ServicioTokenJwt;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -13,9 +23,9 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 /**
  * Clase de configuración de seguridad para la aplicación Spring Boot.
@@ -27,36 +37,55 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class ConfiguracionSeguridad {
 
     private final ServicioDetallesUsuario servicioDetallesUsuario;
+    private final ServicioTokenJwt servicioTokenJwt;
+    private final CacheUsuariosAutenticados cacheUsuariosAutenticados;
+    private final CacheCredencialesVerificadas cacheCredencialesVerificadas;
+    private final EjecutorHashContrasenas ejecutorHashContrasenas;
+    private final LimitadorTasaPeticiones limitadorTasaPeticiones;
 
-    public ConfiguracionSeguridad(ServicioDetallesUsuario servicioDetallesUsuario) {
+    public ConfiguracionSeguridad(ServicioDetallesUsuario servicioDetallesUsuario, ServicioTokenJwt servicioTokenJwt,
+                                  CacheUsuariosAutenticados cacheUsuariosAutenticados,
+                                  CacheCredencialesVerificadas cacheCredencialesVerificadas,
+                                  EjecutorHashContrasenas ejecutorHashContrasenas,
+                                  LimitadorTasaPeticiones limitadorTasaPeticiones) {
         this.servicioDetallesUsuario = servicioDetallesUsuario;
+        this.servicioTokenJwt = servicioTokenJwt;
+        this.cacheUsuariosAutenticados = cacheUsuariosAutenticados;
+        this.cacheCredencialesVerificadas = cacheCredencialesVerificadas;
+        this.ejecutorHashContrasenas = ejecutorHashContrasenas;
+        this.limitadorTasaPeticiones = limitadorTasaPeticiones;
     }
 
     /**
      * Define el codificador de contraseñas (BCryptPasswordEncoder).
+     * El trabajo de BCrypt se ejecuta en un pool dedicado y acotado, no en los hilos de Tomcat.
      * @return Una instancia de PasswordEncoder.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public CodificadorContrasenaAislado passwordEncoder() {
+        return new CodificadorContrasenaAislado(new BCryptPasswordEncoder(), ejecutorHashContrasenas);
     }
 
     /**
      * Configura el AuthenticationManager, que se encarga de la autenticación de usuarios.
-     * Utiliza un DaoAuthenticationProvider con nuestro ServicioDetallesUsuario y PasswordEncoder.
+     * Utiliza un DaoAuthenticationProvider con nuestro ServicioDetallesUsuario y PasswordEncoder,
+     * con cache de usuarios autenticados y de credenciales ya verificadas para no repetir
+     * la consulta a BD ni la verificación BCrypt en cada petición HTTP Basic.
      * @return Una instancia de AuthenticationManager.
      */
     @Bean
     public AuthenticationManager authenticationManager() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(servicioDetallesUsuario);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserCache(cacheUsuariosAutenticados);
+        authProvider.setPasswordEncoder(new CodificadorContrasenaConCache(passwordEncoder(), cacheCredencialesVerificadas));
         return new ProviderManager(authProvider);
     }
 
     /**
      * Define la cadena de filtros de seguridad HTTP.
-     * Configura la autorización para diferentes endpoints y habilita la autenticación básica.
+     * Configura la autorización para diferentes endpoints, la autenticación con tokens Bearer (JWT)
+     * y mantiene la autenticación básica para los clientes que aún la usan.
      * @param http Objeto HttpSecurity para configurar la seguridad.
      * @return Una instancia de SecurityFilterChain.
      * @throws Exception Si ocurre un error de configuración.
@@ -69,19 +98,36 @@ public class ConfiguracionSeguridad {
                         // Permitir acceso público a endpoints de autenticación y registro
                         .requestMatchers(HttpMethod.POST, "/api/autenticacion/registro").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/autenticacion/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/autenticacion/refresco").permitAll()
+                        // Sonda de salud pública (orquestadores y scripts de carga esperan a que responda UP)
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**").permitAll()
 
-                        // Proteger endpoints de gestión de productos para rol ADMIN
+                        // Consultar el catálogo y el stream de stock: USER y ADMIN; el resto de la gestión de productos solo ADMIN
+                        .requestMatchers(HttpMethod.GET, "/api/productos", "/api/productos/*", "/api/productos/stock/stream")
+                        .hasAnyRole("USER", "ADMIN")
                         .requestMatchers("/api/productos/**").hasRole("ADMIN")
 
                         // Proteger endpoints de pedidos: crear pedido para USER, consultar todos para ADMIN
                         .requestMatchers(HttpMethod.POST, "/api/pedidos").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/pedidos/*/cancelacion", "/api/pedidos/cancelaciones").hasRole("ADMIN") // Cancelar pedidos solo ADMIN
                         .requestMatchers(HttpMethod.GET, "/api/pedidos/usuario/**").hasAnyRole("USER", "ADMIN") // User puede ver los suyos, admin puede ver los de cualquiera
                         .requestMatchers(HttpMethod.GET, "/api/pedidos/**").hasRole("ADMIN") // Admin puede ver todos los pedidos y pedidos por ID
 
+                        // Reservas de stock: USER y ADMIN (la propiedad de cada reserva se comprueba en el controlador)
+                        .requestMatchers("/api/reservas", "/api/reservas/**").hasAnyRole("USER", "ADMIN")
+
                         // Cualquier otra petición requiere autenticación
                         .anyRequest().authenticated()
                 )
+                // Los tokens Bearer se validan antes que cualquier otro mecanismo, sin acceso a BD
+                .addFilterBefore(new FiltroAutenticacionJwt(servicioTokenJwt), UsernamePasswordAuthenticationFilter.class)
+                // Responde 429 si la autenticación se rechaza por saturación del pool de hash
+                .addFilterBefore(new FiltroRespuestaSaturacion(), FiltroAutenticacionJwt.class)
+                // Límite de tasa por usuario, una vez identificado por JWT o HTTP Basic
+                .addFilterAfter(new FiltroLimiteTasa(limitadorTasaPeticiones), BasicAuthenticationFilter.class)
                 .httpBasic(httpBasic -> httpBasic.realmName("API Inventario y Pedidos")) // Habilita autenticación HTTP Basic
+                // HTTP Basic usa el AuthenticationManager con caches; sin esto Spring crearía otro sin ellas
+                .authenticationManager(authenticationManager())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)); // Las APIs REST suelen ser sin estado [Non-source: Common practice for REST APIs]
 
         return http.build();
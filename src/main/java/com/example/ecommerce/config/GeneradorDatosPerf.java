@@ -0,0 +1,375 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generador de datos sintéticos a gran escala para el perfil 'perf' (sustituye a DataInitializerConfig).
+ * Crea millones de productos, usuarios, pedidos y detalles con distribuciones realistas:
+ * <ul>
+ *   <li>Popularidad de productos según una distribución de Zipf: unos pocos productos aparecen en la mayoría de pedidos.</li>
+ *   <li>fechaCreacion repartida a lo largo de 'app.perf.dias' días, creciente con el ID del pedido.</li>
+ *   <li>Entre 1 y 'app.perf.lineas-maximas' líneas por pedido, con más probabilidad de pedidos pequeños.</li>
+ * </ul>
+ * Para que sea rápido:
+ * <ul>
+ *   <li>Los IDs se reservan de la secuencia por bloques y se asignan aquí, así pedidos y detalles pueden
+ *       referenciar productos, usuarios y pedidos sin leerlos de vuelta.</li>
+ *   <li>Las filas se insertan con INSERT multi-fila (cientos de filas por sentencia), en paralelo por rangos de IDs.</li>
+ *   <li>Todos los usuarios comparten un único hash BCrypt calculado una vez.</li>
+ * </ul>
+ * Los datos son deterministas para una misma semilla. Si ya existe el usuario 'perf-0' no se genera nada.
+ */
+@Component
+@Profile("perf")
+public class GeneradorDatosPerf implements CommandLineRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GeneradorDatosPerf.class);
+
+    // Límite de parámetros por sentencia del protocolo de PostgreSQL (entero de 16 bits con signo en el driver)
+    private static final int MAX_PARAMETROS = Short.MAX_VALUE;
+    private static final int PEDIDOS_POR_TAREA = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final long numeroProductos;
+    private final long numeroUsuarios;
+    private final long numeroPedidos;
+    private final int lineasMaximas;
+    private final double exponenteZipf;
+    private final int dias;
+    private final int hilos;
+    private final int filasPorSentencia;
+    private final long semilla;
+    private final String contrasena;
+
+    public GeneradorDatosPerf(JdbcTemplate jdbcTemplate,
+                              PasswordEncoder passwordEncoder,
+                              @Value("${app.perf.productos:1000000}") long numeroProductos,
+                              @Value("${app.perf.usuarios:200000}") long numeroUsuarios,
+                              @Value("${app.perf.pedidos:2000000}") long numeroPedidos,
+                              @Value("${app.perf.lineas-maximas:8}") int lineasMaximas,
+                              @Value("${app.perf.zipf:1.1}") double exponenteZipf,
+                              @Value("${app.perf.dias:365}") int dias,
+                              @Value("${app.perf.hilos:0}") int hilos,
+                              @Value("${app.perf.filas-por-sentencia:1000}") int filasPorSentencia,
+                              @Value("${app.perf.semilla:42}") long semilla,
+                              @Value("${app.perf.contrasena:perfpass}") String contrasena) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.numeroProductos = numeroProductos;
+        this.numeroUsuarios = numeroUsuarios;
+        this.numeroPedidos = numeroPedidos;
+        this.lineasMaximas = lineasMaximas;
+        this.exponenteZipf = exponenteZipf;
+        this.dias = dias;
+        this.hilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.filasPorSentencia = filasPorSentencia;
+        this.semilla = semilla;
+        this.contrasena = contrasena;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        Integer existentes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM usuarios WHERE nombre_usuario = 'perf-0'", Integer.class);
+        if (existentes != null && existentes > 0) {
+            LOG.info("Datos de rendimiento ya generados (existe 'perf-0'); no se genera nada.");
+            return;
+        }
+        LOG.info("Generando datos de rendimiento: {} productos, {} usuarios, {} pedidos con {} hilos...",
+                numeroProductos, numeroUsuarios, numeroPedidos, hilos);
+        long inicio = System.nanoTime();
+
+        crearAdministrador();
+        // Un único BCrypt para todos los usuarios sintéticos
+        String hash = passwordEncoder.encode(contrasena);
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            long baseProductos = reservarIds("productos", numeroProductos);
+            long baseUsuarios = reservarIds("usuarios", numeroUsuarios);
+            long basePedidos = reservarIds("pedidos", numeroPedidos);
+
+            List<Future<Long>> tareas = new ArrayList<>();
+            tareas.addAll(porRangos(ejecutor, numeroProductos, 50_000,
+                    (desde, hasta) -> insertarProductos(baseProductos, desde, hasta)));
+            tareas.addAll(porRangos(ejecutor, numeroUsuarios, 50_000,
+                    (desde, hasta) -> insertarUsuarios(baseUsuarios, hash, desde, hasta)));
+            long filas = esperar(tareas, "productos y usuarios", inicio);
+
+            // Los pedidos referencian productos y usuarios: se generan cuando estos ya existen,
+            // en las particiones mensuales de todo el periodo
+            jdbcTemplate.queryForObject("SELECT crear_particiones_pedidos(?, ?)", Integer.class,
+                    LocalDate.now().minusDays(dias), LocalDate.now());
+            tareas.clear();
+            Catalogo catalogo = new Catalogo(baseProductos, numeroProductos, exponenteZipf, semilla);
+            tareas.addAll(porRangos(ejecutor, numeroPedidos, PEDIDOS_POR_TAREA,
+                    (desde, hasta) -> insertarPedidos(basePedidos, baseUsuarios, catalogo, desde, hasta)));
+            filas += esperar(tareas, "pedidos y detalles", inicio);
+
+            jdbcTemplate.execute("ANALYZE productos, usuarios, pedidos, detalles_pedido");
+            Duration duracion = Duration.ofNanos(System.nanoTime() - inicio);
+            LOG.info("Datos de rendimiento generados: {} filas en {} s ({} filas/s)",
+                    filas, duracion.toSeconds(), filas * 1_000 / Math.max(1, duracion.toMillis()));
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private void crearAdministrador() {
+        Integer existe = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM usuarios WHERE nombre_usuario = 'admin'", Integer.class);
+        if (existe == null || existe == 0) {
+            jdbcTemplate.update("INSERT INTO usuarios (nombre_usuario, contrasena, rol, cuenta_expirada, " +
+                            "cuenta_bloqueada, credenciales_expiradas, habilitado) VALUES (?, ?, ?, false, false, false, true)",
+                    "admin", DataInitializerConfig.HASH_ADMINPASS, Rol.ADMIN.name());
+            LOG.info("Usuario ADMIN creado: admin/adminpass");
+        }
+    }
+
+    /**
+     * Reserva un bloque de IDs consecutivos de la secuencia de identidad de la tabla.
+     * @return el primer ID del bloque.
+     */
+    private long reservarIds(String tabla, long cantidad) {
+        Long base = jdbcTemplate.queryForObject("SELECT nextval(pg_get_serial_sequence(?, 'id'))", Long.class, tabla);
+        jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence(?, 'id'), ?)", Long.class,
+                tabla, base + cantidad - 1);
+        return base;
+    }
+
+    private long insertarProductos(long base, long desde, long hasta) {
+        InsercionMultifila insercion = new InsercionMultifila(
+                "INSERT INTO productos (id, nombre, descripcion, precio, cantidad_en_stock)", 5);
+        SplittableRandom aleatorio = new SplittableRandom(semilla ^ (desde * 31 + 1));
+        for (long i = desde; i < hasta; i++) {
+            long id = base + i;
+            insercion.volcarSiLlena();
+            insercion.agregar(id, "Producto " + i, "Producto sintético " + i + " para pruebas de rendimiento",
+                    Catalogo.precio(id, semilla), 1_000 + aleatorio.nextInt(10_000));
+        }
+        return insercion.terminar();
+    }
+
+    private long insertarUsuarios(long base, String hash, long desde, long hasta) {
+        InsercionMultifila insercion = new InsercionMultifila(
+                "INSERT INTO usuarios (id, nombre_usuario, contrasena, rol, cuenta_expirada, cuenta_bloqueada, " +
+                "credenciales_expiradas, habilitado)", 8);
+        for (long i = desde; i < hasta; i++) {
+            insercion.volcarSiLlena();
+            insercion.agregar(base + i, "perf-" + i, hash, Rol.USER.name(), false, false, false, true);
+        }
+        return insercion.terminar();
+    }
+
+    private long insertarPedidos(long basePedidos, long baseUsuarios, Catalogo catalogo, long desde, long hasta) {
+        InsercionMultifila pedidos = new InsercionMultifila(
+                "INSERT INTO pedidos (id, fecha_creacion, total, usuario_id)", 4);
+        InsercionMultifila detalles = new InsercionMultifila(
+                "INSERT INTO detalles_pedido (pedido_id, fecha_pedido, producto_id, cantidad, precio_unitario)", 5);
+        SplittableRandom aleatorio = new SplittableRandom(semilla ^ (desde * 31 + 2));
+        LocalDateTime origen = LocalDateTime.now().minusDays(dias);
+        double segundosPorPedido = dias * 86_400.0 / Math.max(1, numeroPedidos);
+        long[] productos = new long[lineasMaximas];
+        int[] cantidades = new int[lineasMaximas];
+
+        // Los detalles exigen que su pedido exista: cada pedido se acumula antes que sus detalles y los pedidos
+        // acumulados se insertan siempre antes que los detalles
+        for (long i = desde; i < hasta; i++) {
+            long pedidoId = basePedidos + i;
+            long segundos = (long) (i * segundosPorPedido) + aleatorio.nextLong(1 + (long) segundosPorPedido);
+            LocalDateTime fecha = origen.plusSeconds(segundos);
+            // Pedidos pequeños más frecuentes: mínimo de dos tiradas uniformes
+            int lineas = 1 + Math.min(aleatorio.nextInt(lineasMaximas), aleatorio.nextInt(lineasMaximas));
+            BigDecimal total = BigDecimal.ZERO;
+            for (int l = 0; l < lineas; l++) {
+                productos[l] = catalogo.productoPopular(aleatorio);
+                cantidades[l] = 1 + Math.min(aleatorio.nextInt(5), aleatorio.nextInt(5));
+                total = total.add(Catalogo.precio(productos[l], semilla).multiply(BigDecimal.valueOf(cantidades[l])));
+            }
+            long usuarioId = baseUsuarios + aleatorio.nextLong(numeroUsuarios);
+
+            if (pedidos.estaLlena()) {
+                volcarPedidos(pedidos, detalles);
+            }
+            pedidos.agregar(pedidoId, fecha, total, usuarioId);
+            for (int l = 0; l < lineas; l++) {
+                if (detalles.estaLlena()) {
+                    volcarPedidos(pedidos, detalles);
+                }
+                detalles.agregar(pedidoId, fecha, productos[l], cantidades[l], Catalogo.precio(productos[l], semilla));
+            }
+        }
+        volcarPedidos(pedidos, detalles);
+        return pedidos.terminar() + detalles.terminar();
+    }
+
+    private static void volcarPedidos(InsercionMultifila pedidos, InsercionMultifila detalles) {
+        pedidos.volcar();
+        detalles.volcar();
+    }
+
+    private static List<Future<Long>> porRangos(ExecutorService ejecutor, long total, long tamanoRango, Rango rango) {
+        List<Future<Long>> futuros = new ArrayList<>();
+        for (long desde = 0; desde < total; desde += tamanoRango) {
+            long inicio = desde;
+            long fin = Math.min(total, desde + tamanoRango);
+            futuros.add(ejecutor.submit(() -> rango.insertar(inicio, fin)));
+        }
+        return futuros;
+    }
+
+    private static long esperar(List<Future<Long>> tareas, String descripcion, long inicio) throws Exception {
+        long filas = 0;
+        for (Future<Long> tarea : tareas) {
+            filas += tarea.get();
+        }
+        LOG.info("Generados {}: {} filas (t = {} s)", descripcion, filas,
+                Duration.ofNanos(System.nanoTime() - inicio).toSeconds());
+        return filas;
+    }
+
+    @FunctionalInterface
+    private interface Rango {
+        long insertar(long desde, long hasta);
+    }
+
+    /**
+     * Acumula filas y las envía como un INSERT ... VALUES (...), (...), ... de hasta 'filasPorSentencia' filas.
+     * Cada sentencia se confirma por separado (autocommit): si la generación se interrumpe, lo insertado se conserva.
+     * Nunca se vuelca sola: quien la usa decide cuándo, para insertar antes las filas referenciadas.
+     */
+    private final class InsercionMultifila {
+        private final String prefijo;
+        private final int columnas;
+        private final int filasMaximas;
+        private final String sentenciaCompleta;
+        private final Object[] argumentos;
+        private int filas;
+        private long insertadas;
+
+        private InsercionMultifila(String prefijo, int columnas) {
+            this.prefijo = prefijo;
+            this.columnas = columnas;
+            this.filasMaximas = Math.max(1, Math.min(filasPorSentencia, MAX_PARAMETROS / columnas));
+            this.sentenciaCompleta = sentencia(filasMaximas);
+            this.argumentos = new Object[filasMaximas * columnas];
+        }
+
+        private void agregar(Object... valores) {
+            if (estaLlena()) {
+                throw new IllegalStateException("Inserción multifila llena: hay que volcarla antes de agregar");
+            }
+            System.arraycopy(valores, 0, argumentos, filas * columnas, columnas);
+            filas++;
+        }
+
+        private boolean estaLlena() {
+            return filas == filasMaximas;
+        }
+
+        private void volcarSiLlena() {
+            if (estaLlena()) {
+                volcar();
+            }
+        }
+
+        private void volcar() {
+            if (filas == 0) {
+                return;
+            }
+            if (filas == filasMaximas) {
+                jdbcTemplate.update(sentenciaCompleta, argumentos);
+            } else {
+                Object[] parciales = new Object[filas * columnas];
+                System.arraycopy(argumentos, 0, parciales, 0, parciales.length);
+                jdbcTemplate.update(sentencia(filas), parciales);
+            }
+            insertadas += filas;
+            filas = 0;
+        }
+
+        private long terminar() {
+            volcar();
+            return insertadas;
+        }
+
+        private String sentencia(int numeroFilas) {
+            String fila = "(" + "?, ".repeat(columnas - 1) + "?)";
+            StringBuilder sql = new StringBuilder(prefijo.length() + 8 + numeroFilas * (fila.length() + 2))
+                    .append(prefijo).append(" VALUES ");
+            for (int i = 0; i < numeroFilas; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(fila);
+            }
+            return sql.toString();
+        }
+    }
+
+    /**
+     * Productos generados: precio determinista a partir del ID y selección por popularidad (Zipf).
+     * El rango de popularidad se dispersa sobre los IDs con una permutación multiplicativa,
+     * para que los productos más vendidos no sean simplemente los de ID más bajo.
+     */
+    private static final class Catalogo {
+        private final long base;
+        private final long tamano;
+        private final double exponente;
+        private final long multiplicador;
+
+        private Catalogo(long base, long tamano, double exponente, long semilla) {
+            this.base = base;
+            this.tamano = tamano;
+            this.exponente = exponente;
+            long candidato = (Math.abs(semilla) % 1_000_000L) * 2 + 1_000_003L;
+            while (mcd(candidato, tamano) != 1) {
+                candidato += 2;
+            }
+            this.multiplicador = candidato;
+        }
+
+        /**
+         * Muestra un rango 0..tamano-1 con la inversa de la aproximación continua de Zipf
+         * (sin tablas: vale igual para mil que para diez millones de productos).
+         */
+        private long productoPopular(SplittableRandom aleatorio) {
+            double u = aleatorio.nextDouble();
+            double rango = exponente == 1.0
+                    ? Math.pow(tamano, u)
+                    : Math.pow((Math.pow(tamano, 1 - exponente) - 1) * u + 1, 1 / (1 - exponente));
+            long posicion = Math.min(tamano - 1, Math.max(0, (long) rango - 1));
+            return base + Math.floorMod(posicion * multiplicador, tamano);
+        }
+
+        private static BigDecimal precio(long productoId, long semilla) {
+            long mezcla = (productoId ^ semilla) * 0x9E3779B97F4A7C15L;
+            mezcla ^= mezcla >>> 32;
+            return BigDecimal.valueOf(100 + Math.floorMod(mezcla, 50_000L), 2);
+        }
+
+        private static long mcd(long a, long b) {
+            return b == 0 ? a : mcd(b, a % b);
+        }
+    }
+}
@@ -2,8 +2,12 @@ package com.example.ecommerce.controladores;
 
 import com.example.ecommerce.dto.AutenticacionPeticionDTO;
 import com.example.ecommerce.dto.AutenticacionRespuestaDTO;
+import com.example.ecommerce.dto.RefrescoTokenPeticionDTO;
 import com.example.ecommerce.dto.UsuarioRegistroDTO;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.seguridad.LimitadorIntentosAutenticacion;
 import com.example.ecommerce.servicios.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,20 +30,25 @@ public class AutenticacionController {
 
     private final AuthService authService;
     private final AuthenticationManager authenticationManager;
+    private final LimitadorIntentosAutenticacion limitadorIntentos;
 
     public AutenticacionController(AuthService authService,
-                                   AuthenticationManager authenticationManager) {
+                                   AuthenticationManager authenticationManager,
+                                   LimitadorIntentosAutenticacion limitadorIntentos) {
         this.authService = authService;
         this.authenticationManager = authenticationManager;
+        this.limitadorIntentos = limitadorIntentos;
     }
 
     /**
      * Endpoint para registrar un nuevo usuario en el sistema.
      * @param registroDTO DTO con los datos del nuevo usuario.
+     * @param request Petición HTTP, para limitar los intentos por IP.
      * @return ResponseEntity con un mensaje de éxito o error.
      */
     @PostMapping("/registro")
-    public ResponseEntity<String> registrarUsuario(@Valid @RequestBody UsuarioRegistroDTO registroDTO) {
+    public ResponseEntity<String> registrarUsuario(@Valid @RequestBody UsuarioRegistroDTO registroDTO, HttpServletRequest request) {
+        limitadorIntentos.verificar(request.getRemoteAddr(), registroDTO.getNombreUsuario());
         authService.registrarUsuario(registroDTO);
         return new ResponseEntity<>("Usuario registrado exitosamente!", HttpStatus.CREATED);
     }
@@ -47,10 +56,15 @@ public class AutenticacionController {
     /**
      * Endpoint para la autenticación de usuarios (login).
      * @param autenticacionDTO DTO con las credenciales del usuario.
-     * @return ResponseEntity con un mensaje de éxito y un token (si se usara JWT).
+     * @param request Petición HTTP, para limitar los intentos por IP.
+     * @return ResponseEntity con un mensaje de éxito, el token de acceso JWT y el token de refresco.
      */
     @PostMapping("/login")
-    public ResponseEntity<AutenticacionRespuestaDTO> autenticarUsuario(@Valid @RequestBody AutenticacionPeticionDTO autenticacionDTO) {
+    public ResponseEntity<AutenticacionRespuestaDTO> autenticarUsuario(@Valid @RequestBody AutenticacionPeticionDTO autenticacionDTO,
+                                                                       HttpServletRequest request) {
+        // Control de admisión antes de BCrypt: limita los intentos por IP y por nombre de usuario
+        limitadorIntentos.verificar(request.getRemoteAddr(), autenticacionDTO.getNombreUsuario());
+
         // Autentica al usuario usando el AuthenticationManager
         Authentication autenticacion = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(autenticacionDTO.getNombreUsuario(), autenticacionDTO.getContrasena())
@@ -59,9 +73,19 @@ public class AutenticacionController {
         // Establece la autenticación en el contexto de seguridad de Spring
         SecurityContextHolder.getContext().setAuthentication(autenticacion);
 
-        // Para una implementación básica, simplemente retorna un mensaje de éxito.
-        // Si se usara JWT, aquí se generaría y retornaría el token.
-        return new ResponseEntity<>(new AutenticacionRespuestaDTO("Autenticación exitosa. ¡Bienvenido!", "no-jwt-token-basico"), HttpStatus.OK);
+        // Emite el token de acceso firmado: las siguientes peticiones no repiten la verificación BCrypt.
+        Usuario usuario = (Usuario) autenticacion.getPrincipal();
+        return new ResponseEntity<>(authService.emitirTokens(usuario, "Autenticación exitosa. ¡Bienvenido!"), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint para renovar los tokens a partir de un token de refresco.
+     * @param refrescoDTO DTO con el token de refresco.
+     * @return ResponseEntity con un nuevo token de acceso y un nuevo token de refresco.
+     */
+    @PostMapping("/refresco")
+    public ResponseEntity<AutenticacionRespuestaDTO> refrescarToken(@Valid @RequestBody RefrescoTokenPeticionDTO refrescoDTO) {
+        return new ResponseEntity<>(authService.refrescarTokens(refrescoDTO.getTokenRefresco()), HttpStatus.OK);
     }
 }
 
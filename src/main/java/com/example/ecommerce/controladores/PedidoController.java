@@ -1,10 +1,15 @@
 package com.example.ecommerce.controladores;
 
+import com.example.ecommerce.dto.CancelacionMasivaDTO;
+import com.example.ecommerce.dto.CancelacionMasivaRespuestaDTO;
 import com.example.ecommerce.dto.PedidoCreacionDTO;
 import com.example.ecommerce.dto.PedidoRespuestaDTO;
 import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.repositorios.PedidoArchivadoRepository;
 import com.example.ecommerce.repositorios.PedidoRepository;
 import com.example.ecommerce.servicios.PedidoService;
+import com.example.ecommerce.servicios.ServicioCancelacionPedidos;
+import com.example.ecommerce.servicios.VistaDisponibilidadProductos;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,6 +23,8 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 
+import java.util.UUID;
+
 /**
  * Controlador REST para el procesamiento y consulta de pedidos.
  * Los endpoints están protegidos por roles de usuario.
@@ -27,14 +34,21 @@ import jakarta.validation.Valid;
 public class PedidoController {
 
     private final PedidoService pedidoService;
+    private final ServicioCancelacionPedidos servicioCancelacionPedidos;
+    private final VistaDisponibilidadProductos vistaDisponibilidad;
 
     /**
      * Constructor para la inyección de dependencias.
      * @param pedidoService Servicio de pedidos.
+     * @param servicioCancelacionPedidos Servicio de cancelación de pedidos.
+     * @param vistaDisponibilidad Vista de admisión de pedidos.
      */
     @Autowired
-    public PedidoController(PedidoService pedidoService) {
+    public PedidoController(PedidoService pedidoService, ServicioCancelacionPedidos servicioCancelacionPedidos,
+                            VistaDisponibilidadProductos vistaDisponibilidad) {
         this.pedidoService = pedidoService;
+        this.servicioCancelacionPedidos = servicioCancelacionPedidos;
+        this.vistaDisponibilidad = vistaDisponibilidad;
     }
 
     /**
@@ -56,6 +70,8 @@ public class PedidoController {
             pedidoCreacionDTO.setUsuarioId(usuarioAutenticado.getId());
         }
 
+        // Antes de la transacción: rechaza sin ir a la base de datos los pedidos que seguro fallarían
+        vistaDisponibilidad.comprobar(pedidoCreacionDTO);
         PedidoRespuestaDTO nuevoPedido = pedidoService.crearPedido(pedidoCreacionDTO);
         return new ResponseEntity<>(nuevoPedido, HttpStatus.CREATED);
     }
@@ -99,6 +115,41 @@ public class PedidoController {
         return new ResponseEntity<>(pedidos, HttpStatus.OK);
     }
 
+    /**
+     * Cancela un pedido y devuelve su stock a los productos. Solo accesible por usuarios con rol ADMIN.
+     * Cancelar un pedido ya cancelado devuelve el pedido sin cambios; los pedidos archivados no se cancelan.
+     * @param id ID del pedido.
+     * @return ResponseEntity con el DTO del pedido cancelado y estado 200 OK.
+     */
+    @PostMapping("/{id}/cancelacion")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PedidoRespuestaDTO> cancelarPedido(@PathVariable Long id) {
+        return new ResponseEntity<>(servicioCancelacionPedidos.cancelarPedido(id), HttpStatus.OK);
+    }
+
+    /**
+     * Inicia la cancelación de muchos pedidos, que continúa en segundo plano. Solo accesible por usuarios con rol ADMIN.
+     * @param cancelacionDTO DTO con los IDs de los pedidos.
+     * @return ResponseEntity con el progreso inicial y estado 202 ACCEPTED; se sigue en GET /cancelaciones/{id}.
+     */
+    @PostMapping("/cancelaciones")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CancelacionMasivaRespuestaDTO> iniciarCancelacionMasiva(@Valid @RequestBody CancelacionMasivaDTO cancelacionDTO) {
+        return new ResponseEntity<>(servicioCancelacionPedidos.iniciarCancelacionMasiva(cancelacionDTO.getPedidoIds()),
+                HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Consulta el progreso de una cancelación masiva. Solo accesible por usuarios con rol ADMIN.
+     * @param id ID de la cancelación masiva.
+     * @return ResponseEntity con el progreso y estado 200 OK.
+     */
+    @GetMapping("/cancelaciones/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CancelacionMasivaRespuestaDTO> obtenerCancelacionMasiva(@PathVariable UUID id) {
+        return new ResponseEntity<>(servicioCancelacionPedidos.obtenerCancelacionMasiva(id), HttpStatus.OK);
+    }
+
     // Helper bean para seguridad a nivel de método, para verificar si un usuario es propietario de un pedido
     @Component("pedidoSecurity") // Nombre del bean para usar en @PreAuthorize
     public static class PedidoSecurity {
@@ -106,10 +157,13 @@ public class PedidoController {
         @Autowired
         private PedidoRepository pedidoRepository;
 
+        @Autowired
+        private PedidoArchivadoRepository pedidoArchivadoRepository;
+
+        // El pedido puede estar entre los recientes o en el archivo
         public boolean esPropietarioDePedido(Long pedidoId, Long usuarioId) {
-            return pedidoRepository.findById(pedidoId)
-                    .map(pedido -> pedido.getUsuario().getId().equals(usuarioId))
-                    .orElse(false);
+            return pedidoRepository.existsByIdAndUsuarioId(pedidoId, usuarioId)
+                    || pedidoArchivadoRepository.existsByIdAndUsuarioId(pedidoId, usuarioId);
         }
     }
 }
@@ -1,20 +1,28 @@
 package com.example.ecommerce.controladores;
 
+import com.example.ecommerce.dto.AjustesStockDTO;
 import com.example.ecommerce.dto.ProductoActualizacionDTO;
 import com.example.ecommerce.dto.ProductoCreacionDTO;
 import com.example.ecommerce.dto.ProductoRespuestaDTO;
+import com.example.ecommerce.dto.StockRespuestaDTO;
+import com.example.ecommerce.eventos.DifusorStock;
 import com.example.ecommerce.servicios.ProductoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Controlador REST para la gestión de productos.
@@ -25,14 +33,17 @@ import java.util.List;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final DifusorStock difusorStock;
 
     /**
      * Constructor para la inyección de dependencias.
      * @param productoService Servicio de productos.
+     * @param difusorStock Difusor de niveles de stock por SSE.
      */
     @Autowired
-    public ProductoController(ProductoService productoService) {
+    public ProductoController(ProductoService productoService, DifusorStock difusorStock) {
         this.productoService = productoService;
+        this.difusorStock = difusorStock;
     }
 
     /**
@@ -84,6 +95,31 @@ public class ProductoController {
         return new ResponseEntity<>(productoActualizado, HttpStatus.OK);
     }
 
+    /**
+     * Aplica un lote de ajustes relativos de stock en una sola transacción. Solo accesible por usuarios con rol ADMIN.
+     * @param ajustesStockDTO DTO con la lista de ajustes (ID de producto y delta).
+     * @return ResponseEntity con los niveles de stock resultantes y estado 200 OK.
+     */
+    @PostMapping("/stock/ajustes")
+    @PreAuthorize("hasRole('ADMIN')") // Protegido para el rol ADMIN
+    public ResponseEntity<List<StockRespuestaDTO>> ajustarStock(@Valid @RequestBody AjustesStockDTO ajustesStockDTO) {
+        List<StockRespuestaDTO> nivelesDeStock = productoService.ajustarStock(ajustesStockDTO);
+        return new ResponseEntity<>(nivelesDeStock, HttpStatus.OK);
+    }
+
+    /**
+     * Stream SSE con el stock de los productos indicados. Accesible por usuarios con rol ADMIN o USER.
+     * El primer evento 'stock' trae el nivel actual y los siguientes, los cambios confirmados; si el cliente
+     * lee despacio, solo recibe el último nivel de cada producto.
+     * @param ids IDs de los productos (como mucho 100).
+     * @return El emisor SSE de la suscripción.
+     */
+    @GetMapping(value = "/stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public SseEmitter streamStock(@RequestParam @NotEmpty @Size(max = 100) Set<Long> ids) {
+        return difusorStock.suscribir(ids);
+    }
+
     /**
      * Elimina un producto por su ID. Solo accesible por usuarios con rol ADMIN.
      * @param id ID del producto a eliminar.
@@ -0,0 +1,100 @@
+package com.example.ecommerce.controladores;
+
+import com.example.ecommerce.dto.PedidoRespuestaDTO;
+import com.example.ecommerce.dto.ReservaCreacionDTO;
+import com.example.ecommerce.dto.ReservaRespuestaDTO;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.repositorios.ReservaStockRepository;
+import com.example.ecommerce.servicios.ServicioReservas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+
+/**
+ * Controlador REST para las reservas de stock de carritos.
+ * Un usuario solo puede gestionar sus propias reservas; un ADMIN, las de cualquiera.
+ */
+@RestController
+@RequestMapping("/api/reservas")
+public class ReservaController {
+
+    private final ServicioReservas servicioReservas;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * @param servicioReservas Servicio de reservas de stock.
+     */
+    @Autowired
+    public ReservaController(ServicioReservas servicioReservas) {
+        this.servicioReservas = servicioReservas;
+    }
+
+    /**
+     * Reserva el stock de un carrito durante el tiempo configurado. Accesible por usuarios con rol USER o ADMIN.
+     * Como al crear pedidos, un USER siempre reserva para sí mismo.
+     * @param reservaCreacionDTO DTO con el usuario y las líneas a reservar.
+     * @return ResponseEntity con la reserva creada y estado 201 CREATED.
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ReservaRespuestaDTO> reservar(@Valid @RequestBody ReservaCreacionDTO reservaCreacionDTO,
+                                                        Authentication authentication) {
+        if (authentication.getAuthorities().stream().noneMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            reservaCreacionDTO.setUsuarioId(((Usuario) authentication.getPrincipal()).getId());
+        }
+        ReservaRespuestaDTO reserva = servicioReservas.reservar(reservaCreacionDTO);
+        return new ResponseEntity<>(reserva, HttpStatus.CREATED);
+    }
+
+    /**
+     * Consulta una reserva activa.
+     * @param id ID de la reserva.
+     * @return ResponseEntity con la reserva y estado 200 OK.
+     */
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN') or @reservaSecurity.esPropietarioDeReserva(#id, authentication.principal.id)")
+    public ResponseEntity<ReservaRespuestaDTO> obtenerReservaPorId(@PathVariable Long id) {
+        return new ResponseEntity<>(servicioReservas.obtenerReservaPorId(id), HttpStatus.OK);
+    }
+
+    /**
+     * Confirma una reserva vigente en un pedido, con el stock que retenía.
+     * @param id ID de la reserva.
+     * @return ResponseEntity con el pedido creado y estado 201 CREATED.
+     */
+    @PostMapping("/{id}/confirmacion")
+    @PreAuthorize("hasRole('ADMIN') or @reservaSecurity.esPropietarioDeReserva(#id, authentication.principal.id)")
+    public ResponseEntity<PedidoRespuestaDTO> confirmar(@PathVariable Long id) {
+        return new ResponseEntity<>(servicioReservas.confirmar(id), HttpStatus.CREATED);
+    }
+
+    /**
+     * Libera una reserva y devuelve su stock.
+     * @param id ID de la reserva.
+     * @return ResponseEntity con estado 204 NO CONTENT.
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN') or @reservaSecurity.esPropietarioDeReserva(#id, authentication.principal.id)")
+    public ResponseEntity<Void> liberar(@PathVariable Long id) {
+        servicioReservas.liberar(id);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    // Helper bean para seguridad a nivel de método: comprueba si la reserva es del usuario autenticado
+    @Component("reservaSecurity")
+    public static class ReservaSecurity {
+
+        @Autowired
+        private ReservaStockRepository reservaStockRepository;
+
+        public boolean esPropietarioDeReserva(Long reservaId, Long usuarioId) {
+            return reservaStockRepository.existsByIdAndUsuarioId(reservaId, usuarioId);
+        }
+    }
+}
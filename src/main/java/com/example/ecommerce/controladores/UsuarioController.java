@@ -0,0 +1,41 @@
+package com.example.ecommerce.controladores;
+
+import com.example.ecommerce.dto.ProvisionUsuariosDTO;
+import com.example.ecommerce.dto.ProvisionUsuariosRespuestaDTO;
+import com.example.ecommerce.servicios.ServicioProvisionUsuarios;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.validation.Valid;
+
+/**
+ * Controlador REST para la administración de usuarios.
+ * Los endpoints están protegidos para el rol ADMIN.
+ */
+@RestController
+@RequestMapping("/api/usuarios")
+public class UsuarioController {
+
+    private final ServicioProvisionUsuarios servicioProvisionUsuarios;
+
+    public UsuarioController(ServicioProvisionUsuarios servicioProvisionUsuarios) {
+        this.servicioProvisionUsuarios = servicioProvisionUsuarios;
+    }
+
+    /**
+     * Da de alta una lista de usuarios en lote. Solo accesible por usuarios con rol ADMIN.
+     * Los nombres de usuario ya existentes no abortan la operación: se informan por fila.
+     * @param provisionDTO DTO con la lista de usuarios.
+     * @return ResponseEntity con el resumen del alta y estado 200 OK.
+     */
+    @PostMapping("/lote")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProvisionUsuariosRespuestaDTO> provisionarUsuarios(@Valid @RequestBody ProvisionUsuariosDTO provisionDTO) {
+        return new ResponseEntity<>(servicioProvisionUsuarios.provisionarUsuarios(provisionDTO), HttpStatus.OK);
+    }
+}
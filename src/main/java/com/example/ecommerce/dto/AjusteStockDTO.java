@@ -0,0 +1,23 @@
+package com.example.ecommerce.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * DTO para un ajuste relativo de stock de un producto (recepción de mercancía, mermas, etc.).
+ * Un delta positivo incrementa el stock y uno negativo lo reduce.
+ */
+@Data
+public class AjusteStockDTO {
+    /** Límite del valor absoluto de un ajuste; mantiene holgada la columna entera de stock. */
+    public static final int DELTA_MAXIMO = 1_000_000;
+
+    @NotNull(message = "El ID del producto no puede ser nulo")
+    private Long productoId;
+    @NotNull(message = "El delta no puede ser nulo")
+    @Min(value = -DELTA_MAXIMO, message = "El delta no puede ser menor que -" + DELTA_MAXIMO)
+    @Max(value = DELTA_MAXIMO, message = "El delta no puede ser mayor que " + DELTA_MAXIMO)
+    private Integer delta;
+}
@@ -0,0 +1,19 @@
+package com.example.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO para aplicar un lote de ajustes de stock en una única operación.
+ */
+@Data
+public class AjustesStockDTO {
+    @NotEmpty(message = "El lote debe contener al menos un ajuste")
+    @Size(max = 10000, message = "El lote no puede contener más de 10000 ajustes")
+    @Valid // Valida cada elemento en la lista
+    private List<AjusteStockDTO> ajustes;
+}
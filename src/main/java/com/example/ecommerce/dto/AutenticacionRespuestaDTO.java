@@ -5,12 +5,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * DTO para la respuesta de autenticación (contiene el token JWT, si se implementara).
+ * DTO para la respuesta de autenticación, con el token de acceso (JWT) y el token de refresco.
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class AutenticacionRespuestaDTO {
     private String mensaje;
-    private String token; // Podría ser un token JWT si se implementara seguridad más avanzada
+    private String token; // Token de acceso JWT, se envía como "Authorization: Bearer <token>"
+    private String tokenRefresco; // Permite obtener un nuevo token de acceso sin reenviar las credenciales
+    private long expiraEnSegundos; // Vigencia del token de acceso
 }
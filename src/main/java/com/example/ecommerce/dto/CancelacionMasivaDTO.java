@@ -0,0 +1,18 @@
+package com.example.ecommerce.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO para cancelar muchos pedidos a la vez (por ejemplo, los de una revisión de fraude).
+ */
+@Data
+public class CancelacionMasivaDTO {
+    @NotEmpty(message = "La lista de pedidos no puede estar vacía")
+    @Size(max = 100000, message = "No se pueden cancelar más de 100000 pedidos por petición")
+    private List<@NotNull Long> pedidoIds;
+}
@@ -0,0 +1,27 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO con el progreso de una cancelación masiva de pedidos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelacionMasivaRespuestaDTO {
+    private UUID id;
+    private boolean completada;
+    private int totalPedidos; // Sin IDs repetidos
+    private int procesados;
+    private int cancelados;
+    private int omitidos; // Ya cancelados, archivados o inexistentes
+    private List<Long> pedidosFallidos; // Lotes que no se pudieron cancelar; se pueden volver a enviar
+    private LocalDateTime inicio;
+    private LocalDateTime fin;
+}
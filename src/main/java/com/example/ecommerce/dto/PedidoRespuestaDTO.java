@@ -1,5 +1,6 @@
 package com.example.ecommerce.dto;
 
+import com.example.ecommerce.modelo.entidades.enums.EstadoPedido;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,6 +14,8 @@ public class PedidoRespuestaDTO {
     private Long id;
     private LocalDateTime fechaCreacion;
     private BigDecimal total;
+    private EstadoPedido estado;
+    private LocalDateTime fechaCancelacion; // Solo en pedidos cancelados
     private String nombreUsuario; // Nombre de usuario del cliente que realizó el pedido
     private List<DetallePedidoRespuestaDTO> detalles; // Lista de detalles del pedido
 }
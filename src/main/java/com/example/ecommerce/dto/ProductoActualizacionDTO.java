@@ -1,6 +1,7 @@
 package com.example.ecommerce.dto;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -16,6 +17,7 @@ public class ProductoActualizacionDTO {
     private String nombre;
     private String descripcion;
     @DecimalMin(value = "0.01", message = "El precio debe ser positivo")
+    @Digits(integer = 16, fraction = 2, message = "El precio admite como máximo 16 cifras enteras y 2 decimales")
     private BigDecimal precio;
     @Min(value = 0, message = "La cantidad en stock no puede ser negativa")
     private Integer cantidadEnStock;
@@ -1,6 +1,7 @@
 package com.example.ecommerce.dto;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -18,6 +19,7 @@ public class ProductoCreacionDTO {
     private String descripcion;
     @NotNull(message = "El precio no puede ser nulo")
     @DecimalMin(value = "0.01", message = "El precio debe ser positivo")
+    @Digits(integer = 16, fraction = 2, message = "El precio admite como máximo 16 cifras enteras y 2 decimales")
     private BigDecimal precio;
     @NotNull(message = "La cantidad en stock no puede ser nula")
     @Min(value = 0, message = "La cantidad en stock no puede ser negativa")
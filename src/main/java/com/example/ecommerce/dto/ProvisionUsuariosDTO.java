@@ -0,0 +1,19 @@
+package com.example.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO para el alta masiva de usuarios (por ejemplo, la incorporación de un cliente corporativo).
+ */
+@Data
+public class ProvisionUsuariosDTO {
+    @NotEmpty(message = "La lista de usuarios no puede estar vacía")
+    @Size(max = 50000, message = "No se pueden dar de alta más de 50000 usuarios por petición")
+    @Valid // Valida cada elemento en la lista
+    private List<UsuarioRegistroDTO> usuarios;
+}
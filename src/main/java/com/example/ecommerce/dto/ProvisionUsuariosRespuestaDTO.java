@@ -0,0 +1,19 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de un alta masiva de usuarios.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProvisionUsuariosRespuestaDTO {
+    private int totalFilas;
+    private int creados;
+    private List<UsuarioDuplicadoDTO> duplicados;
+}
@@ -0,0 +1,13 @@
+package com.example.ecommerce.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * DTO para la petición de renovación de tokens a partir de un token de refresco.
+ */
+@Data
+public class RefrescoTokenPeticionDTO {
+    @NotBlank(message = "El token de refresco no puede estar vacío")
+    private String tokenRefresco;
+}
@@ -0,0 +1,20 @@
+package com.example.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO para reservar el stock de un carrito.
+ */
+@Data
+public class ReservaCreacionDTO {
+    @NotNull(message = "El ID de usuario no puede ser nulo")
+    private Long usuarioId;
+    @NotEmpty(message = "La reserva debe contener al menos un detalle")
+    @Valid
+    private List<DetallePedidoCreacionDTO> detalles;
+}
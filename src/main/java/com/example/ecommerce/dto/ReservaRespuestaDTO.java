@@ -0,0 +1,18 @@
+package com.example.ecommerce.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO para representar una reserva de stock activa.
+ */
+@Data
+public class ReservaRespuestaDTO {
+    private Long id;
+    private Long usuarioId;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime expiraEn;
+    private List<DetallePedidoCreacionDTO> detalles;
+}
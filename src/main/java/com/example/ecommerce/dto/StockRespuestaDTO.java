@@ -0,0 +1,16 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el nivel de stock de un producto.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockRespuestaDTO {
+    private Long productoId;
+    private Integer cantidadEnStock;
+}
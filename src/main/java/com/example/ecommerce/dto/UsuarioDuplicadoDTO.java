@@ -0,0 +1,16 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO que identifica una fila del alta masiva rechazada porque el nombre de usuario ya existía.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsuarioDuplicadoDTO {
+    private int fila; // Posición (base 0) en la lista recibida
+    private String nombreUsuario;
+}
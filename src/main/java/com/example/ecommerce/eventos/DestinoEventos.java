@@ -0,0 +1,22 @@
+package com.example.ecommerce.eventos;
+
+import java.util.List;
+
+/**
+ * Destino al que RelayOutbox entrega los eventos del outbox (un broker, un fichero, memoria...).
+ * Cualquier bean que implemente esta interfaz se registra como destino.
+ */
+public interface DestinoEventos {
+
+    /**
+     * Nombre del destino, para registros y métricas.
+     */
+    String nombre();
+
+    /**
+     * Entrega un lote de eventos en el orden de la lista (orden de ID). Debe volver solo cuando el lote es
+     * duradero en el destino; si lanza una excepción, el lote entero se reintenta más tarde, también en los
+     * destinos que ya lo habían recibido.
+     */
+    void publicar(List<EventoPublicado> eventos);
+}
@@ -0,0 +1,68 @@
+package com.example.ecommerce.eventos;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Destino de pruebas y desarrollo: añade cada evento como una línea JSON al fichero
+ * 'app.eventos.destino.archivo.ruta' y fuerza la escritura a disco antes de confirmar el lote.
+ */
+@Component
+@ConditionalOnProperty(name = "app.eventos.destino.archivo.habilitado", havingValue = "true")
+public class DestinoEventosArchivo implements DestinoEventos {
+
+    private final Path ruta;
+    private final ObjectMapper objectMapper;
+
+    public DestinoEventosArchivo(@Value("${app.eventos.destino.archivo.ruta:target/eventos/outbox.jsonl}") Path ruta,
+                                 ObjectMapper objectMapper) {
+        this.ruta = ruta;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String nombre() {
+        return "archivo";
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoPublicado> eventos) {
+        StringBuilder lineas = new StringBuilder(eventos.size() * 160);
+        try {
+            for (EventoPublicado evento : eventos) {
+                lineas.append(objectMapper.writeValueAsString(evento)).append('\n');
+            }
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo serializar el lote de eventos", ex);
+        }
+        try {
+            Path directorio = ruta.toAbsolutePath().getParent();
+            if (directorio != null) {
+                Files.createDirectories(directorio);
+            }
+            try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lineas.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+                canal.force(false);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudieron escribir los eventos en " + ruta, ex);
+        }
+    }
+}
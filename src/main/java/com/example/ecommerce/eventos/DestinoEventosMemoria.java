@@ -0,0 +1,51 @@
+package com.example.ecommerce.eventos;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Destino de pruebas: conserva en memoria los últimos 'app.eventos.destino.memoria.capacidad' eventos entregados.
+ */
+@Component
+@ConditionalOnProperty(name = "app.eventos.destino.memoria.habilitado", havingValue = "true")
+public class DestinoEventosMemoria implements DestinoEventos {
+
+    private final int capacidad;
+    private final Deque<EventoPublicado> eventos = new ArrayDeque<>();
+
+    public DestinoEventosMemoria(@Value("${app.eventos.destino.memoria.capacidad:10000}") int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    @Override
+    public String nombre() {
+        return "memoria";
+    }
+
+    @Override
+    public synchronized void publicar(List<EventoPublicado> lote) {
+        for (EventoPublicado evento : lote) {
+            if (eventos.size() == capacidad) {
+                eventos.removeFirst();
+            }
+            eventos.addLast(evento);
+        }
+    }
+
+    /**
+     * Copia de los eventos recibidos, del más antiguo al más reciente.
+     */
+    public synchronized List<EventoPublicado> eventos() {
+        return new ArrayList<>(eventos);
+    }
+
+    public synchronized void vaciar() {
+        eventos.clear();
+    }
+}
@@ -0,0 +1,437 @@
+package com.example.ecommerce.eventos;
+
+import com.example.ecommerce.dto.StockRespuestaDTO;
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.repositorios.ProductoRepository;
+import com.example.ecommerce.repositorios.ProductoRepositoryCustom.NivelesVersionados;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Difunde en tiempo real los niveles de stock a los clientes suscritos por SSE
+ * (GET /api/productos/stock/stream).
+ * <p>
+ * Las conexiones son asíncronas (SseEmitter): un cliente inactivo no ocupa ningún hilo, solo su socket y una
+ * suscripción pequeña. Los envíos los hace un pool de 'app.stock.stream.hilos' hilos, con como mucho una tarea
+ * en vuelo por cliente. Cada suscripción guarda el último nivel pendiente de cada producto: si un cliente lee
+ * despacio, los niveles intermedios se sustituyen por el más reciente (gana el último valor) y recibe un único
+ * evento con todos los productos que cambiaron.
+ * <p>
+ * Los cambios llegan tras el commit (EventosEscritos, publicado por PublicadorEventos) con el ID del outbox como
+ * versión; un nivel con una versión anterior a la ya recibida se descarta, aunque los oyentes de dos commits
+ * seguidos se ejecuten en otro orden.
+ * <p>
+ * Los commits de otras instancias llegan por el bus de invalidación (región "producto"): sus productos suscritos
+ * se releen de la base de datos, agrupados en una sola lectura por tanda, con el último ID del outbox como versión
+ * (ProductoRepository.leerNivelesDeStockVersionados). Así un nivel releído y uno confirmado aquí se ordenan igual
+ * que dos commits locales. Si el bus avisa de que ha podido perder mensajes, se releen todos los productos suscritos.
+ * <p>
+ * Cada 'app.stock.stream.latido' se envía un comentario SSE a todos los clientes: evita que los proxies corten
+ * las conexiones inactivas y detecta las de clientes que se fueron sin cerrarlas.
+ * <p>
+ * Un envío a un cliente que no lee bloquea su hilo hasta que Tomcat agota el tiempo de escritura, y no se puede
+ * interrumpir (el emisor queda bloqueado mientras tanto). Si un envío no termina en
+ * 'app.stock.stream.tiempo-maximo-envio', el cliente se da de baja (no recibe nada más y su conexión se cierra
+ * cuando el envío termine) y el pool crece en un hilo mientras el envío siga bloqueado, para que los demás
+ * clientes no esperen. Como mucho 'app.stock.stream.max-hilos-bloqueados' hilos se sustituyen así; por encima,
+ * los clientes se dan de baja igualmente pero el pool no crece.
+ */
+@Component
+public class DifusorStock {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DifusorStock.class);
+
+    /**
+     * Nombre de los eventos SSE: la carga es una lista de {productoId, cantidadEnStock}.
+     */
+    public static final String EVENTO_STOCK = "stock";
+
+    // Versión del nivel inicial: cualquier cambio confirmado después lo sustituye
+    private static final long VERSION_INICIAL = 0;
+
+    private final ProductoRepository productoRepository;
+    private final Duration tiempoMaximoConexion;
+    private final Duration tiempoMaximoEnvio;
+    private final int hilos;
+    private final int maxHilosBloqueados;
+    private final ThreadPoolExecutor ejecutor;
+    private final ScheduledExecutorService plazos;
+    // Hilos del pool bloqueados en un envío vencido, sustituidos por hilos nuevos (protegido por 'this')
+    private int hilosBloqueados;
+    private final Map<Long, Set<Suscripcion>> suscripcionesPorProducto = new ConcurrentHashMap<>();
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+    private final Counter sustituidos;
+    private final Counter enviados;
+    private final Counter vencidos;
+    // Productos cambiados en otras instancias pendientes de releer, y si ya hay una relectura programada
+    private final Set<Long> pendientesDeReleer = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean relecturaProgramada = new AtomicBoolean();
+
+    public DifusorStock(ProductoRepository productoRepository, BusInvalidacion busInvalidacion,
+                        @Value("${app.stock.stream.hilos:4}") int hilos,
+                        @Value("${app.stock.stream.tiempo-maximo-conexion:30m}") Duration tiempoMaximoConexion,
+                        @Value("${app.stock.stream.tiempo-maximo-envio:5s}") Duration tiempoMaximoEnvio,
+                        @Value("${app.stock.stream.max-hilos-bloqueados:16}") int maxHilosBloqueados,
+                        MeterRegistry meterRegistry) {
+        this.productoRepository = productoRepository;
+        this.tiempoMaximoConexion = tiempoMaximoConexion;
+        this.tiempoMaximoEnvio = tiempoMaximoEnvio;
+        this.hilos = hilos;
+        this.maxHilosBloqueados = maxHilosBloqueados;
+        AtomicInteger contador = new AtomicInteger();
+        // Cola sin límite: como mucho una tarea por suscripción, una por commit pendiente de repartir y una relectura
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "difusor-stock-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        new ExecutorServiceMetrics(ejecutor, "stock.stream", null).bindTo(meterRegistry);
+        this.plazos = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "difusor-stock-plazos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        Gauge.builder("stock.stream.suscripciones", suscripciones, Set::size)
+                .description("Clientes conectados al stream de stock")
+                .register(meterRegistry);
+        this.sustituidos = Counter.builder("stock.stream.sustituidos")
+                .description("Niveles de stock reemplazados por uno más reciente antes de enviarse")
+                .register(meterRegistry);
+        this.enviados = Counter.builder("stock.stream.enviados")
+                .description("Eventos SSE de stock enviados")
+                .register(meterRegistry);
+        this.vencidos = Counter.builder("stock.stream.vencidos")
+                .description("Clientes dados de baja por no completar un envío a tiempo")
+                .register(meterRegistry);
+        busInvalidacion.registrar("producto", clave -> releer(List.of(Long.valueOf(clave))),
+                () -> releer(suscripcionesPorProducto.keySet()));
+    }
+
+    /**
+     * Abre una suscripción a los productos indicados. El primer evento trae su nivel actual (los productos que no
+     * existen se omiten) y los siguientes, los cambios.
+     */
+    public SseEmitter suscribir(Set<Long> productoIds) {
+        SseEmitter emitter = crearEmisor(tiempoMaximoConexion.toMillis());
+        Suscripcion suscripcion = new Suscripcion(emitter, Set.copyOf(productoIds));
+        emitter.onCompletion(() -> cancelar(suscripcion));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> cancelar(suscripcion));
+
+        // Primero se registra y después se lee el nivel actual: un cambio confirmado entretanto llega por el
+        // oyente con una versión mayor y no lo pisa el nivel inicial.
+        suscripciones.add(suscripcion);
+        for (Long productoId : suscripcion.productos) {
+            suscripcionesPorProducto.computeIfAbsent(productoId, id -> ConcurrentHashMap.newKeySet()).add(suscripcion);
+        }
+        for (StockRespuestaDTO nivel : productoRepository.findNivelesDeStock(List.copyOf(suscripcion.productos))) {
+            suscripcion.ofrecer(nivel.getProductoId(), nivel.getCantidadEnStock(), VERSION_INICIAL);
+        }
+        return emitter;
+    }
+
+    /**
+     * Recoge los niveles de stock de los eventos confirmados y los reparte en el pool, fuera del hilo de la
+     * petición que hizo el commit.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void alConfirmar(EventosEscritos escritos) {
+        Map<Long, long[]> niveles = new HashMap<>();
+        for (int i = 0; i < escritos.eventos().size(); i++) {
+            EventoCambio evento = escritos.eventos().get(i);
+            Integer stock = null;
+            if (evento.carga() instanceof EventoCambio.CargaStock carga) {
+                stock = carga.stock();
+            } else if (evento.carga() instanceof EventoCambio.CargaProducto carga) {
+                stock = carga.stock();
+            }
+            if (stock != null && suscripcionesPorProducto.containsKey(evento.agregadoId())) {
+                niveles.put(evento.agregadoId(), new long[]{stock, escritos.ids().get(i)});
+            }
+        }
+        if (!niveles.isEmpty()) {
+            ejecutar(() -> niveles.forEach((productoId, nivel) -> difundir(productoId, (int) nivel[0], nivel[1])));
+        }
+    }
+
+    /**
+     * Anota los productos suscritos que cambiaron en otra instancia y programa su relectura en el pool, fuera del
+     * hilo del bus.
+     */
+    private void releer(Collection<Long> productoIds) {
+        for (Long productoId : productoIds) {
+            if (suscripcionesPorProducto.containsKey(productoId)) {
+                pendientesDeReleer.add(productoId);
+            }
+        }
+        if (!pendientesDeReleer.isEmpty() && relecturaProgramada.compareAndSet(false, true)) {
+            ejecutar(this::releerPendientes);
+        }
+    }
+
+    private void releerPendientes() {
+        // Se desmarca antes de vaciar: lo que se anote a partir de aquí programa otra relectura
+        relecturaProgramada.set(false);
+        List<Long> productoIds = new ArrayList<>(pendientesDeReleer);
+        pendientesDeReleer.removeAll(productoIds);
+        if (productoIds.isEmpty()) {
+            return;
+        }
+        try {
+            NivelesVersionados leidos = productoRepository.leerNivelesDeStockVersionados(productoIds);
+            for (StockRespuestaDTO nivel : leidos.niveles()) {
+                difundir(nivel.getProductoId(), nivel.getCantidadEnStock(), leidos.version());
+            }
+        } catch (DataAccessException ex) {
+            // Los clientes reciben el nivel con el siguiente cambio del producto
+            LOG.warn("No se ha podido releer el stock de los productos {} cambiados en otra instancia", productoIds,
+                    ex);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.stock.stream.latido:30s}", initialDelayString = "${app.stock.stream.latido:30s}")
+    public void latido() {
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.programarLatido();
+        }
+    }
+
+    SseEmitter crearEmisor(long tiempoMaximoMs) {
+        return new SseEmitter(tiempoMaximoMs);
+    }
+
+    void difundir(long productoId, int stock, long version) {
+        Set<Suscripcion> interesadas = suscripcionesPorProducto.get(productoId);
+        if (interesadas != null) {
+            for (Suscripcion suscripcion : interesadas) {
+                suscripcion.ofrecer(productoId, stock, version);
+            }
+        }
+    }
+
+    private void cancelar(Suscripcion suscripcion) {
+        if (suscripcion.cancelada) {
+            return;
+        }
+        suscripcion.cancelada = true;
+        suscripciones.remove(suscripcion);
+        for (Long productoId : suscripcion.productos) {
+            suscripcionesPorProducto.computeIfPresent(productoId, (id, conjunto) -> {
+                conjunto.remove(suscripcion);
+                return conjunto.isEmpty() ? null : conjunto;
+            });
+        }
+    }
+
+    private void ejecutar(Runnable tarea) {
+        try {
+            ejecutor.execute(tarea);
+        } catch (RejectedExecutionException ex) {
+            // solo ocurre al detener la aplicación
+        }
+    }
+
+    /**
+     * Sustituye (+1) o recupera (-1) un hilo del pool bloqueado en un envío vencido.
+     * @return false si no se sustituye porque ya hay 'max-hilos-bloqueados' sustituidos.
+     */
+    private synchronized boolean ajustarHilosBloqueados(int cambio) {
+        if (cambio > 0 && hilosBloqueados >= maxHilosBloqueados) {
+            return false;
+        }
+        hilosBloqueados += cambio;
+        int total = hilos + hilosBloqueados;
+        // El máximo nunca puede quedar por debajo del núcleo
+        if (cambio > 0) {
+            ejecutor.setMaximumPoolSize(total);
+            ejecutor.setCorePoolSize(total);
+        } else {
+            ejecutor.setCorePoolSize(total);
+            ejecutor.setMaximumPoolSize(total);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+        plazos.shutdownNow();
+    }
+
+    /**
+     * Un cliente conectado: sus productos, los niveles pendientes de enviar y la versión más reciente de cada uno.
+     */
+    private final class Suscripcion {
+
+        private final SseEmitter emitter;
+        private final Set<Long> productos;
+        private final Map<Long, Integer> pendientes = new LinkedHashMap<>();
+        private final Map<Long, Long> versiones = new HashMap<>();
+        private boolean enVuelo;
+        private boolean latidoPendiente;
+        // Estado del envío en curso: si venció y si su hilo se sustituyó en el pool
+        private boolean enviando;
+        private boolean vencido;
+        private boolean hiloSustituido;
+        private volatile boolean cancelada;
+
+        private Suscripcion(SseEmitter emitter, Set<Long> productos) {
+            this.emitter = emitter;
+            this.productos = productos;
+        }
+
+        /**
+         * Guarda el nivel si es más reciente que el último recibido y programa un envío si no hay uno en vuelo.
+         */
+        void ofrecer(long productoId, int stock, long version) {
+            synchronized (this) {
+                Long anterior = versiones.get(productoId);
+                if (cancelada || (anterior != null && anterior >= version)) {
+                    return;
+                }
+                versiones.put(productoId, version);
+                if (pendientes.put(productoId, stock) != null) {
+                    sustituidos.increment();
+                }
+                if (enVuelo) {
+                    return;
+                }
+                enVuelo = true;
+            }
+            ejecutar(this::enviar);
+        }
+
+        void programarLatido() {
+            synchronized (this) {
+                if (cancelada || enVuelo) {
+                    // un envío en vuelo ya mantiene viva la conexión
+                    return;
+                }
+                latidoPendiente = true;
+                enVuelo = true;
+            }
+            ejecutar(this::enviar);
+        }
+
+        /**
+         * Envía en un solo evento todos los niveles pendientes. Si mientras tanto llegan más, se vuelve a encolar
+         * en lugar de seguir, para no acaparar un hilo del pool con un único cliente.
+         */
+        private void enviar() {
+            List<StockRespuestaDTO> lote;
+            boolean latido;
+            synchronized (this) {
+                latido = latidoPendiente;
+                latidoPendiente = false;
+                lote = new ArrayList<>(pendientes.size());
+                pendientes.forEach((productoId, stock) -> lote.add(new StockRespuestaDTO(productoId, stock)));
+                pendientes.clear();
+            }
+            if (!cancelada && !lote.isEmpty()) {
+                if (enviarConPlazo(SseEmitter.event().name(EVENTO_STOCK).data(lote, MediaType.APPLICATION_JSON))) {
+                    enviados.increment();
+                }
+            } else if (!cancelada && latido) {
+                enviarConPlazo(SseEmitter.event().comment(""));
+            }
+            synchronized (this) {
+                if (pendientes.isEmpty() || cancelada) {
+                    enVuelo = false;
+                    return;
+                }
+            }
+            ejecutar(this::enviar);
+        }
+
+        /**
+         * Envía el evento con el plazo 'tiempo-maximo-envio'; si vence, el cliente ya está dado de baja y su
+         * conexión se cierra aquí, en cuanto el envío termina.
+         * @return true si el evento se envió.
+         */
+        private boolean enviarConPlazo(SseEmitter.SseEventBuilder evento) {
+            synchronized (this) {
+                enviando = true;
+            }
+            ScheduledFuture<?> plazo = plazos.schedule(this::vencer, tiempoMaximoEnvio.toMillis(),
+                    TimeUnit.MILLISECONDS);
+            boolean enviado = false;
+            try {
+                emitter.send(evento);
+                enviado = true;
+            } catch (IOException | IllegalStateException ex) {
+                // Cliente desconectado o emisor ya completado
+                cancelar(this);
+                emitter.completeWithError(ex);
+            } finally {
+                plazo.cancel(false);
+                if (terminarEnvio() && enviado) {
+                    emitter.complete();
+                }
+            }
+            return enviado;
+        }
+
+        /**
+         * El envío en curso no ha terminado a tiempo: se da de baja al cliente y se sustituye su hilo en el pool.
+         * Cerrar el emisor aquí esperaría al propio envío (send y complete se sincronizan en el emisor).
+         */
+        private void vencer() {
+            synchronized (this) {
+                if (!enviando) {
+                    return;
+                }
+                vencido = true;
+                hiloSustituido = ajustarHilosBloqueados(1);
+            }
+            vencidos.increment();
+            cancelar(this);
+        }
+
+        /**
+         * @return true si el envío venció.
+         */
+        private synchronized boolean terminarEnvio() {
+            enviando = false;
+            if (hiloSustituido) {
+                ajustarHilosBloqueados(-1);
+                hiloSustituido = false;
+            }
+            return vencido;
+        }
+    }
+}
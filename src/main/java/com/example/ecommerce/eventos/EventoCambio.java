@@ -0,0 +1,63 @@
+package com.example.ecommerce.eventos;
+
+import com.example.ecommerce.modelo.entidades.Pedido;
+import com.example.ecommerce.modelo.entidades.Producto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Evento de cambio pendiente de escribir en el outbox. La carga es compacta: solo lo que un sistema externo
+ * (búsqueda, almacén, analítica) necesita para actualizar su copia sin consultar la API.
+ * @param tipo Tipo de evento; determina el agregado.
+ * @param agregadoId ID del producto o del pedido.
+ * @param carga Objeto que se serializa a JSON.
+ */
+public record EventoCambio(TipoEvento tipo, long agregadoId, Object carga) {
+
+    public record CargaProducto(long id, String nombre, BigDecimal precio, int stock) {
+    }
+
+    public record CargaProductoEliminado(long id) {
+    }
+
+    public record CargaStock(long productoId, int stock) {
+    }
+
+    public record CargaPedido(long id, long usuarioId, LocalDateTime fechaCreacion, BigDecimal total,
+                              List<LineaPedido> lineas) {
+    }
+
+    public record CargaPedidoCancelado(long id) {
+    }
+
+    public record LineaPedido(long productoId, int cantidad, BigDecimal precioUnitario) {
+    }
+
+    public static EventoCambio producto(TipoEvento tipo, Producto producto) {
+        return new EventoCambio(tipo, producto.getId(), new CargaProducto(producto.getId(), producto.getNombre(),
+                producto.getPrecio().aBigDecimal(), producto.getCantidadEnStock()));
+    }
+
+    public static EventoCambio productoEliminado(long productoId) {
+        return new EventoCambio(TipoEvento.PRODUCTO_ELIMINADO, productoId, new CargaProductoEliminado(productoId));
+    }
+
+    public static EventoCambio stock(long productoId, int stock) {
+        return new EventoCambio(TipoEvento.STOCK_ACTUALIZADO, productoId, new CargaStock(productoId, stock));
+    }
+
+    public static EventoCambio pedido(Pedido pedido) {
+        List<LineaPedido> lineas = pedido.getDetalles().stream()
+                .map(detalle -> new LineaPedido(detalle.getProducto().getId(), detalle.getCantidad(),
+                        detalle.getPrecioUnitario().aBigDecimal()))
+                .toList();
+        return new EventoCambio(TipoEvento.PEDIDO_CREADO, pedido.getId(), new CargaPedido(pedido.getId(),
+                pedido.getUsuario().getId(), pedido.getFechaCreacion(), pedido.getTotal().aBigDecimal(), lineas));
+    }
+
+    public static EventoCambio pedidoCancelado(long pedidoId) {
+        return new EventoCambio(TipoEvento.PEDIDO_CANCELADO, pedidoId, new CargaPedidoCancelado(pedidoId));
+    }
+}
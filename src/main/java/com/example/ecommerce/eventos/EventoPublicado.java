@@ -0,0 +1,15 @@
+package com.example.ecommerce.eventos;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento leído del outbox tal como se entrega a los destinos.
+ * El ID crece con cada evento escrito: los consumidores lo usan para descartar duplicados (la entrega es
+ * "al menos una vez") y, por producto, para ignorar eventos anteriores al último aplicado.
+ * @param carga JSON de la carga, sin volver a interpretarlo.
+ */
+public record EventoPublicado(long id, TipoEvento tipo, String agregado, long agregadoId,
+                              LocalDateTime fechaCreacion, @JsonRawValue String carga) {
+}
@@ -0,0 +1,13 @@
+package com.example.ecommerce.eventos;
+
+import java.util.List;
+
+/**
+ * Evento de aplicación que PublicadorEventos emite al escribir eventos en el outbox. Los oyentes con
+ * {@code @TransactionalEventListener} lo reciben cuando la transacción se ha confirmado.
+ * @param eventos Eventos escritos, en orden.
+ * @param ids ID asignado en el outbox a cada evento (misma posición). Para un mismo producto los IDs crecen en
+ *            el orden en que se confirmaron los cambios, así que sirven de versión.
+ */
+public record EventosEscritos(List<EventoCambio> eventos, List<Long> ids) {
+}
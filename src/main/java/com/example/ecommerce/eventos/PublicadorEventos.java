@@ -0,0 +1,88 @@
+package com.example.ecommerce.eventos;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Escribe eventos de cambio en el outbox (eventos_outbox) dentro de la transacción del cambio: si la
+ * transacción se revierte, el evento desaparece con ella, y si se confirma, RelayOutbox lo publicará.
+ * Exige una transacción en curso (Propagation.MANDATORY); JdbcTemplate usa la misma conexión que JPA.
+ * <p>
+ * Para que los eventos de un producto se publiquen en orden, quien los escribe debe tener ya bloqueada la fila
+ * del producto (UPDATE ejecutado o SELECT ... FOR UPDATE): así el evento de una transacción posterior sobre el
+ * mismo producto siempre recibe un ID mayor y se confirma después.
+ * <p>
+ * Además publica un evento de aplicación EventosEscritos con los IDs asignados, para los oyentes en proceso
+ * que reaccionan al commit (p. ej. DifusorStock).
+ */
+@Component
+public class PublicadorEventos {
+
+    // Un único INSERT para todo el lote; los IDs se devuelven en el orden de la lista
+    private static final String SQL_INSERTAR = "INSERT INTO eventos_outbox (tipo, agregado, agregado_id, carga) "
+            + "SELECT tipo, agregado, agregado_id, carga::jsonb "
+            + "FROM unnest(?::text[], ?::text[], ?::bigint[], ?::text[]) WITH ORDINALITY "
+            + "AS e(tipo, agregado, agregado_id, carga, n) ORDER BY n RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public PublicadorEventos(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                             ApplicationEventPublisher applicationEventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicar(EventoCambio evento) {
+        publicar(List.of(evento));
+    }
+
+    /**
+     * Escribe los eventos con una sola sentencia, en el orden de la lista.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicar(List<EventoCambio> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        int n = eventos.size();
+        String[] tipos = new String[n];
+        String[] agregados = new String[n];
+        Long[] agregadoIds = new Long[n];
+        String[] cargas = new String[n];
+        for (int i = 0; i < n; i++) {
+            EventoCambio evento = eventos.get(i);
+            tipos[i] = evento.tipo().name();
+            agregados[i] = evento.tipo().getAgregado();
+            agregadoIds[i] = evento.agregadoId();
+            cargas[i] = serializar(evento.carga());
+        }
+        List<Long> ids = jdbcTemplate.query(SQL_INSERTAR, ps -> {
+            Connection conexion = ps.getConnection();
+            ps.setArray(1, conexion.createArrayOf("text", tipos));
+            ps.setArray(2, conexion.createArrayOf("text", agregados));
+            ps.setArray(3, conexion.createArrayOf("bigint", agregadoIds));
+            ps.setArray(4, conexion.createArrayOf("text", cargas));
+        }, (rs, fila) -> rs.getLong(1));
+        applicationEventPublisher.publishEvent(new EventosEscritos(List.copyOf(eventos), ids));
+    }
+
+    private String serializar(Object carga) {
+        try {
+            return objectMapper.writeValueAsString(carga);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo serializar la carga del evento " + carga, ex);
+        }
+    }
+}
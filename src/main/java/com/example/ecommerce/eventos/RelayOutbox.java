@@ -0,0 +1,141 @@
+package com.example.ecommerce.eventos;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica los eventos del outbox (eventos_outbox) en los destinos registrados (beans DestinoEventos).
+ * <p>
+ * Cada lote se procesa en una transacción: lee hasta 'app.eventos.relay.tamano-lote' eventos en orden de ID,
+ * los entrega a todos los destinos y borra exactamente esos IDs. El borrado es el punto de control: si un
+ * destino falla o la instancia cae antes de confirmar, el lote sigue en la tabla y se vuelve a entregar
+ * (entrega "al menos una vez"; los consumidores descartan IDs ya vistos).
+ * <p>
+ * Orden por producto: quien escribe un evento de producto tiene bloqueada la fila del producto, así que un
+ * evento posterior del mismo producto tiene un ID mayor y no es visible hasta que el anterior se ha confirmado.
+ * Un evento con un ID menor que se confirma tarde no se pierde: se leerá en el siguiente lote.
+ * <p>
+ * Solo publica una instancia a la vez (bloqueo consultivo de transacción); las demás omiten la ejecución.
+ */
+@Component
+@ConditionalOnProperty(name = "app.eventos.relay.habilitado", havingValue = "true", matchIfMissing = true)
+public class RelayOutbox {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RelayOutbox.class);
+
+    private static final String SQL_BLOQUEO = "SELECT pg_try_advisory_xact_lock(hashtext('eventos_outbox'))";
+    private static final String SQL_PENDIENTES = "SELECT id, tipo, agregado, agregado_id, fecha_creacion, carga::text "
+            + "FROM eventos_outbox ORDER BY id LIMIT ?";
+    private static final String SQL_BORRAR = "DELETE FROM eventos_outbox WHERE id = ANY (?)";
+
+    private static final RowMapper<EventoPublicado> MAPEO = (rs, fila) -> new EventoPublicado(
+            rs.getLong("id"), TipoEvento.valueOf(rs.getString("tipo")), rs.getString("agregado"),
+            rs.getLong("agregado_id"), rs.getObject("fecha_creacion", LocalDateTime.class), rs.getString("carga"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<DestinoEventos> destinos;
+    private final int tamanoLote;
+    private final int maxLotesPorEjecucion;
+    private final Counter publicados;
+    private final Counter fallos;
+    private final Timer duracionLote;
+    private final Timer retraso;
+    private boolean avisoSinDestinos;
+
+    public RelayOutbox(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       ObjectProvider<DestinoEventos> destinos, MeterRegistry meterRegistry,
+                       @Value("${app.eventos.relay.tamano-lote:500}") int tamanoLote,
+                       @Value("${app.eventos.relay.max-lotes-por-ejecucion:20}") int maxLotesPorEjecucion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.destinos = destinos.orderedStream().toList();
+        this.tamanoLote = tamanoLote;
+        this.maxLotesPorEjecucion = maxLotesPorEjecucion;
+        this.publicados = Counter.builder("eventos.outbox.publicados")
+                .description("Eventos del outbox entregados a todos los destinos")
+                .register(meterRegistry);
+        this.fallos = Counter.builder("eventos.outbox.fallos")
+                .description("Lotes del outbox que no se pudieron entregar y se reintentarán")
+                .register(meterRegistry);
+        this.duracionLote = Timer.builder("eventos.outbox.lote")
+                .description("Duración de la entrega y confirmación de un lote del outbox")
+                .register(meterRegistry);
+        this.retraso = Timer.builder("eventos.outbox.retraso")
+                .description("Tiempo entre la escritura del evento más antiguo de un lote y su entrega")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Vacía el outbox lote a lote, hasta que queda un lote incompleto o se alcanza 'max-lotes-por-ejecucion'.
+     * Un fallo se registra y la ejecución termina; el siguiente intento reanuda desde el mismo evento.
+     */
+    @Scheduled(fixedDelayString = "${app.eventos.relay.intervalo:1s}",
+            initialDelayString = "${app.eventos.relay.intervalo:1s}")
+    public void publicarPendientes() {
+        if (destinos.isEmpty()) {
+            if (!avisoSinDestinos) {
+                LOG.warn("No hay destinos de eventos configurados: los eventos se acumulan en eventos_outbox");
+                avisoSinDestinos = true;
+            }
+            return;
+        }
+        try {
+            for (int i = 0; i < maxLotesPorEjecucion; i++) {
+                if (publicarLote() < tamanoLote) {
+                    return;
+                }
+            }
+        } catch (RuntimeException ex) {
+            fallos.increment();
+            LOG.warn("No se pudo publicar un lote del outbox; se reintentará", ex);
+        }
+    }
+
+    /**
+     * Entrega y confirma un lote.
+     * @return el número de eventos publicados (0 si el outbox está vacío u otra instancia está publicando).
+     */
+    public int publicarLote() {
+        long inicio = System.nanoTime();
+        Integer publicadosLote = transactionTemplate.execute(estado -> {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_BLOQUEO, Boolean.class))) {
+                return 0;
+            }
+            List<EventoPublicado> eventos = jdbcTemplate.query(SQL_PENDIENTES, MAPEO, tamanoLote);
+            if (eventos.isEmpty()) {
+                return 0;
+            }
+            for (DestinoEventos destino : destinos) {
+                destino.publicar(eventos);
+            }
+            Long[] ids = eventos.stream().map(EventoPublicado::id).toArray(Long[]::new);
+            jdbcTemplate.update(SQL_BORRAR, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+            retraso.record(Duration.between(eventos.get(0).fechaCreacion(), LocalDateTime.now()));
+            return eventos.size();
+        });
+        int total = publicadosLote == null ? 0 : publicadosLote;
+        if (total > 0) {
+            duracionLote.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            publicados.increment(total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.ecommerce.eventos;
+
+/**
+ * Tipos de evento de cambio que se escriben en el outbox, con el agregado al que pertenecen.
+ * Los eventos de un mismo agregado (p. ej. un producto) se publican en el orden en que se confirmaron.
+ */
+public enum TipoEvento {
+    PRODUCTO_CREADO("producto"),
+    PRODUCTO_ACTUALIZADO("producto"),
+    PRODUCTO_ELIMINADO("producto"),
+    STOCK_ACTUALIZADO("producto"),
+    PEDIDO_CREADO("pedido"),
+    PEDIDO_CANCELADO("pedido");
+
+    private final String agregado;
+
+    TipoEvento(String agregado) {
+        this.agregado = agregado;
+    }
+
+    public String getAgregado() {
+        return agregado;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.ecommerce.excepciones;
+
+/**
+ * Excepción lanzada cuando una petición se rechaza por límite de tasa o por saturación de un recurso.
+ * Mapea a un estado HTTP 429 Too Many Requests con la cabecera Retry-After.
+ */
+public class DemasiadasPeticionesException extends RuntimeException {
+
+    private final long segundosReintento;
+
+    public DemasiadasPeticionesException(String mensaje, long segundosReintento) {
+        super(mensaje);
+        this.segundosReintento = segundosReintento;
+    }
+
+    public long getSegundosReintento() {
+        return segundosReintento;
+    }
+}
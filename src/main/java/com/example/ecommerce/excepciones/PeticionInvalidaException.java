@@ -0,0 +1,11 @@
+package com.example.ecommerce.excepciones;
+
+/**
+ * Excepción lanzada cuando una petición bien formada pide algo que el servicio no puede atender
+ * (p. ej. un criterio de orden no admitido). Mapea a un estado HTTP 400 Bad Request.
+ */
+public class PeticionInvalidaException extends RuntimeException {
+    public PeticionInvalidaException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -6,13 +6,14 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 /**
  * Excepción lanzada cuando un recurso solicitado no puede ser encontrado.
  * Mapea a un estado HTTP 404 Not Found.
+ * Como StockInsuficienteException, no guarda la traza de la pila: el manejador global no la registra.
  */
 public class RecursoNoEncontradoException extends RuntimeException {
   public RecursoNoEncontradoException(String recurso, String campo, Object valor) {
-    super(String.format("%s no encontrado con %s : '%s'", recurso, campo, valor));
+    this(String.format("%s no encontrado con %s : '%s'", recurso, campo, valor));
   }
 
   public RecursoNoEncontradoException(String mensaje) {
-    super(mensaje);
+    super(mensaje, null, false, false);
   }
 }
@@ -6,9 +6,11 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 /**
  * Excepción lanzada cuando el stock de un producto es insuficiente para un pedido.
  * Mapea a un estado HTTP 400 Bad Request.
+ * No guarda la traza de la pila: es un rechazo de negocio esperado (muy frecuente en una venta masiva) que el
+ * manejador global responde sin registrarla, así que recorrer la pila al crearla sería trabajo perdido.
  */
 public class StockInsuficienteException extends RuntimeException {
     public StockInsuficienteException(String mensaje) {
-        super(mensaje);
+        super(mensaje, null, false, false);
     }
 }
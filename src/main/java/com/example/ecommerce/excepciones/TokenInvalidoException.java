@@ -0,0 +1,11 @@
+package com.example.ecommerce.excepciones;
+
+/**
+ * Excepción lanzada cuando un token de acceso o de refresco no es válido o ha expirado.
+ * Mapea a un estado HTTP 401 Unauthorized.
+ */
+public class TokenInvalidoException extends RuntimeException {
+    public TokenInvalidoException(String mensaje) {
+        super(mensaje);
+    }
+}
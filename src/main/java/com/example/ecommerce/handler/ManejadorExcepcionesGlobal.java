@@ -1,16 +1,21 @@
 package com.example.ecommerce.handler;
 
+import com.example.ecommerce.excepciones.DemasiadasPeticionesException;
+import com.example.ecommerce.excepciones.PeticionInvalidaException;
 import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
 import com.example.ecommerce.excepciones.StockInsuficienteException;
+import com.example.ecommerce.excepciones.TokenInvalidoException;
 import com.example.ecommerce.excepciones.UsuarioYaExisteException;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
@@ -79,6 +84,43 @@ public class ManejadorExcepcionesGlobal {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(PeticionInvalidaException.class)
+    public ResponseEntity<ErrorResponse> handlePeticionInvalidaException(PeticionInvalidaException ex, WebRequest request) {
+        ErrorResponse response = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(TokenInvalidoException.class)
+    public ResponseEntity<ErrorResponse> handleTokenInvalidoException(TokenInvalidoException ex, WebRequest request) {
+        ErrorResponse response = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.UNAUTHORIZED.value(),
+                "Unauthorized",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+    }
+
+    @ExceptionHandler(DemasiadasPeticionesException.class)
+    public ResponseEntity<ErrorResponse> handleDemasiadasPeticionesException(DemasiadasPeticionesException ex, WebRequest request) {
+        ErrorResponse response = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getSegundosReintento()))
+                .body(response);
+    }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex, WebRequest request) {
@@ -98,6 +140,27 @@ public class ManejadorExcepcionesGlobal {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    // Restricciones sobre parámetros de la petición (p. ej. @Size en un @RequestParam)
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ErrorResponse> handleParameterValidationExceptions(HandlerMethodValidationException ex,
+                                                                             WebRequest request) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getParameterValidationResults().forEach(resultado -> errors.put(
+                resultado.getMethodParameter().getParameterName(),
+                resultado.getResolvableErrors().get(0).getDefaultMessage()));
+
+        ErrorResponse response = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Validation Failed",
+                "La petición contiene datos inválidos.",
+                request.getDescription(false).replace("uri=", ""),
+                errors
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     // Un manejador genérico para cualquier otra excepción no capturada
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGlobalException(Exception ex, WebRequest request) {
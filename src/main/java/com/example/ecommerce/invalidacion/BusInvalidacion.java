@@ -0,0 +1,246 @@
+package com.example.ecommerce.invalidacion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bus de invalidación de las caches en proceso entre instancias. Quien cambia un dato ya invalida su copia local;
+ * con propagar() pide que las demás instancias invaliden la suya. Cada región (p. ej. "usuario") la registra el
+ * componente dueño de la cache, con qué hacer al invalidar una clave y al invalidarla entera; varios componentes
+ * pueden registrar la misma región si guardan datos de las mismas claves (p. ej. "producto").
+ * <p>
+ * Las peticiones se agrupan: una clave pedida varias veces antes del siguiente envío se envía una vez, y cada
+ * 'app.invalidacion.intervalo' se envía un solo lote (repartido en varios mensajes si no cabe en uno). Una región
+ * con más de 'app.invalidacion.max-claves-por-region' claves en un lote se invalida entera.
+ * <p>
+ * La entrega es "como mucho una vez": si el transporte avisa de que ha podido perder mensajes, se invalidan todas
+ * las regiones. Las caches conservan además su TTL como último recurso.
+ * <p>
+ * Métricas: invalidacion.claves (etiqueta resultado: enviada, agrupada, recibida), invalidacion.mensajes,
+ * invalidacion.fallos e invalidacion.retraso (desde que se pidió la invalidación más antigua del lote hasta que
+ * otra instancia la aplica; compara relojes de máquinas distintas, que deben estar sincronizados).
+ */
+@Component
+public class BusInvalidacion {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BusInvalidacion.class);
+
+    private record Region(Consumer<String> invalidarClave, Runnable invalidarTodo) {
+    }
+
+    private record Clave(String region, String clave) {
+    }
+
+    private final TransporteInvalidaciones transporte;
+    private final ObjectMapper objectMapper;
+    private final Duration intervalo;
+    private final int maxClavesPorRegion;
+    private final String nodo = UUID.randomUUID().toString();
+    private final Map<String, List<Region>> regiones = new ConcurrentHashMap<>();
+    // Clave pendiente de enviar -> instante (epoch ms) de la primera petición
+    private final ConcurrentHashMap<Clave, Long> pendientes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService envio;
+    private final Counter enviadas;
+    private final Counter agrupadas;
+    private final Counter recibidas;
+    private final Counter mensajes;
+    private final Counter fallos;
+    private final Timer retraso;
+
+    public BusInvalidacion(TransporteInvalidaciones transporte, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           @Value("${app.invalidacion.intervalo:50ms}") Duration intervalo,
+                           @Value("${app.invalidacion.max-claves-por-region:500}") int maxClavesPorRegion) {
+        this.transporte = transporte;
+        this.objectMapper = objectMapper;
+        this.intervalo = intervalo;
+        this.maxClavesPorRegion = maxClavesPorRegion;
+        this.envio = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "invalidaciones-envio");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.enviadas = contadorClaves(meterRegistry, "enviada", "Claves enviadas a las demás instancias");
+        this.agrupadas = contadorClaves(meterRegistry, "agrupada",
+                "Peticiones de invalidación de una clave que ya estaba pendiente de envío");
+        this.recibidas = contadorClaves(meterRegistry, "recibida", "Claves invalidadas por orden de otra instancia");
+        this.mensajes = Counter.builder("invalidacion.mensajes")
+                .description("Mensajes de invalidación enviados")
+                .register(meterRegistry);
+        this.fallos = Counter.builder("invalidacion.fallos")
+                .description("Envíos de invalidaciones fallidos; se reintentan en el siguiente intervalo")
+                .register(meterRegistry);
+        this.retraso = Timer.builder("invalidacion.retraso")
+                .description("Tiempo desde que se pide una invalidación hasta que otra instancia la aplica")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static Counter contadorClaves(MeterRegistry meterRegistry, String resultado, String descripcion) {
+        return Counter.builder("invalidacion.claves")
+                .description(descripcion)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        transporte.iniciar(this::recibir, this::invalidarTodasLasRegiones);
+        envio.scheduleWithFixedDelay(this::enviarPendientes, intervalo.toMillis(), intervalo.toMillis(),
+                TimeUnit.MILLISECONDS);
+        LOG.info("Bus de invalidación iniciado (transporte {}, nodo {})", transporte.nombre(), nodo);
+    }
+
+    @PreDestroy
+    public void detener() {
+        envio.shutdownNow();
+        enviarPendientes();
+        transporte.detener();
+    }
+
+    /**
+     * Registra una región de cache de esta instancia. Si la región ya estaba registrada, se invalidan las dos.
+     * @param region Nombre de la región; el mismo en todas las instancias.
+     * @param invalidarClave Invalida una clave de la cache local.
+     * @param invalidarTodo Vacía la cache local.
+     */
+    public void registrar(String region, Consumer<String> invalidarClave, Runnable invalidarTodo) {
+        regiones.computeIfAbsent(region, r -> new CopyOnWriteArrayList<>())
+                .add(new Region(invalidarClave, invalidarTodo));
+    }
+
+    /**
+     * Pide a las demás instancias que invaliden una clave. Se llama después del commit del cambio, para que
+     * ninguna recargue el valor anterior.
+     */
+    public void propagar(String region, String clave) {
+        if (pendientes.putIfAbsent(new Clave(region, clave), System.currentTimeMillis()) != null) {
+            agrupadas.increment();
+        }
+    }
+
+    /**
+     * Envía las invalidaciones pendientes. Si el transporte falla, vuelven a quedar pendientes.
+     */
+    synchronized void enviarPendientes() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        Map<String, List<String>> porRegion = new TreeMap<>();
+        Map<Clave, Long> lote = new HashMap<>();
+        long primeraEn = Long.MAX_VALUE;
+        for (Iterator<Map.Entry<Clave, Long>> it = pendientes.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Clave, Long> entrada = it.next();
+            it.remove();
+            lote.put(entrada.getKey(), entrada.getValue());
+            porRegion.computeIfAbsent(entrada.getKey().region(), r -> new ArrayList<>()).add(entrada.getKey().clave());
+            primeraEn = Math.min(primeraEn, entrada.getValue());
+        }
+        try {
+            for (MensajeInvalidacion mensaje : repartir(porRegion, primeraEn)) {
+                transporte.enviar(objectMapper.writeValueAsString(mensaje));
+                mensajes.increment();
+            }
+            enviadas.increment(lote.size());
+        } catch (JsonProcessingException | RuntimeException ex) {
+            fallos.increment();
+            LOG.warn("No se pudieron enviar {} invalidaciones; se reintentará", lote.size(), ex);
+            lote.forEach(pendientes::putIfAbsent);
+        }
+    }
+
+    /**
+     * Reparte un lote en mensajes que quepan en el transporte.
+     */
+    private List<MensajeInvalidacion> repartir(Map<String, List<String>> porRegion, long primeraEn) {
+        List<MensajeInvalidacion> resultado = new ArrayList<>();
+        List<String> completas = new ArrayList<>();
+        Map<String, List<String>> claves = new TreeMap<>();
+        // Cabecera del mensaje (nodo, instante, nombres de campos) con holgura
+        int cabecera = 200;
+        int tamano = cabecera;
+        for (Map.Entry<String, List<String>> region : porRegion.entrySet()) {
+            if (region.getValue().size() > maxClavesPorRegion) {
+                completas.add(region.getKey());
+                tamano += bytes(region.getKey()) + 3;
+                continue;
+            }
+            for (String clave : region.getValue()) {
+                // Comillas, coma y, en el peor caso, el escape JSON de cada carácter
+                int tamanoClave = 2 * bytes(clave) + 3;
+                int tamanoRegion = claves.containsKey(region.getKey()) ? 0 : bytes(region.getKey()) + 6;
+                if (tamano + tamanoClave + tamanoRegion > transporte.maximoBytesMensaje() && tamano > cabecera) {
+                    resultado.add(new MensajeInvalidacion(nodo, primeraEn, claves, completas));
+                    claves = new TreeMap<>();
+                    completas = new ArrayList<>();
+                    tamano = cabecera;
+                    tamanoRegion = bytes(region.getKey()) + 6;
+                }
+                claves.computeIfAbsent(region.getKey(), r -> new ArrayList<>()).add(clave);
+                tamano += tamanoClave + tamanoRegion;
+            }
+        }
+        if (!claves.isEmpty() || !completas.isEmpty()) {
+            resultado.add(new MensajeInvalidacion(nodo, primeraEn, claves, completas));
+        }
+        return resultado;
+    }
+
+    private static int bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    void recibir(String carga) {
+        MensajeInvalidacion mensaje;
+        try {
+            mensaje = objectMapper.readValue(carga, MensajeInvalidacion.class);
+        } catch (JsonProcessingException ex) {
+            LOG.warn("Mensaje de invalidación ilegible; se invalidan todas las regiones", ex);
+            invalidarTodasLasRegiones();
+            return;
+        }
+        if (nodo.equals(mensaje.nodo())) {
+            return;
+        }
+        for (String nombre : mensaje.regionesCompletas()) {
+            regiones.getOrDefault(nombre, List.of()).forEach(region -> region.invalidarTodo().run());
+        }
+        mensaje.claves().forEach((nombre, claves) -> {
+            List<Region> registradas = regiones.get(nombre);
+            if (registradas != null) {
+                registradas.forEach(region -> claves.forEach(region.invalidarClave()));
+                recibidas.increment(claves.size());
+            }
+        });
+        retraso.record(Math.max(0, System.currentTimeMillis() - mensaje.primeraEn()), TimeUnit.MILLISECONDS);
+    }
+
+    private void invalidarTodasLasRegiones() {
+        LOG.info("Se han podido perder invalidaciones; se vacían {} regiones", regiones.size());
+        regiones.values().forEach(registradas -> registradas.forEach(region -> region.invalidarTodo().run()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.ecommerce.invalidacion;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lote de invalidaciones que una instancia envía a las demás.
+ * @param nodo Instancia que lo envía; la propia lo descarta al recibirlo.
+ * @param primeraEn Instante (epoch ms) en que se pidió la invalidación más antigua del lote, para medir el retraso.
+ * @param claves Claves a invalidar por región.
+ * @param regionesCompletas Regiones que se invalidan enteras (demasiadas claves para enviarlas una a una).
+ */
+public record MensajeInvalidacion(String nodo, long primeraEn, Map<String, List<String>> claves,
+                                  List<String> regionesCompletas) {
+}
@@ -0,0 +1,36 @@
+package com.example.ecommerce.invalidacion;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal por el que BusInvalidacion reparte los mensajes de invalidación entre las instancias.
+ * Se elige con 'app.invalidacion.transporte': 'postgres' (LISTEN/NOTIFY, por defecto) o 'local' (una sola JVM).
+ * La entrega es "como mucho una vez": quien pierda mensajes debe avisar con 'alPerderMensajes'.
+ */
+public interface TransporteInvalidaciones {
+
+    /**
+     * Nombre del transporte, para registros.
+     */
+    String nombre();
+
+    /**
+     * Envía un mensaje a todas las instancias, también a la que lo envía.
+     * @param mensaje Mensaje serializado; como mucho 'maximoBytesMensaje()' bytes en UTF-8.
+     */
+    void enviar(String mensaje);
+
+    /**
+     * Empieza a recibir mensajes.
+     * @param alRecibir Se invoca con cada mensaje recibido, desde un hilo del transporte.
+     * @param alPerderMensajes Se invoca cuando se han podido perder mensajes (p. ej. tras una reconexión).
+     */
+    void iniciar(Consumer<String> alRecibir, Runnable alPerderMensajes);
+
+    void detener();
+
+    /**
+     * Tamaño máximo de un mensaje en bytes.
+     */
+    int maximoBytesMensaje();
+}
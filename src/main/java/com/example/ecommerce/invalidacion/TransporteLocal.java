@@ -0,0 +1,48 @@
+package com.example.ecommerce.invalidacion;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Transporte dentro de la JVM, para una sola instancia o para pruebas: entrega cada mensaje en el hilo que lo
+ * envía a todos los receptores iniciados. Varios BusInvalidacion que comparten un TransporteLocal se comportan
+ * como instancias distintas conectadas al mismo canal.
+ */
+@Component
+@ConditionalOnProperty(name = "app.invalidacion.transporte", havingValue = "local")
+public class TransporteLocal implements TransporteInvalidaciones {
+
+    private final List<Consumer<String>> receptores = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String nombre() {
+        return "local";
+    }
+
+    @Override
+    public void enviar(String mensaje) {
+        for (Consumer<String> receptor : receptores) {
+            receptor.accept(mensaje);
+        }
+    }
+
+    @Override
+    public void iniciar(Consumer<String> alRecibir, Runnable alPerderMensajes) {
+        receptores.add(alRecibir);
+    }
+
+    @Override
+    public void detener() {
+        receptores.clear();
+    }
+
+    @Override
+    public int maximoBytesMensaje() {
+        // Mismo límite que NOTIFY, para que las pruebas repartan los lotes igual que en PostgreSQL
+        return TransportePostgres.MAXIMO_BYTES_MENSAJE;
+    }
+}
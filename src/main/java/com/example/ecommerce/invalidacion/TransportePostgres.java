@@ -0,0 +1,122 @@
+package com.example.ecommerce.invalidacion;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Transporte sobre LISTEN/NOTIFY de PostgreSQL: todas las instancias comparten la base de datos, así que no hace
+ * falta otro broker. Los mensajes se envían con pg_notify desde el pool, fuera de transacción, y se reciben en
+ * una conexión propia (no del pool, porque queda ocupada mientras la instancia vive) que un hilo consulta.
+ * <p>
+ * NOTIFY no guarda los mensajes de quien no escucha: si la conexión cae, al reconectar se avisa de que se han
+ * podido perder mensajes y el bus invalida todo.
+ */
+@Component
+@ConditionalOnProperty(name = "app.invalidacion.transporte", havingValue = "postgres", matchIfMissing = true)
+public class TransportePostgres implements TransporteInvalidaciones {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransportePostgres.class);
+
+    // El límite de NOTIFY es de 8000 bytes; se deja margen
+    static final int MAXIMO_BYTES_MENSAJE = 7900;
+
+    private static final String CANAL = "invalidaciones_cache";
+    private static final int ESPERA_NOTIFICACIONES_MS = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcConnectionDetails conexion;
+    private final long esperaMaximaReconexionMs;
+    private volatile boolean detenido;
+    private Thread hilo;
+
+    public TransportePostgres(JdbcTemplate jdbcTemplate, JdbcConnectionDetails conexion,
+                              @Value("${app.invalidacion.postgres.espera-maxima-reconexion:30s}")
+                              Duration esperaMaximaReconexion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.conexion = conexion;
+        this.esperaMaximaReconexionMs = esperaMaximaReconexion.toMillis();
+    }
+
+    @Override
+    public String nombre() {
+        return "postgres";
+    }
+
+    @Override
+    public void enviar(String mensaje) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CANAL, mensaje);
+    }
+
+    @Override
+    public synchronized void iniciar(Consumer<String> alRecibir, Runnable alPerderMensajes) {
+        hilo = new Thread(() -> escuchar(alRecibir, alPerderMensajes), "invalidaciones-escucha");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @Override
+    public synchronized void detener() {
+        detenido = true;
+        if (hilo != null) {
+            hilo.interrupt();
+        }
+    }
+
+    @Override
+    public int maximoBytesMensaje() {
+        return MAXIMO_BYTES_MENSAJE;
+    }
+
+    private void escuchar(Consumer<String> alRecibir, Runnable alPerderMensajes) {
+        boolean conectadoAntes = false;
+        long espera = 100;
+        while (!detenido) {
+            try (Connection conexionEscucha = DriverManager.getConnection(conexion.getJdbcUrl(),
+                    conexion.getUsername(), conexion.getPassword())) {
+                try (Statement sentencia = conexionEscucha.createStatement()) {
+                    sentencia.execute("LISTEN " + CANAL);
+                }
+                if (conectadoAntes) {
+                    alPerderMensajes.run();
+                }
+                conectadoAntes = true;
+                espera = 100;
+                PGConnection pg = conexionEscucha.unwrap(PGConnection.class);
+                while (!detenido) {
+                    PGNotification[] notificaciones = pg.getNotifications(ESPERA_NOTIFICACIONES_MS);
+                    if (notificaciones != null) {
+                        for (PGNotification notificacion : notificaciones) {
+                            alRecibir.accept(notificacion.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (detenido) {
+                    return;
+                }
+                LOG.warn("Conexión de escucha de invalidaciones perdida; reintento en {} ms", espera, ex);
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException interrumpido) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                espera = Math.min(espera * 2, esperaMaximaReconexionMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ecommerce.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource que limita con un semáforo justo (FIFO) cuántas conexiones pueden estar en uso a la vez.
+ * Con hilos virtuales puede haber miles de peticiones intentando obtener conexión simultáneamente:
+ * el semáforo las pone en cola de forma barata, antes de llegar a HikariCP, en lugar de que todas
+ * compitan dentro del pool y agoten su connectionTimeout.
+ * El permiso se libera al cerrar la conexión (es decir, al devolverla al pool).
+ */
+public class DataSourceConLimite extends DelegatingDataSource {
+
+    private final Semaphore permisos;
+    private final Duration esperaMaxima;
+
+    public DataSourceConLimite(DataSource destino, int maximoConexiones, Duration esperaMaxima) {
+        super(destino);
+        this.permisos = new Semaphore(maximoConexiones, true);
+        this.esperaMaxima = esperaMaxima;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirirPermiso();
+        try {
+            return envolver(super.getConnection());
+        } catch (SQLException | RuntimeException ex) {
+            permisos.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String usuario, String contrasena) throws SQLException {
+        adquirirPermiso();
+        try {
+            return envolver(super.getConnection(usuario, contrasena));
+        } catch (SQLException | RuntimeException ex) {
+            permisos.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Número de hilos esperando un permiso (útil para métricas).
+     */
+    public int getHilosEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    private void adquirirPermiso() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No hay conexiones disponibles tras esperar " + esperaMaxima.toMillis() + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido mientras se esperaba una conexión", ex);
+        }
+    }
+
+    private Connection envolver(Connection conexion) {
+        AtomicBoolean liberada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, metodo, argumentos) -> {
+                    if ("close".equals(metodo.getName())) {
+                        try {
+                            conexion.close();
+                        } finally {
+                            // Se libera una sola vez aunque close() se invoque varias veces
+                            if (liberada.compareAndSet(false, true)) {
+                                permisos.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return metodo.invoke(conexion, argumentos);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+}
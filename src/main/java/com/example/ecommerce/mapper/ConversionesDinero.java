@@ -0,0 +1,23 @@
+package com.example.ecommerce.mapper;
+
+import com.example.ecommerce.modelo.valores.Dinero;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversiones entre los importes de los DTO (BigDecimal) y de las entidades (Dinero), para los mapeadores.
+ * La entrada ya viene validada con dos decimales como máximo (@Digits), así que la conversión es exacta.
+ */
+public final class ConversionesDinero {
+
+    private ConversionesDinero() {
+    }
+
+    public static Dinero aDinero(BigDecimal importe) {
+        return importe == null ? null : Dinero.de(importe);
+    }
+
+    public static BigDecimal aImporte(Dinero importe) {
+        return importe == null ? null : importe.aBigDecimal();
+    }
+}
@@ -6,6 +6,7 @@ import com.example.ecommerce.dto.PedidoCreacionDTO;
 import com.example.ecommerce.dto.PedidoRespuestaDTO;
 import com.example.ecommerce.modelo.entidades.DetallePedido;
 import com.example.ecommerce.modelo.entidades.Pedido;
+import com.example.ecommerce.modelo.entidades.PedidoArchivado;
 import com.example.ecommerce.modelo.entidades.Producto;
 import com.example.ecommerce.modelo.entidades.Usuario;
 import org.mapstruct.Mapper;
@@ -18,13 +19,13 @@ import java.util.List;
  * Interfaz de mapeo para las entidades Pedido y DetallePedido y sus DTOs.
  * Usa MapStruct para generar la implementación durante la compilación.
  */
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = ConversionesDinero.class)
 public interface PedidoMapper {
 
     /**
      * Mapea un PedidoCreacionDTO a una entidad Pedido.
      * Se mapean campos directos y se delega el mapeo de detalles a otro método.
-     * Se ignora el ID, la fecha de creación y el total ya que serán generados por la lógica de negocio.
+     * Se ignora el ID, la fecha de creación, el total y el estado ya que serán generados por la lógica de negocio.
      * Se usa un método @Named para mapear el usuario.
      * @param dto El DTO de creación del pedido.
      * @return La entidad Pedido mapeada.
@@ -32,6 +33,8 @@ public interface PedidoMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "fechaCreacion", ignore = true)
     @Mapping(target = "total", ignore = true)
+    @Mapping(target = "estado", ignore = true)
+    @Mapping(target = "fechaCancelacion", ignore = true)
     @Mapping(target = "usuario", source = "usuarioId", qualifiedByName = "mapUsuarioDesdeId")
     @Mapping(target = "detalles", ignore = true) // Los detalles se manejan en el servicio
     Pedido toEntity(PedidoCreacionDTO dto);
@@ -46,6 +49,15 @@ public interface PedidoMapper {
     @Mapping(source = "usuario.nombreUsuario", target = "nombreUsuario")
     PedidoRespuestaDTO toDto(Pedido entity);
 
+    /**
+     * Mapea un pedido archivado a un PedidoRespuestaDTO, con la misma forma que un pedido reciente.
+     * Las líneas archivadas ya tienen el ID y nombre del producto.
+     * @param entity La entidad PedidoArchivado.
+     * @return El DTO de respuesta del pedido.
+     */
+    @Mapping(source = "usuario.nombreUsuario", target = "nombreUsuario")
+    PedidoRespuestaDTO toDto(PedidoArchivado entity);
+
     /**
      * Mapea una lista de DetallePedido a una lista de DetallePedidoRespuestaDTO.
      * @param detalles La lista de entidades DetallePedido.
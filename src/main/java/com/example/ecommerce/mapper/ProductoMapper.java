@@ -13,7 +13,7 @@ import org.mapstruct.MappingTarget;
  * Usa MapStruct para generar la implementación durante la compilación.
  * El componente de mapeo es "spring" para permitir la inyección de dependencias.
  */
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = ConversionesDinero.class)
 public interface ProductoMapper {
 
     /**
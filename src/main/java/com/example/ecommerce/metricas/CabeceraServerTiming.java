@@ -0,0 +1,43 @@
+package com.example.ecommerce.metricas;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Locale;
+
+/**
+ * Añade la cabecera Server-Timing (visible en las herramientas de desarrollo del navegador) con el desglose
+ * de la petición: espera de conexión, tiempo en SQL y tiempo total del controlador.
+ * Se escribe justo antes de serializar el cuerpo, que es el último momento en que aún se pueden añadir cabeceras.
+ * Desactivada por defecto: se habilita con 'app.metricas.server-timing.habilitado=true'.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "app.metricas.server-timing.habilitado", havingValue = "true")
+public class CabeceraServerTiming implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        ContabilidadSql contabilidad = ContabilidadSql.actual();
+        if (contabilidad != null) {
+            response.getHeaders().add("Server-Timing", String.format(Locale.ROOT,
+                    "conn;desc=\"Espera de conexion (%d)\";dur=%.2f, db;desc=\"SQL (%d)\";dur=%.2f, app;dur=%.2f",
+                    contabilidad.getConexiones(), contabilidad.getNanosConexion() / 1e6,
+                    contabilidad.getSentencias(), contabilidad.getNanosSql() / 1e6,
+                    contabilidad.getNanosTranscurridos() / 1e6));
+        }
+        return body;
+    }
+}
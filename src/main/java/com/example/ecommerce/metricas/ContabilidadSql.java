@@ -0,0 +1,74 @@
+package com.example.ecommerce.metricas;
+
+/**
+ * Acumulador por petición del trabajo hecho contra la base de datos: sentencias ejecutadas,
+ * tiempo en SQL y tiempo esperando una conexión del pool.
+ * Vive en un ThreadLocal que abre y cierra el InterceptorMetricasSql; fuera de una petición
+ * (tareas programadas, arranque) no hay contabilidad activa y las mediciones se descartan.
+ */
+public final class ContabilidadSql {
+
+    private static final ThreadLocal<ContabilidadSql> ACTUAL = new ThreadLocal<>();
+
+    private final long inicioNanos = System.nanoTime();
+    private long sentencias;
+    private long nanosSql;
+    private long conexiones;
+    private long nanosConexion;
+
+    private ContabilidadSql() {
+    }
+
+    public static ContabilidadSql iniciar() {
+        ContabilidadSql contabilidad = new ContabilidadSql();
+        ACTUAL.set(contabilidad);
+        return contabilidad;
+    }
+
+    /**
+     * @return la contabilidad de la petición en curso, o null si no hay ninguna.
+     */
+    public static ContabilidadSql actual() {
+        return ACTUAL.get();
+    }
+
+    public static void finalizar() {
+        ACTUAL.remove();
+    }
+
+    static void registrarSentencia(long nanos) {
+        ContabilidadSql contabilidad = ACTUAL.get();
+        if (contabilidad != null) {
+            contabilidad.sentencias++;
+            contabilidad.nanosSql += nanos;
+        }
+    }
+
+    static void registrarConexion(long nanos) {
+        ContabilidadSql contabilidad = ACTUAL.get();
+        if (contabilidad != null) {
+            contabilidad.conexiones++;
+            contabilidad.nanosConexion += nanos;
+        }
+    }
+
+    public long getSentencias() {
+        return sentencias;
+    }
+
+    public long getNanosSql() {
+        return nanosSql;
+    }
+
+    public long getConexiones() {
+        return conexiones;
+    }
+
+    public long getNanosConexion() {
+        return nanosConexion;
+    }
+
+    public long getNanosTranscurridos() {
+        return System.nanoTime() - inicioNanos;
+    }
+}
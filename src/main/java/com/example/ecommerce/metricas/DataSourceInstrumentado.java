@@ -0,0 +1,87 @@
+package com.example.ecommerce.metricas;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * DataSource que mide el tiempo de obtención de cada conexión y el de cada ejecución de sentencia,
+ * y lo anota en la ContabilidadSql de la petición en curso.
+ * Un executeBatch cuenta como una sola sentencia: lo que interesa es el número de viajes a la base de datos.
+ */
+public class DataSourceInstrumentado extends DelegatingDataSource {
+
+    private static final Set<String> METODOS_EJECUCION = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private static final Set<String> METODOS_CREACION = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    public DataSourceInstrumentado(DataSource destino) {
+        super(destino);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long inicio = System.nanoTime();
+        Connection conexion = super.getConnection();
+        ContabilidadSql.registrarConexion(System.nanoTime() - inicio);
+        return envolverConexion(conexion);
+    }
+
+    @Override
+    public Connection getConnection(String usuario, String contrasena) throws SQLException {
+        long inicio = System.nanoTime();
+        Connection conexion = super.getConnection(usuario, contrasena);
+        ContabilidadSql.registrarConexion(System.nanoTime() - inicio);
+        return envolverConexion(conexion);
+    }
+
+    private static Connection envolverConexion(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, argumentos) -> {
+                    Object resultado = invocar(conexion, metodo, argumentos);
+                    if (resultado instanceof Statement sentencia && METODOS_CREACION.contains(metodo.getName())) {
+                        return envolverSentencia(sentencia, proxy);
+                    }
+                    return resultado;
+                });
+    }
+
+    private static Statement envolverSentencia(Statement sentencia, Object conexionProxy) {
+        Class<?> tipo = sentencia instanceof CallableStatement ? CallableStatement.class
+                : sentencia instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{tipo},
+                (proxy, metodo, argumentos) -> {
+                    if ("getConnection".equals(metodo.getName())) {
+                        return conexionProxy;
+                    }
+                    if (!METODOS_EJECUCION.contains(metodo.getName())) {
+                        return invocar(sentencia, metodo, argumentos);
+                    }
+                    long inicio = System.nanoTime();
+                    try {
+                        return invocar(sentencia, metodo, argumentos);
+                    } finally {
+                        ContabilidadSql.registrarSentencia(System.nanoTime() - inicio);
+                    }
+                });
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(destino, argumentos);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
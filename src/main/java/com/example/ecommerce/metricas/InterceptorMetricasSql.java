@@ -0,0 +1,96 @@
+package com.example.ecommerce.metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Abre una ContabilidadSql al entrar en un controlador y, al terminar la petición, publica lo acumulado
+ * etiquetado con el método que la atendió (p. ej. endpoint=PedidoController.crearPedido):
+ * <ul>
+ *   <li>peticiones.sql.sentencias: sentencias ejecutadas por petición.</li>
+ *   <li>peticiones.sql.tiempo: tiempo total en SQL por petición.</li>
+ *   <li>peticiones.conexion.espera: tiempo total esperando conexiones del pool por petición.</li>
+ * </ul>
+ * En los controladores asíncronos (p. ej. el stream SSE de stock) afterCompletion no se ejecuta en el hilo que
+ * atendió la petición: lo acumulado se publica al empezar el procesamiento asíncrono, que libera el ThreadLocal
+ * del hilo de Tomcat, y el dispatch asíncrono posterior no abre otra contabilidad.
+ */
+@Component
+public class InterceptorMetricasSql implements AsyncHandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<HandlerMethod, Medidores> medidoresPorEndpoint = new ConcurrentHashMap<>();
+
+    public InterceptorMetricasSql(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && request.getDispatcherType() != DispatcherType.ASYNC) {
+            ContabilidadSql.iniciar();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        publicar(handler);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        publicar(handler);
+    }
+
+    private void publicar(Object handler) {
+        ContabilidadSql contabilidad = ContabilidadSql.actual();
+        if (contabilidad == null || !(handler instanceof HandlerMethod metodo)) {
+            return;
+        }
+        try {
+            Medidores medidores = medidoresPorEndpoint.computeIfAbsent(metodo, this::crearMedidores);
+            medidores.sentencias().record(contabilidad.getSentencias());
+            medidores.tiempoSql().record(contabilidad.getNanosSql(), TimeUnit.NANOSECONDS);
+            medidores.esperaConexion().record(contabilidad.getNanosConexion(), TimeUnit.NANOSECONDS);
+        } finally {
+            ContabilidadSql.finalizar();
+        }
+    }
+
+    static String nombreEndpoint(HandlerMethod metodo) {
+        return metodo.getBeanType().getSimpleName() + "." + metodo.getMethod().getName();
+    }
+
+    private Medidores crearMedidores(HandlerMethod metodo) {
+        String endpoint = nombreEndpoint(metodo);
+        return new Medidores(
+                DistributionSummary.builder("peticiones.sql.sentencias")
+                        .description("Sentencias SQL ejecutadas por petición")
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry),
+                Timer.builder("peticiones.sql.tiempo")
+                        .description("Tiempo total en SQL por petición")
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry),
+                Timer.builder("peticiones.conexion.espera")
+                        .description("Tiempo total esperando conexiones JDBC por petición")
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry));
+    }
+
+    private record Medidores(DistributionSummary sentencias, Timer tiempoSql, Timer esperaConexion) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.ecommerce.metricas;
+
+import com.example.ecommerce.modelo.valores.Dinero;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas de negocio del camino caliente de creación de pedidos.
+ * Todos los medidores se registran al arrancar (o, para los contadores por producto, la primera vez que
+ * aparece ese producto), de modo que registrar una medición no busca en el registro ni crea tags:
+ * es un acceso a un array o a un mapa y la actualización del medidor.
+ * <ul>
+ *   <li>pedidos.creacion.fase{fase}: latencia de cada fase de PedidoService.crearPedido.</li>
+ *   <li>pedidos.creacion{resultado}: latencia total, por resultado (exito, stock_insuficiente, no_encontrado,
+ *       peticion_invalida).</li>
+ *   <li>pedidos.rechazos{motivo, producto}: pedidos rechazados por producto, también los que rechaza
+ *       VistaDisponibilidadProductos antes de la transacción.</li>
+ *   <li>pedidos.lineas y pedidos.valor: distribución de líneas por pedido y del importe total.</li>
+ * </ul>
+ * Los contadores por producto se limitan a 'app.metricas.pedidos.max-productos-etiquetados' productos
+ * distintos; el resto se acumula en producto=otros para no disparar la cardinalidad.
+ */
+@Component
+public class MetricasPedido {
+
+    /**
+     * Fases en las que se desglosa la creación de un pedido.
+     */
+    public enum Fase {
+        BUSQUEDA_USUARIO("busqueda_usuario"),
+        BUSQUEDA_PRODUCTOS("busqueda_productos"),
+        VALIDACION_STOCK("validacion_stock"),
+        PERSISTENCIA("persistencia"),
+        MAPEO("mapeo");
+
+        private final String etiqueta;
+
+        Fase(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    /**
+     * Resultado de un intento de creación de pedido.
+     */
+    public enum Resultado {
+        EXITO("exito"),
+        STOCK_INSUFICIENTE("stock_insuficiente"),
+        NO_ENCONTRADO("no_encontrado"),
+        PETICION_INVALIDA("peticion_invalida");
+
+        private final String etiqueta;
+
+        Resultado(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    private static final String PRODUCTO_OTROS = "otros";
+    private static final String PRODUCTO_NINGUNO = "ninguno";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxProductosEtiquetados;
+    private final Timer[] fases = new Timer[Fase.values().length];
+    private final Timer[] totales = new Timer[Resultado.values().length];
+    private final DistributionSummary lineas;
+    private final DistributionSummary valor;
+    private final Counter usuarioNoEncontrado;
+    private final Contadores stockInsuficiente;
+    private final Contadores productoNoEncontrado;
+
+    public MetricasPedido(MeterRegistry meterRegistry,
+                          @Value("${app.metricas.pedidos.max-productos-etiquetados:500}") int maxProductosEtiquetados) {
+        this.meterRegistry = meterRegistry;
+        this.maxProductosEtiquetados = maxProductosEtiquetados;
+        for (Fase fase : Fase.values()) {
+            fases[fase.ordinal()] = Timer.builder("pedidos.creacion.fase")
+                    .description("Latencia de cada fase de la creación de un pedido")
+                    .tag("fase", fase.etiqueta)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+        for (Resultado resultado : Resultado.values()) {
+            totales[resultado.ordinal()] = Timer.builder("pedidos.creacion")
+                    .description("Latencia total de la creación de un pedido")
+                    .tag("resultado", resultado.etiqueta)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+        this.lineas = DistributionSummary.builder("pedidos.lineas")
+                .description("Líneas de detalle por pedido")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.valor = DistributionSummary.builder("pedidos.valor")
+                .description("Importe total de los pedidos creados")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.usuarioNoEncontrado = contadorRechazo("usuario_no_encontrado", PRODUCTO_NINGUNO);
+        this.stockInsuficiente = new Contadores("stock_insuficiente");
+        this.productoNoEncontrado = new Contadores("producto_no_encontrado");
+    }
+
+    public void registrarFase(Fase fase, long nanos) {
+        fases[fase.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void registrarResultado(Resultado resultado, long nanos) {
+        totales[resultado.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void registrarPedidoCreado(int numeroLineas, Dinero total) {
+        lineas.record(numeroLineas);
+        valor.record(total.aDouble());
+    }
+
+    public void registrarUsuarioNoEncontrado() {
+        usuarioNoEncontrado.increment();
+    }
+
+    public void registrarProductoNoEncontrado(Long productoId) {
+        productoNoEncontrado.de(productoId).increment();
+    }
+
+    public void registrarStockInsuficiente(Long productoId) {
+        stockInsuficiente.de(productoId).increment();
+    }
+
+    private Counter contadorRechazo(String motivo, String producto) {
+        return Counter.builder("pedidos.rechazos")
+                .description("Pedidos rechazados, por motivo y producto")
+                .tag("motivo", motivo)
+                .tag("producto", producto)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Contadores de un motivo de rechazo, indexados por producto y con cardinalidad acotada.
+     */
+    private final class Contadores {
+        private final String motivo;
+        private final Map<Long, Counter> porProducto = new ConcurrentHashMap<>();
+        private final Counter otros;
+
+        private Contadores(String motivo) {
+            this.motivo = motivo;
+            this.otros = contadorRechazo(motivo, PRODUCTO_OTROS);
+        }
+
+        private Counter de(Long productoId) {
+            Counter contador = porProducto.get(productoId);
+            if (contador != null) {
+                return contador;
+            }
+            if (porProducto.size() >= maxProductosEtiquetados) {
+                return otros;
+            }
+            return porProducto.computeIfAbsent(productoId, id -> contadorRechazo(motivo, String.valueOf(id)));
+        }
+    }
+}
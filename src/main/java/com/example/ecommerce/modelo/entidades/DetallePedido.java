@@ -1,12 +1,13 @@
 package com.example.ecommerce.modelo.entidades;
 
+import com.example.ecommerce.modelo.valores.Dinero;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * Entidad que representa un detalle de un pedido (línea de pedido).
@@ -26,6 +27,10 @@ public class DetallePedido {
     @JoinColumn(name = "pedido_id", nullable = false)
     private Pedido pedido;
 
+    // Fecha de creación del pedido: clave de partición de detalles_pedido (el mismo mes que su pedido)
+    @Column(nullable = false)
+    private LocalDateTime fechaPedido;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "producto_id", nullable = false)
     private Producto producto;
@@ -34,7 +39,7 @@ public class DetallePedido {
     @Column(nullable = false)
     private Integer cantidad;
 
-    @Column(nullable = false)
-    private BigDecimal precioUnitario; // Precio del producto en el momento de la compra
+    @Column(nullable = false, precision = 18, scale = 2)
+    private Dinero precioUnitario; // Precio del producto en el momento de la compra
 }
 
@@ -0,0 +1,21 @@
+package com.example.ecommerce.modelo.entidades;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Línea de un pedido archivado, guardada dentro de la columna JSONB 'detalles' de pedidos_archivados.
+ * El nombre del producto es el que tenía al archivar el pedido.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineaPedidoArchivada {
+    private Long productoId;
+    private String nombreProducto;
+    private Integer cantidad;
+    private BigDecimal precioUnitario;
+}
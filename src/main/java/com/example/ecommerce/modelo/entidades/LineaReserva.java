@@ -0,0 +1,16 @@
+package com.example.ecommerce.modelo.entidades;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Línea de una reserva de stock, guardada en la columna JSONB 'lineas' de reservas_stock.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineaReserva {
+    private Long productoId;
+    private Integer cantidad;
+}
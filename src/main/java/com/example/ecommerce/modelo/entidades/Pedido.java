@@ -1,11 +1,12 @@
 package com.example.ecommerce.modelo.entidades;
 
+import com.example.ecommerce.modelo.entidades.enums.EstadoPedido;
+import com.example.ecommerce.modelo.valores.Dinero;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -26,8 +27,15 @@ public class Pedido {
     @Column(nullable = false)
     private LocalDateTime fechaCreacion;
 
-    @Column(nullable = false)
-    private BigDecimal total;
+    @Column(nullable = false, precision = 18, scale = 2)
+    private Dinero total;
+
+    // Solo ServicioCancelacionPedidos lo cambia, con una actualización en SQL
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private EstadoPedido estado = EstadoPedido.CREADO;
+
+    private LocalDateTime fechaCancelacion;
 
     @ManyToOne(fetch = FetchType.LAZY) // Relación Muchos a Uno con Usuario
     @JoinColumn(name = "usuario_id", nullable = false)
@@ -0,0 +1,50 @@
+package com.example.ecommerce.modelo.entidades;
+
+import com.example.ecommerce.modelo.entidades.enums.EstadoPedido;
+import com.example.ecommerce.modelo.valores.Dinero;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Entidad de solo lectura para un pedido archivado: los pedidos de los meses anteriores a la retención salen
+ * de las particiones de 'pedidos' (ver ServicioParticionesPedidos) a una fila por pedido con sus líneas en JSONB.
+ */
+@Entity
+@Table(name = "pedidos_archivados")
+@Immutable // Solo la función archivar_particion_pedidos escribe en la tabla
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoArchivado {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(nullable = false, precision = 18, scale = 2)
+    private Dinero total;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private EstadoPedido estado;
+
+    private LocalDateTime fechaCancelacion;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private List<LineaPedidoArchivada> detalles;
+}
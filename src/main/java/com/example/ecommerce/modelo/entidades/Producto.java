@@ -1,17 +1,21 @@
 package com.example.ecommerce.modelo.entidades;
 
+import com.example.ecommerce.config.ConfiguracionCacheSegundoNivel;
+import com.example.ecommerce.modelo.valores.Dinero;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
-
-import java.math.BigDecimal;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 //...
 
 @Entity
 @Table(name = "productos")
+// Cache de segundo nivel: la creación de pedidos lee el stock con la fila bloqueada, siempre de la base de datos
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ConfiguracionCacheSegundoNivel.REGION_PRODUCTO)
 @Data
 public class Producto {
 
@@ -28,9 +32,9 @@ public class Producto {
     @Size(max = 1000)
     private String descripcion;
 
-    @DecimalMin(value = "0.0", inclusive = false, message = "El precio debe ser mayor que cero.")
-    @Column(nullable = false)
-    private BigDecimal precio;
+    // Mayor que cero: lo validan los DTO y la restricción ck_productos_precio
+    @Column(nullable = false, precision = 18, scale = 2)
+    private Dinero precio;
 
     @Min(value = 0, message = "La cantidad en stock no puede ser negativa.")
     @Column(nullable = false)
@@ -0,0 +1,41 @@
+package com.example.ecommerce.modelo.entidades;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Entidad para una reserva de stock activa: el stock de sus líneas ya está descontado de los productos hasta
+ * que la reserva se confirma en un pedido, se libera o vence (ver ServicioReservas).
+ */
+@Entity
+@Table(name = "reservas_stock")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(nullable = false)
+    private LocalDateTime expiraEn;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private List<LineaReserva> lineas;
+}
@@ -1,10 +1,14 @@
 package com.example.ecommerce.modelo.entidades;
 
+import com.example.ecommerce.config.ConfiguracionCacheSegundoNivel;
 import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.seguridad.InvalidadorCacheUsuarios;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,6 +18,9 @@ import java.util.List;
 
 @Entity
 @Table(name = "usuarios")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ConfiguracionCacheSegundoNivel.REGION_USUARIO)
+@EntityListeners(InvalidadorCacheUsuarios.class) // Expulsa al usuario de las caches de seguridad al modificarse
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
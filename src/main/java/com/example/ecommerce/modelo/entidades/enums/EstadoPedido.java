@@ -0,0 +1,9 @@
+package com.example.ecommerce.modelo.entidades.enums;
+
+/**
+ * Enumeración para definir el estado de un pedido.
+ */
+public enum EstadoPedido {
+    CREADO,   // Pedido confirmado, con su stock descontado
+    CANCELADO // Pedido anulado; su stock se devolvió a los productos
+}
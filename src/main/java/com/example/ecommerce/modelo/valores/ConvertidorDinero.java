@@ -0,0 +1,30 @@
+package com.example.ecommerce.modelo.valores;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Guarda los atributos Dinero en columnas NUMERIC(18, 2), en la moneda de la tienda.
+ * Se aplica a todos los atributos de tipo Dinero de las entidades.
+ */
+@Converter(autoApply = true)
+public class ConvertidorDinero implements AttributeConverter<Dinero, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dinero importe) {
+        if (importe == null) {
+            return null;
+        }
+        if (!Dinero.MONEDA_TIENDA.equals(importe.moneda())) {
+            throw new IllegalArgumentException("Solo se guardan importes en " + Dinero.MONEDA_TIENDA + ": " + importe);
+        }
+        return importe.aBigDecimal();
+    }
+
+    @Override
+    public Dinero convertToEntityAttribute(BigDecimal columna) {
+        return columna == null ? null : Dinero.de(columna);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ecommerce.modelo.valores;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Importe de escala fija: un número entero de céntimos y su moneda. Sumar y multiplicar son operaciones con long
+ * que no crean objetos intermedios (a diferencia de BigDecimal) y comprueban el desbordamiento.
+ * <p>
+ * El rango es el de las columnas NUMERIC(18, 2) donde se guardan los importes (±9.999.999.999.999.999,99): todo
+ * Dinero se puede guardar y todo importe guardado es un Dinero. Una operación que se sale del rango lanza
+ * ArithmeticException. La conversión desde BigDecimal (en la frontera de la API) es exacta: un importe con más de
+ * dos decimales se rechaza en lugar de redondearse.
+ * <p>
+ * La tienda opera en una sola moneda (MONEDA_TIENDA), que las columnas no guardan. Solo se admiten monedas con
+ * dos decimales. Es Serializable para guardarse tal cual en la cache de segundo nivel de Hibernate.
+ * @param centimos Importe en la unidad menor de la moneda.
+ * @param moneda Moneda del importe.
+ */
+public record Dinero(long centimos, Currency moneda) implements Comparable<Dinero>, Serializable {
+
+    public static final int ESCALA = 2;
+    public static final long MAXIMO_CENTIMOS = 999_999_999_999_999_999L;
+    public static final Currency MONEDA_TIENDA = Currency.getInstance("EUR");
+    public static final Dinero CERO = new Dinero(0, MONEDA_TIENDA);
+
+    public Dinero {
+        Objects.requireNonNull(moneda, "La moneda no puede ser nula");
+        if (moneda.getDefaultFractionDigits() != ESCALA) {
+            throw new IllegalArgumentException("Moneda no admitida (no tiene " + ESCALA + " decimales): " + moneda);
+        }
+        comprobarRango(centimos);
+    }
+
+    /**
+     * Importe en céntimos de la moneda de la tienda.
+     */
+    public static Dinero deCentimos(long centimos) {
+        return new Dinero(centimos, MONEDA_TIENDA);
+    }
+
+    /**
+     * Convierte un importe decimal de la moneda de la tienda sin redondear.
+     * @throws ArithmeticException Si tiene más de dos decimales significativos o se sale del rango.
+     */
+    public static Dinero de(BigDecimal importe) {
+        return deCentimos(importe.setScale(ESCALA).unscaledValue().longValueExact());
+    }
+
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(centimos, ESCALA);
+    }
+
+    /**
+     * Valor aproximado, solo para métricas.
+     */
+    public double aDouble() {
+        return centimos / 100d;
+    }
+
+    public Dinero sumar(Dinero otro) {
+        comprobarMoneda(otro);
+        return new Dinero(Math.addExact(centimos, otro.centimos), moneda);
+    }
+
+    public Dinero multiplicar(long factor) {
+        return new Dinero(Math.multiplyExact(centimos, factor), moneda);
+    }
+
+    public boolean esPositivo() {
+        return centimos > 0;
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        comprobarMoneda(otro);
+        return Long.compare(centimos, otro.centimos);
+    }
+
+    @Override
+    public String toString() {
+        return aBigDecimal().toPlainString() + " " + moneda.getCurrencyCode();
+    }
+
+    private void comprobarMoneda(Dinero otro) {
+        if (!moneda.equals(otro.moneda)) {
+            throw new IllegalArgumentException("No se pueden operar importes en " + moneda + " y " + otro.moneda);
+        }
+    }
+
+    private static void comprobarRango(long centimos) {
+        if (centimos > MAXIMO_CENTIMOS || centimos < -MAXIMO_CENTIMOS) {
+            throw new ArithmeticException("Importe fuera de rango: " + centimos + " céntimos");
+        }
+    }
+}
@@ -1,10 +1,26 @@
 package com.example.ecommerce.repositorios;
 
 import com.example.ecommerce.modelo.entidades.DetallePedido;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 /**
  * Repositorio para la entidad DetallePedido.
  */
 public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Long> {
+
+    /**
+     * IDs de los productos con más unidades vendidas en los pedidos a partir del ID indicado,
+     * de más a menos vendido. El tamaño de página limita cuántos se devuelven.
+     * Los IDs de pedido crecen con su fecha de creación, así que una ventana de fechas se expresa como un rango
+     * de pedido_id (ver PedidoRepository.findIdsDesde) y se resuelve con un index-only scan sobre
+     * idx_detalles_pedido_pedido, sin unir con pedidos.
+     */
+    @Query("SELECT d.producto.id FROM DetallePedido d WHERE d.pedido.id >= :desdePedidoId " +
+           "GROUP BY d.producto.id ORDER BY SUM(d.cantidad) DESC")
+    List<Long> findProductosMasVendidos(@Param("desdePedidoId") Long desdePedidoId, Pageable pageable);
 }
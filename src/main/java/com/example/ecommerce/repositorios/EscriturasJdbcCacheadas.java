@@ -0,0 +1,67 @@
+package com.example.ecommerce.repositorios;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Mantiene la cache de segundo nivel coherente con las escrituras JDBC, que Hibernate no ve. Hace lo mismo que
+ * Hibernate con las suyas:
+ * <ul>
+ *   <li>Bloquea en la cache (soft lock) las entidades que se van a modificar y las desbloquea al terminar la
+ *       transacción. Mientras tanto se leen de la base de datos, y una lectura que empezó antes del commit no puede
+ *       volver a guardar en la cache el valor anterior.</li>
+ *   <li>Invalida las consultas cacheadas sobre sus tablas antes de escribir y de nuevo al terminar.</li>
+ * </ul>
+ * Se llama dentro de la transacción de la escritura, antes de ejecutarla. Sin cache de segundo nivel no hace nada.
+ */
+final class EscriturasJdbcCacheadas {
+
+    private EscriturasJdbcCacheadas() {
+    }
+
+    /**
+     * @param entityManager EntityManager de la transacción en curso.
+     * @param entidad Entidad cuyas filas se van a insertar o modificar.
+     * @param ids IDs de las filas modificadas (vacío para inserciones).
+     */
+    static void prepararEscritura(EntityManager entityManager, Class<?> entidad, Collection<?> ids) {
+        SessionImplementor sesion = entityManager.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor factoria = sesion.getFactory();
+        if (!factoria.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+            return;
+        }
+        EntityPersister persister = factoria.getMappingMetamodel().getEntityDescriptor(entidad);
+
+        EntityDataAccess acceso = persister.getCacheAccessStrategy();
+        if (acceso != null && !ids.isEmpty()) {
+            List<Object> claves = new ArrayList<>(ids.size());
+            List<SoftLock> bloqueos = new ArrayList<>(ids.size());
+            for (Object id : ids) {
+                Object clave = acceso.generateCacheKey(id, persister, factoria, sesion.getTenantIdentifier());
+                claves.add(clave);
+                bloqueos.add(acceso.lockItem(sesion, clave, null));
+            }
+            sesion.getActionQueue().registerProcess((exito, s) -> {
+                for (int i = 0; i < claves.size(); i++) {
+                    acceso.unlockItem(s, claves.get(i), bloqueos.get(i));
+                }
+            });
+        }
+
+        if (factoria.getSessionFactoryOptions().isQueryCacheEnabled()) {
+            String[] tablas = persister.getPropertySpaces();
+            TimestampsCache marcas = factoria.getCache().getTimestampsCache();
+            marcas.preInvalidate(tablas, sesion);
+            sesion.getActionQueue().registerProcess((exito, s) -> marcas.invalidate(tablas, s));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.ecommerce.repositorios;
+
+import com.example.ecommerce.modelo.entidades.PedidoArchivado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * Repositorio de solo lectura para los pedidos archivados.
+ * Las consultas devuelven listas en lugar de páginas: PedidoService las combina con las de PedidoRepository
+ * y calcula el total con los métodos count.
+ */
+public interface PedidoArchivadoRepository extends JpaRepository<PedidoArchivado, Long> {
+
+    List<PedidoArchivado> findByUsuarioId(Long usuarioId, Pageable pageable);
+
+    long countByUsuarioId(Long usuarioId);
+
+    List<PedidoArchivado> findAllBy(Pageable pageable);
+
+    boolean existsByIdAndUsuarioId(Long id, Long usuarioId);
+}
@@ -5,14 +5,27 @@ import com.example.ecommerce.modelo.entidades.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * Repositorio para la entidad Pedido, permitiendo operaciones CRUD.
  */
-public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+public interface PedidoRepository extends JpaRepository<Pedido, Long>, PedidoRepositoryCustom {
     // Método para encontrar pedidos por usuario
     Page<Pedido> findByUsuario(Usuario usuario, Pageable pageable);
 
     Page<Pedido> findByUsuarioId(Long usuarioId, Pageable pageable);
+
+    boolean existsByIdAndUsuarioId(Long id, Long usuarioId);
+
+    /**
+     * IDs de los pedidos creados desde la fecha indicada, del más antiguo al más reciente.
+     * Con una página de tamaño 1 devuelve el primer pedido de una ventana de fechas (idx_pedidos_fecha_creacion).
+     */
+    @Query("SELECT p.id FROM Pedido p WHERE p.fechaCreacion >= :desde ORDER BY p.fechaCreacion")
+    List<Long> findIdsDesde(@Param("desde") LocalDateTime desde, Pageable pageable);
 }
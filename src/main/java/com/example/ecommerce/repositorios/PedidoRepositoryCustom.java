@@ -0,0 +1,28 @@
+package com.example.ecommerce.repositorios;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones de PedidoRepository que se aplican a un conjunto de pedidos con una sentencia SQL por lote.
+ */
+public interface PedidoRepositoryCustom {
+
+    /**
+     * Marca como cancelados los pedidos indicados que siguen en estado CREADO, con un solo UPDATE.
+     * Las filas quedan bloqueadas hasta el fin de la transacción: una cancelación concurrente del mismo pedido
+     * espera y después ya no lo encuentra en estado CREADO, así que su stock solo se devuelve una vez.
+     * Los pedidos archivados no se pueden cancelar.
+     * @param pedidoIds IDs de los pedidos a cancelar.
+     * @return Los IDs de los pedidos cancelados por esta llamada, en orden ascendente.
+     */
+    List<Long> cancelarPedidos(Collection<Long> pedidoIds);
+
+    /**
+     * Suma las cantidades de las líneas de los pedidos indicados, agrupadas por producto.
+     * @param pedidoIds IDs de los pedidos.
+     * @return La cantidad total por ID de producto.
+     */
+    Map<Long, Integer> sumarCantidadesPorProducto(Collection<Long> pedidoIds);
+}
@@ -0,0 +1,54 @@
+package com.example.ecommerce.repositorios;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación JDBC de PedidoRepositoryCustom.
+ * Participa en la transacción JPA en curso, ya que JdbcTemplate usa la misma conexión.
+ */
+public class PedidoRepositoryCustomImpl implements PedidoRepositoryCustom {
+
+    private static final String SQL_CANCELAR =
+            "UPDATE pedidos SET estado = 'CANCELADO', fecha_cancelacion = localtimestamp " +
+            "WHERE id = ANY (?) AND estado = 'CREADO' RETURNING id";
+
+    // Solo lee el índice idx_detalles_pedido_pedido (incluye producto_id y cantidad)
+    private static final String SQL_CANTIDADES_POR_PRODUCTO =
+            "SELECT producto_id, SUM(cantidad) FROM detalles_pedido WHERE pedido_id = ANY (?) GROUP BY producto_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PedidoRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> cancelarPedidos(Collection<Long> pedidoIds) {
+        Long[] ids = pedidoIds.toArray(Long[]::new);
+        List<Long> cancelados = new ArrayList<>(ids.length);
+        jdbcTemplate.query(SQL_CANCELAR, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> {
+                    cancelados.add(rs.getLong(1));
+                });
+        cancelados.sort(null);
+        return cancelados;
+    }
+
+    @Override
+    public Map<Long, Integer> sumarCantidadesPorProducto(Collection<Long> pedidoIds) {
+        Long[] ids = pedidoIds.toArray(Long[]::new);
+        Map<Long, Integer> cantidades = new HashMap<>();
+        jdbcTemplate.query(SQL_CANTIDADES_POR_PRODUCTO,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> {
+                    cantidades.put(rs.getLong(1), rs.getInt(2));
+                });
+        return cantidades;
+    }
+}
@@ -1,15 +1,38 @@
 package com.example.ecommerce.repositorios;
 
+import com.example.ecommerce.dto.StockRespuestaDTO;
 import com.example.ecommerce.modelo.entidades.Producto;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repositorio para la entidad Producto, permitiendo operaciones CRUD.
  * Extiende JpaRepository para aprovechar las funcionalidades de Spring Data JPA.
  */
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
     Page<Producto> findByNombreContainingIgnoreCase(String nombre, Pageable pageable);
-}
 
+    /**
+     * Se redeclara para bloquear las filas (SELECT ... FOR UPDATE) mientras se procesa un pedido.
+     * Así los ajustes de stock concurrentes esperan al commit del pedido en lugar de ser
+     * sobrescritos cuando este guarda las entidades.
+     * Las filas se bloquean en orden de ID (el mismo que usan los ajustes en lote): dos pedidos
+     * con los mismos productos en distinto orden esperan uno al otro en lugar de producir un deadlock.
+     */
+    @Override
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id IN :ids ORDER BY p.id")
+    List<Producto> findAllById(@Param("ids") Iterable<Long> ids);
+
+    @Query("SELECT new com.example.ecommerce.dto.StockRespuestaDTO(p.id, p.cantidadEnStock) " +
+           "FROM Producto p WHERE p.id IN :ids ORDER BY p.id")
+    List<StockRespuestaDTO> findNivelesDeStock(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,37 @@
+package com.example.ecommerce.repositorios;
+
+import com.example.ecommerce.dto.StockRespuestaDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones de ProductoRepository que no se expresan bien con JPA y se implementan con JDBC.
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Aplica incrementos relativos de stock en un lote JDBC ({@code stock = stock + delta}).
+     * Un ajuste que dejaría el stock en negativo no se aplica.
+     * @param deltasPorProducto Delta a aplicar por ID de producto, en el orden de iteración del mapa.
+     * @return El número de filas afectadas por cada ajuste, en el mismo orden (0 si no se aplicó).
+     */
+    int[] ajustarStockEnLote(Map<Long, Integer> deltasPorProducto);
+
+    /**
+     * Lee el stock de los productos junto con la versión hasta la que está al día: el último ID asignado en el
+     * outbox. Las filas se leen con FOR SHARE y el ID después, en la misma transacción. Cada escritura de stock
+     * actualiza la fila antes de insertar su evento, así que los commits que la lectura refleja tienen un ID menor
+     * o igual que la versión y los posteriores, uno mayor.
+     * @param productoIds IDs de los productos; los que no existen se omiten.
+     * @return Los niveles, ordenados por ID, y su versión.
+     */
+    NivelesVersionados leerNivelesDeStockVersionados(Collection<Long> productoIds);
+
+    /**
+     * Niveles de stock y la versión (ID del outbox) hasta la que reflejan los cambios confirmados.
+     */
+    record NivelesVersionados(List<StockRespuestaDTO> niveles, long version) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ecommerce.repositorios;
+
+import com.example.ecommerce.dto.StockRespuestaDTO;
+import com.example.ecommerce.modelo.entidades.Producto;
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación JDBC de ProductoRepositoryCustom.
+ * Participa en la transacción JPA en curso, ya que JdbcTemplate usa la misma conexión.
+ * Los productos ajustados se bloquean en la cache de segundo nivel hasta el commit (EscriturasJdbcCacheadas).
+ */
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    private static final String SQL_AJUSTAR_STOCK =
+            "UPDATE productos SET cantidad_en_stock = cantidad_en_stock + ? " +
+            "WHERE id = ? AND cantidad_en_stock + ? >= 0";
+    // Mismo orden de bloqueo que los ajustes y los pedidos
+    private static final String SQL_LEER_STOCK_BLOQUEANDO =
+            "SELECT id, cantidad_en_stock FROM productos WHERE id = ANY (?) ORDER BY id FOR SHARE";
+    // is_called es false mientras la secuencia no haya asignado ningún ID
+    private static final String SQL_ULTIMO_ID_OUTBOX =
+            "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM eventos_outbox_id_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public ProductoRepositoryCustomImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int[] ajustarStockEnLote(Map<Long, Integer> deltasPorProducto) {
+        List<Object[]> argumentos = new ArrayList<>(deltasPorProducto.size());
+        deltasPorProducto.forEach((productoId, delta) -> argumentos.add(new Object[]{delta, productoId, delta}));
+        EscriturasJdbcCacheadas.prepararEscritura(entityManager, Producto.class, deltasPorProducto.keySet());
+        return jdbcTemplate.batchUpdate(SQL_AJUSTAR_STOCK, argumentos);
+    }
+
+    @Override
+    @Transactional
+    public NivelesVersionados leerNivelesDeStockVersionados(Collection<Long> productoIds) {
+        Long[] ids = productoIds.toArray(Long[]::new);
+        List<StockRespuestaDTO> niveles = jdbcTemplate.query(SQL_LEER_STOCK_BLOQUEANDO,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (rs, fila) -> new StockRespuestaDTO(rs.getLong(1), rs.getInt(2)));
+        Long version = jdbcTemplate.queryForObject(SQL_ULTIMO_ID_OUTBOX, Long.class);
+        return new NivelesVersionados(niveles, version);
+    }
+}
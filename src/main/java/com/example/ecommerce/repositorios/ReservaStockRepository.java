@@ -0,0 +1,33 @@
+package com.example.ecommerce.repositorios;
+
+import com.example.ecommerce.modelo.entidades.ReservaStock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para las reservas de stock activas.
+ * Las lecturas que preceden a confirmar, liberar o vencer una reserva bloquean su fila: de dos operaciones
+ * concurrentes sobre la misma reserva, la segunda ya no la encuentra.
+ */
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReservaStock r WHERE r.id = :id")
+    Optional<ReservaStock> findByIdParaActualizar(@Param("id") Long id);
+
+    /**
+     * Reservas de la lista que siguen activas, bloqueadas y en orden de ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReservaStock r WHERE r.id IN :ids ORDER BY r.id")
+    List<ReservaStock> findAllByIdParaActualizar(@Param("ids") Collection<Long> ids);
+
+    boolean existsByIdAndUsuarioId(Long id, Long usuarioId);
+}
@@ -1,13 +1,27 @@
 package com.example.ecommerce.repositorios;
 
 import com.example.ecommerce.modelo.entidades.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
 import java.util.Optional;
 
+import static com.example.ecommerce.config.ConfiguracionCacheSegundoNivel.REGION_USUARIO_POR_NOMBRE;
+
 /**
  * Repositorio para la entidad Usuario, permitiendo operaciones CRUD.
  */
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, UsuarioRepositoryCustom {
+    /**
+     * Se guarda en la cache de consultas (región "usuario-por-nombre"), que Hibernate invalida al cambiar la
+     * tabla 'usuarios'. El usuario encontrado se lee después de la región de la entidad.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_USUARIO_POR_NOMBRE)
+    })
     Optional<Usuario> findByNombreUsuario(String nombreUsuario);
 
     boolean existsByNombreUsuario(String nombreUsuario);
@@ -0,0 +1,19 @@
+package com.example.ecommerce.repositorios;
+
+import com.example.ecommerce.modelo.entidades.Usuario;
+
+import java.util.List;
+
+/**
+ * Operaciones de UsuarioRepository que no se expresan bien con JPA y se implementan con JDBC.
+ */
+public interface UsuarioRepositoryCustom {
+
+    /**
+     * Inserta usuarios en un lote JDBC apoyándose en la restricción única de 'nombre_usuario':
+     * las filas duplicadas (contra la tabla o dentro del propio lote) se omiten sin abortar el lote.
+     * @param usuarios Usuarios a insertar, con la contraseña ya codificada.
+     * @return Por cada usuario, en el mismo orden, 1 si se insertó y 0 si el nombre ya existía.
+     */
+    int[] insertarIgnorandoDuplicados(List<Usuario> usuarios);
+}
@@ -0,0 +1,49 @@
+package com.example.ecommerce.repositorios;
+
+import com.example.ecommerce.modelo.entidades.Usuario;
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación JDBC de UsuarioRepositoryCustom.
+ * Participa en la transacción en curso, ya que JdbcTemplate usa la misma conexión.
+ * Las inserciones invalidan las consultas de usuarios cacheadas (EscriturasJdbcCacheadas): una búsqueda por nombre
+ * sin resultado no debe seguir sirviéndose después de dar de alta al usuario.
+ */
+public class UsuarioRepositoryCustomImpl implements UsuarioRepositoryCustom {
+
+    private static final String SQL_INSERTAR_USUARIO =
+            "INSERT INTO usuarios (nombre_usuario, contrasena, rol, cuenta_expirada, cuenta_bloqueada, " +
+            "credenciales_expiradas, habilitado) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (nombre_usuario) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public UsuarioRepositoryCustomImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int[] insertarIgnorandoDuplicados(List<Usuario> usuarios) {
+        List<Object[]> argumentos = new ArrayList<>(usuarios.size());
+        for (Usuario usuario : usuarios) {
+            argumentos.add(new Object[]{
+                    usuario.getNombreUsuario(),
+                    usuario.getContrasena(),
+                    usuario.getRol().name(),
+                    usuario.isCuentaExpirada(),
+                    usuario.isCuentaBloqueada(),
+                    usuario.isCredencialesExpiradas(),
+                    usuario.isHabilitado()
+            });
+        }
+        EscriturasJdbcCacheadas.prepararEscritura(entityManager, Usuario.class, List.of());
+        // Sin reWriteBatchedInserts el driver devuelve el recuento real de cada fila (0 = duplicado)
+        return jdbcTemplate.batchUpdate(SQL_INSERTAR_USUARIO, argumentos);
+    }
+}
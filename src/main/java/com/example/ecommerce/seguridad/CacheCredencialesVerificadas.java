@@ -0,0 +1,78 @@
+package com.example.ecommerce.seguridad;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Cache acotada de pares (contraseña, hash BCrypt) que ya se verificaron correctamente.
+ * Nunca guarda la contraseña en claro: la clave es un HMAC-SHA256 del par calculado con un
+ * secreto aleatorio que solo existe en memoria durante la vida del proceso.
+ * Como la huella incluye el hash almacenado, un cambio de contraseña deja sin efecto las entradas previas.
+ */
+@Component
+public class CacheCredencialesVerificadas {
+
+    private static final String ALGORITMO = "HmacSHA256";
+
+    private final SecretKeySpec claveHuella;
+    // Huella de la credencial -> hash BCrypt con el que se verificó
+    private final Cache<String, String> verificadas;
+
+    public CacheCredencialesVerificadas(@Value("${app.seguridad.cache-credenciales.tamano-maximo:10000}") long tamanoMaximo,
+                                        @Value("${app.seguridad.cache-credenciales.ttl:5m}") Duration ttl,
+                                        MeterRegistry meterRegistry) {
+        byte[] secreto = new byte[32];
+        new SecureRandom().nextBytes(secreto);
+        this.claveHuella = new SecretKeySpec(secreto, ALGORITMO);
+        this.verificadas = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verificadas, "credenciales.verificadas");
+    }
+
+    public boolean estaVerificada(CharSequence contrasena, String hash) {
+        return verificadas.getIfPresent(huella(contrasena, hash)) != null;
+    }
+
+    public void registrarVerificada(CharSequence contrasena, String hash) {
+        verificadas.put(huella(contrasena, hash), hash);
+    }
+
+    /**
+     * Elimina todas las credenciales verificadas contra un hash concreto (cuenta bloqueada o modificada).
+     * @param hash El hash BCrypt almacenado del usuario.
+     */
+    public void invalidarHash(String hash) {
+        verificadas.asMap().values().removeIf(hash::equals);
+    }
+
+    public void vaciar() {
+        verificadas.invalidateAll();
+    }
+
+    private String huella(CharSequence contrasena, String hash) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(claveHuella);
+            mac.update(hash.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(contrasena.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("No se pudo calcular la huella de la credencial", ex);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ecommerce.seguridad;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache acotada (tamaño máximo y TTL) de los usuarios autenticados, indexada por nombre de usuario.
+ * La usa el DaoAuthenticationProvider para no consultar la tabla 'usuarios' en cada petición HTTP Basic.
+ * Las métricas de aciertos y fallos se publican como "cache.*" con el tag cache=usuarios.autenticados.
+ */
+@Component
+public class CacheUsuariosAutenticados implements UserCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    public CacheUsuariosAutenticados(@Value("${app.seguridad.cache-usuarios.tamano-maximo:10000}") long tamanoMaximo,
+                                     @Value("${app.seguridad.cache-usuarios.ttl:5m}") Duration ttl,
+                                     MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "usuarios.autenticados");
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String nombreUsuario) {
+        return cache.getIfPresent(nombreUsuario);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails usuario) {
+        cache.put(usuario.getUsername(), usuario);
+    }
+
+    @Override
+    public void removeUserFromCache(String nombreUsuario) {
+        cache.invalidate(nombreUsuario);
+    }
+
+    public void vaciar() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.ecommerce.seguridad;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Decorador de PasswordEncoder que ejecuta la codificación y la verificación en el
+ * EjecutorHashContrasenas, fuera de los hilos que atienden peticiones HTTP.
+ */
+public class CodificadorContrasenaAislado implements PasswordEncoder {
+
+    private final PasswordEncoder delegado;
+    private final EjecutorHashContrasenas ejecutor;
+
+    public CodificadorContrasenaAislado(PasswordEncoder delegado, EjecutorHashContrasenas ejecutor) {
+        this.delegado = delegado;
+        this.ejecutor = ejecutor;
+    }
+
+    @Override
+    public String encode(CharSequence contrasena) {
+        return ejecutor.ejecutar(() -> delegado.encode(contrasena));
+    }
+
+    /**
+     * Codifica un lote de contraseñas en paralelo usando todos los hilos del pool de hash.
+     * @param contrasenas Las contraseñas en claro.
+     * @return Los hashes, en el mismo orden.
+     */
+    public List<String> codificarTodas(List<? extends CharSequence> contrasenas) {
+        List<Supplier<String>> tareas = contrasenas.stream()
+                .<Supplier<String>>map(contrasena -> () -> delegado.encode(contrasena))
+                .toList();
+        return ejecutor.ejecutarTodas(tareas);
+    }
+
+    @Override
+    public boolean matches(CharSequence contrasena, String hash) {
+        return ejecutor.ejecutar(() -> delegado.matches(contrasena, hash));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String hash) {
+        return delegado.upgradeEncoding(hash);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ecommerce.seguridad;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Decorador de PasswordEncoder que evita repetir la verificación BCrypt de credenciales
+ * que ya se comprobaron recientemente. La codificación se delega siempre.
+ */
+public class CodificadorContrasenaConCache implements PasswordEncoder {
+
+    private final PasswordEncoder delegado;
+    private final CacheCredencialesVerificadas cacheCredenciales;
+
+    public CodificadorContrasenaConCache(PasswordEncoder delegado, CacheCredencialesVerificadas cacheCredenciales) {
+        this.delegado = delegado;
+        this.cacheCredenciales = cacheCredenciales;
+    }
+
+    @Override
+    public String encode(CharSequence contrasena) {
+        return delegado.encode(contrasena);
+    }
+
+    @Override
+    public boolean matches(CharSequence contrasena, String hash) {
+        if (contrasena == null || hash == null) {
+            return delegado.matches(contrasena, hash);
+        }
+        if (cacheCredenciales.estaVerificada(contrasena, hash)) {
+            return true;
+        }
+        boolean coincide = delegado.matches(contrasena, hash);
+        if (coincide) {
+            // Solo se recuerdan las verificaciones correctas: los fallos siempre pagan BCrypt.
+            cacheCredenciales.registrarVerificada(contrasena, hash);
+        }
+        return coincide;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String hash) {
+        return delegado.upgradeEncoding(hash);
+    }
+}
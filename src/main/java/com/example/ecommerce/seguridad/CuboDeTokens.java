@@ -0,0 +1,65 @@
+package com.example.ecommerce.seguridad;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Cubo de tokens (token bucket): admite ráfagas de hasta 'capacidad' peticiones y se repone
+ * a un ritmo constante. El tiempo se recibe como parámetro para poder probarlo de forma determinista.
+ * <p>
+ * Sin bloqueos: todo el estado es un único long, el instante teórico en que el cubo volvería a estar lleno
+ * (algoritmo GCRA, equivalente al cubo de tokens). Consumir un token lo adelanta un intervalo de reposición con
+ * una operación compare-and-set; la petición se admite si no queda más de 'capacidad' intervalos por delante.
+ * El campo se actualiza con un VarHandle en lugar de un AtomicLong para ahorrar un acceso a memoria por petición.
+ */
+public class CuboDeTokens {
+
+    private static final VarHandle LLENO_EN;
+
+    static {
+        try {
+            LLENO_EN = MethodHandles.lookup().findVarHandle(CuboDeTokens.class, "llenoEn", long.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    // Instante (System.nanoTime()) en que el cubo estaría lleno; si ya pasó, lo está
+    private volatile long llenoEn;
+
+    public CuboDeTokens(long capacidad, double tokensPorSegundo, long ahoraNanos) {
+        this.intervaloNanos = Math.max(1, Math.round(1_000_000_000d / tokensPorSegundo));
+        this.toleranciaNanos = capacidad * intervaloNanos;
+        this.llenoEn = ahoraNanos;
+    }
+
+    /**
+     * Intenta consumir un token.
+     * @param ahoraNanos Instante actual (System.nanoTime()).
+     * @return 0 si se consumió el token; si no, los nanosegundos que faltan para disponer de uno.
+     */
+    public long intentarConsumir(long ahoraNanos) {
+        while (true) {
+            long actual = llenoEn;
+            // Un cubo lleno no acumula más tokens: se parte del instante actual
+            long siguiente = (actual - ahoraNanos > 0 ? actual : ahoraNanos) + intervaloNanos;
+            long exceso = siguiente - ahoraNanos - toleranciaNanos;
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (LLENO_EN.compareAndSet(this, actual, siguiente)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Indica si el cubo se ha repuesto por completo: descartarlo equivale a crear uno nuevo.
+     * @param ahoraNanos Instante actual (System.nanoTime()).
+     */
+    public boolean estaLleno(long ahoraNanos) {
+        return llenoEn - ahoraNanos <= 0;
+    }
+}
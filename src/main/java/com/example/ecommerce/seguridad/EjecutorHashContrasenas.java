@@ -0,0 +1,151 @@
+package com.example.ecommerce.seguridad;
+
+import com.example.ecommerce.excepciones.DemasiadasPeticionesException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool dedicado y acotado para el trabajo de BCrypt (codificar y verificar contraseñas).
+ * Aísla el coste de CPU del hash de los hilos de Tomcat: como mucho 'hilos' hashes corren a la vez
+ * y la cola tiene un límite. Si la cola está llena, la petición se rechaza con 429 de inmediato.
+ * <p>
+ * Cada petición en el pool ocupa además el hilo de Tomcat que la espera. La cola (y la espera máxima) deben ser
+ * pequeñas frente a los hilos de Tomcat: con una avalancha de logins, el resto de la API sigue teniendo hilos.
+ */
+@Component
+public class EjecutorHashContrasenas {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EjecutorHashContrasenas.class);
+
+    private final ThreadPoolExecutor ejecutor;
+    private final Duration tiempoMaximoEspera;
+    private final int hilos;
+
+    public EjecutorHashContrasenas(@Value("${app.seguridad.hash.hilos:0}") int hilos,
+                                   @Value("${app.seguridad.hash.capacidad-cola:16}") int capacidadCola,
+                                   @Value("${app.seguridad.hash.tiempo-maximo-espera:1s}") Duration tiempoMaximoEspera,
+                                   @Value("${server.tomcat.threads.max:200}") int hilosTomcat,
+                                   MeterRegistry meterRegistry) {
+        // 0 = un hilo por núcleo disponible
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        if (tamano + capacidadCola > hilosTomcat / 2) {
+            LOG.warn("El pool de hash admite {} peticiones en espera o en curso, más de la mitad de los {} hilos de "
+                    + "Tomcat: una avalancha de logins puede dejar sin hilos al resto de la API", tamano + capacidadCola,
+                    hilosTomcat);
+        }
+        AtomicInteger contador = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(tamano, tamano, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "hash-contrasenas-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.tiempoMaximoEspera = tiempoMaximoEspera;
+        this.hilos = tamano;
+        new ExecutorServiceMetrics(ejecutor, "hash.contrasenas", null).bindTo(meterRegistry);
+    }
+
+    /**
+     * Ejecuta una tarea de hash en el pool dedicado y espera su resultado.
+     * @param tarea La operación de codificación o verificación.
+     * @return El resultado de la tarea.
+     * @throws DemasiadasPeticionesException Si el pool está saturado o la tarea no termina a tiempo.
+     */
+    public <T> T ejecutar(Supplier<T> tarea) {
+        Future<T> futuro;
+        try {
+            futuro = ejecutor.submit(tarea::get);
+        } catch (RejectedExecutionException ex) {
+            throw new DemasiadasPeticionesException("El servicio de autenticación está saturado. Inténtelo de nuevo en unos segundos.", 1);
+        }
+        try {
+            return futuro.get(tiempoMaximoEspera.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            futuro.cancel(true);
+            throw new DemasiadasPeticionesException("El servicio de autenticación está saturado. Inténtelo de nuevo en unos segundos.", 1);
+        } catch (InterruptedException ex) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se esperaba el hash de la contraseña", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Ejecuta un lote de tareas de hash en paralelo, repartidas entre los hilos del pool.
+     * Como mucho hay tantas tareas del lote en vuelo como hilos, de modo que un lote grande
+     * no llena la cola y los logins concurrentes siguen siendo admitidos.
+     * @param tareas Las operaciones a ejecutar.
+     * @return Los resultados, en el mismo orden que las tareas.
+     */
+    public <T> List<T> ejecutarTodas(List<Supplier<T>> tareas) {
+        Semaphore enVuelo = new Semaphore(hilos);
+        List<CompletableFuture<T>> futuros = new ArrayList<>(tareas.size());
+        try {
+            for (Supplier<T> tarea : tareas) {
+                enVuelo.acquire();
+                CompletableFuture<T> futuro = new CompletableFuture<>();
+                ejecutor.execute(() -> {
+                    try {
+                        futuro.complete(tarea.get());
+                    } catch (RuntimeException ex) {
+                        futuro.completeExceptionally(ex);
+                    } finally {
+                        enVuelo.release();
+                    }
+                });
+                futuros.add(futuro);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se encolaba el lote de hashes", ex);
+        } catch (RejectedExecutionException ex) {
+            throw new DemasiadasPeticionesException("El servicio de autenticación está saturado. Inténtelo de nuevo en unos segundos.", 1);
+        }
+
+        List<T> resultados = new ArrayList<>(futuros.size());
+        try {
+            for (CompletableFuture<T> futuro : futuros) {
+                resultados.add(futuro.join());
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw ex;
+        }
+        return resultados;
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+}
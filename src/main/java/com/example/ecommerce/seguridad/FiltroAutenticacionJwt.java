@@ -0,0 +1,70 @@
+package com.example.ecommerce.seguridad;
+
+import com.example.ecommerce.excepciones.TokenInvalidoException;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.servicios.ServicioTokenJwt;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtro que autentica las peticiones con cabecera "Authorization: Bearer <token>".
+ * Solo verifica la firma y la expiración del JWT: no consulta la base de datos ni ejecuta BCrypt.
+ * Las peticiones sin token Bearer continúan por la cadena (por ejemplo, hacia HTTP Basic).
+ * <p>
+ * El contexto se guarda además en un atributo de la petición, como hace HTTP Basic: este filtro no se repite en los
+ * despachos ASYNC y ERROR (por ejemplo, al cerrarse un stream SSE), y sin ese atributo la autorización de esos
+ * despachos encontraría una petición anónima y la rechazaría con la respuesta ya confirmada.
+ */
+public class FiltroAutenticacionJwt extends OncePerRequestFilter {
+
+    private static final String PREFIJO_BEARER = "Bearer ";
+
+    private final ServicioTokenJwt servicioTokenJwt;
+    private final WebAuthenticationDetailsSource fuenteDetalles = new WebAuthenticationDetailsSource();
+    private final SecurityContextRepository repositorioContexto = new RequestAttributeSecurityContextRepository();
+
+    public FiltroAutenticacionJwt(ServicioTokenJwt servicioTokenJwt) {
+        this.servicioTokenJwt = servicioTokenJwt;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecera == null || !cabecera.startsWith(PREFIJO_BEARER)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            Usuario usuario = servicioTokenJwt.validarTokenAcceso(cabecera.substring(PREFIJO_BEARER.length()));
+            UsernamePasswordAuthenticationToken autenticacion =
+                    UsernamePasswordAuthenticationToken.authenticated(usuario, null, usuario.getAuthorities());
+            autenticacion.setDetails(fuenteDetalles.buildDetails(request));
+
+            SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+            contexto.setAuthentication(autenticacion);
+            SecurityContextHolder.setContext(contexto);
+            repositorioContexto.saveContext(contexto, request, response);
+        } catch (TokenInvalidoException ex) {
+            SecurityContextHolder.clearContext();
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
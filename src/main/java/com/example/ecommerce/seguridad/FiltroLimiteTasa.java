@@ -0,0 +1,55 @@
+package com.example.ecommerce.seguridad;
+
+import com.example.ecommerce.modelo.entidades.Usuario;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica LimitadorTasaPeticiones: responde 429 con Retry-After cuando el cliente agota su cubo.
+ * Se ejecuta después de los filtros de autenticación (JWT y HTTP Basic) para identificar al usuario; las
+ * peticiones sin autenticar a endpoints protegidos no consumen tokens, porque se rechazan igualmente con 401.
+ */
+public class FiltroLimiteTasa extends OncePerRequestFilter {
+
+    private final LimitadorTasaPeticiones limitador;
+
+    public FiltroLimiteTasa(LimitadorTasaPeticiones limitador) {
+        this.limitador = limitador;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !limitador.isHabilitado();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        LimitadorTasaPeticiones.Regla regla = LimitadorTasaPeticiones.Regla.de(request.getMethod(), request.getRequestURI());
+        long esperaNanos = 0;
+        if (regla == LimitadorTasaPeticiones.Regla.REFRESCO) {
+            esperaNanos = limitador.consumir(regla, request.getRemoteAddr(), null, System.nanoTime());
+        } else if (regla != null) {
+            Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+            if (autenticacion != null && autenticacion.getPrincipal() instanceof Usuario usuario) {
+                esperaNanos = limitador.consumir(regla, usuario.getId(), usuario.getRol(), System.nanoTime());
+            }
+        }
+        if (esperaNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(esperaNanos) + 1));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ecommerce.seguridad;
+
+import com.example.ecommerce.excepciones.DemasiadasPeticionesException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Traduce a 429 las DemasiadasPeticionesException lanzadas dentro de la cadena de filtros
+ * (por ejemplo, cuando HTTP Basic no puede verificar la contraseña porque el pool de hash está lleno).
+ * Las lanzadas desde los controladores las resuelve ManejadorExcepcionesGlobal.
+ */
+public class FiltroRespuestaSaturacion extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (DemasiadasPeticionesException ex) {
+            responder(response, ex);
+        } catch (ServletException ex) {
+            if (ex.getCause() instanceof DemasiadasPeticionesException causa) {
+                responder(response, causa);
+            } else {
+                throw ex;
+            }
+        }
+    }
+
+    private void responder(HttpServletResponse response, DemasiadasPeticionesException ex) {
+        if (!response.isCommitted()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getSegundosReintento()));
+        }
+    }
+}
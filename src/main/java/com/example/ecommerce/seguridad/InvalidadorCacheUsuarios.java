@@ -0,0 +1,94 @@
+package com.example.ecommerce.seguridad;
+
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Listener JPA de la entidad Usuario que expulsa al usuario de las caches de seguridad
+ * cuando su cuenta cambia (contraseña, bloqueo, deshabilitación, rol) o se elimina.
+ * Se invalida de inmediato y de nuevo tras el commit, para descartar una recarga concurrente
+ * que haya leído el estado anterior antes de confirmarse la transacción.
+ * Tras el commit se pide además a las demás instancias (BusInvalidacion, región "usuario") que lo expulsen.
+ * Para la cache de segundo nivel de las demás instancias (ConfiguracionCacheSegundoNivel) se propagan también
+ * el ID de los usuarios modificados o eliminados (región "usuario-id") y el nombre de los creados o eliminados
+ * (región "usuario-nombre"), cuyas búsquedas por nombre cacheadas cambian de resultado.
+ */
+@Component
+public class InvalidadorCacheUsuarios {
+
+    private final CacheUsuariosAutenticados cacheUsuarios;
+    private final CacheCredencialesVerificadas cacheCredenciales;
+    private final BusInvalidacion busInvalidacion;
+
+    public InvalidadorCacheUsuarios(CacheUsuariosAutenticados cacheUsuarios,
+                                    CacheCredencialesVerificadas cacheCredenciales,
+                                    BusInvalidacion busInvalidacion) {
+        this.cacheUsuarios = cacheUsuarios;
+        this.cacheCredenciales = cacheCredenciales;
+        this.busInvalidacion = busInvalidacion;
+        busInvalidacion.registrar("usuario", this::invalidar, () -> {
+            cacheUsuarios.vaciar();
+            cacheCredenciales.vaciar();
+        });
+    }
+
+    @PostPersist
+    public void alCrearUsuario(Usuario usuario) {
+        alCambiarUsuario(usuario, false, true);
+    }
+
+    @PostUpdate
+    public void alModificarUsuario(Usuario usuario) {
+        alCambiarUsuario(usuario, true, false);
+    }
+
+    @PostRemove
+    public void alEliminarUsuario(Usuario usuario) {
+        alCambiarUsuario(usuario, true, true);
+    }
+
+    private void alCambiarUsuario(Usuario usuario, boolean cambiaEntidad, boolean cambiaBusquedaPorNombre) {
+        String nombreUsuario = usuario.getNombreUsuario();
+        String id = String.valueOf(usuario.getId());
+        invalidar(nombreUsuario);
+        Runnable propagar = () -> {
+            busInvalidacion.propagar("usuario", nombreUsuario);
+            if (cambiaEntidad) {
+                busInvalidacion.propagar("usuario-id", id);
+            }
+            if (cambiaBusquedaPorNombre) {
+                busInvalidacion.propagar("usuario-nombre", nombreUsuario);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar(nombreUsuario);
+                    propagar.run();
+                }
+            });
+        } else {
+            propagar.run();
+        }
+    }
+
+    /**
+     * Expulsa a un usuario de la cache de usuarios y de la de credenciales verificadas.
+     * @param nombreUsuario El nombre del usuario modificado.
+     */
+    public void invalidar(String nombreUsuario) {
+        UserDetails enCache = cacheUsuarios.getUserFromCache(nombreUsuario);
+        if (enCache != null && enCache.getPassword() != null) {
+            cacheCredenciales.invalidarHash(enCache.getPassword());
+        }
+        cacheUsuarios.removeUserFromCache(nombreUsuario);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ecommerce.seguridad;
+
+import com.example.ecommerce.excepciones.DemasiadasPeticionesException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Control de admisión para login y registro: un cubo de tokens por IP y otro por nombre de usuario.
+ * Frena ráfagas de intentos (por ejemplo, credential stuffing) antes de llegar a BCrypt,
+ * rechazándolas con 429 en lugar de agotar los hilos del servidor.
+ * Los cubos inactivos se descartan automáticamente.
+ */
+@Component
+public class LimitadorIntentosAutenticacion {
+
+    private final Cache<String, CuboDeTokens> cubos;
+    private final long capacidadPorIp;
+    private final double reposicionPorIp;
+    private final long capacidadPorUsuario;
+    private final double reposicionPorUsuario;
+    private final Counter rechazos;
+
+    public LimitadorIntentosAutenticacion(
+            @Value("${app.seguridad.limite-autenticacion.por-ip.capacidad:20}") long capacidadPorIp,
+            @Value("${app.seguridad.limite-autenticacion.por-ip.reposicion-por-minuto:20}") double reposicionPorIpMinuto,
+            @Value("${app.seguridad.limite-autenticacion.por-usuario.capacidad:5}") long capacidadPorUsuario,
+            @Value("${app.seguridad.limite-autenticacion.por-usuario.reposicion-por-minuto:5}") double reposicionPorUsuarioMinuto,
+            MeterRegistry meterRegistry) {
+        this.capacidadPorIp = capacidadPorIp;
+        this.reposicionPorIp = reposicionPorIpMinuto / 60d;
+        this.capacidadPorUsuario = capacidadPorUsuario;
+        this.reposicionPorUsuario = reposicionPorUsuarioMinuto / 60d;
+        this.cubos = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.rechazos = Counter.builder("autenticacion.intentos.rechazados")
+                .description("Intentos de login o registro rechazados por límite de tasa")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consume un intento para la IP y para el nombre de usuario indicados.
+     * @param ip Dirección IP del cliente (request.getRemoteAddr(): detrás del balanceador, Tomcat la resuelve desde
+     *           X-Forwarded-For).
+     * @param nombreUsuario Nombre de usuario del intento (puede ser nulo).
+     * @throws DemasiadasPeticionesException Si alguno de los dos límites está agotado.
+     */
+    public void verificar(String ip, String nombreUsuario) {
+        long ahora = System.nanoTime();
+        consumir("ip:" + ip, capacidadPorIp, reposicionPorIp, ahora);
+        if (nombreUsuario != null) {
+            consumir("usuario:" + nombreUsuario.toLowerCase(), capacidadPorUsuario, reposicionPorUsuario, ahora);
+        }
+    }
+
+    private void consumir(String clave, long capacidad, double tokensPorSegundo, long ahora) {
+        CuboDeTokens cubo = cubos.get(clave, k -> new CuboDeTokens(capacidad, tokensPorSegundo, ahora));
+        long esperaNanos = cubo.intentarConsumir(ahora);
+        if (esperaNanos > 0) {
+            rechazos.increment();
+            long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos) + 1);
+            throw new DemasiadasPeticionesException("Demasiados intentos de autenticación. Inténtelo de nuevo más tarde.", segundos);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.ecommerce.seguridad;
+
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Límite de tasa de los endpoints más solicitados: un cubo de tokens por usuario autenticado (por IP en los
+ * endpoints de autenticación anónimos), con capacidad y reposición configurables por endpoint y rol.
+ * Así un cliente que satura la API recibe 429 sin degradar la latencia del resto.
+ * <p>
+ * El camino de cada petición no bloquea: una búsqueda en un ConcurrentHashMap y un compare-and-set en el cubo
+ * (ver LimitadorTasaBenchmark). Los cubos que se han repuesto por completo se descartan periódicamente, ya que
+ * equivalen a uno nuevo. Un cubo conserva los límites del rol con el que se creó hasta que se descarta.
+ * <p>
+ * Login y registro tienen además su propio límite por IP y nombre de usuario (LimitadorIntentosAutenticacion).
+ */
+@Component
+public class LimitadorTasaPeticiones {
+
+    /**
+     * Endpoints limitados, cada uno con sus cubos.
+     */
+    public enum Regla {
+        PEDIDOS("pedidos"),     // POST /api/pedidos
+        CATALOGO("catalogo"),   // GET /api/productos/**
+        REFRESCO("refresco");   // POST /api/autenticacion/refresco, por IP
+
+        private final String etiqueta;
+
+        Regla(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        /**
+         * Regla que se aplica a una petición, o null si el endpoint no está limitado.
+         */
+        public static Regla de(String metodo, String ruta) {
+            if (ruta.startsWith("/api/productos") && (ruta.length() == 14 || ruta.charAt(14) == '/')) {
+                return metodo.equals("GET") ? CATALOGO : null;
+            }
+            if (!metodo.equals("POST")) {
+                return null;
+            }
+            if (ruta.equals("/api/pedidos")) {
+                return PEDIDOS;
+            }
+            return ruta.equals("/api/autenticacion/refresco") ? REFRESCO : null;
+        }
+    }
+
+    private record Limite(long capacidad, double tokensPorSegundo) {
+    }
+
+    private final boolean habilitado;
+    // Por regla: límite para USER (y anónimos) y para ADMIN
+    private final Limite[][] limites = new Limite[Regla.values().length][];
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<Object, CuboDeTokens>[] cubos = new ConcurrentHashMap[Regla.values().length];
+    private final Counter[] rechazos = new Counter[Regla.values().length];
+
+    public LimitadorTasaPeticiones(
+            @Value("${app.seguridad.limite-tasa.habilitado:true}") boolean habilitado,
+            @Value("${app.seguridad.limite-tasa.pedidos.user.capacidad:10}") long pedidosUserCapacidad,
+            @Value("${app.seguridad.limite-tasa.pedidos.user.reposicion-por-minuto:60}") double pedidosUserMinuto,
+            @Value("${app.seguridad.limite-tasa.pedidos.admin.capacidad:50}") long pedidosAdminCapacidad,
+            @Value("${app.seguridad.limite-tasa.pedidos.admin.reposicion-por-minuto:600}") double pedidosAdminMinuto,
+            @Value("${app.seguridad.limite-tasa.catalogo.user.capacidad:100}") long catalogoUserCapacidad,
+            @Value("${app.seguridad.limite-tasa.catalogo.user.reposicion-por-minuto:1200}") double catalogoUserMinuto,
+            @Value("${app.seguridad.limite-tasa.catalogo.admin.capacidad:200}") long catalogoAdminCapacidad,
+            @Value("${app.seguridad.limite-tasa.catalogo.admin.reposicion-por-minuto:3000}") double catalogoAdminMinuto,
+            @Value("${app.seguridad.limite-tasa.refresco.por-ip.capacidad:20}") long refrescoCapacidad,
+            @Value("${app.seguridad.limite-tasa.refresco.por-ip.reposicion-por-minuto:60}") double refrescoMinuto,
+            MeterRegistry meterRegistry) {
+        this.habilitado = habilitado;
+        limites[Regla.PEDIDOS.ordinal()] = new Limite[]{
+                new Limite(pedidosUserCapacidad, pedidosUserMinuto / 60d),
+                new Limite(pedidosAdminCapacidad, pedidosAdminMinuto / 60d)};
+        limites[Regla.CATALOGO.ordinal()] = new Limite[]{
+                new Limite(catalogoUserCapacidad, catalogoUserMinuto / 60d),
+                new Limite(catalogoAdminCapacidad, catalogoAdminMinuto / 60d)};
+        Limite refresco = new Limite(refrescoCapacidad, refrescoMinuto / 60d);
+        limites[Regla.REFRESCO.ordinal()] = new Limite[]{refresco, refresco};
+        for (Regla regla : Regla.values()) {
+            cubos[regla.ordinal()] = new ConcurrentHashMap<>();
+            rechazos[regla.ordinal()] = Counter.builder("limite.tasa.rechazos")
+                    .description("Peticiones rechazadas con 429 por límite de tasa")
+                    .tag("regla", regla.etiqueta)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("limite.tasa.cubos", cubos, c -> Arrays.stream(c).mapToInt(ConcurrentHashMap::size).sum())
+                .description("Cubos de límite de tasa en memoria")
+                .register(meterRegistry);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Consume un token del cubo de la clave para la regla indicada.
+     * @param regla Endpoint limitado.
+     * @param clave ID del usuario (Long) o IP (String).
+     * @param rol Rol del usuario; null para peticiones anónimas.
+     * @param ahoraNanos Instante actual (System.nanoTime()).
+     * @return 0 si se admite la petición; si no, los nanosegundos que faltan para poder repetirla.
+     */
+    public long consumir(Regla regla, Object clave, Rol rol, long ahoraNanos) {
+        ConcurrentHashMap<Object, CuboDeTokens> cubosRegla = cubos[regla.ordinal()];
+        CuboDeTokens cubo = cubosRegla.get(clave);
+        if (cubo == null) {
+            Limite limite = limites[regla.ordinal()][rol == Rol.ADMIN ? 1 : 0];
+            cubo = cubosRegla.computeIfAbsent(clave,
+                    k -> new CuboDeTokens(limite.capacidad(), limite.tokensPorSegundo(), ahoraNanos));
+        }
+        long esperaNanos = cubo.intentarConsumir(ahoraNanos);
+        if (esperaNanos > 0) {
+            rechazos[regla.ordinal()].increment();
+        }
+        return esperaNanos;
+    }
+
+    /**
+     * Descarta los cubos repuestos por completo. Una petición que coincida con el descarte puede consumir de
+     * un cubo ya descartado: como mucho se admite una petición de más por cubo y barrido.
+     */
+    @Scheduled(fixedDelayString = "${app.seguridad.limite-tasa.barrido:1m}")
+    public void descartarCubosInactivos() {
+        long ahora = System.nanoTime();
+        for (ConcurrentHashMap<Object, CuboDeTokens> cubosRegla : cubos) {
+            cubosRegla.values().removeIf(cubo -> cubo.estaLleno(ahora));
+        }
+    }
+}
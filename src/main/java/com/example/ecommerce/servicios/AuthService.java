@@ -1,9 +1,13 @@
 package com.example.ecommerce.servicios;
 
+import com.example.ecommerce.dto.AutenticacionRespuestaDTO;
 import com.example.ecommerce.dto.UsuarioRegistroDTO;
+import com.example.ecommerce.excepciones.TokenInvalidoException;
 import com.example.ecommerce.excepciones.UsuarioYaExisteException;
 import com.example.ecommerce.modelo.entidades.Usuario;
 import com.example.ecommerce.repositorios.UsuarioRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,31 +18,75 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class AuthService {
 
+    // Restricción única de 'usuarios.nombre_usuario' (V1__esquema_inicial.sql)
+    private static final String RESTRICCION_NOMBRE_USUARIO = "uk_usuarios_nombre_usuario";
+
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ServicioTokenJwt servicioTokenJwt;
 
-    public AuthService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder,
+                       ServicioTokenJwt servicioTokenJwt) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.servicioTokenJwt = servicioTokenJwt;
     }
 
     /**
      * Registra un nuevo usuario en el sistema.
+     * No se consulta antes si el nombre existe: la restricción única de 'nombre_usuario' lo garantiza
+     * en un solo viaje a la BD y sin condiciones de carrera entre registros concurrentes.
      * @param registroDTO DTO con los datos del nuevo usuario.
      * @return La entidad Usuario creada.
      * @throws UsuarioYaExisteException si el nombre de usuario ya está en uso.
+     * @throws DataIntegrityViolationException si se viola cualquier otra restricción.
      */
     @Transactional
     public Usuario registrarUsuario(UsuarioRegistroDTO registroDTO) {
-        if (usuarioRepository.existsByNombreUsuario(registroDTO.getNombreUsuario())) {
-            throw new UsuarioYaExisteException("El nombre de usuario '" + registroDTO.getNombreUsuario() + "' ya está en uso.");
-        }
-
         Usuario usuario = new Usuario();
         usuario.setNombreUsuario(registroDTO.getNombreUsuario());
         usuario.setContrasena(passwordEncoder.encode(registroDTO.getContrasena()));
         usuario.setRol(registroDTO.getRol());
 
-        return usuarioRepository.save(usuario);
+        try {
+            return usuarioRepository.saveAndFlush(usuario);
+        } catch (DataIntegrityViolationException ex) {
+            if (ex.getCause() instanceof ConstraintViolationException violacion
+                    && RESTRICCION_NOMBRE_USUARIO.equalsIgnoreCase(violacion.getConstraintName())) {
+                throw new UsuarioYaExisteException("El nombre de usuario '" + registroDTO.getNombreUsuario() + "' ya está en uso.");
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Emite un token de acceso y uno de refresco para un usuario ya autenticado.
+     * @param usuario El usuario autenticado.
+     * @param mensaje Mensaje a incluir en la respuesta.
+     * @return DTO con ambos tokens y la vigencia del token de acceso.
+     */
+    public AutenticacionRespuestaDTO emitirTokens(Usuario usuario, String mensaje) {
+        return new AutenticacionRespuestaDTO(
+                mensaje,
+                servicioTokenJwt.generarTokenAcceso(usuario),
+                servicioTokenJwt.generarTokenRefresco(usuario),
+                servicioTokenJwt.getExpiracionAcceso().toSeconds());
+    }
+
+    /**
+     * Renueva los tokens a partir de un token de refresco válido.
+     * A diferencia de las peticiones normales, aquí sí se consulta la base de datos para
+     * no renovar tokens de cuentas bloqueadas, deshabilitadas o eliminadas.
+     * @param tokenRefresco El token de refresco emitido en el login.
+     * @return DTO con un nuevo token de acceso y un nuevo token de refresco.
+     * @throws TokenInvalidoException Si el token no es válido o la cuenta ya no está activa.
+     */
+    @Transactional(readOnly = true)
+    public AutenticacionRespuestaDTO refrescarTokens(String tokenRefresco) {
+        Long usuarioId = servicioTokenJwt.validarTokenRefresco(tokenRefresco);
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .filter(u -> u.isEnabled() && u.isAccountNonLocked() && u.isAccountNonExpired())
+                .orElseThrow(() -> new TokenInvalidoException("La cuenta asociada al token no está activa"));
+        return emitirTokens(usuario, "Tokens renovados.");
     }
 }
\ No newline at end of file
@@ -4,29 +4,41 @@ import com.example.ecommerce.dto.DetallePedidoCreacionDTO;
 import com.example.ecommerce.dto.DetallePedidoRespuestaDTO;
 import com.example.ecommerce.dto.PedidoCreacionDTO;
 import com.example.ecommerce.dto.PedidoRespuestaDTO;
+import com.example.ecommerce.eventos.EventoCambio;
+import com.example.ecommerce.eventos.PublicadorEventos;
+import com.example.ecommerce.excepciones.PeticionInvalidaException;
 import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
 import com.example.ecommerce.excepciones.StockInsuficienteException;
 import com.example.ecommerce.mapper.PedidoMapper;
+import com.example.ecommerce.metricas.MetricasPedido;
 import com.example.ecommerce.modelo.entidades.DetallePedido;
+import com.example.ecommerce.modelo.entidades.LineaReserva;
 import com.example.ecommerce.modelo.entidades.Pedido;
+import com.example.ecommerce.modelo.entidades.PedidoArchivado;
 import com.example.ecommerce.modelo.entidades.Producto;
 import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.valores.Dinero;
+import com.example.ecommerce.repositorios.PedidoArchivadoRepository;
 import com.example.ecommerce.repositorios.PedidoRepository;
 import com.example.ecommerce.repositorios.ProductoRepository;
 import com.example.ecommerce.repositorios.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -37,39 +49,82 @@ import java.util.stream.Collectors;
 public class PedidoService {
 
     private final PedidoRepository pedidoRepository;
+    private final PedidoArchivadoRepository pedidoArchivadoRepository;
     private final ProductoRepository productoRepository;
     private final UsuarioRepository usuarioRepository;
     private final PedidoMapper pedidoMapper;
+    private final MetricasPedido metricasPedido;
+    private final PublicadorEventos publicadorEventos;
+    private final VistaDisponibilidadProductos vistaDisponibilidad;
 
     /**
      * Constructor para la inyección de dependencias.
      * @param pedidoRepository Repositorio de pedidos.
+     * @param pedidoArchivadoRepository Repositorio de pedidos archivados.
      * @param productoRepository Repositorio de productos.
      * @param usuarioRepository Repositorio de usuarios.
      * @param pedidoMapper Mapeador de pedidos.
+     * @param metricasPedido Métricas del proceso de creación de pedidos.
+     * @param publicadorEventos Outbox de eventos de cambio.
+     * @param vistaDisponibilidad Vista de admisión, que aprende de los pedidos rechazados.
      */
     @Autowired
-    public PedidoService(PedidoRepository pedidoRepository, ProductoRepository productoRepository,
-                         UsuarioRepository usuarioRepository, PedidoMapper pedidoMapper) {
+    public PedidoService(PedidoRepository pedidoRepository, PedidoArchivadoRepository pedidoArchivadoRepository,
+                         ProductoRepository productoRepository, UsuarioRepository usuarioRepository,
+                         PedidoMapper pedidoMapper, MetricasPedido metricasPedido,
+                         PublicadorEventos publicadorEventos, VistaDisponibilidadProductos vistaDisponibilidad) {
         this.pedidoRepository = pedidoRepository;
+        this.pedidoArchivadoRepository = pedidoArchivadoRepository;
         this.productoRepository = productoRepository;
         this.usuarioRepository = usuarioRepository;
         this.pedidoMapper = pedidoMapper;
+        this.metricasPedido = metricasPedido;
+        this.publicadorEventos = publicadorEventos;
+        this.vistaDisponibilidad = vistaDisponibilidad;
     }
 
     /**
      * Crea un nuevo pedido.
      * Esta lógica verifica el stock, actualiza el stock y calcula el total del pedido.
+     * Los pedidos que seguro fallarían se rechazan antes, sin transacción (VistaDisponibilidadProductos).
      * @param pedidoCreacionDTO El DTO con los datos del pedido a crear.
      * @return El DTO del pedido creado.
      * @throws RecursoNoEncontradoException Si el usuario o algún producto no es encontrado.
      * @throws StockInsuficienteException Si el stock de algún producto es insuficiente.
+     * @throws PeticionInvalidaException Si el total del pedido se sale del rango de los importes.
      */
     @Transactional
     public PedidoRespuestaDTO crearPedido(PedidoCreacionDTO pedidoCreacionDTO) {
+        long inicio = System.nanoTime();
+        try {
+            PedidoRespuestaDTO pedidoCreado = procesarPedido(pedidoCreacionDTO, inicio);
+            metricasPedido.registrarResultado(MetricasPedido.Resultado.EXITO, System.nanoTime() - inicio);
+            return pedidoCreado;
+        } catch (StockInsuficienteException ex) {
+            metricasPedido.registrarResultado(MetricasPedido.Resultado.STOCK_INSUFICIENTE, System.nanoTime() - inicio);
+            throw ex;
+        } catch (RecursoNoEncontradoException ex) {
+            metricasPedido.registrarResultado(MetricasPedido.Resultado.NO_ENCONTRADO, System.nanoTime() - inicio);
+            throw ex;
+        } catch (PeticionInvalidaException ex) {
+            metricasPedido.registrarResultado(MetricasPedido.Resultado.PETICION_INVALIDA, System.nanoTime() - inicio);
+            throw ex;
+        }
+    }
+
+    /**
+     * Lógica de creación de un pedido, midiendo la duración de cada fase.
+     * La escritura de los cambios de stock se completa en el commit, fuera de la fase de persistencia.
+     */
+    private PedidoRespuestaDTO procesarPedido(PedidoCreacionDTO pedidoCreacionDTO, long inicio) {
         // 1. Validar usuario
-        Usuario usuario = usuarioRepository.findById(pedidoCreacionDTO.getUsuarioId())
-                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario", "ID", pedidoCreacionDTO.getUsuarioId()));
+        Usuario usuario = usuarioRepository.findById(pedidoCreacionDTO.getUsuarioId()).orElse(null);
+        if (usuario == null) {
+            metricasPedido.registrarUsuarioNoEncontrado();
+            throw new RecursoNoEncontradoException("Usuario", "ID", pedidoCreacionDTO.getUsuarioId());
+        }
+        long marca = System.nanoTime();
+        metricasPedido.registrarFase(MetricasPedido.Fase.BUSQUEDA_USUARIO, marca - inicio);
 
         // REFINAMIENTO: Buscar todos los productos en una sola consulta para eficiencia.
         List<Long> productoIds = pedidoCreacionDTO.getDetalles().stream()
@@ -77,21 +132,25 @@ public class PedidoService {
                 .collect(Collectors.toList());
         Map<Long, Producto> productosEncontrados = productoRepository.findAllById(productoIds).stream()
                 .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        marca = registrarFase(MetricasPedido.Fase.BUSQUEDA_PRODUCTOS, marca);
 
         Pedido nuevoPedido = new Pedido();
         nuevoPedido.setFechaCreacion(LocalDateTime.now());
         nuevoPedido.setUsuario(usuario);
-        BigDecimal totalPedido = BigDecimal.ZERO;
         List<DetallePedido> detallesDelPedido = new ArrayList<>();
 
         // 2. Procesar detalles
         for (var detalleDTO : pedidoCreacionDTO.getDetalles()) {
             Producto producto = productosEncontrados.get(detalleDTO.getProductoId());
             if (producto == null) {
+                metricasPedido.registrarProductoNoEncontrado(detalleDTO.getProductoId());
+                vistaDisponibilidad.registrarInexistente(detalleDTO.getProductoId());
                 throw new RecursoNoEncontradoException("Producto", "ID", detalleDTO.getProductoId());
             }
 
             if (producto.getCantidadEnStock() < detalleDTO.getCantidad()) {
+                metricasPedido.registrarStockInsuficiente(producto.getId());
+                vistaDisponibilidad.registrarStockLeido(producto.getId(), stockLeido(producto, detallesDelPedido));
                 throw new StockInsuficienteException("Stock insuficiente para " + producto.getNombre());
             }
 
@@ -99,12 +158,14 @@ public class PedidoService {
 
             DetallePedido detallePedido = new DetallePedido();
             detallePedido.setPedido(nuevoPedido);
+            detallePedido.setFechaPedido(nuevoPedido.getFechaCreacion());
             detallePedido.setProducto(producto);
             detallePedido.setCantidad(detalleDTO.getCantidad());
             detallePedido.setPrecioUnitario(producto.getPrecio());
             detallesDelPedido.add(detallePedido);
-            totalPedido = totalPedido.add(producto.getPrecio().multiply(BigDecimal.valueOf(detalleDTO.getCantidad())));
         }
+        Dinero totalPedido = totalDelPedido(detallesDelPedido);
+        marca = registrarFase(MetricasPedido.Fase.VALIDACION_STOCK, marca);
 
         // REFINAMIENTO: Guardar todos los productos actualizados en una sola operación de lote.
         productoRepository.saveAll(productosEncontrados.values());
@@ -115,14 +176,129 @@ public class PedidoService {
         // 3. Guardar el pedido y sus detalles (gracias a CascadeType.ALL)
         Pedido pedidoGuardado = pedidoRepository.save(nuevoPedido);
 
+        // 4. Eventos de cambio en el outbox: el pedido y el stock resultante de cada producto, en orden de ID.
+        //    Las filas de los productos ya están bloqueadas (findAllById), lo que ordena sus eventos.
+        List<EventoCambio> eventos = new ArrayList<>(productosEncontrados.size() + 1);
+        eventos.add(EventoCambio.pedido(pedidoGuardado));
+        productosEncontrados.values().stream()
+                .sorted(Comparator.comparing(Producto::getId))
+                .forEach(producto -> eventos.add(EventoCambio.stock(producto.getId(), producto.getCantidadEnStock())));
+        publicadorEventos.publicar(eventos);
+        marca = registrarFase(MetricasPedido.Fase.PERSISTENCIA, marca);
+
         // El mapeo ahora es mucho más simple
+        PedidoRespuestaDTO pedidoCreado = mapToDto(pedidoGuardado);
+        registrarFase(MetricasPedido.Fase.MAPEO, marca);
+
+        metricasPedido.registrarPedidoCreado(detallesDelPedido.size(), totalPedido);
+        return pedidoCreado;
+    }
+
+    /**
+     * Crea el pedido de una reserva de stock confirmada (ver ServicioReservas). El stock ya se descontó al
+     * reservar, así que solo se crean el pedido y sus detalles, con el precio actual de cada producto.
+     * Debe llamarse dentro de la transacción que elimina la reserva.
+     * @param usuario Usuario de la reserva.
+     * @param lineas Líneas de la reserva.
+     * @return El DTO del pedido creado.
+     * @throws RecursoNoEncontradoException Si algún producto ya no existe.
+     * @throws PeticionInvalidaException Si el total del pedido se sale del rango de los importes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public PedidoRespuestaDTO crearPedidoReservado(Usuario usuario, List<LineaReserva> lineas) {
+        Map<Long, Producto> productos = productoRepository.findAllById(
+                        lineas.stream().map(LineaReserva::getProductoId).toList()).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        Pedido nuevoPedido = new Pedido();
+        nuevoPedido.setFechaCreacion(LocalDateTime.now());
+        nuevoPedido.setUsuario(usuario);
+        List<DetallePedido> detallesDelPedido = new ArrayList<>(lineas.size());
+        for (LineaReserva linea : lineas) {
+            Producto producto = productos.get(linea.getProductoId());
+            if (producto == null) {
+                throw new RecursoNoEncontradoException("Producto", "ID", linea.getProductoId());
+            }
+            DetallePedido detallePedido = new DetallePedido();
+            detallePedido.setPedido(nuevoPedido);
+            detallePedido.setFechaPedido(nuevoPedido.getFechaCreacion());
+            detallePedido.setProducto(producto);
+            detallePedido.setCantidad(linea.getCantidad());
+            detallePedido.setPrecioUnitario(producto.getPrecio());
+            detallesDelPedido.add(detallePedido);
+        }
+        Dinero totalPedido = totalDelPedido(detallesDelPedido);
+        nuevoPedido.setTotal(totalPedido);
+        nuevoPedido.setDetalles(detallesDelPedido);
+
+        Pedido pedidoGuardado = pedidoRepository.save(nuevoPedido);
+        publicadorEventos.publicar(EventoCambio.pedido(pedidoGuardado));
+        metricasPedido.registrarPedidoCreado(detallesDelPedido.size(), totalPedido);
         return mapToDto(pedidoGuardado);
     }
 
+    /**
+     * Total del pedido para la API: un total fuera del rango de Dinero (precios y cantidades válidos por separado
+     * pueden desbordarlo) es un pedido que la tienda no puede guardar, no un error interno.
+     * @throws PeticionInvalidaException Si el total se sale del rango de Dinero.
+     */
+    private static Dinero totalDelPedido(List<DetallePedido> detalles) {
+        try {
+            return calcularTotal(detalles);
+        } catch (ArithmeticException ex) {
+            throw new PeticionInvalidaException("El total del pedido supera el importe máximo admitido ("
+                    + Dinero.deCentimos(Dinero.MAXIMO_CENTIMOS) + ").");
+        }
+    }
+
+    /**
+     * Calcula el total de un pedido como la suma de precio unitario por cantidad de cada detalle.
+     * Acumula en céntimos (long) con desbordamiento comprobado: solo crea el Dinero del resultado.
+     * Público para poder medirlo de forma aislada en los benchmarks JMH.
+     * @param detalles Detalles del pedido, con precio unitario y cantidad.
+     * @return El importe total.
+     * @throws ArithmeticException Si el total se sale del rango de Dinero.
+     */
+    public static Dinero calcularTotal(List<DetallePedido> detalles) {
+        long centimos = 0;
+        for (DetallePedido detalle : detalles) {
+            Dinero precio = detalle.getPrecioUnitario();
+            if (!Dinero.MONEDA_TIENDA.equals(precio.moneda())) {
+                throw new IllegalArgumentException("Precio en una moneda distinta de la de la tienda: " + precio);
+            }
+            centimos = Math.addExact(centimos, Math.multiplyExact(precio.centimos(), detalle.getCantidad()));
+        }
+        return Dinero.deCentimos(centimos);
+    }
+
+    /**
+     * Stock del producto tal como se leyó: las líneas anteriores del mismo producto ya lo han descontado en memoria.
+     */
+    private static int stockLeido(Producto producto, List<DetallePedido> detallesAnteriores) {
+        int stock = producto.getCantidadEnStock();
+        for (DetallePedido detalle : detallesAnteriores) {
+            if (detalle.getProducto() == producto) {
+                stock += detalle.getCantidad();
+            }
+        }
+        return stock;
+    }
+
+    /**
+     * Registra la duración de una fase desde la marca anterior y devuelve la nueva marca.
+     */
+    private long registrarFase(MetricasPedido.Fase fase, long marcaAnterior) {
+        long ahora = System.nanoTime();
+        metricasPedido.registrarFase(fase, ahora - marcaAnterior);
+        return ahora;
+    }
+
     /**
      * Consulta el historial de pedidos de un usuario específico de forma paginada.
      * La seguridad a nivel de método asegura que un usuario solo pueda ver sus propios pedidos,
      * a menos que sea un administrador.
+     * Incluye los pedidos archivados a continuación de los recientes (ver paginarConArchivo), por lo que solo se
+     * admite ordenar primero por fecha de creación o por ID.
      * @param usuarioId El ID del usuario.
      * @param pageable Objeto que contiene la información de paginación y ordenamiento.
      * @return Una página de DTOs de pedidos del usuario.
@@ -133,19 +309,97 @@ public class PedidoService {
         if (!usuarioRepository.existsById(usuarioId)) {
             throw new RecursoNoEncontradoException("Usuario", "ID", usuarioId);
         }
-        return pedidoRepository.findByUsuarioId(usuarioId, pageable).map(this::mapToDto);
+        return paginarConArchivo(pageable,
+                pagina -> pedidoRepository.findByUsuarioId(usuarioId, pagina),
+                () -> pedidoArchivadoRepository.countByUsuarioId(usuarioId),
+                pagina -> pedidoArchivadoRepository.findByUsuarioId(usuarioId, pagina));
     }
 
     @Transactional(readOnly = true)
     public Page<PedidoRespuestaDTO> consultarTodosLosPedidos(Pageable pageable) {
-        return pedidoRepository.findAll(pageable).map(this::mapToDto);
+        return paginarConArchivo(pageable, pedidoRepository::findAll, pedidoArchivadoRepository::count,
+                pedidoArchivadoRepository::findAllBy);
     }
 
+    /**
+     * Busca el pedido entre los recientes y, si no está, en el archivo.
+     */
     @Transactional(readOnly = true)
     public PedidoRespuestaDTO obtenerPedidoPorId(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
+        return pedidoRepository.findById(id)
+                .map(this::mapToDto)
+                .or(() -> pedidoArchivadoRepository.findById(id).map(pedidoMapper::toDto))
                 .orElseThrow(() -> new RecursoNoEncontradoException("Pedido", "ID", id));
-        return mapToDto(pedido);
+    }
+
+    /**
+     * Une en una página los pedidos recientes (tablas particionadas) y los archivados.
+     * Todo pedido archivado es anterior a cualquier pedido reciente, así que basta con concatenarlos:
+     * los recientes primero, salvo si la página se ordena ascendentemente por fecha o ID.
+     * El archivo solo se lee cuando la página no se completa con pedidos recientes (más su count para el total).
+     * Por eso el primer criterio de orden debe ser la fecha o el ID: con otros (p. ej. total) los dos grupos se
+     * intercalan y concatenarlos daría un orden incorrecto, así que se rechazan.
+     * @throws PeticionInvalidaException si el primer criterio de orden no es la fecha ni el ID.
+     */
+    private Page<PedidoRespuestaDTO> paginarConArchivo(Pageable pageable,
+                                                      Function<Pageable, Page<Pedido>> recientes,
+                                                      LongSupplier totalArchivados,
+                                                      Function<Pageable, List<PedidoArchivado>> archivados) {
+        validarOrden(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            List<PedidoRespuestaDTO> todos = new ArrayList<>(recientes.apply(pageable).map(this::mapToDto).getContent());
+            List<PedidoRespuestaDTO> delArchivo = archivados.apply(pageable).stream().map(pedidoMapper::toDto).toList();
+            todos.addAll(archivadosPrimero(pageable.getSort()) ? 0 : todos.size(), delArchivo);
+            return new PageImpl<>(todos);
+        }
+        Sort ordenArchivo = pageable.getSort().isSorted()
+                ? pageable.getSort() : Sort.by(Sort.Direction.DESC, "fechaCreacion");
+        List<PedidoRespuestaDTO> contenido = new ArrayList<>(pageable.getPageSize());
+
+        if (archivadosPrimero(pageable.getSort())) {
+            long enArchivo = totalArchivados.getAsLong();
+            if (pageable.getOffset() < enArchivo) {
+                archivados.apply(new Desplazamiento(pageable.getOffset(), pageable.getPageSize(), ordenArchivo))
+                        .forEach(pedido -> contenido.add(pedidoMapper.toDto(pedido)));
+            }
+            int faltan = pageable.getPageSize() - contenido.size();
+            // Aunque la página esté completa se consulta una fila reciente: el total necesita su count
+            Page<Pedido> pagina = recientes.apply(new Desplazamiento(Math.max(0, pageable.getOffset() - enArchivo),
+                    Math.max(faltan, 1), pageable.getSort()));
+            if (faltan > 0) {
+                pagina.forEach(pedido -> contenido.add(mapToDto(pedido)));
+            }
+            return new PageImpl<>(contenido, pageable, enArchivo + pagina.getTotalElements());
+        }
+
+        Page<Pedido> pagina = recientes.apply(pageable);
+        pagina.forEach(pedido -> contenido.add(mapToDto(pedido)));
+        long enArchivo = totalArchivados.getAsLong();
+        int faltan = pageable.getPageSize() - contenido.size();
+        if (faltan > 0 && enArchivo > 0) {
+            long desde = Math.max(0, pageable.getOffset() - pagina.getTotalElements());
+            archivados.apply(new Desplazamiento(desde, faltan, ordenArchivo))
+                    .forEach(pedido -> contenido.add(pedidoMapper.toDto(pedido)));
+        }
+        return new PageImpl<>(contenido, pageable, pagina.getTotalElements() + enArchivo);
+    }
+
+    private static void validarOrden(Sort orden) {
+        orden.stream().findFirst()
+                .filter(primero -> !esOrdenCronologico(primero))
+                .ifPresent(primero -> {
+                    throw new PeticionInvalidaException("El historial de pedidos solo se puede ordenar primero por "
+                            + "'fechaCreacion' o 'id', no por '" + primero.getProperty() + "'.");
+                });
+    }
+
+    private static boolean esOrdenCronologico(Sort.Order orden) {
+        return orden.getProperty().equals("fechaCreacion") || orden.getProperty().equals("id");
+    }
+
+    private static boolean archivadosPrimero(Sort orden) {
+        Sort.Order primero = orden.stream().findFirst().orElse(null);
+        return primero != null && primero.isAscending() && esOrdenCronologico(primero);
     }
 
     /**
@@ -156,4 +410,56 @@ public class PedidoService {
         dto.setDetalles(pedidoMapper.toDetallePedidoDtoList(pedido.getDetalles()));
         return dto;
     }
+
+    /**
+     * Paginación por desplazamiento arbitrario (no múltiplo del tamaño de página), para continuar en el archivo
+     * justo donde terminan los pedidos recientes. Spring Data usa getOffset() y getPageSize() en la consulta.
+     */
+    private record Desplazamiento(long offset, int tamano, Sort orden) implements Pageable {
+
+        @Override
+        public int getPageNumber() {
+            return (int) (offset / tamano);
+        }
+
+        @Override
+        public int getPageSize() {
+            return tamano;
+        }
+
+        @Override
+        public long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public Sort getSort() {
+            return orden;
+        }
+
+        @Override
+        public Pageable next() {
+            return new Desplazamiento(offset + tamano, tamano, orden);
+        }
+
+        @Override
+        public Pageable previousOrFirst() {
+            return hasPrevious() ? new Desplazamiento(Math.max(0, offset - tamano), tamano, orden) : first();
+        }
+
+        @Override
+        public Pageable first() {
+            return new Desplazamiento(0, tamano, orden);
+        }
+
+        @Override
+        public Pageable withPage(int pageNumber) {
+            return new Desplazamiento((long) pageNumber * tamano, tamano, orden);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return offset > 0;
+        }
+    }
 }
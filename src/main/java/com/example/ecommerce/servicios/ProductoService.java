@@ -1,39 +1,82 @@
 package com.example.ecommerce.servicios;
 
+import com.example.ecommerce.concurrencia.CoalescedorCargas;
+import com.example.ecommerce.dto.AjusteStockDTO;
+import com.example.ecommerce.dto.AjustesStockDTO;
 import com.example.ecommerce.dto.ProductoActualizacionDTO;
 import com.example.ecommerce.dto.ProductoCreacionDTO;
 import com.example.ecommerce.dto.ProductoRespuestaDTO;
+import com.example.ecommerce.dto.StockRespuestaDTO;
+import com.example.ecommerce.eventos.EventoCambio;
+import com.example.ecommerce.eventos.EventosEscritos;
+import com.example.ecommerce.eventos.PublicadorEventos;
+import com.example.ecommerce.eventos.TipoEvento;
+import com.example.ecommerce.excepciones.PeticionInvalidaException;
 import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
+import com.example.ecommerce.excepciones.StockInsuficienteException;
+import com.example.ecommerce.invalidacion.BusInvalidacion;
 import com.example.ecommerce.mapper.ProductoMapper;
 import com.example.ecommerce.modelo.entidades.Producto;
 import com.example.ecommerce.repositorios.ProductoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
  * Servicio para la gestión de productos, conteniendo la lógica de negocio.
+ * Cada cambio escribe su evento en el outbox (PublicadorEventos) después de bloquear la fila del producto,
+ * para que los eventos de un mismo producto se publiquen en el orden en que se confirmaron.
+ * <p>
+ * Las lecturas de un producto y de una página agrupan las peticiones idénticas concurrentes en una sola consulta
+ * (CoalescedorCargas). Se ejecutan sin transacción propia (la abre el repositorio) para que las peticiones que
+ * esperan la carga de otra no retengan una conexión del pool mientras tanto. Los cambios confirmados se propagan
+ * a las demás instancias (BusInvalidacion, región "producto") para que tampoco allí se compartan lecturas previas.
  */
 @Service
 public class ProductoService {
 
     private final ProductoRepository productoRepository;
     private final ProductoMapper productoMapper;
+    private final PublicadorEventos publicadorEventos;
+    private final CoalescedorCargas<Long, ProductoRespuestaDTO> cargasProducto;
+    private final CoalescedorCargas<Pageable, Page<ProductoRespuestaDTO>> cargasPagina;
+    private final BusInvalidacion busInvalidacion;
 
     /**
      * Constructor para la inyección de dependencias.
      * @param productoRepository Repositorio de productos.
      * @param productoMapper Mapeador de productos.
+     * @param publicadorEventos Outbox de eventos de cambio.
+     * @param meterRegistry Registro de las métricas de coalescencia de lecturas.
+     * @param busInvalidacion Bus de invalidación entre instancias.
      */
     @Autowired
-    public ProductoService(ProductoRepository productoRepository, ProductoMapper productoMapper) {
+    public ProductoService(ProductoRepository productoRepository, ProductoMapper productoMapper,
+                           PublicadorEventos publicadorEventos, MeterRegistry meterRegistry,
+                           BusInvalidacion busInvalidacion) {
         this.productoRepository = productoRepository;
         this.productoMapper = productoMapper;
+        this.publicadorEventos = publicadorEventos;
+        this.cargasProducto = new CoalescedorCargas<>("producto", meterRegistry);
+        this.cargasPagina = new CoalescedorCargas<>("pagina-productos", meterRegistry);
+        this.busInvalidacion = busInvalidacion;
+        busInvalidacion.registrar("producto", clave -> olvidarLecturas(Long.valueOf(clave)), () -> {
+            cargasProducto.olvidarTodas();
+            cargasPagina.olvidarTodas();
+        });
     }
 
     /**
@@ -45,6 +88,7 @@ public class ProductoService {
     public ProductoRespuestaDTO crearProducto(ProductoCreacionDTO dto) {
         Producto producto = productoMapper.toEntity(dto);
         Producto productoGuardado = productoRepository.save(producto);
+        publicadorEventos.publicar(EventoCambio.producto(TipoEvento.PRODUCTO_CREADO, productoGuardado));
         return productoMapper.toDto(productoGuardado);
     }
 
@@ -54,11 +98,12 @@ public class ProductoService {
      * @return El DTO del producto encontrado.
      * @throws RecursoNoEncontradoException Si el producto no es encontrado.
      */
-    @Transactional(readOnly = true) // Solo lectura, no requiere bloqueo
     public ProductoRespuestaDTO obtenerProductoPorId(Long id) {
-        Producto producto = productoRepository.findById(id)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Producto", "ID", id));
-        return productoMapper.toDto(producto);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Dentro de una transacción se lee con su snapshot y sus cambios sin confirmar: no se comparte
+            return cargarProducto(id);
+        }
+        return cargasProducto.obtener(id, () -> cargarProducto(id));
     }
 
     /**
@@ -66,11 +111,30 @@ public class ProductoService {
      * @param pageable Objeto que contiene la información de paginación y ordenamiento.
      * @return Una página de DTOs de productos.
      */
-    @Transactional(readOnly = true)
     public Page<ProductoRespuestaDTO> obtenerTodosLosProductos(Pageable pageable) {
-        // El repositorio ya devuelve una Page, solo necesitamos mapear su contenido.
-        return productoRepository.findAll(pageable)
-                .map(productoMapper::toDto);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return cargarPagina(pageable);
+        }
+        return cargasPagina.obtener(pageable, () -> cargarPagina(pageable));
+    }
+
+    /**
+     * Tras confirmar un cambio de productos, las lecturas en curso pueden haberse hecho antes: las peticiones
+     * que lleguen a partir de ahora cargan de nuevo en lugar de unirse a ellas.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void alConfirmar(EventosEscritos escritos) {
+        for (EventoCambio evento : escritos.eventos()) {
+            if (evento.tipo().getAgregado().equals("producto")) {
+                olvidarLecturas(evento.agregadoId());
+                busInvalidacion.propagar("producto", String.valueOf(evento.agregadoId()));
+            }
+        }
+    }
+
+    private void olvidarLecturas(long productoId) {
+        cargasProducto.olvidar(productoId);
+        cargasPagina.olvidarTodas();
     }
 
     /**
@@ -88,10 +152,101 @@ public class ProductoService {
         // Aplica solo los campos no nulos del DTO a la entidad existente
         productoMapper.updateEntityFromDto(dto, productoExistente);
 
-        Producto productoActualizado = productoRepository.save(productoExistente);
+        // El UPDATE se ejecuta ya (y bloquea la fila) para que el evento quede ordenado tras los anteriores
+        Producto productoActualizado = productoRepository.saveAndFlush(productoExistente);
+        publicadorEventos.publicar(EventoCambio.producto(TipoEvento.PRODUCTO_ACTUALIZADO, productoActualizado));
         return productoMapper.toDto(productoActualizado);
     }
 
+    /**
+     * Aplica un lote de ajustes relativos de stock en una única transacción.
+     * Cada ajuste se ejecuta como {@code stock = stock + delta} en la base de datos, por lo que
+     * nunca sobrescribe las reducciones hechas por pedidos concurrentes.
+     * Si algún ajuste no puede aplicarse, se revierte el lote completo.
+     * @param dto Lote de ajustes (ID de producto y delta).
+     * @return Los niveles de stock resultantes de los productos ajustados, ordenados por ID.
+     * @throws RecursoNoEncontradoException Si algún producto no existe.
+     * @throws StockInsuficienteException Si algún ajuste dejaría el stock en negativo.
+     * @throws PeticionInvalidaException Si algún delta consolidado o stock resultante se sale del rango entero.
+     */
+    @Transactional
+    public List<StockRespuestaDTO> ajustarStock(AjustesStockDTO dto) {
+        // Consolidar los deltas por producto. El orden ascendente de IDs fija el orden en que
+        // se bloquean las filas y evita interbloqueos entre lotes concurrentes.
+        Map<Long, Integer> deltasPorProducto = new TreeMap<>();
+        for (AjusteStockDTO ajuste : dto.getAjustes()) {
+            try {
+                deltasPorProducto.merge(ajuste.getProductoId(), ajuste.getDelta(), Math::addExact);
+            } catch (ArithmeticException ex) {
+                throw new PeticionInvalidaException("La suma de los ajustes del producto con ID "
+                        + ajuste.getProductoId() + " se sale del rango admitido");
+            }
+        }
+
+        int[] filasAfectadas;
+        try {
+            filasAfectadas = productoRepository.ajustarStockEnLote(deltasPorProducto);
+        } catch (DataIntegrityViolationException ex) {
+            // La única restricción que puede violar el UPDATE es el rango de la columna entera (SQLSTATE 22003)
+            throw new PeticionInvalidaException("El stock resultante de algún producto del lote se sale del rango "
+                    + "admitido");
+        }
+
+        List<Long> productoIds = new ArrayList<>(deltasPorProducto.keySet());
+        List<Long> rechazados = new ArrayList<>();
+        for (int i = 0; i < filasAfectadas.length; i++) {
+            if (filasAfectadas[i] == 0) {
+                rechazados.add(productoIds.get(i));
+            }
+        }
+
+        if (!rechazados.isEmpty()) {
+            // Diferenciar productos inexistentes de ajustes que dejarían el stock en negativo.
+            Map<Long, Integer> stockActual = productoRepository.findNivelesDeStock(rechazados).stream()
+                    .collect(Collectors.toMap(StockRespuestaDTO::getProductoId, StockRespuestaDTO::getCantidadEnStock));
+            for (Long productoId : rechazados) {
+                if (!stockActual.containsKey(productoId)) {
+                    throw new RecursoNoEncontradoException("Producto", "ID", productoId);
+                }
+            }
+            throw new StockInsuficienteException("Stock insuficiente para aplicar los ajustes de los productos con ID "
+                    + rechazados + " (stock actual: " + stockActual + ")");
+        }
+
+        List<StockRespuestaDTO> niveles = productoRepository.findNivelesDeStock(productoIds);
+        publicadorEventos.publicar(niveles.stream()
+                .map(nivel -> EventoCambio.stock(nivel.getProductoId(), nivel.getCantidadEnStock()))
+                .toList());
+        return niveles;
+    }
+
+    /**
+     * Devuelve a los productos stock que estaba retenido (reservas liberadas o vencidas).
+     * A diferencia de ajustarStock, un producto eliminado mientras tanto se omite en lugar de revertir el lote.
+     * @param cantidadesPorProducto Cantidad a devolver por ID de producto.
+     */
+    @Transactional
+    public void devolverStock(Map<Long, Integer> cantidadesPorProducto) {
+        // Mismo orden de bloqueo que ajustarStock y los pedidos
+        Map<Long, Integer> deltasPorProducto = new TreeMap<>(cantidadesPorProducto);
+        productoRepository.ajustarStockEnLote(deltasPorProducto);
+        publicadorEventos.publicar(productoRepository.findNivelesDeStock(deltasPorProducto.keySet()).stream()
+                .map(nivel -> EventoCambio.stock(nivel.getProductoId(), nivel.getCantidadEnStock()))
+                .toList());
+    }
+
+    private ProductoRespuestaDTO cargarProducto(Long id) {
+        Producto producto = productoRepository.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Producto", "ID", id));
+        return productoMapper.toDto(producto);
+    }
+
+    private Page<ProductoRespuestaDTO> cargarPagina(Pageable pageable) {
+        // El repositorio ya devuelve una Page, solo necesitamos mapear su contenido.
+        return productoRepository.findAll(pageable)
+                .map(productoMapper::toDto);
+    }
+
     /**
      * Elimina un producto por su ID.
      * @param id ID del producto a eliminar.
@@ -103,5 +258,7 @@ public class ProductoService {
             throw new RecursoNoEncontradoException("Producto", "ID", id);
         }
         productoRepository.deleteById(id);
+        productoRepository.flush();
+        publicadorEventos.publicar(EventoCambio.productoEliminado(id));
     }
 }
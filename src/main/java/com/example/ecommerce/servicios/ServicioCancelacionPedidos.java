@@ -0,0 +1,204 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.CancelacionMasivaRespuestaDTO;
+import com.example.ecommerce.dto.PedidoRespuestaDTO;
+import com.example.ecommerce.eventos.EventoCambio;
+import com.example.ecommerce.eventos.PublicadorEventos;
+import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
+import com.example.ecommerce.repositorios.PedidoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio para cancelar pedidos y devolver su stock.
+ * <p>
+ * Cada lote se cancela en una transacción y por conjuntos: un UPDATE marca los pedidos que siguen en estado
+ * CREADO, una consulta agregada suma sus líneas por producto y el stock se devuelve con un incremento relativo
+ * por producto (ProductoService.devolverStock), en orden de ID como los pedidos y los ajustes de stock. Los
+ * pedidos en curso no se pisan con la devolución y dos cancelaciones del mismo pedido no devuelven el stock dos
+ * veces (ver PedidoRepositoryCustom.cancelarPedidos).
+ * <p>
+ * Las cancelaciones masivas se reparten en lotes que se procesan en paralelo en segundo plano; su progreso se
+ * consulta por ID mientras la instancia conserve la cancelación en memoria.
+ */
+@Service
+public class ServicioCancelacionPedidos {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServicioCancelacionPedidos.class);
+
+    // Cancelaciones masivas cuyo progreso se puede consultar; las más antiguas se descartan
+    private static final int MAX_CANCELACIONES_CONSERVADAS = 100;
+
+    private final PedidoRepository pedidoRepository;
+    private final PedidoService pedidoService;
+    private final ProductoService productoService;
+    private final PublicadorEventos publicadorEventos;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService ejecutor;
+    private final int tamanoLote;
+    private final Counter cancelados;
+    private final Map<UUID, Progreso> cancelacionesMasivas = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, Progreso> masAntigua) {
+                    return size() > MAX_CANCELACIONES_CONSERVADAS;
+                }
+            });
+
+    public ServicioCancelacionPedidos(PedidoRepository pedidoRepository, PedidoService pedidoService,
+                                      ProductoService productoService, PublicadorEventos publicadorEventos,
+                                      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                      @Value("${app.pedidos.cancelacion.tamano-lote:500}") int tamanoLote,
+                                      @Value("${app.pedidos.cancelacion.hilos:4}") int hilos) {
+        this.pedidoRepository = pedidoRepository;
+        this.pedidoService = pedidoService;
+        this.productoService = productoService;
+        this.publicadorEventos = publicadorEventos;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        AtomicInteger contador = new AtomicInteger();
+        this.ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "cancelacion-pedidos-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.cancelados = Counter.builder("pedidos.cancelados")
+                .description("Pedidos cancelados con su stock devuelto")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cancela un pedido y devuelve su stock. Cancelar un pedido ya cancelado no tiene efecto.
+     * @param id ID del pedido.
+     * @return El DTO del pedido cancelado.
+     * @throws RecursoNoEncontradoException Si el pedido no existe o está archivado.
+     */
+    public PedidoRespuestaDTO cancelarPedido(Long id) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            if (cancelarLote(List.of(id)) == 0 && !pedidoRepository.existsById(id)) {
+                throw new RecursoNoEncontradoException("Pedido", "ID", id);
+            }
+        });
+        return pedidoService.obtenerPedidoPorId(id);
+    }
+
+    /**
+     * Inicia la cancelación de muchos pedidos en segundo plano. Los IDs se ordenan y se reparten en lotes de
+     * 'tamanoLote' (uno por transacción), así que un lote que falla no revierte los demás: sus pedidos se
+     * informan en 'pedidosFallidos'.
+     * @param pedidoIds IDs de los pedidos; los repetidos se cancelan una vez.
+     * @return El progreso inicial de la cancelación, con el ID para consultarlo.
+     */
+    public CancelacionMasivaRespuestaDTO iniciarCancelacionMasiva(List<Long> pedidoIds) {
+        List<Long> ids = pedidoIds.stream().distinct().sorted().toList();
+        List<List<Long>> lotes = new ArrayList<>();
+        for (int inicio = 0; inicio < ids.size(); inicio += tamanoLote) {
+            lotes.add(ids.subList(inicio, Math.min(inicio + tamanoLote, ids.size())));
+        }
+        Progreso progreso = new Progreso(ids.size(), lotes.size());
+        cancelacionesMasivas.put(progreso.id, progreso);
+        LOG.info("Cancelación masiva {}: {} pedidos en {} lotes", progreso.id, ids.size(), lotes.size());
+        if (lotes.isEmpty()) {
+            progreso.fin = LocalDateTime.now();
+        }
+        lotes.forEach(lote -> ejecutor.execute(() -> procesarLote(progreso, lote)));
+        return progreso.aDto();
+    }
+
+    /**
+     * Progreso de una cancelación masiva.
+     * @throws RecursoNoEncontradoException Si la cancelación no existe o ya no se conserva.
+     */
+    public CancelacionMasivaRespuestaDTO obtenerCancelacionMasiva(UUID id) {
+        Progreso progreso = cancelacionesMasivas.get(id);
+        if (progreso == null) {
+            throw new RecursoNoEncontradoException("Cancelación masiva", "ID", id);
+        }
+        return progreso.aDto();
+    }
+
+    private void procesarLote(Progreso progreso, List<Long> lote) {
+        try {
+            Integer canceladosLote = transactionTemplate.execute(estado -> cancelarLote(lote));
+            progreso.cancelados.addAndGet(canceladosLote);
+            progreso.omitidos.addAndGet(lote.size() - canceladosLote);
+        } catch (RuntimeException ex) {
+            LOG.warn("No se pudo cancelar un lote de {} pedidos de la cancelación masiva {}", lote.size(), progreso.id, ex);
+            progreso.fallidos.addAll(lote);
+        } finally {
+            progreso.procesados.addAndGet(lote.size());
+            if (progreso.lotesPendientes.decrementAndGet() == 0) {
+                progreso.fin = LocalDateTime.now();
+                LOG.info("Cancelación masiva {} completada: {} cancelados, {} omitidos, {} fallidos", progreso.id,
+                        progreso.cancelados.get(), progreso.omitidos.get(), progreso.fallidos.size());
+            }
+        }
+    }
+
+    /**
+     * Cancela los pedidos del lote que siguen en estado CREADO y devuelve su stock, en la transacción en curso.
+     * @return El número de pedidos cancelados.
+     */
+    private int cancelarLote(List<Long> pedidoIds) {
+        List<Long> canceladosLote = pedidoRepository.cancelarPedidos(pedidoIds);
+        if (canceladosLote.isEmpty()) {
+            return 0;
+        }
+        publicadorEventos.publicar(canceladosLote.stream().map(EventoCambio::pedidoCancelado).toList());
+        Map<Long, Integer> cantidades = pedidoRepository.sumarCantidadesPorProducto(canceladosLote);
+        if (!cantidades.isEmpty()) {
+            productoService.devolverStock(cantidades);
+        }
+        cancelados.increment(canceladosLote.size());
+        return canceladosLote.size();
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    private static final class Progreso {
+        private final UUID id = UUID.randomUUID();
+        private final LocalDateTime inicio = LocalDateTime.now();
+        private final int totalPedidos;
+        private final AtomicInteger lotesPendientes;
+        private final AtomicInteger procesados = new AtomicInteger();
+        private final AtomicInteger cancelados = new AtomicInteger();
+        private final AtomicInteger omitidos = new AtomicInteger();
+        private final List<Long> fallidos = Collections.synchronizedList(new ArrayList<>());
+        private volatile LocalDateTime fin;
+
+        private Progreso(int totalPedidos, int lotes) {
+            this.totalPedidos = totalPedidos;
+            this.lotesPendientes = new AtomicInteger(lotes);
+        }
+
+        private CancelacionMasivaRespuestaDTO aDto() {
+            List<Long> pedidosFallidos;
+            synchronized (fallidos) {
+                pedidosFallidos = List.copyOf(fallidos);
+            }
+            return new CancelacionMasivaRespuestaDTO(id, fin != null, totalPedidos, procesados.get(),
+                    cancelados.get(), omitidos.get(), pedidosFallidos, inicio, fin);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.ecommerce.servicios;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Mantenimiento de las particiones mensuales de pedidos y detalles_pedido (migración V3):
+ * <ul>
+ *   <li>Crea por adelantado las particiones de los próximos 'app.pedidos.particiones.meses-adelantados' meses.
+ *       No hay partición por defecto: un pedido de un mes sin partición no se podría guardar.</li>
+ *   <li>Archiva los meses anteriores a la retención ('app.pedidos.archivo.retencion-meses' meses completos además
+ *       del actual): sus pedidos pasan a pedidos_archivados y sus particiones se eliminan. PedidoService sigue
+ *       devolviéndolos desde el archivo.</li>
+ * </ul>
+ * Las particiones se crean al arrancar y ambas tareas se repiten cada noche ('app.pedidos.particiones.cron').
+ * Cada mes se archiva en su propia transacción. Las funciones SQL toman un bloqueo consultivo, así que varias
+ * instancias pueden ejecutarlas a la vez sin pisarse.
+ */
+@Service
+@ConditionalOnProperty(name = "app.pedidos.particiones.habilitado", havingValue = "true", matchIfMissing = true)
+public class ServicioParticionesPedidos {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServicioParticionesPedidos.class);
+
+    // Particiones de pedidos: pedidos_AAAA_MM
+    private static final String PREFIJO_PARTICION = "pedidos_";
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock reloj;
+    private final int mesesAdelantados;
+    private final int retencionMeses;
+
+    @Autowired
+    public ServicioParticionesPedidos(JdbcTemplate jdbcTemplate,
+                                      @Value("${app.pedidos.particiones.meses-adelantados:3}") int mesesAdelantados,
+                                      @Value("${app.pedidos.archivo.retencion-meses:3}") int retencionMeses) {
+        this(jdbcTemplate, Clock.systemDefaultZone(), mesesAdelantados, retencionMeses);
+    }
+
+    ServicioParticionesPedidos(JdbcTemplate jdbcTemplate, Clock reloj, int mesesAdelantados, int retencionMeses) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reloj = reloj;
+        this.mesesAdelantados = mesesAdelantados;
+        this.retencionMeses = retencionMeses;
+    }
+
+    /**
+     * Al arrancar solo se crean particiones: una instancia que lleva tiempo parada necesita las del mes en curso.
+     * Un fallo se registra y no impide arrancar (la migración y la tarea nocturna dejan meses por delante).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void crearParticionesAlArrancar() {
+        try {
+            crearParticiones();
+        } catch (DataAccessException ex) {
+            LOG.warn("No se pudieron crear las particiones de pedidos al arrancar", ex);
+        }
+    }
+
+    @Scheduled(cron = "${app.pedidos.particiones.cron:0 30 3 * * *}")
+    public void mantener() {
+        crearParticiones();
+        archivarMesesAntiguos();
+    }
+
+    /**
+     * Crea las particiones que falten desde el mes actual hasta 'meses-adelantados' meses después.
+     * @return el número de meses creados.
+     */
+    public int crearParticiones() {
+        LocalDate hoy = LocalDate.now(reloj);
+        Integer creadas = jdbcTemplate.queryForObject("SELECT crear_particiones_pedidos(?, ?)", Integer.class,
+                hoy, hoy.plusMonths(mesesAdelantados));
+        if (creadas != null && creadas > 0) {
+            LOG.info("Creadas las particiones de pedidos de {} meses", creadas);
+        }
+        return creadas == null ? 0 : creadas;
+    }
+
+    /**
+     * Archiva los meses particionados anteriores a la retención, del más antiguo al más reciente.
+     * @return el número de pedidos archivados.
+     */
+    public long archivarMesesAntiguos() {
+        LocalDate limite = YearMonth.now(reloj).minusMonths(retencionMeses).atDay(1);
+        long total = 0;
+        for (LocalDate mes : mesesParticionados()) {
+            if (!mes.isBefore(limite)) {
+                break;
+            }
+            long inicio = System.nanoTime();
+            Long archivados = jdbcTemplate.queryForObject("SELECT archivar_particion_pedidos(?)", Long.class, mes);
+            LOG.info("Archivados {} pedidos de {} en {} ms", archivados, YearMonth.from(mes),
+                    (System.nanoTime() - inicio) / 1_000_000);
+            total += archivados == null ? 0 : archivados;
+        }
+        return total;
+    }
+
+    /**
+     * Primer día de cada mes con partición, en orden ascendente.
+     */
+    List<LocalDate> mesesParticionados() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'pedidos'::regclass ORDER BY c.relname", String.class)
+                .stream()
+                .map(nombre -> YearMonth.parse(nombre.substring(PREFIJO_PARTICION.length()), FORMATO_MES).atDay(1))
+                .toList();
+    }
+}
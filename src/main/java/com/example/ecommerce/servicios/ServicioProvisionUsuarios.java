@@ -0,0 +1,90 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.ProvisionUsuariosDTO;
+import com.example.ecommerce.dto.ProvisionUsuariosRespuestaDTO;
+import com.example.ecommerce.dto.UsuarioDuplicadoDTO;
+import com.example.ecommerce.dto.UsuarioRegistroDTO;
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.repositorios.UsuarioRepository;
+import com.example.ecommerce.seguridad.CodificadorContrasenaAislado;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Servicio para el alta masiva de usuarios.
+ * Procesa la lista por lotes: codifica las contraseñas en paralelo en el pool de hash y las
+ * inserta con un lote JDBC por transacción. No consulta previamente si cada nombre existe:
+ * la restricción única de 'nombre_usuario' decide y las filas duplicadas se informan una a una.
+ * Las altas se propagan a las demás instancias (BusInvalidacion, región "usuario-nombre"), como las del registro.
+ */
+@Service
+public class ServicioProvisionUsuarios {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServicioProvisionUsuarios.class);
+
+    private final UsuarioRepository usuarioRepository;
+    private final CodificadorContrasenaAislado codificadorContrasena;
+    private final TransactionTemplate transactionTemplate;
+    private final BusInvalidacion busInvalidacion;
+    private final int tamanoLote;
+
+    public ServicioProvisionUsuarios(UsuarioRepository usuarioRepository,
+                                     CodificadorContrasenaAislado codificadorContrasena,
+                                     TransactionTemplate transactionTemplate, BusInvalidacion busInvalidacion,
+                                     @Value("${app.usuarios.provision.tamano-lote:500}") int tamanoLote) {
+        this.usuarioRepository = usuarioRepository;
+        this.codificadorContrasena = codificadorContrasena;
+        this.transactionTemplate = transactionTemplate;
+        this.busInvalidacion = busInvalidacion;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Da de alta una lista de usuarios. Cada lote se confirma en su propia transacción,
+     * por lo que un fallo inesperado solo revierte el lote en curso.
+     * @param dto Lista de usuarios a dar de alta.
+     * @return Resumen con los usuarios creados y las filas duplicadas.
+     */
+    public ProvisionUsuariosRespuestaDTO provisionarUsuarios(ProvisionUsuariosDTO dto) {
+        List<UsuarioRegistroDTO> filas = dto.getUsuarios();
+        List<UsuarioDuplicadoDTO> duplicados = new ArrayList<>();
+        int creados = 0;
+
+        for (int inicio = 0; inicio < filas.size(); inicio += tamanoLote) {
+            List<UsuarioRegistroDTO> lote = filas.subList(inicio, Math.min(inicio + tamanoLote, filas.size()));
+
+            List<String> hashes = codificadorContrasena.codificarTodas(
+                    lote.stream().map(UsuarioRegistroDTO::getContrasena).toList());
+
+            List<Usuario> usuarios = new ArrayList<>(lote.size());
+            for (int i = 0; i < lote.size(); i++) {
+                Usuario usuario = new Usuario();
+                usuario.setNombreUsuario(lote.get(i).getNombreUsuario());
+                usuario.setContrasena(hashes.get(i));
+                usuario.setRol(lote.get(i).getRol());
+                usuarios.add(usuario);
+            }
+
+            int[] insertados = transactionTemplate.execute(estado -> usuarioRepository.insertarIgnorandoDuplicados(usuarios));
+
+            for (int i = 0; i < insertados.length; i++) {
+                if (insertados[i] == 0) {
+                    duplicados.add(new UsuarioDuplicadoDTO(inicio + i, usuarios.get(i).getNombreUsuario()));
+                } else {
+                    creados++;
+                    busInvalidacion.propagar("usuario-nombre", usuarios.get(i).getNombreUsuario());
+                }
+            }
+        }
+
+        LOG.info("Alta masiva de usuarios: {} filas, {} creados, {} duplicados", filas.size(), creados, duplicados.size());
+        return new ProvisionUsuariosRespuestaDTO(filas.size(), creados, duplicados);
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.concurrencia.RuedaTemporizadora;
+import com.example.ecommerce.dto.AjusteStockDTO;
+import com.example.ecommerce.dto.AjustesStockDTO;
+import com.example.ecommerce.dto.DetallePedidoCreacionDTO;
+import com.example.ecommerce.dto.PedidoRespuestaDTO;
+import com.example.ecommerce.dto.ReservaCreacionDTO;
+import com.example.ecommerce.dto.ReservaRespuestaDTO;
+import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
+import com.example.ecommerce.excepciones.StockInsuficienteException;
+import com.example.ecommerce.modelo.entidades.LineaReserva;
+import com.example.ecommerce.modelo.entidades.ReservaStock;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.repositorios.ReservaStockRepository;
+import com.example.ecommerce.repositorios.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reservas de stock de carritos: el stock se retiene durante 'app.reservas.ttl' para que el cliente no lo
+ * pierda mientras paga.
+ * <ul>
+ *   <li>Reservar descuenta el stock de los productos (con las mismas comprobaciones que un ajuste de stock) y
+ *       guarda la reserva; los pedidos y ajustes posteriores ya no ven ese stock.</li>
+ *   <li>Confirmar crea el pedido sin volver a descontar el stock y elimina la reserva.</li>
+ *   <li>Liberar, o que venza, devuelve el stock a los productos y elimina la reserva.</li>
+ * </ul>
+ * Los vencimientos los dispara una rueda temporizadora en memoria (sin hilos por reserva ni consultas
+ * periódicas a la tabla). Cada tick entrega sus reservas vencidas a un hilo que las procesa por lotes; las que
+ * ya se confirmaron o liberaron no se encuentran y no cuestan más que esa consulta por ID. Al arrancar se vuelven
+ * a programar todas las reservas de la tabla, de modo que sobreviven a un reinicio; con varias instancias, las
+ * reservas de una instancia detenida vencen cuando arranca cualquier otra o ella misma.
+ */
+@Service
+public class ServicioReservas {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServicioReservas.class);
+
+    private static final int TAMANO_LOTE_VENCIMIENTO = 1000;
+    // Espera antes de reintentar un lote de vencimientos que falló (p. ej. con la base de datos caída)
+    private static final Duration REINTENTO_VENCIMIENTO = Duration.ofSeconds(5);
+
+    private final ReservaStockRepository reservaStockRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final ProductoService productoService;
+    private final PedidoService pedidoService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock reloj;
+    private final Duration ttl;
+    private final RuedaTemporizadora<Long> rueda;
+    private final ExecutorService ejecutorVencimientos;
+    private final Counter creadas;
+    private final Counter confirmadas;
+    private final Counter liberadas;
+    private final Counter vencidas;
+
+    @Autowired
+    public ServicioReservas(ReservaStockRepository reservaStockRepository, UsuarioRepository usuarioRepository,
+                            ProductoService productoService, PedidoService pedidoService, JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            @Value("${app.reservas.ttl:15m}") Duration ttl,
+                            @Value("${app.reservas.rueda.tick:100ms}") Duration tick,
+                            @Value("${app.reservas.rueda.ranuras:1024}") int ranuras) {
+        this(reservaStockRepository, usuarioRepository, productoService, pedidoService, jdbcTemplate,
+                transactionManager, meterRegistry, Clock.systemDefaultZone(), ttl, tick, ranuras);
+    }
+
+    ServicioReservas(ReservaStockRepository reservaStockRepository, UsuarioRepository usuarioRepository,
+                     ProductoService productoService, PedidoService pedidoService, JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, Clock reloj,
+                     Duration ttl, Duration tick, int ranuras) {
+        this.reservaStockRepository = reservaStockRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.productoService = productoService;
+        this.pedidoService = pedidoService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reloj = reloj;
+        this.ttl = ttl;
+        this.ejecutorVencimientos = Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "reservas-vencimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.rueda = new RuedaTemporizadora<>("reservas-rueda", tick, ranuras, this::alVencer);
+        Gauge.builder("reservas.pendientes", rueda, RuedaTemporizadora::pendientes)
+                .description("Reservas con el vencimiento programado en la rueda")
+                .register(meterRegistry);
+        this.creadas = contador(meterRegistry, "creada");
+        this.confirmadas = contador(meterRegistry, "confirmada");
+        this.liberadas = contador(meterRegistry, "liberada");
+        this.vencidas = contador(meterRegistry, "vencida");
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("reservas")
+                .description("Reservas de stock por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Vuelve a programar las reservas guardadas y arranca la rueda. Las ya vencidas vencen en el primer tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        try {
+            LocalDateTime ahora = LocalDateTime.now(reloj);
+            int[] cargadas = {0};
+            jdbcTemplate.query("SELECT id, expira_en FROM reservas_stock", rs -> {
+                rueda.programar(rs.getLong(1), Duration.between(ahora, rs.getObject(2, LocalDateTime.class)));
+                cargadas[0]++;
+            });
+            if (cargadas[0] > 0) {
+                LOG.info("Programado el vencimiento de {} reservas de stock", cargadas[0]);
+            }
+        } catch (DataAccessException ex) {
+            LOG.warn("No se pudieron cargar las reservas de stock; vencerán al reiniciar", ex);
+        }
+        rueda.iniciar();
+    }
+
+    /**
+     * Reserva el stock de un carrito.
+     * @param dto Usuario y líneas (las del mismo producto se suman).
+     * @return La reserva creada, con su vencimiento.
+     * @throws RecursoNoEncontradoException Si el usuario o algún producto no existe.
+     * @throws StockInsuficienteException Si no hay stock suficiente de algún producto.
+     */
+    @Transactional
+    public ReservaRespuestaDTO reservar(ReservaCreacionDTO dto) {
+        Usuario usuario = usuarioRepository.findById(dto.getUsuarioId())
+                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario", "ID", dto.getUsuarioId()));
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        for (DetallePedidoCreacionDTO detalle : dto.getDetalles()) {
+            cantidades.merge(detalle.getProductoId(), detalle.getCantidad(), Math::addExact);
+        }
+
+        // Descontar el stock como un ajuste negativo: bloquea las filas en orden de ID y publica los niveles
+        List<AjusteStockDTO> ajustes = new ArrayList<>(cantidades.size());
+        List<LineaReserva> lineas = new ArrayList<>(cantidades.size());
+        cantidades.forEach((productoId, cantidad) -> {
+            AjusteStockDTO ajuste = new AjusteStockDTO();
+            ajuste.setProductoId(productoId);
+            ajuste.setDelta(-cantidad);
+            ajustes.add(ajuste);
+            lineas.add(new LineaReserva(productoId, cantidad));
+        });
+        AjustesStockDTO lote = new AjustesStockDTO();
+        lote.setAjustes(ajustes);
+        productoService.ajustarStock(lote);
+
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        ReservaStock reserva = reservaStockRepository.save(
+                new ReservaStock(null, usuario, ahora, ahora.plus(ttl), lineas));
+        programarTrasCommit(reserva.getId(), reserva.getExpiraEn());
+        creadas.increment();
+        return toDto(reserva);
+    }
+
+    /**
+     * Confirma una reserva vigente: crea su pedido con el stock retenido y la elimina.
+     * @throws RecursoNoEncontradoException Si la reserva no existe o ya ha vencido.
+     */
+    @Transactional
+    public PedidoRespuestaDTO confirmar(Long id) {
+        ReservaStock reserva = reservaStockRepository.findByIdParaActualizar(id)
+                .filter(r -> r.getExpiraEn().isAfter(LocalDateTime.now(reloj)))
+                .orElseThrow(() -> new RecursoNoEncontradoException("Reserva", "ID", id));
+        PedidoRespuestaDTO pedido = pedidoService.crearPedidoReservado(reserva.getUsuario(), reserva.getLineas());
+        reservaStockRepository.delete(reserva);
+        confirmadas.increment();
+        return pedido;
+    }
+
+    /**
+     * Libera una reserva y devuelve su stock a los productos.
+     * @throws RecursoNoEncontradoException Si la reserva no existe.
+     */
+    @Transactional
+    public void liberar(Long id) {
+        ReservaStock reserva = reservaStockRepository.findByIdParaActualizar(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Reserva", "ID", id));
+        reservaStockRepository.delete(reserva);
+        productoService.devolverStock(cantidades(List.of(reserva)));
+        liberadas.increment();
+    }
+
+    @Transactional(readOnly = true)
+    public ReservaRespuestaDTO obtenerReservaPorId(Long id) {
+        return reservaStockRepository.findById(id)
+                .map(this::toDto)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Reserva", "ID", id));
+    }
+
+    /**
+     * Vence por lotes las reservas indicadas: las que siguen activas y han vencido devuelven su stock y se
+     * eliminan; las que aún no han vencido (el reloj de pared pudo retrasarse respecto a la rueda) se vuelven a
+     * programar. Si un lote falla, se reintenta más tarde.
+     */
+    void vencer(List<Long> ids) {
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE_VENCIMIENTO) {
+            List<Long> lote = ids.subList(desde, Math.min(ids.size(), desde + TAMANO_LOTE_VENCIMIENTO));
+            try {
+                transactionTemplate.executeWithoutResult(estado -> {
+                    LocalDateTime ahora = LocalDateTime.now(reloj);
+                    List<ReservaStock> vencidasLote = new ArrayList<>();
+                    for (ReservaStock reserva : reservaStockRepository.findAllByIdParaActualizar(lote)) {
+                        if (reserva.getExpiraEn().isAfter(ahora)) {
+                            programarTrasCommit(reserva.getId(), reserva.getExpiraEn());
+                        } else {
+                            vencidasLote.add(reserva);
+                        }
+                    }
+                    if (!vencidasLote.isEmpty()) {
+                        reservaStockRepository.deleteAllInBatch(vencidasLote);
+                        productoService.devolverStock(cantidades(vencidasLote));
+                        vencidas.increment(vencidasLote.size());
+                    }
+                });
+            } catch (RuntimeException ex) {
+                LOG.warn("No se pudieron vencer {} reservas de stock; se reintentará", lote.size(), ex);
+                lote.forEach(id -> rueda.programar(id, REINTENTO_VENCIMIENTO));
+            }
+        }
+    }
+
+    /**
+     * Consumidor de la rueda: delega el lote al hilo de vencimientos para no retrasar los ticks.
+     */
+    private void alVencer(List<Long> ids) {
+        try {
+            ejecutorVencimientos.execute(() -> vencer(ids));
+        } catch (RejectedExecutionException ex) {
+            // solo ocurre al detener la aplicación; se volverán a programar al arrancar
+        }
+    }
+
+    /**
+     * Programa el vencimiento cuando la reserva ya es visible para el hilo de vencimientos.
+     */
+    private void programarTrasCommit(Long id, LocalDateTime expiraEn) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            programar(id, expiraEn);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                programar(id, expiraEn);
+            }
+        });
+    }
+
+    private void programar(Long id, LocalDateTime expiraEn) {
+        rueda.programar(id, Duration.between(LocalDateTime.now(reloj), expiraEn));
+    }
+
+    private static Map<Long, Integer> cantidades(List<ReservaStock> reservas) {
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        for (ReservaStock reserva : reservas) {
+            for (LineaReserva linea : reserva.getLineas()) {
+                cantidades.merge(linea.getProductoId(), linea.getCantidad(), Math::addExact);
+            }
+        }
+        return cantidades;
+    }
+
+    private ReservaRespuestaDTO toDto(ReservaStock reserva) {
+        ReservaRespuestaDTO dto = new ReservaRespuestaDTO();
+        dto.setId(reserva.getId());
+        dto.setUsuarioId(reserva.getUsuario().getId());
+        dto.setFechaCreacion(reserva.getFechaCreacion());
+        dto.setExpiraEn(reserva.getExpiraEn());
+        dto.setDetalles(reserva.getLineas().stream().map(linea -> {
+            DetallePedidoCreacionDTO detalle = new DetallePedidoCreacionDTO();
+            detalle.setProductoId(linea.getProductoId());
+            detalle.setCantidad(linea.getCantidad());
+            return detalle;
+        }).toList());
+        return dto;
+    }
+
+    @PreDestroy
+    public void detener() {
+        rueda.close();
+        ejecutorVencimientos.shutdownNow();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.excepciones.TokenInvalidoException;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Servicio para emitir y validar tokens JWT firmados con HMAC-SHA256.
+ * El token de acceso lleva el ID, el nombre y el rol del usuario, de modo que cada petición
+ * se autentica verificando la firma, sin consultar la base de datos ni ejecutar BCrypt.
+ */
+@Service
+public class ServicioTokenJwt {
+
+    private static final String CLAIM_USUARIO_ID = "uid";
+    private static final String CLAIM_ROL = "rol";
+    private static final String CLAIM_TIPO = "typ";
+    private static final String TIPO_ACCESO = "acceso";
+    private static final String TIPO_REFRESCO = "refresco";
+
+    private final SecretKey clave;
+    private final JwtParser parser;
+    private final Duration expiracionAcceso;
+    private final Duration expiracionRefresco;
+
+    /**
+     * Constructor para la inyección de la configuración.
+     * @param secreto Secreto HMAC codificado en Base64 (mínimo 256 bits).
+     * @param expiracionAcceso Vigencia de los tokens de acceso.
+     * @param expiracionRefresco Vigencia de los tokens de refresco.
+     */
+    public ServicioTokenJwt(@Value("${app.seguridad.jwt.secreto}") String secreto,
+                            @Value("${app.seguridad.jwt.expiracion-acceso:15m}") Duration expiracionAcceso,
+                            @Value("${app.seguridad.jwt.expiracion-refresco:7d}") Duration expiracionRefresco) {
+        this.clave = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secreto));
+        // El parser es inmutable y seguro entre hilos: se construye una sola vez.
+        this.parser = Jwts.parser().verifyWith(clave).build();
+        this.expiracionAcceso = expiracionAcceso;
+        this.expiracionRefresco = expiracionRefresco;
+    }
+
+    public String generarTokenAcceso(Usuario usuario) {
+        return generarToken(usuario, TIPO_ACCESO, expiracionAcceso);
+    }
+
+    public String generarTokenRefresco(Usuario usuario) {
+        return generarToken(usuario, TIPO_REFRESCO, expiracionRefresco);
+    }
+
+    public Duration getExpiracionAcceso() {
+        return expiracionAcceso;
+    }
+
+    /**
+     * Valida un token de acceso y reconstruye el usuario autenticado a partir de sus claims.
+     * El Usuario devuelto no está gestionado por JPA y no contiene la contraseña.
+     * @param token El token JWT recibido en la cabecera Authorization.
+     * @return El usuario autenticado (ID, nombre de usuario y rol).
+     * @throws TokenInvalidoException Si la firma no es válida, el token expiró o no es de acceso.
+     */
+    public Usuario validarTokenAcceso(String token) {
+        Claims claims = validar(token, TIPO_ACCESO);
+        Usuario usuario = new Usuario();
+        usuario.setId(claims.get(CLAIM_USUARIO_ID, Long.class));
+        usuario.setNombreUsuario(claims.getSubject());
+        usuario.setRol(Rol.valueOf(claims.get(CLAIM_ROL, String.class)));
+        return usuario;
+    }
+
+    /**
+     * Valida un token de refresco.
+     * @param token El token de refresco.
+     * @return El ID del usuario al que pertenece el token.
+     * @throws TokenInvalidoException Si la firma no es válida, el token expiró o no es de refresco.
+     */
+    public Long validarTokenRefresco(String token) {
+        return validar(token, TIPO_REFRESCO).get(CLAIM_USUARIO_ID, Long.class);
+    }
+
+    private String generarToken(Usuario usuario, String tipo, Duration vigencia) {
+        Instant ahora = Instant.now();
+        return Jwts.builder()
+                .subject(usuario.getNombreUsuario())
+                .claim(CLAIM_USUARIO_ID, usuario.getId())
+                .claim(CLAIM_ROL, usuario.getRol().name())
+                .claim(CLAIM_TIPO, tipo)
+                .issuedAt(Date.from(ahora))
+                .expiration(Date.from(ahora.plus(vigencia)))
+                .signWith(clave)
+                .compact();
+    }
+
+    private Claims validar(String token, String tipoEsperado) {
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException ex) {
+            throw new TokenInvalidoException("Token inválido o expirado");
+        }
+        if (!tipoEsperado.equals(claims.get(CLAIM_TIPO, String.class))) {
+            throw new TokenInvalidoException("El token no es de tipo " + tipoEsperado);
+        }
+        return claims;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.DetallePedidoCreacionDTO;
+import com.example.ecommerce.dto.PedidoCreacionDTO;
+import com.example.ecommerce.eventos.EventoCambio;
+import com.example.ecommerce.eventos.EventosEscritos;
+import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
+import com.example.ecommerce.excepciones.StockInsuficienteException;
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.metricas.MetricasPedido;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Vista aproximada, en memoria, de la disponibilidad de los productos: el último stock conocido de cada uno y los
+ * IDs que no existen. PedidoController la consulta antes de abrir la transacción de PedidoService.crearPedido para
+ * rechazar sin tocar la base de datos los pedidos que seguro fallarían (producto agotado o inexistente), que en
+ * una venta masiva son la mayoría.
+ * <p>
+ * La base de datos sigue siendo la referencia: la vista solo rechaza, y un producto sin entrada se admite. Se
+ * alimenta de:
+ * <ul>
+ *   <li>Los eventos confirmados por esta instancia (EventosEscritos, después del commit), con el ID del outbox
+ *       como versión: un nivel anterior al ya conocido se descarta.</li>
+ *   <li>Los pedidos que rechaza la base de datos (stock leído con la fila bloqueada o producto no encontrado).</li>
+ * </ul>
+ * Los cambios confirmados en otras instancias llegan por BusInvalidacion (región "producto") y borran la entrada,
+ * con lo que el siguiente pedido vuelve a decidirse en la base de datos. Las entradas caducan además a los
+ * 'app.pedidos.admision.vigencia', por si se pierde alguna invalidación.
+ * <p>
+ * Métricas: pedidos.admision.rechazos{motivo} y pedidos.admision.productos (entradas de la vista). Los rechazos
+ * se cuentan también en pedidos.rechazos, como los de la base de datos.
+ */
+@Component
+public class VistaDisponibilidadProductos {
+
+    // Stock de un producto que no existe (eliminado o nunca creado)
+    private static final int INEXISTENTE = -1;
+    // Versión de lo observado en un pedido rechazado cuando no había entrada: cualquier evento posterior lo sustituye
+    private static final long SIN_VERSION = 0;
+
+    private record Disponibilidad(int stock, long version) {
+    }
+
+    private final Cache<Long, Disponibilidad> disponibilidad;
+    private final MetricasPedido metricasPedido;
+    private final Counter rechazosStock;
+    private final Counter rechazosInexistente;
+
+    public VistaDisponibilidadProductos(MetricasPedido metricasPedido, BusInvalidacion busInvalidacion,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.pedidos.admision.max-productos:100000}") long maxProductos,
+                                        @Value("${app.pedidos.admision.vigencia:30s}") Duration vigencia) {
+        this.metricasPedido = metricasPedido;
+        this.disponibilidad = Caffeine.newBuilder()
+                .maximumSize(maxProductos)
+                .expireAfterWrite(vigencia)
+                .build();
+        busInvalidacion.registrar("producto", clave -> disponibilidad.invalidate(Long.valueOf(clave)),
+                disponibilidad::invalidateAll);
+        this.rechazosStock = contadorRechazos(meterRegistry, "stock_insuficiente");
+        this.rechazosInexistente = contadorRechazos(meterRegistry, "producto_no_encontrado");
+        Gauge.builder("pedidos.admision.productos", disponibilidad, Cache::estimatedSize)
+                .description("Productos con disponibilidad conocida en la vista de admisión de pedidos")
+                .register(meterRegistry);
+    }
+
+    private static Counter contadorRechazos(MeterRegistry meterRegistry, String motivo) {
+        return Counter.builder("pedidos.admision.rechazos")
+                .description("Pedidos rechazados antes de abrir la transacción")
+                .tag("motivo", motivo)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rechaza el pedido si alguna línea pide un producto que se sabe inexistente o más unidades que su último
+     * stock conocido. No consulta la base de datos.
+     * @throws RecursoNoEncontradoException Si algún producto no existe.
+     * @throws StockInsuficienteException Si el stock conocido de algún producto no cubre su línea.
+     */
+    public void comprobar(PedidoCreacionDTO pedidoCreacionDTO) {
+        for (DetallePedidoCreacionDTO detalle : pedidoCreacionDTO.getDetalles()) {
+            Disponibilidad conocida = disponibilidad.getIfPresent(detalle.getProductoId());
+            if (conocida == null) {
+                continue;
+            }
+            if (conocida.stock() == INEXISTENTE) {
+                rechazosInexistente.increment();
+                metricasPedido.registrarProductoNoEncontrado(detalle.getProductoId());
+                throw new RecursoNoEncontradoException("Producto", "ID", detalle.getProductoId());
+            }
+            if (detalle.getCantidad() != null && conocida.stock() < detalle.getCantidad()) {
+                rechazosStock.increment();
+                metricasPedido.registrarStockInsuficiente(detalle.getProductoId());
+                throw new StockInsuficienteException("Stock insuficiente para el producto con ID "
+                        + detalle.getProductoId());
+            }
+        }
+    }
+
+    /**
+     * Recoge el stock de los eventos confirmados. Los productos eliminados pasan a inexistentes.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void alConfirmar(EventosEscritos escritos) {
+        for (int i = 0; i < escritos.eventos().size(); i++) {
+            EventoCambio evento = escritos.eventos().get(i);
+            Integer stock = null;
+            if (evento.carga() instanceof EventoCambio.CargaStock carga) {
+                stock = carga.stock();
+            } else if (evento.carga() instanceof EventoCambio.CargaProducto carga) {
+                stock = carga.stock();
+            } else if (evento.carga() instanceof EventoCambio.CargaProductoEliminado) {
+                stock = INEXISTENTE;
+            }
+            if (stock != null) {
+                actualizar(evento.agregadoId(), stock, escritos.ids().get(i));
+            }
+        }
+    }
+
+    /**
+     * Stock leído por un pedido que la base de datos rechaza. Se llama dentro de su transacción, con la fila aún
+     * bloqueada: ningún cambio posterior puede haberse confirmado todavía, así que sustituye al nivel conocido
+     * (conservando su versión para descartar eventos anteriores que lleguen tarde).
+     */
+    void registrarStockLeido(long productoId, int stock) {
+        disponibilidad.asMap().merge(productoId, new Disponibilidad(stock, SIN_VERSION),
+                (actual, leida) -> new Disponibilidad(stock, actual.version()));
+    }
+
+    /**
+     * Producto que un pedido no encontró. No sustituye a una entrada existente: el producto puede haberse creado
+     * después de la lectura.
+     */
+    void registrarInexistente(long productoId) {
+        disponibilidad.asMap().putIfAbsent(productoId, new Disponibilidad(INEXISTENTE, SIN_VERSION));
+    }
+
+    private void actualizar(long productoId, int stock, long version) {
+        disponibilidad.asMap().compute(productoId, (id, actual) ->
+                actual != null && actual.version() >= version ? actual : new Disponibilidad(stock, version));
+    }
+}
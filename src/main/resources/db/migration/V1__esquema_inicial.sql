@@ -0,0 +1,44 @@
+-- Esquema inicial: el mismo que generaba Hibernate a partir de las entidades.
+-- Las bases de datos creadas antes de Flyway con ddl-auto=update se registran en esta versión
+-- (spring.flyway.baseline-on-migrate) y continúan desde V2.
+
+CREATE TABLE usuarios (
+    id                     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre_usuario         VARCHAR(255) NOT NULL,
+    contrasena             VARCHAR(255) NOT NULL,
+    rol                    VARCHAR(255) NOT NULL,
+    cuenta_expirada        BOOLEAN      NOT NULL,
+    cuenta_bloqueada       BOOLEAN      NOT NULL,
+    credenciales_expiradas BOOLEAN      NOT NULL,
+    habilitado             BOOLEAN      NOT NULL,
+    CONSTRAINT uk_usuarios_nombre_usuario UNIQUE (nombre_usuario),
+    CONSTRAINT ck_usuarios_rol CHECK (rol IN ('ADMIN', 'USER'))
+);
+
+CREATE TABLE productos (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre            VARCHAR(255)   NOT NULL,
+    descripcion       VARCHAR(1000),
+    precio            NUMERIC(38, 2) NOT NULL,
+    cantidad_en_stock INTEGER        NOT NULL,
+    CONSTRAINT ck_productos_cantidad_en_stock CHECK (cantidad_en_stock >= 0)
+);
+
+CREATE TABLE pedidos (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    fecha_creacion TIMESTAMP(6)   NOT NULL,
+    total          NUMERIC(38, 2) NOT NULL,
+    usuario_id     BIGINT         NOT NULL,
+    CONSTRAINT fk_pedidos_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE detalles_pedido (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cantidad        INTEGER        NOT NULL,
+    precio_unitario NUMERIC(38, 2) NOT NULL,
+    pedido_id       BIGINT         NOT NULL,
+    producto_id     BIGINT         NOT NULL,
+    CONSTRAINT ck_detalles_pedido_cantidad CHECK (cantidad >= 1),
+    CONSTRAINT fk_detalles_pedido_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos (id),
+    CONSTRAINT fk_detalles_pedido_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+);
@@ -0,0 +1,15 @@
+-- Índices derivados de las consultas de los repositorios. PostgreSQL no indexa las claves foráneas por sí solo.
+
+-- PedidoRepository.findByUsuarioId (y su count): historial de un usuario, normalmente del más reciente al más
+-- antiguo. El orden del índice sirve la paginación por fecha sin ordenar en memoria.
+CREATE INDEX IF NOT EXISTS idx_pedidos_usuario_fecha ON pedidos (usuario_id, fecha_creacion DESC);
+
+-- Listados de pedidos por fecha y DetallePedidoRepository.findProductosMasVendidos (ventana de fechas).
+CREATE INDEX IF NOT EXISTS idx_pedidos_fecha_creacion ON pedidos (fecha_creacion);
+
+-- Carga de los detalles de un pedido (Pedido.detalles). Producto y cantidad se incluyen en el índice para que
+-- la agregación de los más vendidos se resuelva con index-only scans.
+CREATE INDEX IF NOT EXISTS idx_detalles_pedido_pedido ON detalles_pedido (pedido_id) INCLUDE (producto_id, cantidad);
+
+-- Comprobación de la clave foránea al borrar un producto (ProductoService.eliminarProducto).
+CREATE INDEX IF NOT EXISTS idx_detalles_pedido_producto ON detalles_pedido (producto_id);
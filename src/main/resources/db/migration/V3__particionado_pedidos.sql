@@ -0,0 +1,143 @@
+-- Particionado mensual de pedidos y detalles_pedido por la fecha de creación del pedido, y archivo de los
+-- meses antiguos. Casi todas las lecturas son de los últimos meses: las consultas con fecha solo recorren sus
+-- particiones y las que no la llevan (por ID) recorren pocas, porque los meses antiguos salen al archivo.
+--
+-- detalles_pedido guarda la fecha de su pedido (fecha_pedido) para repartirse en las mismas particiones y
+-- referenciar al pedido por su clave completa (id, fecha_creacion). Las tablas particionadas no admiten
+-- columnas de identidad en PostgreSQL 16: los IDs salen de secuencias propias.
+--
+-- La migración copia los datos existentes a las tablas nuevas; en una base de datos grande se ejecuta en una
+-- ventana de mantenimiento.
+
+-- 1. Particiones: un mes de pedidos y sus detalles por tabla (pedidos_AAAA_MM, detalles_pedido_AAAA_MM).
+--    Idempotente; ServicioParticionesPedidos la ejecuta al arrancar y cada noche para tener meses por delante.
+CREATE FUNCTION crear_particiones_pedidos(desde DATE, hasta DATE) RETURNS INTEGER
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    mes     DATE := date_trunc('month', desde);
+    sufijo  TEXT;
+    creadas INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('particiones_pedidos'));
+    WHILE mes <= hasta LOOP
+        sufijo := to_char(mes, 'YYYY_MM');
+        IF to_regclass('pedidos_' || sufijo) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF pedidos FOR VALUES FROM (%L) TO (%L)',
+                           'pedidos_' || sufijo, mes, (mes + INTERVAL '1 month')::DATE);
+            EXECUTE format('CREATE TABLE %I PARTITION OF detalles_pedido FOR VALUES FROM (%L) TO (%L)',
+                           'detalles_pedido_' || sufijo, mes, (mes + INTERVAL '1 month')::DATE);
+            creadas := creadas + 1;
+        END IF;
+        mes := (mes + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN creadas;
+END
+$$;
+
+-- 2. Tablas particionadas. Las antiguas se renombran y pierden sus índices para liberar los nombres.
+ALTER TABLE detalles_pedido RENAME TO detalles_pedido_sin_particionar;
+ALTER TABLE pedidos RENAME TO pedidos_sin_particionar;
+ALTER TABLE pedidos_sin_particionar DROP CONSTRAINT pedidos_pkey CASCADE;
+ALTER TABLE detalles_pedido_sin_particionar DROP CONSTRAINT detalles_pedido_pkey;
+DROP INDEX IF EXISTS idx_pedidos_usuario_fecha, idx_pedidos_fecha_creacion,
+    idx_detalles_pedido_pedido, idx_detalles_pedido_producto;
+
+CREATE TABLE pedidos (
+    id             BIGINT         NOT NULL,
+    fecha_creacion TIMESTAMP(6)   NOT NULL,
+    total          NUMERIC(38, 2) NOT NULL,
+    usuario_id     BIGINT         NOT NULL,
+    CONSTRAINT pk_pedidos PRIMARY KEY (id, fecha_creacion),
+    CONSTRAINT fk_pedidos_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+) PARTITION BY RANGE (fecha_creacion);
+
+CREATE TABLE detalles_pedido (
+    id              BIGINT         NOT NULL,
+    cantidad        INTEGER        NOT NULL,
+    precio_unitario NUMERIC(38, 2) NOT NULL,
+    pedido_id       BIGINT         NOT NULL,
+    fecha_pedido    TIMESTAMP(6)   NOT NULL,
+    producto_id     BIGINT         NOT NULL,
+    CONSTRAINT pk_detalles_pedido PRIMARY KEY (id, fecha_pedido),
+    CONSTRAINT ck_detalles_pedido_cantidad CHECK (cantidad >= 1),
+    CONSTRAINT fk_detalles_pedido_pedido FOREIGN KEY (pedido_id, fecha_pedido) REFERENCES pedidos (id, fecha_creacion),
+    CONSTRAINT fk_detalles_pedido_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+) PARTITION BY RANGE (fecha_pedido);
+
+-- Los mismos índices que V2, ahora en cada partición
+CREATE INDEX idx_pedidos_usuario_fecha ON pedidos (usuario_id, fecha_creacion DESC);
+CREATE INDEX idx_pedidos_fecha_creacion ON pedidos (fecha_creacion);
+CREATE INDEX idx_detalles_pedido_pedido ON detalles_pedido (pedido_id) INCLUDE (producto_id, cantidad);
+CREATE INDEX idx_detalles_pedido_producto ON detalles_pedido (producto_id);
+
+-- 3. Copia de los datos: particiones desde el pedido más antiguo hasta tres meses por delante
+SELECT crear_particiones_pedidos(COALESCE((SELECT MIN(fecha_creacion) FROM pedidos_sin_particionar)::DATE, CURRENT_DATE),
+                                 (CURRENT_DATE + INTERVAL '3 months')::DATE);
+
+INSERT INTO pedidos (id, fecha_creacion, total, usuario_id)
+SELECT id, fecha_creacion, total, usuario_id
+FROM pedidos_sin_particionar;
+
+INSERT INTO detalles_pedido (id, cantidad, precio_unitario, pedido_id, fecha_pedido, producto_id)
+SELECT d.id, d.cantidad, d.precio_unitario, d.pedido_id, p.fecha_creacion, d.producto_id
+FROM detalles_pedido_sin_particionar d
+         JOIN pedidos_sin_particionar p ON p.id = d.pedido_id;
+
+DROP TABLE detalles_pedido_sin_particionar;
+DROP TABLE pedidos_sin_particionar;
+
+-- Secuencias con los nombres de las de identidad (pg_get_serial_sequence sigue funcionando)
+CREATE SEQUENCE pedidos_id_seq OWNED BY pedidos.id;
+CREATE SEQUENCE detalles_pedido_id_seq OWNED BY detalles_pedido.id;
+SELECT setval('pedidos_id_seq', COALESCE((SELECT MAX(id) FROM pedidos), 0) + 1, false);
+SELECT setval('detalles_pedido_id_seq', COALESCE((SELECT MAX(id) FROM detalles_pedido), 0) + 1, false);
+ALTER TABLE pedidos ALTER COLUMN id SET DEFAULT nextval('pedidos_id_seq');
+ALTER TABLE detalles_pedido ALTER COLUMN id SET DEFAULT nextval('detalles_pedido_id_seq');
+
+-- 4. Archivo: una fila por pedido con sus líneas en JSONB (sin cabecera de fila ni índices por línea).
+--    Con toast_tuple_target al mínimo, PostgreSQL intenta comprimir las líneas de cualquier pedido que ocupe
+--    más de 128 bytes, no solo a partir de 2 kB.
+CREATE TABLE pedidos_archivados (
+    id             BIGINT         PRIMARY KEY,
+    fecha_creacion TIMESTAMP(6)   NOT NULL,
+    total          NUMERIC(38, 2) NOT NULL,
+    usuario_id     BIGINT         NOT NULL,
+    detalles       JSONB          NOT NULL,
+    CONSTRAINT fk_pedidos_archivados_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+) WITH (toast_tuple_target = 128);
+
+CREATE INDEX idx_pedidos_archivados_usuario_fecha ON pedidos_archivados (usuario_id, fecha_creacion DESC);
+
+-- Mueve un mes al archivo y elimina sus particiones, en una sola transacción. Las líneas conservan el nombre
+-- del producto en el momento de archivar. Devuelve el número de pedidos archivados.
+CREATE FUNCTION archivar_particion_pedidos(mes DATE) RETURNS BIGINT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    pedidos_mes  TEXT := 'pedidos_' || to_char(mes, 'YYYY_MM');
+    detalles_mes TEXT := 'detalles_pedido_' || to_char(mes, 'YYYY_MM');
+    archivados   BIGINT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('particiones_pedidos'));
+    IF to_regclass(pedidos_mes) IS NULL THEN
+        RETURN 0;
+    END IF;
+    EXECUTE format(
+            'INSERT INTO pedidos_archivados (id, fecha_creacion, total, usuario_id, detalles) '
+            || 'SELECT p.id, p.fecha_creacion, p.total, p.usuario_id, '
+            || '       COALESCE(jsonb_agg(jsonb_build_object(''productoId'', d.producto_id, '
+            || '                ''nombreProducto'', pr.nombre, ''cantidad'', d.cantidad, '
+            || '                ''precioUnitario'', d.precio_unitario) ORDER BY d.id) '
+            || '                FILTER (WHERE d.id IS NOT NULL), ''[]'') '
+            || 'FROM %I p LEFT JOIN %I d ON d.pedido_id = p.id LEFT JOIN productos pr ON pr.id = d.producto_id '
+            || 'GROUP BY p.id, p.fecha_creacion, p.total, p.usuario_id',
+            pedidos_mes, detalles_mes);
+    GET DIAGNOSTICS archivados = ROW_COUNT;
+    EXECUTE format('ALTER TABLE detalles_pedido DETACH PARTITION %I', detalles_mes);
+    EXECUTE format('DROP TABLE %I', detalles_mes);
+    EXECUTE format('ALTER TABLE pedidos DETACH PARTITION %I', pedidos_mes);
+    EXECUTE format('DROP TABLE %I', pedidos_mes);
+    RETURN archivados;
+END
+$$;
@@ -0,0 +1,11 @@
+-- Outbox transaccional: los servicios escriben aquí los cambios de productos, stock y pedidos en la misma
+-- transacción que el propio cambio, y RelayOutbox los publica por lotes en los destinos configurados.
+-- Un evento se borra en la transacción que confirma su publicación: las filas que quedan son las pendientes.
+CREATE TABLE eventos_outbox (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tipo           VARCHAR(40)  NOT NULL,
+    agregado       VARCHAR(20)  NOT NULL,
+    agregado_id    BIGINT       NOT NULL,
+    carga          JSONB        NOT NULL,
+    fecha_creacion TIMESTAMP(6) NOT NULL DEFAULT localtimestamp
+);
@@ -0,0 +1,12 @@
+-- Reservas de stock de carritos: el stock se descuenta de 'productos' al reservar y la reserva lo retiene hasta
+-- que se confirma en un pedido, se libera o vence. Solo hay filas de reservas activas (confirmar, liberar y
+-- vencer las borran), una por reserva con sus líneas en JSONB: al arrancar, ServicioReservas vuelve a programar
+-- el vencimiento de todas con una lectura de (id, expira_en).
+CREATE TABLE reservas_stock (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    usuario_id     BIGINT       NOT NULL,
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    expira_en      TIMESTAMP(6) NOT NULL,
+    lineas         JSONB        NOT NULL,
+    CONSTRAINT fk_reservas_stock_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
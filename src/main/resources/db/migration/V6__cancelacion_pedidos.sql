@@ -0,0 +1,42 @@
+-- Estado de los pedidos: un pedido cancelado conserva sus filas (historial y analítica) y su stock vuelve a los
+-- productos. ADD COLUMN con un valor por defecto constante solo cambia el catálogo, sin reescribir particiones.
+ALTER TABLE pedidos
+    ADD COLUMN estado            VARCHAR(10)  NOT NULL DEFAULT 'CREADO',
+    ADD COLUMN fecha_cancelacion TIMESTAMP(6),
+    ADD CONSTRAINT ck_pedidos_estado CHECK (estado IN ('CREADO', 'CANCELADO'));
+
+ALTER TABLE pedidos_archivados
+    ADD COLUMN estado            VARCHAR(10)  NOT NULL DEFAULT 'CREADO',
+    ADD COLUMN fecha_cancelacion TIMESTAMP(6);
+
+-- El archivo conserva el estado de cada pedido; el resto de la función no cambia (ver V3)
+CREATE OR REPLACE FUNCTION archivar_particion_pedidos(mes DATE) RETURNS BIGINT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    pedidos_mes  TEXT := 'pedidos_' || to_char(mes, 'YYYY_MM');
+    detalles_mes TEXT := 'detalles_pedido_' || to_char(mes, 'YYYY_MM');
+    archivados   BIGINT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('particiones_pedidos'));
+    IF to_regclass(pedidos_mes) IS NULL THEN
+        RETURN 0;
+    END IF;
+    EXECUTE format(
+            'INSERT INTO pedidos_archivados (id, fecha_creacion, total, usuario_id, estado, fecha_cancelacion, detalles) '
+            || 'SELECT p.id, p.fecha_creacion, p.total, p.usuario_id, p.estado, p.fecha_cancelacion, '
+            || '       COALESCE(jsonb_agg(jsonb_build_object(''productoId'', d.producto_id, '
+            || '                ''nombreProducto'', pr.nombre, ''cantidad'', d.cantidad, '
+            || '                ''precioUnitario'', d.precio_unitario) ORDER BY d.id) '
+            || '                FILTER (WHERE d.id IS NOT NULL), ''[]'') '
+            || 'FROM %I p LEFT JOIN %I d ON d.pedido_id = p.id LEFT JOIN productos pr ON pr.id = d.producto_id '
+            || 'GROUP BY p.id, p.fecha_creacion, p.total, p.usuario_id, p.estado, p.fecha_cancelacion',
+            pedidos_mes, detalles_mes);
+    GET DIAGNOSTICS archivados = ROW_COUNT;
+    EXECUTE format('ALTER TABLE detalles_pedido DETACH PARTITION %I', detalles_mes);
+    EXECUTE format('DROP TABLE %I', detalles_mes);
+    EXECUTE format('ALTER TABLE pedidos DETACH PARTITION %I', pedidos_mes);
+    EXECUTE format('DROP TABLE %I', pedidos_mes);
+    RETURN archivados;
+END
+$$;
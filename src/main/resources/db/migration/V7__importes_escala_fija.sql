@@ -0,0 +1,20 @@
+-- Importes con precisión y escala explícitas: NUMERIC(18, 2), el rango del tipo Dinero (céntimos en un long,
+-- hasta ±9.999.999.999.999.999,99). Las columnas eran NUMERIC(38, 2), así que los importes existentes ya tienen
+-- dos decimales y la conversión es exacta; un importe fuera del rango hace fallar la migración en lugar de
+-- truncarse.
+--
+-- Cambiar el tipo reescribe las tablas con un bloqueo exclusivo (en las particionadas, todas sus particiones):
+-- en una base de datos grande se ejecuta en una ventana de mantenimiento.
+--
+-- Las líneas de pedidos_archivados (JSONB) no cambian: sus precios se copiaron de precio_unitario con dos
+-- decimales y se leen como BigDecimal.
+
+ALTER TABLE productos
+    ALTER COLUMN precio TYPE NUMERIC(18, 2),
+    ADD CONSTRAINT ck_productos_precio CHECK (precio > 0);
+
+ALTER TABLE pedidos ALTER COLUMN total TYPE NUMERIC(18, 2);
+
+ALTER TABLE detalles_pedido ALTER COLUMN precio_unitario TYPE NUMERIC(18, 2);
+
+ALTER TABLE pedidos_archivados ALTER COLUMN total TYPE NUMERIC(18, 2);
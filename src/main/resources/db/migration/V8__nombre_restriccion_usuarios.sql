@@ -0,0 +1,22 @@
+-- Las bases de datos creadas por Hibernate antes de las migraciones (registradas en V1) tienen la restricción
+-- única de usuarios.nombre_usuario con un nombre generado (uk + hash). AuthService identifica por su nombre la
+-- violación de "usuario ya existe": se le da el de V1__esquema_inicial.sql.
+DO
+$$
+DECLARE
+    actual TEXT;
+BEGIN
+    SELECT c.conname
+    INTO actual
+    FROM pg_constraint c
+    WHERE c.conrelid = 'usuarios'::regclass
+      AND c.contype = 'u'
+      AND c.conkey = ARRAY [(SELECT a.attnum
+                             FROM pg_attribute a
+                             WHERE a.attrelid = 'usuarios'::regclass
+                               AND a.attname = 'nombre_usuario')];
+    IF actual IS NOT NULL AND actual <> 'uk_usuarios_nombre_usuario' THEN
+        EXECUTE format('ALTER TABLE usuarios RENAME CONSTRAINT %I TO uk_usuarios_nombre_usuario', actual);
+    END IF;
+END
+$$;
@@ -0,0 +1,109 @@
+package com.example.ecommerce.concurrencia;
+
+import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del coalescedor de cargas.
+ */
+class CoalescedorCargasTest {
+
+    private static final int PETICIONES = 8;
+
+    @Test
+    @DisplayName("Debería ejecutar una sola carga para las peticiones concurrentes de la misma clave")
+    void deberiaCompartirLaCargaEnCurso() throws Exception {
+        // Arrange: la carga no termina hasta que todas las peticiones esperan
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        CoalescedorCargas<Long, String> coalescedor = new CoalescedorCargas<>("prueba", registro);
+        CountDownLatch enCarga = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(PETICIONES);
+        try {
+            // Act
+            Future<String> primera = ejecutor.submit(() -> coalescedor.obtener(1L, () -> {
+                ejecuciones.incrementAndGet();
+                enCarga.countDown();
+                esperar(liberar);
+                return "producto-1";
+            }));
+            assertTrue(enCarga.await(5, TimeUnit.SECONDS));
+            List<Future<String>> resto = new ArrayList<>();
+            for (int i = 1; i < PETICIONES; i++) {
+                resto.add(ejecutor.submit(() -> coalescedor.obtener(1L, () -> {
+                    ejecuciones.incrementAndGet();
+                    return "otra carga";
+                })));
+            }
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registro.get("coalescencia.compartidas").counter().count() < PETICIONES - 1
+                    && System.nanoTime() < limite) {
+                Thread.sleep(1);
+            }
+            liberar.countDown();
+
+            // Assert
+            assertEquals("producto-1", primera.get(5, TimeUnit.SECONDS));
+            for (Future<String> futuro : resto) {
+                assertEquals("producto-1", futuro.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, ejecuciones.get());
+            assertEquals(1, registro.get("coalescencia.cargas").counter().count());
+            assertEquals(0.875, registro.get("coalescencia.ratio").gauge().value(), 1e-9);
+            // Terminada la carga, la siguiente petición vuelve a cargar
+            assertEquals("otra carga", coalescedor.obtener(1L, () -> "otra carga"));
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Debería propagar la excepción de la carga a todas las peticiones agrupadas")
+    void deberiaPropagarLaExcepcionDeLaCarga() throws Exception {
+        // Arrange: la carga falla en cuanto otra petición se ha unido a ella
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        CoalescedorCargas<Long, String> coalescedor = new CoalescedorCargas<>("prueba", registro);
+        CountDownLatch enCarga = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> primera = ejecutor.submit(() -> coalescedor.obtener(7L, () -> {
+                enCarga.countDown();
+                long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (registro.get("coalescencia.compartidas").counter().count() < 1 && System.nanoTime() < limite) {
+                    Thread.onSpinWait();
+                }
+                throw new RecursoNoEncontradoException("Producto", "ID", 7L);
+            }));
+            assertTrue(enCarga.await(5, TimeUnit.SECONDS));
+
+            // Act & Assert: la segunda petición se une a la carga en curso desde el hilo de la prueba
+            assertThrows(RecursoNoEncontradoException.class, () -> coalescedor.obtener(7L, () -> "no debería cargar"));
+            Exception ex = assertThrows(Exception.class, () -> primera.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RecursoNoEncontradoException.class, ex.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
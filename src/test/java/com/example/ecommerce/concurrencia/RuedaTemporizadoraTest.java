@@ -0,0 +1,73 @@
+package com.example.ecommerce.concurrencia;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias de la rueda temporizadora.
+ */
+class RuedaTemporizadoraTest {
+
+    private record Vencimiento(String valor, long nanos) {
+    }
+
+    @Test
+    @DisplayName("Debería entregar cada valor al cumplirse su plazo, también tras varias vueltas de la rueda")
+    void deberiaVencerEnOrdenDePlazo() throws Exception {
+        // Arrange: 8 ranuras de 10 ms, una vuelta cada 80 ms
+        BlockingQueue<Vencimiento> vencidos = new LinkedBlockingQueue<>();
+        long inicio = System.nanoTime();
+        try (RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>("rueda-prueba", Duration.ofMillis(10), 8,
+                lote -> lote.forEach(valor -> vencidos.add(new Vencimiento(valor, System.nanoTime() - inicio))))) {
+            rueda.iniciar();
+
+            // Act
+            rueda.programar("tercero", Duration.ofMillis(250));
+            rueda.programar("primero", Duration.ofMillis(20));
+            rueda.programar("vencido", Duration.ofMillis(-5));
+            rueda.programar("segundo", Duration.ofMillis(90));
+
+            // Assert
+            List<String> orden = List.of("vencido", "primero", "segundo", "tercero");
+            List<Long> plazosMs = List.of(0L, 20L, 90L, 250L);
+            for (int i = 0; i < orden.size(); i++) {
+                Vencimiento vencimiento = vencidos.poll(2, TimeUnit.SECONDS);
+                assertNotNull(vencimiento, "No venció " + orden.get(i));
+                assertEquals(orden.get(i), vencimiento.valor());
+                assertTrue(vencimiento.nanos() >= TimeUnit.MILLISECONDS.toNanos(plazosMs.get(i)),
+                        orden.get(i) + " venció antes de su plazo");
+            }
+            assertEquals(0, rueda.pendientes());
+        }
+    }
+
+    @Test
+    @DisplayName("Debería entregar en un solo lote los valores del mismo tick")
+    void deberiaAgruparLosVencimientosDeUnTick() throws Exception {
+        // Arrange: tick de 500 ms para que las 1000 altas caigan en el primero aunque la JVM vaya lenta
+        BlockingQueue<List<Integer>> lotes = new LinkedBlockingQueue<>();
+        try (RuedaTemporizadora<Integer> rueda = new RuedaTemporizadora<>("rueda-prueba", Duration.ofMillis(500), 4,
+                lotes::add)) {
+            for (int i = 0; i < 1000; i++) {
+                rueda.programar(i, Duration.ofMillis(10));
+            }
+
+            // Act
+            rueda.iniciar();
+
+            // Assert
+            List<Integer> lote = lotes.poll(2, TimeUnit.SECONDS);
+            assertNotNull(lote);
+            assertEquals(1000, lote.size());
+            assertNull(lotes.poll(200, TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.dto.ProductoRespuestaDTO;
+import com.example.ecommerce.mapper.PedidoMapper;
+import com.example.ecommerce.mapper.ProductoMapper;
+import com.example.ecommerce.repositorios.DetallePedidoRepository;
+import com.example.ecommerce.repositorios.PedidoRepository;
+import com.example.ecommerce.servicios.ProductoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias del calentamiento previo a aceptar tráfico.
+ */
+@ExtendWith(MockitoExtension.class)
+class CalentamientoAplicacionTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection conexion;
+
+    @Mock
+    private ProductoService productoService;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private DetallePedidoRepository detallePedidoRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CalentamientoAplicacion calentamiento;
+
+    @BeforeEach
+    void setUp() {
+        calentamiento = new CalentamientoAplicacion(dataSource, productoService, pedidoRepository, detallePedidoRepository,
+                Mappers.getMapper(PedidoMapper.class), Mappers.getMapper(ProductoMapper.class),
+                new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                meterRegistry, 3, 10, Duration.ofDays(30), 500, Duration.ofSeconds(30));
+    }
+
+    private static ProductoRespuestaDTO producto(long id) {
+        ProductoRespuestaDTO dto = new ProductoRespuestaDTO();
+        dto.setId(id);
+        dto.setNombre("Producto " + id);
+        dto.setPrecio(new BigDecimal("12.50"));
+        dto.setCantidadEnStock(10);
+        return dto;
+    }
+
+    @Test
+    @DisplayName("Debería abrir el pool, precargar los más vendidos y ejecutar los pedidos sintéticos sin escribir")
+    void deberiaCalentarSinEscribirEnBaseDeDatos() throws Exception {
+        // Arrange
+        when(dataSource.getConnection()).thenReturn(conexion);
+        when(pedidoRepository.findIdsDesde(any(), any())).thenReturn(List.of(900L));
+        when(detallePedidoRepository.findProductosMasVendidos(eq(900L), any())).thenReturn(List.of(7L, 3L));
+        when(productoService.obtenerProductoPorId(7L)).thenReturn(producto(7L));
+        when(productoService.obtenerProductoPorId(3L)).thenReturn(producto(3L));
+
+        // Act
+        calentamiento.calentar();
+
+        // Assert
+        verify(dataSource, times(3)).getConnection();
+        verify(conexion, times(3)).close();
+        verify(detallePedidoRepository, never()).save(any());
+        assertEquals(1, meterRegistry.get("calentamiento.duracion").tag("fase", "pedidos").timer().count());
+        assertTrue(meterRegistry.get("calentamiento.pedido.sintetico").tag("momento", "final")
+                .timeGauge().value(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    @DisplayName("Debería recurrir al catálogo y después a productos ficticios si no hay ventas recientes")
+    void deberiaCalentarConLaBaseDeDatosVacia() throws Exception {
+        // Arrange
+        when(dataSource.getConnection()).thenReturn(conexion);
+        when(pedidoRepository.findIdsDesde(any(), any())).thenReturn(List.of());
+        when(productoService.obtenerTodosLosProductos(any(Pageable.class))).thenReturn(Page.empty());
+
+        // Act
+        calentamiento.calentar();
+
+        // Assert
+        verify(detallePedidoRepository, never()).findProductosMasVendidos(any(), any());
+        verify(productoService, never()).obtenerProductoPorId(any());
+        assertTrue(meterRegistry.get("calentamiento.pedido.sintetico").tag("momento", "final")
+                .timeGauge().value(TimeUnit.NANOSECONDS) > 0);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.eventos.DifusorStock;
+import com.example.ecommerce.eventos.RelayOutbox;
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.invalidacion.TransporteInvalidaciones;
+import com.example.ecommerce.seguridad.InvalidadorCacheUsuarios;
+import com.example.ecommerce.seguridad.LimitadorTasaPeticiones;
+import com.example.ecommerce.servicios.ServicioParticionesPedidos;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Arranca el contexto completo con el perfil 'arranque-rapido' (inicialización perezosa) y comprueba que los beans
+ * que nadie inyecta pero que trabajan desde el arranque se crean igualmente.
+ * Usa la base de datos del perfil 'dev', como el resto de pruebas de contexto completo.
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "arranque-rapido"})
+class ConfiguracionArranqueTest {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private List<ScheduledTaskHolder> programadores;
+
+    private boolean creado(Class<?> tipo) {
+        String[] nombres = beanFactory.getBeanNamesForType(tipo, false, false);
+        assertNotEquals(0, nombres.length, "Sin bean de tipo " + tipo.getSimpleName());
+        return beanFactory.containsSingleton(nombres[0]);
+    }
+
+    @Test
+    @DisplayName("Debería programar las tareas @Scheduled aunque la inicialización sea perezosa")
+    void deberiaProgramarTareasConInicializacionPerezosa() {
+        // Act
+        List<String> tareas = programadores.stream()
+                .flatMap(programador -> programador.getScheduledTasks().stream())
+                .map(tarea -> tarea.getTask().getRunnable().toString())
+                .toList();
+
+        // Assert
+        for (String metodo : List.of(RelayOutbox.class.getName() + ".publicarPendientes",
+                DifusorStock.class.getName() + ".latido",
+                LimitadorTasaPeticiones.class.getName() + ".descartarCubosInactivos",
+                ServicioParticionesPedidos.class.getName() + ".mantener")) {
+            assertTrue(tareas.contains(metodo), "Tarea no programada: " + metodo + " en " + tareas);
+        }
+    }
+
+    @Test
+    @DisplayName("Debería crear al arrancar el bus de invalidación, su transporte y sus oyentes")
+    void deberiaCrearBusDeInvalidacionAlArrancar() {
+        // Assert: el resto de beans sí es perezoso
+        assertTrue(beanFactory.getBeanDefinition("pedidoService").isLazyInit());
+        assertTrue(creado(RelayOutbox.class));
+        assertTrue(creado(BusInvalidacion.class));
+        assertTrue(creado(TransporteInvalidaciones.class));
+        assertTrue(creado(InvalidadorCacheUsuarios.class));
+        assertTrue(creado(ConfiguracionCacheSegundoNivel.ExpulsionRemota.class));
+    }
+}
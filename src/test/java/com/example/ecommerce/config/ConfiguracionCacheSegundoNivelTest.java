@@ -0,0 +1,77 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de la expulsión de la cache de segundo nivel ordenada por otras instancias.
+ */
+@ExtendWith(MockitoExtension.class)
+class ConfiguracionCacheSegundoNivelTest {
+
+    @Mock
+    private BusInvalidacion busInvalidacion;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache cacheJpa;
+
+    @Mock
+    private org.hibernate.Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.getCache()).thenReturn(cacheJpa);
+        when(cacheJpa.unwrap(org.hibernate.Cache.class)).thenReturn(cache);
+        new ConfiguracionCacheSegundoNivel(10, 10, 10, Duration.ofMinutes(1))
+                .expulsionRemotaSegundoNivel(busInvalidacion, entityManagerFactory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String> invalidadorDeClave(String region) {
+        ArgumentCaptor<Consumer<String>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(busInvalidacion).registrar(eq(region), captor.capture(), any());
+        return captor.getValue();
+    }
+
+    @Test
+    @DisplayName("Debería expulsar solo el usuario modificado en otra instancia, sin vaciar las búsquedas por nombre")
+    void deberiaExpulsarSoloElUsuarioModificado() {
+        // Act
+        invalidadorDeClave("usuario-id").accept("7");
+
+        // Assert
+        verify(cache).evict(Usuario.class, 7L);
+        verify(cache, never()).evict(Usuario.class);
+        verify(cache, never()).evictQueryRegion(any());
+    }
+
+    @Test
+    @DisplayName("Debería descartar las búsquedas por nombre, sin vaciar los usuarios, cuando otra instancia crea uno")
+    void deberiaDescartarBusquedasPorNombreAlCrearUsuario() {
+        // Act
+        invalidadorDeClave("usuario-nombre").accept("ana");
+
+        // Assert
+        verify(cache).evictQueryRegion(ConfiguracionCacheSegundoNivel.REGION_USUARIO_POR_NOMBRE);
+        verify(cache, never()).evict(Usuario.class);
+    }
+}
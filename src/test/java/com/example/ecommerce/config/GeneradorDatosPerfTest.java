@@ -0,0 +1,92 @@
+package com.example.ecommerce.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Pruebas unitarias del generador de datos del perfil 'perf', sin base de datos: un JdbcTemplate que registra
+ * las sentencias en lugar de ejecutarlas.
+ */
+class GeneradorDatosPerfTest {
+
+    private static final int PEDIDOS = 500;
+    private static final int FILAS_POR_SENTENCIA = 3;
+
+    /**
+     * Registra los INSERT de pedidos y detalles y comprueba, como la clave foránea de detalles_pedido, que cada
+     * detalle se inserta después de su pedido.
+     */
+    private static final class JdbcTemplateRegistro extends JdbcTemplate {
+        private final Set<Object> pedidosInsertados = new HashSet<>();
+        private final List<String> detallesSinPedido = new ArrayList<>();
+        private int detallesInsertados;
+        private int filasMaximasPorSentencia;
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> tipo) {
+            // Ni 'perf-0' ni 'admin' existen todavía
+            return tipo.cast(0);
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> tipo, Object... argumentos) {
+            // Reserva de IDs (nextval/setval) y creación de particiones
+            return tipo == Long.class ? tipo.cast(1L) : tipo.cast(0);
+        }
+
+        @Override
+        public synchronized int update(String sql, Object... argumentos) {
+            if (sql.startsWith("INSERT INTO pedidos")) {
+                registrar(argumentos, 4);
+                for (int i = 0; i < argumentos.length; i += 4) {
+                    pedidosInsertados.add(argumentos[i]);
+                }
+            } else if (sql.startsWith("INSERT INTO detalles_pedido")) {
+                registrar(argumentos, 5);
+                for (int i = 0; i < argumentos.length; i += 5) {
+                    if (!pedidosInsertados.contains(argumentos[i])) {
+                        detallesSinPedido.add("detalle del pedido " + argumentos[i]);
+                    }
+                    detallesInsertados++;
+                }
+            }
+            return 1;
+        }
+
+        private void registrar(Object[] argumentos, int columnas) {
+            filasMaximasPorSentencia = Math.max(filasMaximasPorSentencia, argumentos.length / columnas);
+        }
+
+        @Override
+        public void execute(String sql) {
+        }
+    }
+
+    @Test
+    @DisplayName("Debería insertar cada pedido antes que sus detalles aunque un pedido no quepa en la sentencia")
+    void deberiaInsertarPedidosAntesQueSusDetalles() throws Exception {
+        // Arrange: sentencias de 3 filas y pedidos de hasta 8 líneas, que cruzan el límite de la sentencia
+        JdbcTemplateRegistro jdbcTemplate = new JdbcTemplateRegistro();
+        GeneradorDatosPerf generador = new GeneradorDatosPerf(jdbcTemplate, mock(PasswordEncoder.class),
+                50, 10, PEDIDOS, 8, 1.1, 30, 1, FILAS_POR_SENTENCIA, 42, "perfpass");
+
+        // Act
+        generador.run();
+
+        // Assert
+        assertEquals(List.of(), jdbcTemplate.detallesSinPedido);
+        assertEquals(PEDIDOS, jdbcTemplate.pedidosInsertados.size());
+        assertTrue(jdbcTemplate.detallesInsertados >= PEDIDOS);
+        assertEquals(FILAS_POR_SENTENCIA, jdbcTemplate.filasMaximasPorSentencia);
+    }
+}
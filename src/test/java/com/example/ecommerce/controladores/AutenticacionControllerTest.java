@@ -0,0 +1,116 @@
+package com.example.ecommerce.controladores;
+
+import com.example.ecommerce.seguridad.EjecutorHashContrasenas;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del control de admisión del login sobre el servidor completo: el límite de intentos por IP (resuelta
+ * desde X-Forwarded-For) y el rechazo inmediato cuando la cola del pool de hash está llena.
+ * Usa la base de datos del perfil activo, como el resto de pruebas de contexto completo.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.seguridad.hash.hilos=1",
+        "app.seguridad.hash.capacidad-cola=1",
+        "app.seguridad.hash.tiempo-maximo-espera=10s",
+        "app.seguridad.limite-autenticacion.por-ip.capacidad=2",
+        "app.seguridad.limite-autenticacion.por-ip.reposicion-por-minuto=1",
+        "app.seguridad.limite-autenticacion.por-usuario.capacidad=1000"
+})
+class AutenticacionControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private EjecutorHashContrasenas ejecutorHash;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ResponseEntity<String> login(String ipCliente) {
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setContentType(MediaType.APPLICATION_JSON);
+        // El balanceador (aquí, la propia prueba desde localhost) informa la IP del cliente
+        cabeceras.set("X-Forwarded-For", ipCliente);
+        Map<String, String> credenciales = Map.of(
+                "nombreUsuario", "inexistente-" + UUID.randomUUID(), "contrasena", "incorrecta");
+        return restTemplate.postForEntity("/api/autenticacion/login", new HttpEntity<>(credenciales, cabeceras),
+                String.class);
+    }
+
+    @Test
+    @DisplayName("Debería responder 429 con Retry-After al agotar los intentos de una IP, sin afectar a otras")
+    void deberiaLimitarIntentosPorIpDelCliente() {
+        // Arrange
+        login("203.0.113.10");
+        login("203.0.113.10");
+
+        // Act
+        ResponseEntity<String> rechazada = login("203.0.113.10");
+        ResponseEntity<String> otraIp = login("203.0.113.11");
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rechazada.getStatusCode());
+        assertNotNull(rechazada.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, otraIp.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Debería responder 429 de inmediato cuando la cola del pool de hash está llena")
+    void deberiaRechazarLoginConColaHashLlena() throws Exception {
+        // Arrange: una tarea ocupa el único hilo del pool y otra la única plaza de la cola
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CompletableFuture<Void> ocupante = CompletableFuture.runAsync(() -> ejecutorHash.ejecutar(() -> {
+            enCurso.countDown();
+            return esperar(liberar);
+        }));
+        enCurso.await();
+        CompletableFuture<Void> encolada = CompletableFuture.runAsync(() -> ejecutorHash.ejecutar(() -> null));
+        while (meterRegistry.get("executor.queued").tag("name", "hash.contrasenas").gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        try {
+            // Act
+            long inicio = System.nanoTime();
+            ResponseEntity<String> respuesta = login("203.0.113.20");
+            long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+
+            // Assert: sin esperar los 10 s de tiempo máximo
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, respuesta.getStatusCode());
+            assertEquals("1", respuesta.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            assertTrue(milisegundos < 2_000, "El rechazo tardó " + milisegundos + " ms");
+        } finally {
+            liberar.countDown();
+            ocupante.join();
+            encolada.join();
+        }
+    }
+
+    private static Void esperar(CountDownLatch liberar) {
+        try {
+            liberar.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
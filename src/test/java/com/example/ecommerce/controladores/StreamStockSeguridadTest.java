@@ -0,0 +1,64 @@
+package com.example.ecommerce.controladores;
+
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.servicios.ServicioTokenJwt;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de la autorización del stream SSE de stock a lo largo de toda su vida: al cerrarse, el stream vuelve a
+ * pasar por la cadena de seguridad en un despacho ASYNC, donde el filtro JWT ya no se ejecuta.
+ * Usa la base de datos del perfil activo, como el resto de pruebas de contexto completo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StreamStockSeguridadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ServicioTokenJwt servicioTokenJwt;
+
+    @Test
+    @DisplayName("Debería autorizar el cierre de un stream abierto con token Bearer")
+    void deberiaAutorizarElCierreDeUnStreamAbiertoConTokenBearer() throws Exception {
+        // Arrange
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setNombreUsuario("cliente-stream");
+        usuario.setRol(Rol.USER);
+        String token = servicioTokenJwt.generarTokenAcceso(usuario);
+
+        MvcResult abierto = mockMvc.perform(get("/api/productos/stock/stream")
+                        .param("ids", "1")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Act: vence el tiempo máximo de conexión, el emisor se completa y el contenedor redespacha la petición
+        MockAsyncContext contextoAsincrono = (MockAsyncContext) abierto.getRequest().getAsyncContext();
+        for (AsyncListener oyente : contextoAsincrono.getListeners()) {
+            oyente.onTimeout(new AsyncEvent(contextoAsincrono));
+        }
+
+        // Assert
+        mockMvc.perform(asyncDispatch(abierto))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.ecommerce.eventos;
+
+import com.example.ecommerce.dto.StockRespuestaDTO;
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.invalidacion.TransporteLocal;
+import com.example.ecommerce.repositorios.ProductoRepository;
+import com.example.ecommerce.repositorios.ProductoRepositoryCustom.NivelesVersionados;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias del difusor de stock por SSE.
+ */
+@ExtendWith(MockitoExtension.class)
+class DifusorStockTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Lotes enviados al cliente, en orden
+    private final BlockingQueue<List<StockRespuestaDTO>> enviados = new LinkedBlockingQueue<>();
+
+    // El primer envío espera a que se abra el cerrojo, como un cliente que lee despacio
+    private final CountDownLatch clienteLento = new CountDownLatch(1);
+    private final CountDownLatch envioEnCurso = new CountDownLatch(1);
+
+    // Esta instancia (la del difusor) y otra conectada al mismo canal de invalidaciones
+    private BusInvalidacion bus;
+    private BusInvalidacion otraInstancia;
+
+    private DifusorStock difusor;
+
+    @BeforeEach
+    void setUp() {
+        TransporteLocal transporte = new TransporteLocal();
+        bus = crearNodo(transporte);
+        otraInstancia = crearNodo(transporte);
+        difusor = new DifusorStock(productoRepository, bus, 1, Duration.ofMinutes(1), Duration.ofMinutes(1), 16,
+                meterRegistry) {
+            @Override
+            SseEmitter crearEmisor(long tiempoMaximoMs) {
+                return new SseEmitter(tiempoMaximoMs) {
+                    @Override
+                    public void send(SseEventBuilder evento) {
+                        envioEnCurso.countDown();
+                        try {
+                            clienteLento.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                        for (ResponseBodyEmitter.DataWithMediaType dato : evento.build()) {
+                            if (dato.getData() instanceof List<?> lote) {
+                                enviados.add((List<StockRespuestaDTO>) lote);
+                            }
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        difusor.detener();
+        bus.detener();
+        otraInstancia.detener();
+    }
+
+    private static BusInvalidacion crearNodo(TransporteLocal transporte) {
+        BusInvalidacion nodo = new BusInvalidacion(transporte, new ObjectMapper(), new SimpleMeterRegistry(),
+                Duration.ofMillis(10), 500);
+        nodo.iniciar();
+        return nodo;
+    }
+
+    @Test
+    @DisplayName("Debería enviar el nivel inicial y, a un cliente lento, solo el último nivel de cada producto")
+    void deberiaEnviarElUltimoNivelAUnClienteLento() throws Exception {
+        // Arrange
+        when(productoRepository.findNivelesDeStock(anyList())).thenReturn(List.of(new StockRespuestaDTO(7L, 10)));
+        difusor.suscribir(Set.of(7L, 8L));
+        assertTrue(envioEnCurso.await(5, TimeUnit.SECONDS));
+
+        // Act: mientras el nivel inicial sigue en vuelo llegan tres cambios del producto 7 y uno del 8
+        difusor.difundir(7L, 9, 1);
+        difusor.difundir(7L, 8, 2);
+        difusor.difundir(8L, 4, 3);
+        difusor.difundir(7L, 6, 4);
+        clienteLento.countDown();
+
+        // Assert
+        assertEquals(List.of(new StockRespuestaDTO(7L, 10)), enviados.poll(5, TimeUnit.SECONDS));
+        assertEquals(List.of(new StockRespuestaDTO(7L, 6), new StockRespuestaDTO(8L, 4)),
+                enviados.poll(5, TimeUnit.SECONDS));
+        assertNull(enviados.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(2.0, meterRegistry.get("stock.stream.sustituidos").counter().count());
+    }
+
+    @Test
+    @DisplayName("Debería descartar un nivel con una versión anterior a la ya recibida")
+    void deberiaDescartarNivelesAntiguos() throws Exception {
+        // Arrange
+        clienteLento.countDown();
+        when(productoRepository.findNivelesDeStock(anyList())).thenReturn(List.of());
+        difusor.suscribir(Set.of(7L));
+
+        // Act: el oyente del commit posterior (versión 5) se ejecuta antes que el del anterior (versión 4)
+        difusor.difundir(7L, 3, 5);
+        assertEquals(List.of(new StockRespuestaDTO(7L, 3)), enviados.poll(5, TimeUnit.SECONDS));
+        difusor.difundir(7L, 8, 4);
+
+        // Assert
+        assertNull(enviados.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @DisplayName("Debería releer y difundir el stock que cambia otra instancia, ordenado con los commits locales")
+    void deberiaDifundirLosCambiosDeOtraInstancia() throws Exception {
+        // Arrange
+        clienteLento.countDown();
+        when(productoRepository.findNivelesDeStock(anyList())).thenReturn(List.of(new StockRespuestaDTO(7L, 10)));
+        when(productoRepository.leerNivelesDeStockVersionados(List.of(7L)))
+                .thenReturn(new NivelesVersionados(List.of(new StockRespuestaDTO(7L, 4)), 12));
+        difusor.suscribir(Set.of(7L));
+        assertEquals(List.of(new StockRespuestaDTO(7L, 10)), enviados.poll(5, TimeUnit.SECONDS));
+
+        // Act: otra instancia confirma un cambio de stock del producto 7 y del 8, al que nadie está suscrito
+        otraInstancia.propagar("producto", "7");
+        otraInstancia.propagar("producto", "8");
+
+        // Assert: llega el nivel releído y el oyente de un commit local anterior a la lectura ya no lo pisa
+        assertEquals(List.of(new StockRespuestaDTO(7L, 4)), enviados.poll(5, TimeUnit.SECONDS));
+        difusor.difundir(7L, 9, 11);
+        assertNull(enviados.poll(200, TimeUnit.MILLISECONDS));
+        verify(productoRepository).leerNivelesDeStockVersionados(List.of(7L));
+    }
+
+    @Test
+    @DisplayName("Debería dar de baja a un cliente que no lee sin retrasar a los demás")
+    void deberiaDarDeBajaAUnClienteQueNoLee() throws Exception {
+        // Arrange: un solo hilo de envío; el primer cliente no lee y su envío queda bloqueado
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        CountDownLatch desbloquear = new CountDownLatch(1);
+        CountDownLatch primeroCerrado = new CountDownLatch(1);
+        AtomicInteger emisores = new AtomicInteger();
+        BlockingQueue<List<StockRespuestaDTO>> recibidos = new LinkedBlockingQueue<>();
+        DifusorStock conPlazo = new DifusorStock(productoRepository, bus, 1, Duration.ofMinutes(1), Duration.ofMillis(200),
+                16, registro) {
+            @Override
+            SseEmitter crearEmisor(long tiempoMaximoMs) {
+                boolean noLee = emisores.getAndIncrement() == 0;
+                return new SseEmitter(tiempoMaximoMs) {
+                    @Override
+                    public void send(SseEventBuilder evento) {
+                        if (noLee) {
+                            try {
+                                desbloquear.await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return;
+                        }
+                        for (ResponseBodyEmitter.DataWithMediaType dato : evento.build()) {
+                            if (dato.getData() instanceof List<?> lote) {
+                                recibidos.add((List<StockRespuestaDTO>) lote);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void complete() {
+                        if (noLee) {
+                            primeroCerrado.countDown();
+                        }
+                        super.complete();
+                    }
+                };
+            }
+        };
+        when(productoRepository.findNivelesDeStock(anyList())).thenReturn(List.of(new StockRespuestaDTO(7L, 10)));
+
+        try {
+            // Act
+            conPlazo.suscribir(Set.of(7L));
+            conPlazo.suscribir(Set.of(7L));
+
+            // Assert: el segundo cliente recibe su nivel inicial y los cambios aunque el único hilo siga bloqueado
+            assertEquals(List.of(new StockRespuestaDTO(7L, 10)), recibidos.poll(5, TimeUnit.SECONDS));
+            assertEquals(1.0, registro.get("stock.stream.vencidos").counter().count());
+            assertEquals(1.0, registro.get("stock.stream.suscripciones").gauge().value());
+            conPlazo.difundir(7L, 3, 1);
+            assertEquals(List.of(new StockRespuestaDTO(7L, 3)), recibidos.poll(5, TimeUnit.SECONDS));
+
+            // Al terminar el envío bloqueado se cierra la conexión del cliente dado de baja y el pool vuelve a un hilo
+            desbloquear.countDown();
+            assertTrue(primeroCerrado.await(5, TimeUnit.SECONDS));
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registro.get("executor.pool.core").tag("name", "stock.stream").gauge().value() != 1.0
+                    && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+            assertEquals(1.0, registro.get("executor.pool.core").tag("name", "stock.stream").gauge().value());
+        } finally {
+            desbloquear.countDown();
+            conPlazo.detener();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ecommerce.eventos;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias del relay del outbox.
+ */
+@ExtendWith(MockitoExtension.class)
+class RelayOutboxTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ObjectProvider<DestinoEventos> proveedorDestinos;
+
+    @Mock
+    private DestinoEventos destinoFallido;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DestinoEventosMemoria memoria = new DestinoEventosMemoria(100);
+
+    private static EventoPublicado evento(long id, long productoId, int stock) {
+        return new EventoPublicado(id, TipoEvento.STOCK_ACTUALIZADO, "producto", productoId, LocalDateTime.now(),
+                "{\"productoId\":" + productoId + ",\"stock\":" + stock + "}");
+    }
+
+    private RelayOutbox relay(DestinoEventos... destinos) {
+        when(proveedorDestinos.orderedStream()).thenReturn(Stream.of(destinos));
+        return new RelayOutbox(jdbcTemplate, transactionManager, proveedorDestinos, meterRegistry, 2, 10);
+    }
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Debería entregar los lotes en orden de ID y borrar solo los eventos entregados")
+    void deberiaPublicarEnOrdenYConfirmarLosLotes() {
+        // Arrange
+        RelayOutbox relay = relay(memoria);
+        List<EventoPublicado> primerLote = List.of(evento(1, 7, 9), evento(2, 7, 8));
+        List<EventoPublicado> segundoLote = List.of(evento(4, 3, 1));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(2)))
+                .thenReturn((List) primerLote, (List) segundoLote);
+
+        // Act
+        relay.publicarPendientes();
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 4L), memoria.eventos().stream().map(EventoPublicado::id).toList());
+        // Un borrado por lote: el segundo lote, incompleto, termina la ejecución
+        verify(jdbcTemplate, times(2)).update(startsWith("DELETE FROM eventos_outbox"), any(PreparedStatementSetter.class));
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq(2));
+        assertEquals(3.0, meterRegistry.get("eventos.outbox.publicados").counter().count());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Debería conservar el lote en el outbox si un destino falla")
+    void deberiaReintentarElLoteSiUnDestinoFalla() {
+        // Arrange
+        RelayOutbox relay = relay(memoria, destinoFallido);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(2))).thenReturn((List) List.of(evento(1, 7, 9)));
+        doThrow(new IllegalStateException("destino caído")).when(destinoFallido).publicar(any());
+
+        // Act
+        relay.publicarPendientes();
+
+        // Assert
+        verify(jdbcTemplate, never()).update(anyString(), any(PreparedStatementSetter.class));
+        verify(transactionManager).rollback(any());
+        assertEquals(1.0, meterRegistry.get("eventos.outbox.fallos").counter().count());
+        assertEquals(0.0, meterRegistry.get("eventos.outbox.publicados").counter().count());
+    }
+
+    @Test
+    @DisplayName("No debería leer el outbox si otra instancia tiene el bloqueo del relay")
+    void noDeberiaPublicarSinElBloqueo() {
+        // Arrange
+        RelayOutbox relay = relay(memoria);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(false);
+
+        // Act
+        int publicados = relay.publicarLote();
+
+        // Assert
+        assertEquals(0, publicados);
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), anyInt());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ecommerce.invalidacion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del bus de invalidación: dos instancias simuladas en la misma JVM con un TransporteLocal.
+ * Los envíos se fuerzan con enviarPendientes() (intervalo de una hora) para no depender del temporizador.
+ */
+class BusInvalidacionTest {
+
+    private final List<String> mensajes = new ArrayList<>();
+    private TransporteLocal transporte;
+    private SimpleMeterRegistry registroA;
+    private SimpleMeterRegistry registroB;
+    private BusInvalidacion nodoA;
+    private BusInvalidacion nodoB;
+    private final Set<String> cacheA = ConcurrentHashMap.newKeySet();
+    private final Set<String> cacheB = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        transporte = new TransporteLocal() {
+            @Override
+            public void enviar(String mensaje) {
+                mensajes.add(mensaje);
+                super.enviar(mensaje);
+            }
+        };
+        registroA = new SimpleMeterRegistry();
+        registroB = new SimpleMeterRegistry();
+        nodoA = crearNodo(registroA, cacheA);
+        nodoB = crearNodo(registroB, cacheB);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodoA.detener();
+        nodoB.detener();
+    }
+
+    private BusInvalidacion crearNodo(SimpleMeterRegistry registro, Set<String> cache) {
+        BusInvalidacion bus = new BusInvalidacion(transporte, new ObjectMapper(), registro, Duration.ofHours(1), 3);
+        bus.registrar("usuario", cache::remove, cache::clear);
+        bus.iniciar();
+        return bus;
+    }
+
+    @Test
+    @DisplayName("Debería invalidar en las demás instancias, agrupando las claves repetidas en un solo mensaje")
+    void deberiaPropagarYAgruparLasInvalidaciones() {
+        // Arrange
+        cacheA.addAll(List.of("ana", "luis", "eva"));
+        cacheB.addAll(List.of("ana", "luis", "eva"));
+
+        // Act
+        nodoA.propagar("usuario", "ana");
+        nodoA.propagar("usuario", "ana");
+        nodoA.propagar("usuario", "luis");
+        nodoA.propagar("region-desconocida", "x");
+        nodoA.enviarPendientes();
+
+        // Assert: solo la otra instancia aplica la invalidación
+        assertEquals(1, mensajes.size());
+        assertEquals(Set.of("eva"), cacheB);
+        assertEquals(Set.of("ana", "luis", "eva"), cacheA);
+        assertEquals(1, registroA.get("invalidacion.claves").tag("resultado", "agrupada").counter().count());
+        assertEquals(3, registroA.get("invalidacion.claves").tag("resultado", "enviada").counter().count());
+        assertEquals(2, registroB.get("invalidacion.claves").tag("resultado", "recibida").counter().count());
+        assertEquals(1, registroB.get("invalidacion.retraso").timer().count());
+    }
+
+    @Test
+    @DisplayName("Debería vaciar la región si un lote supera el máximo de claves y repartir los lotes grandes")
+    void deberiaVaciarLaRegionConDemasiadasClaves() {
+        // Arrange
+        cacheB.addAll(List.of("ana", "luis", "eva", "otro"));
+        nodoB.registrar("producto", clave -> cacheB.remove("producto-" + clave), () -> {
+        });
+
+        // Act: 4 usuarios (máximo 3 por región) y 3 productos con claves largas que no caben en un mensaje
+        for (String usuario : List.of("ana", "luis", "eva", "rosa")) {
+            nodoA.propagar("usuario", usuario);
+        }
+        String larga = "x".repeat(2_000);
+        for (int i = 0; i < 3; i++) {
+            nodoA.propagar("producto", larga + i);
+        }
+        nodoA.enviarPendientes();
+
+        // Assert
+        assertTrue(cacheB.isEmpty());
+        assertEquals(3, registroB.get("invalidacion.claves").tag("resultado", "recibida").counter().count());
+        assertTrue(mensajes.size() > 1);
+        assertTrue(mensajes.stream().allMatch(m -> m.length() <= transporte.maximoBytesMensaje()));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.ecommerce.metricas;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Clase de pruebas unitarias para DataSourceInstrumentado.
+ * El pool y el driver se simulan con Mockito.
+ */
+class DataSourceInstrumentadoTest {
+
+    @AfterEach
+    void limpiar() {
+        ContabilidadSql.finalizar();
+    }
+
+    private static DataSource dataSourceSimulado() throws Exception {
+        DataSource destino = mock(DataSource.class);
+        Connection conexion = mock(Connection.class);
+        PreparedStatement sentencia = mock(PreparedStatement.class);
+        when(destino.getConnection()).thenReturn(conexion);
+        when(conexion.prepareStatement(anyString())).thenReturn(sentencia);
+        when(sentencia.executeBatch()).thenReturn(new int[]{1, 1});
+        return new DataSourceInstrumentado(destino);
+    }
+
+    @Test
+    @DisplayName("Debería contabilizar conexiones y ejecuciones de la petición en curso")
+    void deberiaContabilizarConexionesYSentencias() throws Exception {
+        DataSource dataSource = dataSourceSimulado();
+        ContabilidadSql contabilidad = ContabilidadSql.iniciar();
+
+        try (Connection conexion = dataSource.getConnection();
+             PreparedStatement sentencia = conexion.prepareStatement("UPDATE productos SET nombre = ?")) {
+            sentencia.setString(1, "x");
+            sentencia.executeUpdate();
+            sentencia.addBatch();
+            sentencia.executeBatch();
+            // La sentencia envuelta debe devolver la conexión envuelta
+            assertSame(conexion, sentencia.getConnection());
+        }
+
+        assertEquals(1, contabilidad.getConexiones());
+        // Un lote cuenta como una sola ejecución; setString y addBatch no cuentan
+        assertEquals(2, contabilidad.getSentencias());
+    }
+
+    @Test
+    @DisplayName("No debería fallar ni acumular nada fuera de una petición")
+    void noDeberiaContabilizarFueraDeUnaPeticion() throws Exception {
+        DataSource dataSource = dataSourceSimulado();
+
+        try (Connection conexion = dataSource.getConnection();
+             PreparedStatement sentencia = conexion.prepareStatement("SELECT 1")) {
+            sentencia.executeQuery();
+        }
+
+        assertNull(ContabilidadSql.actual());
+    }
+}
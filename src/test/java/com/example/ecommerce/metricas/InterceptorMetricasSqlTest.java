@@ -0,0 +1,61 @@
+package com.example.ecommerce.metricas;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del interceptor que publica el trabajo SQL de cada petición.
+ */
+class InterceptorMetricasSqlTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InterceptorMetricasSql interceptor = new InterceptorMetricasSql(meterRegistry);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    static class ControladorStream {
+        public void stream() {
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        ContabilidadSql.finalizar();
+    }
+
+    @Test
+    @DisplayName("Debería liberar la contabilidad del hilo al empezar una petición asíncrona y publicarla una vez")
+    void deberiaLiberarContabilidadEnPeticionAsincrona() throws Exception {
+        // Arrange
+        HandlerMethod handler = new HandlerMethod(new ControladorStream(), "stream");
+        MockHttpServletRequest peticion = new MockHttpServletRequest();
+        interceptor.preHandle(peticion, response, handler);
+        ContabilidadSql.registrarSentencia(1_000);
+
+        // Act: el controlador devuelve un SseEmitter y el hilo de Tomcat queda libre
+        interceptor.afterConcurrentHandlingStarted(peticion, response, handler);
+
+        // Assert
+        assertNull(ContabilidadSql.actual());
+
+        // Act: el dispatch asíncrono que cierra el stream
+        MockHttpServletRequest dispatchAsincrono = new MockHttpServletRequest();
+        dispatchAsincrono.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(dispatchAsincrono, response, handler);
+        interceptor.afterCompletion(dispatchAsincrono, response, handler, null);
+
+        // Assert: una sola muestra, con la sentencia del dispatch inicial
+        assertNull(ContabilidadSql.actual());
+        var sentencias = meterRegistry.get("peticiones.sql.sentencias")
+                .tag("endpoint", "ControladorStream.stream").summary();
+        assertEquals(1, sentencias.count());
+        assertEquals(1.0, sentencias.totalAmount());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ecommerce.modelo.valores;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del importe de escala fija.
+ */
+class DineroTest {
+
+    @Test
+    @DisplayName("Debería convertir desde y hacia BigDecimal sin redondear")
+    void deberiaConvertirDeFormaExacta() {
+        // Act
+        Dinero importe = Dinero.de(new BigDecimal("1234.5"));
+
+        // Assert
+        assertEquals(123_450, importe.centimos());
+        assertEquals(new BigDecimal("1234.50"), importe.aBigDecimal());
+        assertEquals(Dinero.deCentimos(1), Dinero.de(new BigDecimal("0.0100")));
+        assertThrows(ArithmeticException.class, () -> Dinero.de(new BigDecimal("0.005")));
+        assertThrows(ArithmeticException.class, () -> Dinero.de(new BigDecimal("10000000000000000.00")));
+    }
+
+    @Test
+    @DisplayName("Debería lanzar ArithmeticException al salirse del rango de NUMERIC(18, 2)")
+    void deberiaComprobarElDesbordamiento() {
+        // Arrange
+        Dinero maximo = Dinero.deCentimos(Dinero.MAXIMO_CENTIMOS);
+
+        // Act & Assert
+        assertEquals(new BigDecimal("9999999999999999.99"), maximo.aBigDecimal());
+        assertThrows(ArithmeticException.class, () -> maximo.sumar(Dinero.deCentimos(1)));
+        assertThrows(ArithmeticException.class, () -> Dinero.deCentimos(Long.MAX_VALUE / 2).multiplicar(3));
+        assertEquals(Dinero.deCentimos(1_500), Dinero.deCentimos(500).multiplicar(2).sumar(Dinero.deCentimos(500)));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar operar importes de monedas distintas o sin dos decimales")
+    void deberiaComprobarLaMoneda() {
+        // Arrange
+        Dinero dolares = new Dinero(100, Currency.getInstance("USD"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> Dinero.deCentimos(100).sumar(dolares));
+        assertThrows(IllegalArgumentException.class, () -> new Dinero(100, Currency.getInstance("JPY")));
+    }
+}
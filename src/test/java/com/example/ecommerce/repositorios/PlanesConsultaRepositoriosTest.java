@@ -0,0 +1,366 @@
+package com.example.ecommerce.repositorios;
+
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.invalidacion.TransporteLocal;
+import com.example.ecommerce.modelo.entidades.Pedido;
+import com.example.ecommerce.seguridad.CacheCredencialesVerificadas;
+import com.example.ecommerce.seguridad.CacheUsuariosAutenticados;
+import com.example.ecommerce.seguridad.InvalidadorCacheUsuarios;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que las consultas de los repositorios usan índices a escala: ejecuta cada consulta contra un
+ * PostgreSQL real con el esquema de las migraciones y datos sembrados con una forma realista
+ * (algo más de un año de pedidos en particiones mensuales, con los meses más antiguos ya archivados), captura el
+ * SQL que genera Hibernate con sus parámetros y falla si el plan de EXPLAIN contiene un Seq Scan que descarta
+ * filas. Un Seq Scan que devuelve (casi) todas las filas de su relación no tiene alternativa con índices y se
+ * admite: particiones vacías de meses futuros o un mes entero dentro de la ventana consultada.
+ * <p>
+ * ProductoRepository.findByNombreContainingIgnoreCase no se comprueba: una búsqueda por subcadena
+ * ('%texto%') no puede usar un índice B-tree y ningún endpoint la utiliza.
+ * Requiere Docker; sin él la clase se omite.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // los datos sembrados se confirman una sola vez
+class PlanesConsultaRepositoriosTest {
+
+    private static final int USUARIOS = 2_000;
+    private static final int PRODUCTOS = 5_000;
+    private static final int PEDIDOS = 200_000;
+    // Un Seq Scan que devuelve al menos esta fracción de las filas de la relación es un recorrido completo legítimo
+    private static final double FRACCION_RECORRIDO_COMPLETO = 0.9;
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static boolean datosSembrados;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private DetallePedidoRepository detallePedidoRepository;
+
+    @Autowired
+    private PedidoArchivadoRepository pedidoArchivadoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RegistroSentencias registro;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void sembrarDatos() {
+        if (datosSembrados) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO usuarios (nombre_usuario, contrasena, rol, cuenta_expirada, cuenta_bloqueada, "
+                + "credenciales_expiradas, habilitado) "
+                + "SELECT 'usuario-' || g, 'x', 'USER', false, false, false, true FROM generate_series(1, ?) g", USUARIOS);
+        jdbcTemplate.update("INSERT INTO productos (nombre, precio, cantidad_en_stock) "
+                + "SELECT 'Producto ' || g, 9.99 + g % 100, 1000 FROM generate_series(1, ?) g", PRODUCTOS);
+        // Un pedido cada 3 minutos durante algo más de un año, repartidos entre todos los usuarios;
+        // como en producción, los IDs crecen con la fecha de creación
+        jdbcTemplate.queryForObject("SELECT crear_particiones_pedidos((localtimestamp - ? * interval '3 minutes')::date, "
+                + "current_date)", Integer.class, PEDIDOS);
+        jdbcTemplate.update("INSERT INTO pedidos (fecha_creacion, total, usuario_id) "
+                + "SELECT localtimestamp - (? - g) * interval '3 minutes', 10, 1 + (g * 7919) % ? "
+                + "FROM generate_series(1, ?) g", PEDIDOS, USUARIOS, PEDIDOS);
+        // Entre una y tres líneas por pedido
+        jdbcTemplate.update("INSERT INTO detalles_pedido (cantidad, precio_unitario, pedido_id, fecha_pedido, producto_id) "
+                + "SELECT 1 + (p.id + l) % 3, 9.99, p.id, p.fecha_creacion, 1 + (p.id * 31 + l * 977) % ? "
+                + "FROM pedidos p CROSS JOIN generate_series(1, 3) l WHERE l <= 1 + p.id % 3", PRODUCTOS);
+        // Los meses de hace más de un año pasan al archivo, como haría ServicioParticionesPedidos
+        jdbcTemplate.queryForList("SELECT archivar_particion_pedidos(mes::date) FROM generate_series("
+                + "date_trunc('month', localtimestamp - ? * interval '3 minutes'), "
+                + "date_trunc('month', localtimestamp) - interval '12 months', interval '1 month') mes", Long.class, PEDIDOS);
+        jdbcTemplate.execute("VACUUM ANALYZE"); // estadísticas y mapa de visibilidad, como tras el autovacuum
+        datosSembrados = true;
+    }
+
+    @Test
+    @DisplayName("Las búsquedas de usuarios por nombre deberían usar el índice único")
+    void consultasDeUsuarios() {
+        assertSinSeqScan(() -> {
+            usuarioRepository.findByNombreUsuario("usuario-1500");
+            usuarioRepository.existsByNombreUsuario("usuario-1500");
+        });
+    }
+
+    @Test
+    @DisplayName("El historial de pedidos de un usuario y la carga de sus detalles deberían usar índices")
+    void historialDePedidos() {
+        assertSinSeqScan(() -> {
+            Page<Pedido> pagina = pedidoRepository.findByUsuarioId(42L,
+                    PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "fechaCreacion")));
+            assertTrue(pagina.getTotalElements() > 20);
+            // Lo mismo que recorre PedidoService al mapear la página: detalles y producto de cada línea
+            pagina.forEach(pedido -> pedido.getDetalles().forEach(detalle -> detalle.getProducto().getNombre()));
+        });
+    }
+
+    @Test
+    @DisplayName("Un pedido reciente por ID y la comprobación de su propietario deberían usar la clave primaria")
+    void pedidoRecientePorId() {
+        assertSinSeqScan(() -> {
+            Pedido pedido = pedidoRepository.findById((long) PEDIDOS - 10).orElseThrow();
+            pedido.getDetalles().forEach(detalle -> detalle.getProducto().getNombre());
+            assertTrue(pedidoRepository.existsByIdAndUsuarioId(pedido.getId(), pedido.getUsuario().getId()));
+        });
+    }
+
+    @Test
+    @DisplayName("Los pedidos archivados deberían consultarse por ID y por usuario con índices")
+    void pedidosArchivados() {
+        assertSinSeqScan(() -> {
+            assertTrue(pedidoArchivadoRepository.findById(100L).orElseThrow().getDetalles().size() >= 1);
+            pedidoArchivadoRepository.existsByIdAndUsuarioId(100L, 42L);
+            pedidoArchivadoRepository.countByUsuarioId(42L);
+            pedidoArchivadoRepository.findByUsuarioId(42L, PageRequest.of(0, 20,
+                    Sort.by(Sort.Direction.DESC, "fechaCreacion")));
+        });
+    }
+
+    @Test
+    @DisplayName("El bloqueo de productos de un pedido y los ajustes de stock deberían acceder por clave primaria")
+    void consultasDeProductosEnPedidos() {
+        assertSinSeqScan(() -> {
+            productoRepository.findAllById(List.of(17L, 4_200L, 350L));
+            productoRepository.findNivelesDeStock(List.of(17L, 350L));
+            productoRepository.ajustarStockEnLote(new TreeMap<>(Map.of(17L, 5, 350L, -1)));
+        });
+    }
+
+    @Test
+    @DisplayName("Los productos más vendidos de los últimos 30 días deberían resolverse con índices")
+    void productosMasVendidos() {
+        assertSinSeqScan(() -> {
+            List<Long> primerPedido = pedidoRepository.findIdsDesde(LocalDateTime.now().minusDays(30), PageRequest.of(0, 1));
+            List<Long> masVendidos = detallePedidoRepository.findProductosMasVendidos(primerPedido.get(0),
+                    PageRequest.of(0, 50));
+            assertFalse(masVendidos.isEmpty());
+        });
+    }
+
+    /**
+     * Ejecuta la acción en una transacción que se revierte y comprueba el plan de cada sentencia ejecutada.
+     */
+    private void assertSinSeqScan(Runnable accion) {
+        registro.limpiar();
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            estado.setRollbackOnly();
+            accion.run();
+        });
+        List<RegistroSentencias.Sentencia> sentencias = registro.sentencias();
+        assertFalse(sentencias.isEmpty(), "No se capturó ninguna sentencia");
+
+        List<String> problemas = new ArrayList<>();
+        for (RegistroSentencias.Sentencia sentencia : sentencias) {
+            if (sentencia.sql().stripLeading().toLowerCase().startsWith("insert")) {
+                continue;
+            }
+            JsonNode plan = explicar(sentencia);
+            List<String> tablas = new ArrayList<>();
+            buscarSeqScan(plan, tablas);
+            if (!tablas.isEmpty()) {
+                problemas.add("Seq Scan sobre " + tablas + " en: " + sentencia.sql() + "\n" + plan.toPrettyString());
+            }
+        }
+        assertTrue(problemas.isEmpty(), String.join("\n\n", problemas));
+    }
+
+    private JsonNode explicar(RegistroSentencias.Sentencia sentencia) {
+        String json = jdbcTemplate.query("EXPLAIN (FORMAT JSON) " + sentencia.sql(),
+                ps -> {
+                    for (Map.Entry<Integer, Object> parametro : sentencia.parametros().entrySet()) {
+                        ps.setObject(parametro.getKey(), parametro.getValue());
+                    }
+                },
+                rs -> rs.next() ? rs.getString(1) : null);
+        try {
+            return objectMapper.readTree(json).get(0).get("Plan");
+        } catch (Exception ex) {
+            throw new IllegalStateException("Plan no válido: " + json, ex);
+        }
+    }
+
+    private void buscarSeqScan(JsonNode nodo, List<String> tablas) {
+        if ("Seq Scan".equals(nodo.path("Node Type").asText())) {
+            String tabla = nodo.path("Relation Name").asText();
+            Double filasTabla = jdbcTemplate.queryForObject(
+                    "SELECT reltuples FROM pg_class WHERE oid = ?::regclass", Double.class, tabla);
+            if (nodo.path("Plan Rows").asDouble() < FRACCION_RECORRIDO_COMPLETO * filasTabla) {
+                tablas.add(tabla);
+            }
+        }
+        for (JsonNode hijo : nodo.path("Plans")) {
+            buscarSeqScan(hijo, tablas);
+        }
+    }
+
+    @TestConfiguration
+    @Import({InvalidadorCacheUsuarios.class, CacheUsuariosAutenticados.class, CacheCredencialesVerificadas.class,
+            BusInvalidacion.class})
+    static class Configuracion {
+
+        // Dependencias del listener de la entidad Usuario, que no forman parte del slice JPA
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        TransporteLocal transporteInvalidaciones() {
+            return new TransporteLocal();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        RegistroSentencias registroSentencias() {
+            return new RegistroSentencias();
+        }
+
+        @Bean
+        static BeanPostProcessor registrarSentenciasDelDataSource(ObjectProvider<RegistroSentencias> registro) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? registro.getObject().envolver(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Captura el SQL de las sentencias preparadas que se ejecutan y los parámetros con que se ejecutan.
+     * De un lote solo se guarda la primera ejecución.
+     */
+    static class RegistroSentencias {
+
+        record Sentencia(String sql, Map<Integer, Object> parametros) {
+        }
+
+        private final List<Sentencia> sentencias = new CopyOnWriteArrayList<>();
+
+        void limpiar() {
+            sentencias.clear();
+        }
+
+        List<Sentencia> sentencias() {
+            return List.copyOf(sentencias);
+        }
+
+        DataSource envolver(DataSource dataSource) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return conexion(super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String usuario, String contrasena) throws SQLException {
+                    return conexion(super.getConnection(usuario, contrasena));
+                }
+            };
+        }
+
+        private Connection conexion(Connection conexion) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, metodo, args) -> {
+                        Object resultado = invocar(conexion, metodo, args);
+                        if (metodo.getName().equals("prepareStatement") && !((String) args[0]).startsWith("EXPLAIN")) {
+                            return sentencia((PreparedStatement) resultado, (String) args[0]);
+                        }
+                        return resultado;
+                    });
+        }
+
+        private PreparedStatement sentencia(PreparedStatement sentencia, String sql) {
+            Map<Integer, Object> parametros = new TreeMap<>();
+            boolean[] enLote = {false};
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, metodo, args) -> {
+                        String nombre = metodo.getName();
+                        if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                            parametros.put(indice, nombre.equals("setNull") ? null : args[1]);
+                        } else if (nombre.equals("addBatch") && !enLote[0]) {
+                            enLote[0] = true;
+                            sentencias.add(new Sentencia(sql, new TreeMap<>(parametros)));
+                        } else if (nombre.startsWith("execute") && !nombre.equals("executeBatch")) {
+                            sentencias.add(new Sentencia(sql, new TreeMap<>(parametros)));
+                        }
+                        return invocar(sentencia, metodo, args);
+                    });
+        }
+
+        private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+            try {
+                return metodo.invoke(destino, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
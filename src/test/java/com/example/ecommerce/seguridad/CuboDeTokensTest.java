@@ -0,0 +1,79 @@
+package com.example.ecommerce.seguridad;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para CuboDeTokens.
+ * El tiempo se simula pasando instantes explícitos en nanosegundos.
+ */
+class CuboDeTokensTest {
+
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Debería admitir una ráfaga hasta la capacidad y rechazar la siguiente petición")
+    void deberiaAdmitirRafagaHastaLaCapacidad() {
+        CuboDeTokens cubo = new CuboDeTokens(3, 1.0, 0);
+
+        assertEquals(0, cubo.intentarConsumir(0));
+        assertEquals(0, cubo.intentarConsumir(0));
+        assertEquals(0, cubo.intentarConsumir(0));
+        long espera = cubo.intentarConsumir(0);
+
+        assertTrue(espera > 0);
+        assertTrue(espera <= SEGUNDO);
+    }
+
+    @Test
+    @DisplayName("Debería reponer tokens con el tiempo sin superar la capacidad")
+    void deberiaReponerTokensConElTiempo() {
+        CuboDeTokens cubo = new CuboDeTokens(2, 1.0, 0);
+        cubo.intentarConsumir(0);
+        cubo.intentarConsumir(0);
+
+        // Tras 10 segundos solo se recuperan 2 tokens (la capacidad)
+        long despues = 10 * SEGUNDO;
+        assertEquals(0, cubo.intentarConsumir(despues));
+        assertEquals(0, cubo.intentarConsumir(despues));
+        assertTrue(cubo.intentarConsumir(despues) > 0);
+    }
+
+    @Test
+    @DisplayName("Debería admitir exactamente la capacidad aunque muchos hilos consuman a la vez")
+    void deberiaAdmitirLaCapacidadConHilosConcurrentes() throws Exception {
+        CuboDeTokens cubo = new CuboDeTokens(10_000, 1.0, 0);
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> admitidas = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                admitidas.add(hilos.submit(() -> {
+                    int consumidos = 0;
+                    for (int j = 0; j < 5_000; j++) {
+                        if (cubo.intentarConsumir(0) == 0) {
+                            consumidos++;
+                        }
+                    }
+                    return consumidos;
+                }));
+            }
+
+            int total = 0;
+            for (Future<Integer> admitidasHilo : admitidas) {
+                total += admitidasHilo.get();
+            }
+            assertEquals(10_000, total);
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.ecommerce.seguridad;
+
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.repositorios.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba contra un PostgreSQL real que bloquear, deshabilitar o cambiar la contraseña de un usuario lo expulsa
+ * de las caches de seguridad: la siguiente autenticación carga el estado nuevo en lugar del UserDetails cacheado.
+ * Requiere Docker; sin él la clase se omite.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class InvalidadorCacheUsuariosTest {
+
+    private static final String CONTRASENA = "secreto123";
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private CacheUsuariosAutenticados cacheUsuarios;
+
+    @Autowired
+    private CacheCredencialesVerificadas cacheCredenciales;
+
+    @Autowired
+    private CodificadorContrasenaAislado codificadorContrasena;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String nombreUsuario;
+
+    @BeforeEach
+    void setUp() {
+        // Usuario autenticado una vez: queda en la cache de usuarios y en la de credenciales verificadas
+        nombreUsuario = "cacheado-" + UUID.randomUUID();
+        Usuario usuario = new Usuario();
+        usuario.setNombreUsuario(nombreUsuario);
+        usuario.setContrasena(codificadorContrasena.encode(CONTRASENA));
+        usuario.setRol(Rol.USER);
+        usuarioRepository.save(usuario);
+        autenticar(CONTRASENA);
+        assertNotNull(cacheUsuarios.getUserFromCache(nombreUsuario));
+    }
+
+    private Authentication autenticar(String contrasena) {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(nombreUsuario, contrasena));
+    }
+
+    private Usuario usuarioActual() {
+        return usuarioRepository.findByNombreUsuario(nombreUsuario).orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Debería rechazar a un usuario cacheado en cuanto se bloquea su cuenta")
+    void deberiaRechazarUsuarioBloqueado() {
+        // Arrange
+        Usuario usuario = usuarioActual();
+        usuario.setCuentaBloqueada(true);
+
+        // Act
+        usuarioRepository.save(usuario);
+
+        // Assert
+        assertNull(cacheUsuarios.getUserFromCache(nombreUsuario));
+        assertThrows(LockedException.class, () -> autenticar(CONTRASENA));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar a un usuario cacheado en cuanto se deshabilita")
+    void deberiaRechazarUsuarioDeshabilitado() {
+        // Arrange
+        Usuario usuario = usuarioActual();
+        usuario.setHabilitado(false);
+
+        // Act
+        usuarioRepository.save(usuario);
+
+        // Assert
+        assertNull(cacheUsuarios.getUserFromCache(nombreUsuario));
+        assertThrows(DisabledException.class, () -> autenticar(CONTRASENA));
+    }
+
+    @Test
+    @DisplayName("Debería aceptar solo la contraseña nueva tras cambiarla")
+    void deberiaAceptarSoloContrasenaNueva() {
+        // Arrange
+        Usuario usuario = usuarioActual();
+        usuario.setContrasena(codificadorContrasena.encode("nueva456"));
+
+        // Act
+        usuarioRepository.save(usuario);
+
+        // Assert
+        assertNull(cacheUsuarios.getUserFromCache(nombreUsuario));
+        assertThrows(BadCredentialsException.class, () -> autenticar(CONTRASENA));
+        assertTrue(autenticar("nueva456").isAuthenticated());
+        assertEquals(usuarioActual().getContrasena(), cacheUsuarios.getUserFromCache(nombreUsuario).getPassword());
+    }
+
+    @Test
+    @DisplayName("Debería autenticar las peticiones HTTP Basic con las caches de seguridad")
+    void deberiaUsarLasCachesEnHttpBasic() throws Exception {
+        // Arrange
+        cacheUsuarios.removeUserFromCache(nombreUsuario);
+
+        // Act
+        mockMvc.perform(get("/api/productos").with(httpBasic(nombreUsuario, CONTRASENA)))
+                .andExpect(status().isOk());
+
+        // Assert: la petición cargó al usuario en la cache, como el login
+        assertNotNull(cacheUsuarios.getUserFromCache(nombreUsuario));
+        assertTrue(cacheCredenciales.estaVerificada(CONTRASENA, usuarioActual().getContrasena()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.ecommerce.seguridad;
+
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del límite de tasa por usuario y de su filtro.
+ */
+class LimitadorTasaPeticionesTest {
+
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LimitadorTasaPeticiones limitador;
+
+    @BeforeEach
+    void setUp() {
+        // Pedidos: USER 2 de ráfaga y 1 por segundo, ADMIN 5 y 10 por segundo
+        limitador = new LimitadorTasaPeticiones(true, 2, 60, 5, 600, 100, 1200, 200, 3000, 1, 60, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Debería limitar cada usuario por separado con los límites de su rol")
+    void deberiaLimitarPorUsuarioYRol() {
+        LimitadorTasaPeticiones.Regla pedidos = LimitadorTasaPeticiones.Regla.PEDIDOS;
+
+        assertEquals(0, limitador.consumir(pedidos, 1L, Rol.USER, 0));
+        assertEquals(0, limitador.consumir(pedidos, 1L, Rol.USER, 0));
+        long espera = limitador.consumir(pedidos, 1L, Rol.USER, 0);
+        // Otro usuario y el catálogo del mismo usuario tienen sus propios cubos
+        assertEquals(0, limitador.consumir(pedidos, 2L, Rol.USER, 0));
+        assertEquals(0, limitador.consumir(LimitadorTasaPeticiones.Regla.CATALOGO, 1L, Rol.USER, 0));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limitador.consumir(pedidos, 3L, Rol.ADMIN, 0));
+        }
+
+        assertTrue(espera > 0 && espera <= SEGUNDO);
+        assertTrue(limitador.consumir(pedidos, 3L, Rol.ADMIN, 0) > 0);
+        assertEquals(2, meterRegistry.get("limite.tasa.rechazos").tag("regla", "pedidos").counter().count());
+    }
+
+    @Test
+    @DisplayName("Debería responder 429 con Retry-After y no continuar la cadena al agotar el cubo")
+    void deberiaResponder429ConRetryAfter() throws Exception {
+        // Arrange
+        Usuario usuario = new Usuario();
+        usuario.setId(7L);
+        usuario.setRol(Rol.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(usuario, null, usuario.getAuthorities()));
+        FiltroLimiteTasa filtro = new FiltroLimiteTasa(limitador);
+
+        // Act
+        MockHttpServletResponse[] respuestas = new MockHttpServletResponse[3];
+        MockFilterChain[] cadenas = new MockFilterChain[3];
+        for (int i = 0; i < 3; i++) {
+            respuestas[i] = new MockHttpServletResponse();
+            cadenas[i] = new MockFilterChain();
+            filtro.doFilter(new MockHttpServletRequest("POST", "/api/pedidos"), respuestas[i], cadenas[i]);
+        }
+        MockHttpServletResponse consultaPedido = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/api/pedidos/1"), consultaPedido, new MockFilterChain());
+
+        // Assert
+        assertEquals(200, respuestas[1].getStatus());
+        assertNotNull(cadenas[1].getRequest());
+        assertEquals(429, respuestas[2].getStatus());
+        assertEquals("1", respuestas[2].getHeader("Retry-After"));
+        assertNull(cadenas[2].getRequest());
+        assertEquals(200, consultaPedido.getStatus());
+    }
+
+    @Test
+    @DisplayName("Debería descartar solo los cubos que ya se han repuesto por completo")
+    void deberiaDescartarLosCubosInactivos() {
+        long ahora = System.nanoTime();
+        limitador.consumir(LimitadorTasaPeticiones.Regla.REFRESCO, "10.0.0.1", null, ahora - 10 * SEGUNDO);
+        limitador.consumir(LimitadorTasaPeticiones.Regla.REFRESCO, "10.0.0.2", null, ahora);
+
+        limitador.descartarCubosInactivos();
+
+        assertEquals(1.0, meterRegistry.get("limite.tasa.cubos").gauge().value());
+        assertTrue(limitador.consumir(LimitadorTasaPeticiones.Regla.REFRESCO, "10.0.0.2", null, ahora) > 0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.UsuarioRegistroDTO;
+import com.example.ecommerce.excepciones.UsuarioYaExisteException;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.repositorios.UsuarioRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Clase de pruebas unitarias para AuthService.
+ * Usa Mockito para simular las dependencias.
+ */
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private ServicioTokenJwt servicioTokenJwt;
+
+    @InjectMocks
+    private AuthService authService;
+
+    private UsuarioRegistroDTO registro;
+
+    @BeforeEach
+    void setUp() {
+        registro = new UsuarioRegistroDTO();
+        registro.setNombreUsuario("ana");
+        registro.setContrasena("secreto123");
+        registro.setRol(Rol.USER);
+        when(passwordEncoder.encode("secreto123")).thenReturn("hash");
+    }
+
+    private static DataIntegrityViolationException violacion(String restriccion) {
+        return new DataIntegrityViolationException("violación de restricción",
+                new ConstraintViolationException("violación de restricción", new SQLException(), restriccion));
+    }
+
+    @Test
+    @DisplayName("Debería informar de usuario existente cuando se viola la restricción única del nombre")
+    void deberiaLanzarUsuarioYaExisteConNombreDuplicado() {
+        // Arrange
+        when(usuarioRepository.saveAndFlush(any())).thenThrow(violacion("uk_usuarios_nombre_usuario"));
+
+        // Act & Assert
+        UsuarioYaExisteException excepcion = assertThrows(UsuarioYaExisteException.class,
+                () -> authService.registrarUsuario(registro));
+        assertTrue(excepcion.getMessage().contains("'ana'"));
+    }
+
+    @Test
+    @DisplayName("Debería propagar las violaciones de otras restricciones sin convertirlas en usuario existente")
+    void deberiaPropagarOtrasViolaciones() {
+        // Arrange
+        DataIntegrityViolationException otra = violacion("usuarios_rol_check");
+        when(usuarioRepository.saveAndFlush(any())).thenThrow(otra);
+
+        // Act & Assert
+        assertSame(otra, assertThrows(DataIntegrityViolationException.class,
+                () -> authService.registrarUsuario(registro)));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.DetallePedidoCreacionDTO;
+import com.example.ecommerce.dto.PedidoCreacionDTO;
+import com.example.ecommerce.dto.ProvisionUsuariosDTO;
+import com.example.ecommerce.dto.UsuarioRegistroDTO;
+import com.example.ecommerce.modelo.entidades.Producto;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.modelo.valores.Dinero;
+import com.example.ecommerce.repositorios.ProductoRepository;
+import com.example.ecommerce.repositorios.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba contra un PostgreSQL real que la cache de segundo nivel de Hibernate nunca sirve un stock ya
+ * sustituido: ni después de crearPedido (escritura de Hibernate) ni después de los ajustes de stock por JDBC,
+ * tampoco si otra transacción lee el producto mientras el ajuste está sin confirmar. Comprueba también que la
+ * cache de consultas de findByNombreUsuario no conserva un "no existe" tras un alta masiva.
+ * Requiere Docker; sin él la clase se omite.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class CacheSegundoNivelTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ServicioProvisionUsuarios servicioProvisionUsuarios;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private Producto crearProducto(int stock) {
+        Producto producto = new Producto();
+        producto.setNombre("Producto cache " + UUID.randomUUID());
+        producto.setPrecio(Dinero.deCentimos(1_000));
+        producto.setCantidadEnStock(stock);
+        return productoRepository.save(producto);
+    }
+
+    /**
+     * Lee el producto en su propia transacción (de la cache de segundo nivel si está en ella).
+     */
+    private int stockLeido(long productoId) {
+        return transactionTemplate.execute(estado -> productoRepository.findById(productoId).orElseThrow()
+                .getCantidadEnStock());
+    }
+
+    private boolean enCache(long productoId) {
+        return entityManagerFactory.getCache().contains(Producto.class, productoId);
+    }
+
+    @Test
+    @DisplayName("Debería leer el stock descontado por crearPedido aunque el producto estuviera en la cache")
+    void deberiaLeerStockDescontadoPorCrearPedido() {
+        // Arrange
+        Usuario usuario = new Usuario();
+        usuario.setNombreUsuario("cache-" + UUID.randomUUID());
+        usuario.setContrasena("hash");
+        usuario.setRol(Rol.USER);
+        usuario = usuarioRepository.save(usuario);
+        Producto producto = crearProducto(10);
+        assertEquals(10, stockLeido(producto.getId()));
+        assertTrue(enCache(producto.getId()));
+
+        DetallePedidoCreacionDTO detalle = new DetallePedidoCreacionDTO();
+        detalle.setProductoId(producto.getId());
+        detalle.setCantidad(3);
+        PedidoCreacionDTO pedido = new PedidoCreacionDTO();
+        pedido.setUsuarioId(usuario.getId());
+        pedido.setDetalles(List.of(detalle));
+
+        // Act
+        pedidoService.crearPedido(pedido);
+
+        // Assert
+        assertEquals(7, stockLeido(producto.getId()));
+        assertEquals(7, stockLeido(producto.getId()));
+        assertTrue(enCache(producto.getId()));
+    }
+
+    @Test
+    @DisplayName("Debería no guardar en la cache el stock anterior leído mientras un ajuste JDBC está sin confirmar")
+    void deberiaNoCachearStockAnteriorDuranteAjusteJdbc() {
+        // Arrange
+        Producto producto = crearProducto(10);
+        assertEquals(10, stockLeido(producto.getId()));
+
+        // Act: otra transacción lee el producto entre el UPDATE y el commit del ajuste
+        int stockDuranteAjuste = transactionTemplate.execute(estado -> {
+            productoRepository.ajustarStockEnLote(Map.of(producto.getId(), -4));
+            return CompletableFuture.supplyAsync(() -> stockLeido(producto.getId())).join();
+        });
+
+        // Assert: la lectura concurrente vio el valor confirmado, pero no lo dejó en la cache
+        assertEquals(10, stockDuranteAjuste);
+        assertEquals(6, stockLeido(producto.getId()));
+        assertEquals(6, stockLeido(producto.getId()));
+    }
+
+    @Test
+    @DisplayName("Debería encontrar por nombre un usuario dado de alta después de cachear que no existía")
+    void deberiaEncontrarUsuarioProvisionadoTrasConsultaCacheadaVacia() {
+        // Arrange
+        String nombreUsuario = "provision-" + UUID.randomUUID();
+        assertTrue(usuarioRepository.findByNombreUsuario(nombreUsuario).isEmpty());
+        assertTrue(usuarioRepository.findByNombreUsuario(nombreUsuario).isEmpty());
+
+        UsuarioRegistroDTO registro = new UsuarioRegistroDTO();
+        registro.setNombreUsuario(nombreUsuario);
+        registro.setContrasena("secreto123");
+        registro.setRol(Rol.USER);
+        ProvisionUsuariosDTO provision = new ProvisionUsuariosDTO();
+        provision.setUsuarios(List.of(registro));
+
+        // Act
+        servicioProvisionUsuarios.provisionarUsuarios(provision);
+
+        // Assert
+        assertTrue(usuarioRepository.findByNombreUsuario(nombreUsuario).isPresent());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.DetallePedidoCreacionDTO;
+import com.example.ecommerce.dto.PedidoCreacionDTO;
+import com.example.ecommerce.modelo.entidades.Producto;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.modelo.valores.Dinero;
+import com.example.ecommerce.repositorios.ProductoRepository;
+import com.example.ecommerce.repositorios.UsuarioRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba contra un PostgreSQL real que los pedidos concurrentes sobre los mismos productos no se bloquean
+ * mutuamente: crearPedido bloquea las filas de los productos en orden de ID, sea cual sea el orden de las líneas.
+ * Requiere Docker; sin él la clase se omite.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class PedidoServiceConcurrenciaTest {
+
+    private static final int PEDIDOS_POR_HILO = 50;
+    private static final int STOCK_INICIAL = 1_000;
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Producto crearProducto() {
+        Producto producto = new Producto();
+        producto.setNombre("Producto concurrente " + UUID.randomUUID());
+        producto.setPrecio(Dinero.deCentimos(500));
+        producto.setCantidadEnStock(STOCK_INICIAL);
+        return productoRepository.save(producto);
+    }
+
+    private static PedidoCreacionDTO pedido(long usuarioId, long... productoIds) {
+        PedidoCreacionDTO pedido = new PedidoCreacionDTO();
+        pedido.setUsuarioId(usuarioId);
+        pedido.setDetalles(Arrays.stream(productoIds).mapToObj(productoId -> {
+            DetallePedidoCreacionDTO detalle = new DetallePedidoCreacionDTO();
+            detalle.setProductoId(productoId);
+            detalle.setCantidad(1);
+            return detalle;
+        }).toList());
+        return pedido;
+    }
+
+    @Test
+    @DisplayName("Debería completar los pedidos concurrentes con los mismos productos en orden inverso")
+    void deberiaCompletarPedidosConProductosEnOrdenInverso() throws Exception {
+        // Arrange
+        Usuario usuario = new Usuario();
+        usuario.setNombreUsuario("concurrente-" + UUID.randomUUID());
+        usuario.setContrasena("hash");
+        usuario.setRol(Rol.USER);
+        long usuarioId = usuarioRepository.save(usuario).getId();
+        long productoA = crearProducto().getId();
+        long productoB = crearProducto().getId();
+        // Cada iteración arranca los dos pedidos a la vez
+        CyclicBarrier salida = new CyclicBarrier(2);
+
+        // Act
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> resultados = List.of(
+                    hilos.submit(() -> crearPedidos(salida, pedido(usuarioId, productoA, productoB))),
+                    hilos.submit(() -> crearPedidos(salida, pedido(usuarioId, productoB, productoA))));
+
+            // Assert: ninguno falla (un deadlock aborta una de las transacciones)
+            for (Future<?> resultado : resultados) {
+                resultado.get();
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+        int esperado = STOCK_INICIAL - 2 * PEDIDOS_POR_HILO;
+        assertEquals(esperado, productoRepository.findById(productoA).orElseThrow().getCantidadEnStock());
+        assertEquals(esperado, productoRepository.findById(productoB).orElseThrow().getCantidadEnStock());
+    }
+
+    private Void crearPedidos(CyclicBarrier salida, PedidoCreacionDTO pedido) throws Exception {
+        for (int i = 0; i < PEDIDOS_POR_HILO; i++) {
+            salida.await();
+            pedidoService.crearPedido(pedido);
+        }
+        return null;
+    }
+}
@@ -3,16 +3,27 @@ package com.example.ecommerce.servicios;
 import com.example.ecommerce.dto.DetallePedidoCreacionDTO;
 import com.example.ecommerce.dto.PedidoCreacionDTO;
 import com.example.ecommerce.dto.PedidoRespuestaDTO;
+import com.example.ecommerce.eventos.EventoCambio;
+import com.example.ecommerce.eventos.PublicadorEventos;
+import com.example.ecommerce.eventos.TipoEvento;
+import com.example.ecommerce.excepciones.PeticionInvalidaException;
 import com.example.ecommerce.excepciones.StockInsuficienteException;
 import com.example.ecommerce.mapper.PedidoMapper;
+import com.example.ecommerce.metricas.MetricasPedido;
 // CORRECCIÓN: Se elimina el import incorrecto de 'com.example.ecommerce.model.entity.DetallePedido'
+import com.example.ecommerce.modelo.entidades.LineaPedidoArchivada;
 import com.example.ecommerce.modelo.entidades.Pedido;
+import com.example.ecommerce.modelo.entidades.PedidoArchivado;
 import com.example.ecommerce.modelo.entidades.Producto;
 import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.entidades.enums.EstadoPedido;
 import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.modelo.valores.Dinero;
+import com.example.ecommerce.repositorios.PedidoArchivadoRepository;
 import com.example.ecommerce.repositorios.PedidoRepository;
 import com.example.ecommerce.repositorios.ProductoRepository;
 import com.example.ecommerce.repositorios.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -27,8 +38,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -37,6 +50,7 @@ import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -49,15 +63,29 @@ class PedidoServiceTest {
     @Mock
     private PedidoRepository pedidoRepository;
 
+    @Mock
+    private PedidoArchivadoRepository pedidoArchivadoRepository;
+
     @Mock
     private ProductoRepository productoRepository;
 
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    @Mock
+    private PublicadorEventos publicadorEventos;
+
+    @Mock
+    private VistaDisponibilidadProductos vistaDisponibilidad;
+
     @Spy
     private PedidoMapper pedidoMapper = Mappers.getMapper(PedidoMapper.class);
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private MetricasPedido metricasPedido = new MetricasPedido(meterRegistry, 100);
+
     @InjectMocks
     private PedidoService pedidoService;
 
@@ -75,13 +103,13 @@ class PedidoServiceTest {
         producto1 = new Producto();
         producto1.setId(101L);
         producto1.setNombre("Laptop");
-        producto1.setPrecio(new BigDecimal("1000.00"));
+        producto1.setPrecio(Dinero.de(new BigDecimal("1000.00")));
         producto1.setCantidadEnStock(5);
 
         producto2 = new Producto();
         producto2.setId(102L);
         producto2.setNombre("Mouse");
-        producto2.setPrecio(new BigDecimal("25.00"));
+        producto2.setPrecio(Dinero.de(new BigDecimal("25.00")));
         producto2.setCantidadEnStock(10);
     }
 
@@ -157,6 +185,21 @@ class PedidoServiceTest {
         assertEquals(stockInicialProducto2 - 3, producto2Guardado.getCantidadEnStock()); // 10 - 3 = 7
 
         verify(pedidoRepository, times(1)).save(any(Pedido.class));
+
+        // Eventos del outbox: el pedido y el stock resultante de cada producto, en orden de ID
+        ArgumentCaptor<List<EventoCambio>> captorEventos = ArgumentCaptor.forClass(List.class);
+        verify(publicadorEventos).publicar(captorEventos.capture());
+        List<EventoCambio> eventos = captorEventos.getValue();
+        assertEquals(List.of(TipoEvento.PEDIDO_CREADO, TipoEvento.STOCK_ACTUALIZADO, TipoEvento.STOCK_ACTUALIZADO),
+                eventos.stream().map(EventoCambio::tipo).toList());
+        assertEquals(EventoCambio.stock(101L, 3), eventos.get(1));
+        assertEquals(EventoCambio.stock(102L, 7), eventos.get(2));
+
+        // Métricas del pedido: una medición por fase, dos líneas y el importe total
+        assertEquals(1, meterRegistry.get("pedidos.creacion.fase").tag("fase", "persistencia").timer().count());
+        assertEquals(1, meterRegistry.get("pedidos.creacion").tag("resultado", "exito").timer().count());
+        assertEquals(2.0, meterRegistry.get("pedidos.lineas").summary().totalAmount());
+        assertEquals(2075.0, meterRegistry.get("pedidos.valor").summary().totalAmount());
     }
 
     @Test
@@ -184,6 +227,38 @@ class PedidoServiceTest {
         assertTrue(excepcion.getMessage().contains("Stock insuficiente para " + producto1.getNombre()));
         verify(pedidoRepository, never()).save(any(Pedido.class));
         verify(productoRepository, never()).saveAll(any());
+        verifyNoInteractions(publicadorEventos);
+        verify(vistaDisponibilidad).registrarStockLeido(producto1.getId(), 1);
+        assertEquals(1, meterRegistry.get("pedidos.rechazos")
+                .tags("motivo", "stock_insuficiente", "producto", "101").counter().count());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar como petición inválida un pedido cuyo total supera el importe máximo")
+    void deberiaRechazarPedidoConTotalFueraDeRango() {
+        // Arrange: precio máximo admitido por la API (16 cifras enteras) por una cantidad en stock
+        producto1.setPrecio(Dinero.de(new BigDecimal("9999999999999999.99")));
+        DetallePedidoCreacionDTO detalle = new DetallePedidoCreacionDTO();
+        detalle.setProductoId(producto1.getId());
+        detalle.setCantidad(2);
+
+        PedidoCreacionDTO pedidoDTO = new PedidoCreacionDTO();
+        pedidoDTO.setUsuarioId(usuario.getId());
+        pedidoDTO.setDetalles(Collections.singletonList(detalle));
+
+        when(usuarioRepository.findById(usuario.getId())).thenReturn(Optional.of(usuario));
+        when(productoRepository.findAllById(List.of(producto1.getId()))).thenReturn(List.of(producto1));
+
+        // Act & Assert
+        PeticionInvalidaException excepcion = assertThrows(PeticionInvalidaException.class, () ->
+                pedidoService.crearPedido(pedidoDTO)
+        );
+
+        assertTrue(excepcion.getMessage().contains("importe máximo"));
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verify(productoRepository, never()).saveAll(any());
+        verifyNoInteractions(publicadorEventos);
+        assertEquals(1, meterRegistry.get("pedidos.creacion").tag("resultado", "peticion_invalida").timer().count());
     }
 
     // Las pruebas para RecursoNoEncontradoException (usuario y producto) se mantienen similares
@@ -240,4 +315,72 @@ class PedidoServiceTest {
         assertEquals("usuarioPrueba", resultado.getContent().get(0).getNombreUsuario());
         verify(pedidoRepository, times(1)).findAll(pageable);
     }
-}
\ No newline at end of file
+
+    private Pedido pedidoReciente(long id) {
+        Pedido pedido = new Pedido();
+        pedido.setId(id);
+        pedido.setUsuario(usuario);
+        pedido.setDetalles(Collections.emptyList());
+        return pedido;
+    }
+
+    private PedidoArchivado pedidoArchivado(long id) {
+        LineaPedidoArchivada linea = new LineaPedidoArchivada(101L, "Laptop", 2, new BigDecimal("1000.00"));
+        return new PedidoArchivado(id, LocalDateTime.of(2024, 1, 15, 10, 0), Dinero.de(new BigDecimal("2000.00")),
+                EstadoPedido.CREADO, null, usuario, List.of(linea));
+    }
+
+    @Test
+    @DisplayName("Debería buscar en el archivo un pedido que ya no está entre los recientes")
+    void deberiaObtenerPedidoArchivadoPorId() {
+        // Arrange
+        when(pedidoRepository.findById(7L)).thenReturn(Optional.empty());
+        when(pedidoArchivadoRepository.findById(7L)).thenReturn(Optional.of(pedidoArchivado(7L)));
+
+        // Act
+        PedidoRespuestaDTO resultado = pedidoService.obtenerPedidoPorId(7L);
+
+        // Assert
+        assertEquals(7L, resultado.getId());
+        assertEquals("usuarioPrueba", resultado.getNombreUsuario());
+        assertEquals(1, resultado.getDetalles().size());
+        assertEquals("Laptop", resultado.getDetalles().get(0).getNombreProducto());
+        assertEquals(2, resultado.getDetalles().get(0).getCantidad());
+    }
+
+    @Test
+    @DisplayName("Debería completar la página del historial con pedidos archivados tras los recientes")
+    void deberiaCompletarHistorialConPedidosArchivados() {
+        // Arrange: 7 pedidos recientes y 10 archivados; la segunda página de 5 tiene 2 recientes y 3 archivados
+        Pageable pageable = PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "fechaCreacion"));
+        when(usuarioRepository.existsById(usuario.getId())).thenReturn(true);
+        when(pedidoRepository.findByUsuarioId(usuario.getId(), pageable))
+                .thenReturn(new PageImpl<>(List.of(pedidoReciente(2L), pedidoReciente(1L)), pageable, 7));
+        when(pedidoArchivadoRepository.countByUsuarioId(usuario.getId())).thenReturn(10L);
+        when(pedidoArchivadoRepository.findByUsuarioId(eq(usuario.getId()), any(Pageable.class)))
+                .thenReturn(List.of(pedidoArchivado(-1L), pedidoArchivado(-2L), pedidoArchivado(-3L)));
+
+        // Act
+        Page<PedidoRespuestaDTO> resultado = pedidoService.consultarPedidosDeUsuario(usuario.getId(), pageable);
+
+        // Assert
+        ArgumentCaptor<Pageable> captorArchivo = ArgumentCaptor.forClass(Pageable.class);
+        verify(pedidoArchivadoRepository).findByUsuarioId(eq(usuario.getId()), captorArchivo.capture());
+        assertEquals(0, captorArchivo.getValue().getOffset());
+        assertEquals(3, captorArchivo.getValue().getPageSize());
+        assertEquals(17, resultado.getTotalElements());
+        assertEquals(List.of(2L, 1L, -1L, -2L, -3L),
+                resultado.getContent().stream().map(PedidoRespuestaDTO::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar el historial ordenado por un criterio que intercala recientes y archivados")
+    void deberiaRechazarOrdenQueNoEsCronologico() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 5, Sort.by("total").and(Sort.by("fechaCreacion")));
+
+        // Act & Assert
+        assertThrows(PeticionInvalidaException.class, () -> pedidoService.consultarTodosLosPedidos(pageable));
+        verifyNoInteractions(pedidoRepository, pedidoArchivadoRepository);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.AjusteStockDTO;
+import com.example.ecommerce.dto.AjustesStockDTO;
+import com.example.ecommerce.dto.StockRespuestaDTO;
+import com.example.ecommerce.eventos.EventoCambio;
+import com.example.ecommerce.eventos.PublicadorEventos;
+import com.example.ecommerce.excepciones.PeticionInvalidaException;
+import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
+import com.example.ecommerce.excepciones.StockInsuficienteException;
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.mapper.ProductoMapper;
+import com.example.ecommerce.repositorios.ProductoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Clase de pruebas unitarias para ProductoService.
+ * Usa Mockito para simular las dependencias.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductoServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private PublicadorEventos publicadorEventos;
+
+    @Mock
+    private BusInvalidacion busInvalidacion;
+
+    @Spy
+    private ProductoMapper productoMapper = Mappers.getMapper(ProductoMapper.class);
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ProductoService productoService;
+
+    private static AjusteStockDTO ajuste(Long productoId, int delta) {
+        AjusteStockDTO ajuste = new AjusteStockDTO();
+        ajuste.setProductoId(productoId);
+        ajuste.setDelta(delta);
+        return ajuste;
+    }
+
+    private static AjustesStockDTO lote(AjusteStockDTO... ajustes) {
+        AjustesStockDTO lote = new AjustesStockDTO();
+        lote.setAjustes(Arrays.asList(ajustes));
+        return lote;
+    }
+
+    @Test
+    @DisplayName("Debería consolidar los deltas por producto y devolver el stock resultante")
+    void deberiaAjustarStockEnLote() {
+        // Arrange
+        AjustesStockDTO lote = lote(ajuste(102L, 5), ajuste(101L, 10), ajuste(102L, -2));
+        when(productoRepository.ajustarStockEnLote(any())).thenReturn(new int[]{1, 1});
+        List<StockRespuestaDTO> niveles = List.of(new StockRespuestaDTO(101L, 15), new StockRespuestaDTO(102L, 13));
+        when(productoRepository.findNivelesDeStock(List.of(101L, 102L))).thenReturn(niveles);
+
+        // Act
+        List<StockRespuestaDTO> resultado = productoService.ajustarStock(lote);
+
+        // Assert
+        ArgumentCaptor<Map<Long, Integer>> captorDeltas = ArgumentCaptor.forClass(Map.class);
+        verify(productoRepository).ajustarStockEnLote(captorDeltas.capture());
+        // Los deltas del mismo producto se suman y los IDs se aplican en orden ascendente
+        assertEquals(List.of(101L, 102L), List.copyOf(captorDeltas.getValue().keySet()));
+        assertEquals(10, captorDeltas.getValue().get(101L));
+        assertEquals(3, captorDeltas.getValue().get(102L));
+        assertEquals(niveles, resultado);
+        // Un evento de stock por producto con el nivel resultante
+        verify(publicadorEventos).publicar(List.of(EventoCambio.stock(101L, 15), EventoCambio.stock(102L, 13)));
+    }
+
+    @Test
+    @DisplayName("Debería lanzar StockInsuficienteException si un ajuste deja el stock en negativo")
+    void deberiaLanzarStockInsuficienteExceptionSiElAjusteDejaStockNegativo() {
+        // Arrange
+        AjustesStockDTO lote = lote(ajuste(101L, 4), ajuste(102L, -20));
+        when(productoRepository.ajustarStockEnLote(any())).thenReturn(new int[]{1, 0});
+        when(productoRepository.findNivelesDeStock(List.of(102L))).thenReturn(List.of(new StockRespuestaDTO(102L, 7)));
+
+        // Act & Assert
+        StockInsuficienteException excepcion = assertThrows(StockInsuficienteException.class, () ->
+                productoService.ajustarStock(lote)
+        );
+
+        assertTrue(excepcion.getMessage().contains("[102]"));
+    }
+
+    @Test
+    @DisplayName("Debería lanzar RecursoNoEncontradoException si un producto del lote no existe")
+    void deberiaLanzarRecursoNoEncontradoExceptionSiElProductoNoExiste() {
+        // Arrange
+        AjustesStockDTO lote = lote(ajuste(999L, 3));
+        when(productoRepository.ajustarStockEnLote(any())).thenReturn(new int[]{0});
+        when(productoRepository.findNivelesDeStock(List.of(999L))).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(RecursoNoEncontradoException.class, () -> productoService.ajustarStock(lote));
+    }
+
+    @Test
+    @DisplayName("Debería lanzar PeticionInvalidaException si la suma de los deltas de un producto desborda")
+    void deberiaLanzarPeticionInvalidaExceptionSiLaSumaDeDeltasDesborda() {
+        // Arrange
+        AjustesStockDTO lote = lote(ajuste(101L, Integer.MAX_VALUE), ajuste(101L, 1));
+
+        // Act & Assert
+        PeticionInvalidaException excepcion = assertThrows(PeticionInvalidaException.class, () ->
+                productoService.ajustarStock(lote)
+        );
+
+        assertTrue(excepcion.getMessage().contains("101"));
+        verify(productoRepository, never()).ajustarStockEnLote(any());
+    }
+
+    @Test
+    @DisplayName("Debería lanzar PeticionInvalidaException si el stock resultante se sale del rango de la columna")
+    void deberiaLanzarPeticionInvalidaExceptionSiElStockResultanteDesborda() {
+        // Arrange
+        AjustesStockDTO lote = lote(ajuste(101L, 5));
+        when(productoRepository.ajustarStockEnLote(any()))
+                .thenThrow(new DataIntegrityViolationException("ERROR: integer out of range"));
+
+        // Act & Assert
+        assertThrows(PeticionInvalidaException.class, () -> productoService.ajustarStock(lote));
+        verify(publicadorEventos, never()).publicar(anyList());
+    }
+}
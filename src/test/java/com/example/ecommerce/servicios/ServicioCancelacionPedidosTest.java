@@ -0,0 +1,135 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.CancelacionMasivaRespuestaDTO;
+import com.example.ecommerce.dto.PedidoRespuestaDTO;
+import com.example.ecommerce.eventos.EventoCambio;
+import com.example.ecommerce.eventos.PublicadorEventos;
+import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
+import com.example.ecommerce.modelo.entidades.enums.EstadoPedido;
+import com.example.ecommerce.repositorios.PedidoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de la cancelación de pedidos.
+ */
+@ExtendWith(MockitoExtension.class)
+class ServicioCancelacionPedidosTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private PedidoService pedidoService;
+
+    @Mock
+    private ProductoService productoService;
+
+    @Mock
+    private PublicadorEventos publicadorEventos;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ServicioCancelacionPedidos servicioCancelacion;
+
+    @BeforeEach
+    void setUp() {
+        servicioCancelacion = new ServicioCancelacionPedidos(pedidoRepository, pedidoService, productoService,
+                publicadorEventos, transactionManager, meterRegistry, 500, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        servicioCancelacion.detener();
+    }
+
+    @Test
+    @DisplayName("Debería devolver el stock solo la primera vez que se cancela un pedido")
+    void deberiaDevolverElStockUnaSolaVez() {
+        // Arrange: la segunda cancelación ya no encuentra el pedido en estado CREADO
+        when(pedidoRepository.cancelarPedidos(List.of(7L))).thenReturn(List.of(7L), List.of());
+        when(pedidoRepository.sumarCantidadesPorProducto(List.of(7L))).thenReturn(Map.of(3L, 2, 5L, 1));
+        when(pedidoRepository.existsById(7L)).thenReturn(true);
+        PedidoRespuestaDTO cancelado = new PedidoRespuestaDTO();
+        cancelado.setId(7L);
+        cancelado.setEstado(EstadoPedido.CANCELADO);
+        when(pedidoService.obtenerPedidoPorId(7L)).thenReturn(cancelado);
+
+        // Act
+        servicioCancelacion.cancelarPedido(7L);
+        PedidoRespuestaDTO resultado = servicioCancelacion.cancelarPedido(7L);
+
+        // Assert
+        assertEquals(EstadoPedido.CANCELADO, resultado.getEstado());
+        verify(productoService, times(1)).devolverStock(Map.of(3L, 2, 5L, 1));
+        verify(publicadorEventos, times(1)).publicar(List.of(EventoCambio.pedidoCancelado(7L)));
+        assertEquals(1, meterRegistry.get("pedidos.cancelados").counter().count());
+    }
+
+    @Test
+    @DisplayName("Debería lanzar RecursoNoEncontradoException si el pedido no existe o está archivado")
+    void deberiaLanzarExcepcionSiElPedidoNoExiste() {
+        // Arrange
+        when(pedidoRepository.cancelarPedidos(List.of(99L))).thenReturn(List.of());
+        when(pedidoRepository.existsById(99L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(RecursoNoEncontradoException.class, () -> servicioCancelacion.cancelarPedido(99L));
+        verifyNoInteractions(productoService, publicadorEventos);
+    }
+
+    @Test
+    @DisplayName("Debería cancelar por lotes ordenados y sin repetidos, e informar los pedidos de un lote fallido")
+    void deberiaInformarElProgresoDeUnaCancelacionMasiva() throws Exception {
+        // Arrange: 1200 pedidos distintos (3 lotes); el segundo lote falla y los pedidos 1101-1200 ya estaban cancelados
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 1200).boxed().toList());
+        ids.add(0, 1200L);
+        List<Long> segundoLote = LongStream.rangeClosed(501, 1000).boxed().toList();
+        when(pedidoRepository.cancelarPedidos(anyList())).thenAnswer(invocacion -> {
+            List<Long> lote = invocacion.getArgument(0);
+            if (lote.equals(segundoLote)) {
+                throw new CannotAcquireLockException("deadlock detectado");
+            }
+            return lote.stream().filter(id -> id <= 1100).toList();
+        });
+        when(pedidoRepository.sumarCantidadesPorProducto(anyList())).thenReturn(Map.of(3L, 10));
+
+        // Act
+        CancelacionMasivaRespuestaDTO progreso = servicioCancelacion.iniciarCancelacionMasiva(ids);
+        for (int i = 0; i < 200 && !progreso.isCompletada(); i++) {
+            Thread.sleep(10);
+            progreso = servicioCancelacion.obtenerCancelacionMasiva(progreso.getId());
+        }
+
+        // Assert
+        assertTrue(progreso.isCompletada());
+        assertEquals(1200, progreso.getTotalPedidos());
+        assertEquals(1200, progreso.getProcesados());
+        assertEquals(600, progreso.getCancelados());
+        assertEquals(100, progreso.getOmitidos());
+        assertEquals(segundoLote, progreso.getPedidosFallidos());
+        verify(pedidoRepository, times(3)).cancelarPedidos(anyList());
+        verify(productoService, times(2)).devolverStock(any());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ecommerce.servicios;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias del mantenimiento de particiones y archivo de pedidos.
+ */
+@ExtendWith(MockitoExtension.class)
+class ServicioParticionesPedidosTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ServicioParticionesPedidos servicio;
+
+    @BeforeEach
+    void setUp() {
+        Clock reloj = Clock.fixed(Instant.parse("2026-10-19T03:30:00Z"), ZoneOffset.UTC);
+        servicio = new ServicioParticionesPedidos(jdbcTemplate, reloj, 3, 3);
+    }
+
+    @Test
+    @DisplayName("Debería crear las particiones desde el mes actual hasta los meses adelantados")
+    void deberiaCrearParticionesPorAdelantado() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(), any())).thenReturn(2);
+
+        // Act
+        int creadas = servicio.crearParticiones();
+
+        // Assert
+        assertEquals(2, creadas);
+        verify(jdbcTemplate).queryForObject("SELECT crear_particiones_pedidos(?, ?)", Integer.class,
+                LocalDate.of(2026, 10, 19), LocalDate.of(2027, 1, 19));
+    }
+
+    @Test
+    @DisplayName("Debería archivar solo los meses anteriores a la retención, del más antiguo al más reciente")
+    void deberiaArchivarSoloMesesFueraDeRetencion() {
+        // Arrange: con 3 meses de retención en octubre se conservan julio, agosto, septiembre y octubre
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "pedidos_2026_05", "pedidos_2026_06", "pedidos_2026_07", "pedidos_2026_10", "pedidos_2026_11"));
+        when(jdbcTemplate.queryForObject("SELECT archivar_particion_pedidos(?)", Long.class, LocalDate.of(2026, 5, 1)))
+                .thenReturn(120L);
+        when(jdbcTemplate.queryForObject("SELECT archivar_particion_pedidos(?)", Long.class, LocalDate.of(2026, 6, 1)))
+                .thenReturn(80L);
+
+        // Act
+        long archivados = servicio.archivarMesesAntiguos();
+
+        // Assert
+        assertEquals(200L, archivados);
+        verify(jdbcTemplate, times(2)).queryForObject(eq("SELECT archivar_particion_pedidos(?)"), eq(Long.class), any());
+    }
+}
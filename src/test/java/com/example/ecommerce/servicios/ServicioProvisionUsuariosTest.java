@@ -0,0 +1,88 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.ProvisionUsuariosDTO;
+import com.example.ecommerce.dto.ProvisionUsuariosRespuestaDTO;
+import com.example.ecommerce.dto.UsuarioDuplicadoDTO;
+import com.example.ecommerce.dto.UsuarioRegistroDTO;
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import com.example.ecommerce.repositorios.UsuarioRepository;
+import com.example.ecommerce.seguridad.CodificadorContrasenaAislado;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Clase de pruebas unitarias para ServicioProvisionUsuarios.
+ * Usa Mockito para simular las dependencias.
+ */
+@ExtendWith(MockitoExtension.class)
+class ServicioProvisionUsuariosTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private CodificadorContrasenaAislado codificadorContrasena;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private BusInvalidacion busInvalidacion;
+
+    private ServicioProvisionUsuarios servicioProvisionUsuarios;
+
+    @BeforeEach
+    void setUp() {
+        // Lotes de 2 filas para ejercitar el recorrido por lotes con pocos datos
+        servicioProvisionUsuarios = new ServicioProvisionUsuarios(usuarioRepository, codificadorContrasena, transactionTemplate,
+                busInvalidacion, 2);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(codificadorContrasena.codificarTodas(anyList())).thenAnswer(invocation ->
+                invocation.<List<String>>getArgument(0).stream().map(c -> "hash-" + c).toList());
+    }
+
+    private static UsuarioRegistroDTO usuario(String nombre) {
+        UsuarioRegistroDTO dto = new UsuarioRegistroDTO();
+        dto.setNombreUsuario(nombre);
+        dto.setContrasena("secreto-" + nombre);
+        dto.setRol(Rol.USER);
+        return dto;
+    }
+
+    @Test
+    @DisplayName("Debería informar por fila los usuarios rechazados por la restricción única")
+    void deberiaInformarDuplicadosPorFila() {
+        // Arrange
+        ProvisionUsuariosDTO dto = new ProvisionUsuariosDTO();
+        dto.setUsuarios(List.of(usuario("ana"), usuario("luis"), usuario("ana"), usuario("eva"), usuario("admin")));
+        when(usuarioRepository.insertarIgnorandoDuplicados(anyList()))
+                .thenReturn(new int[]{1, 1}, new int[]{0, 1}, new int[]{0});
+
+        // Act
+        ProvisionUsuariosRespuestaDTO resultado = servicioProvisionUsuarios.provisionarUsuarios(dto);
+
+        // Assert
+        assertEquals(5, resultado.getTotalFilas());
+        assertEquals(3, resultado.getCreados());
+        assertEquals(List.of(new UsuarioDuplicadoDTO(2, "ana"), new UsuarioDuplicadoDTO(4, "admin")), resultado.getDuplicados());
+        verify(usuarioRepository, times(3)).insertarIgnorandoDuplicados(anyList());
+        verify(usuarioRepository, never()).existsByNombreUsuario(any());
+        verify(busInvalidacion).propagar("usuario-nombre", "eva");
+        verify(busInvalidacion, never()).propagar("usuario-nombre", "admin");
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.AjustesStockDTO;
+import com.example.ecommerce.dto.DetallePedidoCreacionDTO;
+import com.example.ecommerce.dto.ReservaCreacionDTO;
+import com.example.ecommerce.dto.ReservaRespuestaDTO;
+import com.example.ecommerce.modelo.entidades.LineaReserva;
+import com.example.ecommerce.modelo.entidades.ReservaStock;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.repositorios.ReservaStockRepository;
+import com.example.ecommerce.repositorios.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de las reservas de stock.
+ */
+@ExtendWith(MockitoExtension.class)
+class ServicioReservasTest {
+
+    private static final ZoneId ZONA = ZoneId.of("Europe/Madrid");
+    private static final LocalDateTime AHORA = LocalDateTime.of(2026, 10, 19, 12, 0);
+
+    @Mock
+    private ReservaStockRepository reservaStockRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ProductoService productoService;
+
+    @Mock
+    private PedidoService pedidoService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ServicioReservas servicioReservas;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        Clock reloj = Clock.fixed(ZonedDateTime.of(AHORA, ZONA).toInstant(), ZONA);
+        // La rueda no se inicia: los vencimientos programados quedan pendientes
+        servicioReservas = new ServicioReservas(reservaStockRepository, usuarioRepository, productoService,
+                pedidoService, jdbcTemplate, transactionManager, meterRegistry, reloj, Duration.ofMinutes(15),
+                Duration.ofMillis(100), 64);
+        usuario = new Usuario();
+        usuario.setId(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        servicioReservas.detener();
+    }
+
+    private static DetallePedidoCreacionDTO detalle(long productoId, int cantidad) {
+        DetallePedidoCreacionDTO detalle = new DetallePedidoCreacionDTO();
+        detalle.setProductoId(productoId);
+        detalle.setCantidad(cantidad);
+        return detalle;
+    }
+
+    private double pendientes() {
+        return meterRegistry.get("reservas.pendientes").gauge().value();
+    }
+
+    @Test
+    @DisplayName("Debería descontar el stock reservado y programar el vencimiento de la reserva")
+    void deberiaReservarStock() {
+        // Arrange
+        ReservaCreacionDTO dto = new ReservaCreacionDTO();
+        dto.setUsuarioId(1L);
+        dto.setDetalles(List.of(detalle(102L, 1), detalle(101L, 2), detalle(102L, 3)));
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(reservaStockRepository.save(any(ReservaStock.class))).thenAnswer(invocacion -> {
+            ReservaStock reserva = invocacion.getArgument(0);
+            reserva.setId(50L);
+            return reserva;
+        });
+
+        // Act
+        ReservaRespuestaDTO resultado = servicioReservas.reservar(dto);
+
+        // Assert
+        ArgumentCaptor<AjustesStockDTO> captorAjustes = ArgumentCaptor.forClass(AjustesStockDTO.class);
+        verify(productoService).ajustarStock(captorAjustes.capture());
+        // Un ajuste negativo por producto, consolidado y en orden de ID
+        assertEquals(List.of(101L, 102L), captorAjustes.getValue().getAjustes().stream()
+                .map(a -> a.getProductoId()).toList());
+        assertEquals(List.of(-2, -4), captorAjustes.getValue().getAjustes().stream()
+                .map(a -> a.getDelta()).toList());
+        assertEquals(50L, resultado.getId());
+        assertEquals(AHORA.plusMinutes(15), resultado.getExpiraEn());
+        assertEquals(1.0, pendientes());
+    }
+
+    @Test
+    @DisplayName("Debería devolver el stock solo de las reservas vencidas y reprogramar las que siguen vigentes")
+    void deberiaVencerReservas() {
+        // Arrange
+        ReservaStock vencida = new ReservaStock(1L, usuario, AHORA.minusMinutes(15), AHORA.minusSeconds(1),
+                List.of(new LineaReserva(101L, 2), new LineaReserva(102L, 1)));
+        ReservaStock vigente = new ReservaStock(2L, usuario, AHORA, AHORA.plusMinutes(10),
+                List.of(new LineaReserva(101L, 5)));
+        when(reservaStockRepository.findAllByIdParaActualizar(List.of(1L, 2L, 3L))).thenReturn(List.of(vencida, vigente));
+
+        // Act: la reserva 3 ya se había confirmado
+        servicioReservas.vencer(List.of(1L, 2L, 3L));
+
+        // Assert
+        verify(reservaStockRepository).deleteAllInBatch(List.of(vencida));
+        verify(productoService).devolverStock(Map.of(101L, 2, 102L, 1));
+        assertEquals(1.0, meterRegistry.get("reservas").tag("resultado", "vencida").counter().count());
+        assertEquals(1.0, pendientes());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.excepciones.TokenInvalidoException;
+import com.example.ecommerce.modelo.entidades.Usuario;
+import com.example.ecommerce.modelo.entidades.enums.Rol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para ServicioTokenJwt.
+ */
+class ServicioTokenJwtTest {
+
+    private static final String SECRETO = "ZGV2LXNlY3JldG8tand0LWVjb21tZXJjZS1ub3QtZm9yLXByb2R1Y3Rpb24tdXNl";
+
+    private ServicioTokenJwt servicioTokenJwt;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        servicioTokenJwt = new ServicioTokenJwt(SECRETO, Duration.ofMinutes(15), Duration.ofDays(7));
+
+        usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setNombreUsuario("usuarioPrueba");
+        usuario.setRol(Rol.USER);
+    }
+
+    @Test
+    @DisplayName("Debería reconstruir el usuario a partir de un token de acceso válido")
+    void deberiaValidarTokenDeAcceso() {
+        String token = servicioTokenJwt.generarTokenAcceso(usuario);
+
+        Usuario autenticado = servicioTokenJwt.validarTokenAcceso(token);
+
+        assertEquals(1L, autenticado.getId());
+        assertEquals("usuarioPrueba", autenticado.getNombreUsuario());
+        assertEquals(Rol.USER, autenticado.getRol());
+        assertNull(autenticado.getContrasena());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un token con la firma alterada")
+    void deberiaRechazarTokenConFirmaAlterada() {
+        String token = servicioTokenJwt.generarTokenAcceso(usuario);
+        int inicioFirma = token.lastIndexOf('.') + 1;
+        char alterada = token.charAt(inicioFirma) == 'A' ? 'B' : 'A';
+        String alterado = token.substring(0, inicioFirma) + alterada + token.substring(inicioFirma + 1);
+
+        assertThrows(TokenInvalidoException.class, () -> servicioTokenJwt.validarTokenAcceso(alterado));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un token expirado")
+    void deberiaRechazarTokenExpirado() {
+        ServicioTokenJwt servicioExpirado = new ServicioTokenJwt(SECRETO, Duration.ofSeconds(-1), Duration.ofDays(7));
+        String token = servicioExpirado.generarTokenAcceso(usuario);
+
+        assertThrows(TokenInvalidoException.class, () -> servicioTokenJwt.validarTokenAcceso(token));
+    }
+
+    @Test
+    @DisplayName("Un token de refresco no debería aceptarse como token de acceso ni viceversa")
+    void deberiaDistinguirTiposDeToken() {
+        String tokenAcceso = servicioTokenJwt.generarTokenAcceso(usuario);
+        String tokenRefresco = servicioTokenJwt.generarTokenRefresco(usuario);
+
+        assertEquals(1L, servicioTokenJwt.validarTokenRefresco(tokenRefresco));
+        assertThrows(TokenInvalidoException.class, () -> servicioTokenJwt.validarTokenAcceso(tokenRefresco));
+        assertThrows(TokenInvalidoException.class, () -> servicioTokenJwt.validarTokenRefresco(tokenAcceso));
+    }
+}
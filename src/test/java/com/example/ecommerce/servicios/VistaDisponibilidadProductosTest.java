@@ -0,0 +1,100 @@
+package com.example.ecommerce.servicios;
+
+import com.example.ecommerce.dto.DetallePedidoCreacionDTO;
+import com.example.ecommerce.dto.PedidoCreacionDTO;
+import com.example.ecommerce.eventos.EventoCambio;
+import com.example.ecommerce.eventos.EventosEscritos;
+import com.example.ecommerce.excepciones.RecursoNoEncontradoException;
+import com.example.ecommerce.excepciones.StockInsuficienteException;
+import com.example.ecommerce.invalidacion.BusInvalidacion;
+import com.example.ecommerce.metricas.MetricasPedido;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Pruebas unitarias de la vista de admisión de pedidos.
+ */
+class VistaDisponibilidadProductosTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private VistaDisponibilidadProductos vista;
+    private Consumer<String> invalidacionRemota;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        BusInvalidacion bus = mock(BusInvalidacion.class);
+        vista = new VistaDisponibilidadProductos(new MetricasPedido(meterRegistry, 100), bus, meterRegistry,
+                1000, Duration.ofMinutes(1));
+        ArgumentCaptor<Consumer<String>> invalidarClave = ArgumentCaptor.forClass(Consumer.class);
+        verify(bus).registrar(eq("producto"), invalidarClave.capture(), any());
+        invalidacionRemota = invalidarClave.getValue();
+    }
+
+    private static PedidoCreacionDTO pedido(long productoId, int cantidad) {
+        DetallePedidoCreacionDTO detalle = new DetallePedidoCreacionDTO();
+        detalle.setProductoId(productoId);
+        detalle.setCantidad(cantidad);
+        PedidoCreacionDTO pedido = new PedidoCreacionDTO();
+        pedido.setUsuarioId(1L);
+        pedido.setDetalles(List.of(detalle));
+        return pedido;
+    }
+
+    @Test
+    @DisplayName("Debería rechazar sin traza los pedidos que superan el último stock confirmado y olvidarlo al invalidarse")
+    void deberiaRechazarPedidosDeProductosAgotados() {
+        // Arrange: el evento de la versión 7 llega antes que el de la 5, que se descarta
+        vista.alConfirmar(new EventosEscritos(List.of(EventoCambio.stock(101L, 0)), List.of(7L)));
+        vista.alConfirmar(new EventosEscritos(List.of(EventoCambio.stock(101L, 3)), List.of(5L)));
+        vista.alConfirmar(new EventosEscritos(List.of(EventoCambio.stock(102L, 3)), List.of(8L)));
+
+        // Act & Assert
+        StockInsuficienteException excepcion = assertThrows(StockInsuficienteException.class,
+                () -> vista.comprobar(pedido(101L, 1)));
+        assertEquals(0, excepcion.getStackTrace().length);
+        assertThrows(StockInsuficienteException.class, () -> vista.comprobar(pedido(102L, 4)));
+        assertDoesNotThrow(() -> vista.comprobar(pedido(102L, 3)));
+        assertDoesNotThrow(() -> vista.comprobar(pedido(103L, 1000)));
+
+        // Otra instancia repone el stock: la entrada se olvida y decide la base de datos
+        invalidacionRemota.accept("101");
+        assertDoesNotThrow(() -> vista.comprobar(pedido(101L, 1)));
+        assertEquals(2, meterRegistry.get("pedidos.admision.rechazos").tag("motivo", "stock_insuficiente")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar los productos inexistentes hasta que un evento confirme que existen")
+    void deberiaRechazarProductosInexistentes() {
+        // Arrange
+        vista.registrarInexistente(200L);
+        vista.alConfirmar(new EventosEscritos(List.of(EventoCambio.stock(201L, 5)), List.of(3L)));
+        vista.registrarInexistente(201L);
+        vista.alConfirmar(new EventosEscritos(List.of(EventoCambio.productoEliminado(202L)), List.of(4L)));
+
+        // Act & Assert
+        assertThrows(RecursoNoEncontradoException.class, () -> vista.comprobar(pedido(200L, 1)));
+        assertDoesNotThrow(() -> vista.comprobar(pedido(201L, 1)));
+        assertThrows(RecursoNoEncontradoException.class, () -> vista.comprobar(pedido(202L, 1)));
+
+        vista.alConfirmar(new EventosEscritos(List.of(EventoCambio.stock(200L, 2)), List.of(9L)));
+        assertDoesNotThrow(() -> vista.comprobar(pedido(200L, 2)));
+        assertEquals(1, meterRegistry.get("pedidos.rechazos")
+                .tags("motivo", "producto_no_encontrado", "producto", "202").counter().count());
+    }
+}